@@ -73,6 +73,7 @@ import cwms.cda.api.ProjectController;
 import cwms.cda.api.PropertyController;
 import cwms.cda.api.RatingController;
 import cwms.cda.api.RatingMetadataController;
+import cwms.cda.api.RatingRateController;
 import cwms.cda.api.RatingSpecController;
 import cwms.cda.api.RatingTemplateController;
 import cwms.cda.api.SpecifiedLevelController;
@@ -83,6 +84,8 @@ import cwms.cda.api.StreamLocationController;
 import cwms.cda.api.StreamReachController;
 import cwms.cda.api.TextTimeSeriesController;
 import cwms.cda.api.TextTimeSeriesValueController;
+import cwms.cda.api.TimeSeriesBatchController;
+import cwms.cda.api.TimeSeriesBulkController;
 import cwms.cda.api.TimeSeriesCategoryController;
 import cwms.cda.api.TimeSeriesController;
 import cwms.cda.api.TimeSeriesGroupController;
@@ -95,6 +98,7 @@ import cwms.cda.api.TurbineChangesPostController;
 import cwms.cda.api.TurbineController;
 import cwms.cda.api.UnitsController;
 import cwms.cda.api.UpstreamLocationsGetController;
+import cwms.cda.api.VersionedEndpoint;
 import cwms.cda.api.auth.ApiKeyController;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.errors.AlreadyExists;
@@ -136,7 +140,10 @@ import cwms.cda.api.watersupply.WaterUserController;
 import cwms.cda.api.watersupply.WaterUserCreateController;
 import cwms.cda.api.watersupply.WaterUserDeleteController;
 import cwms.cda.api.watersupply.WaterUserUpdateController;
+import cwms.cda.data.dao.AuthDao;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.JooqDao;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.formatters.Formats;
 import cwms.cda.formatters.FormattingException;
 import cwms.cda.formatters.UnsupportedFormatException;
@@ -154,6 +161,7 @@ import io.javalin.core.security.RouteRole;
 import io.javalin.core.util.Header;
 import io.javalin.core.validation.JavalinValidation;
 import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
 import io.javalin.http.Handler;
 import io.javalin.http.JavalinServlet;
 import io.javalin.plugin.openapi.OpenApiOptions;
@@ -177,6 +185,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.jar.Manifest;
 import javax.annotation.Resource;
 import javax.management.ServiceNotFoundException;
@@ -262,10 +271,26 @@ public class ApiServlet extends HttpServlet {
     @Resource(name = "jdbc/CWMS3")
     DataSource cwms;
 
-
+    private ReferenceDataStore referenceData;
+    private CdaAccessManager accessManager;
 
     @Override
     public void destroy() {
+        if (referenceData != null) {
+            referenceData.close();
+        }
+        if (accessManager != null) {
+            // e.g. the OpenID manager's key refresh thread
+            for (CdaAccessManager manager : accessManager.getContainedManagers()) {
+                if (manager instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) manager).close();
+                    } catch (Exception e) {
+                        logger.atWarning().withCause(e).log("Unable to close %s", manager.getName());
+                    }
+                }
+            }
+        }
         javalin.destroy();
     }
 
@@ -275,6 +300,7 @@ public class ApiServlet extends HttpServlet {
         metrics = (MetricRegistry)config.getServletContext()
                 .getAttribute(MetricsServlet.METRICS_REGISTRY);
         totalRequests = metrics.meter("cwms.dataapi.total_requests");
+        AuthDao.registerCacheMetrics(metrics);
         super.init(config);
     }
 
@@ -290,6 +316,9 @@ public class ApiServlet extends HttpServlet {
 
         PolicyFactory sanitizer = new HtmlPolicyBuilder().disallowElements("<script>").toFactory();
         String context = this.getServletContext().getContextPath();
+        if (ReferenceDataStore.ENABLED && cwms != null) {
+            referenceData = new ReferenceDataStore(cwms, officeFromContext(context), metrics);
+        }
         javalin = Javalin.createStandalone(config -> {
                     config.defaultContentType = "application/json";
                     config.contextPath = context;
@@ -305,6 +334,7 @@ public class ApiServlet extends HttpServlet {
                     ctx.header("X-Frame-Options", "SAMEORIGIN");
                     ctx.header("X-XSS-Protection", "1; mode=block");
                 })
+                .after(JooqDao::releaseDslContextAfterHandler)
                 .exception(UnsupportedFormatException.class, (e, ctx) -> {
                     CdaError re = new CdaError(e.getMessage());
                     logger.atInfo().withCause(e).log(re.toString());
@@ -510,6 +540,8 @@ public class ApiServlet extends HttpServlet {
                 new TimeSeriesIdentifierDescriptorController(metrics), requiredRoles,5, TimeUnit.MINUTES);
         cdaCrudCache("/timeseries/group/{group-id}",
                 new TimeSeriesGroupController(metrics), requiredRoles,5, TimeUnit.MINUTES);
+        post("/timeseries/bulk", new TimeSeriesBulkController(metrics));
+        post("/timeseries/batch", new TimeSeriesBatchController(metrics), requiredRoles);
         cdaCrudCache("/timeseries/{timeseries}",
                 new TimeSeriesController(metrics), requiredRoles,5, TimeUnit.MINUTES);
         cdaCrudCache("/ratings/template/{template-id}",
@@ -518,6 +550,7 @@ public class ApiServlet extends HttpServlet {
                 new RatingSpecController(metrics), requiredRoles,5, TimeUnit.MINUTES);
         cdaCrudCache("/ratings/metadata/{rating-id}",
                 new RatingMetadataController(metrics), requiredRoles,5, TimeUnit.MINUTES);
+        get("/ratings/{rating-id}/rate", new RatingRateController(metrics));
         cdaCrudCache("/ratings/{rating-id}",
                 new RatingController(metrics), requiredRoles,5, TimeUnit.MINUTES);
         cdaCrudCache("/catalog/{dataset}",
@@ -741,15 +774,24 @@ public class ApiServlet extends HttpServlet {
         //noinspection KotlinInternalInJava
         Map<CrudFunction, Handler> crudFunctions = CrudHandlerKt.getCrudFunctions(crudHandler, resourceId);
 
+        Handler getOne = crudFunctions.get(CrudFunction.GET_ONE);
+        Handler getAll = crudFunctions.get(CrudFunction.GET_ALL);
+        if (crudHandler instanceof VersionedEndpoint) {
+            VersionedEndpoint versioned = (VersionedEndpoint) crudHandler;
+            String idParam = resourceId.substring(1, resourceId.length() - 1);
+            getOne = conditionalGet(getOne, ctx -> versioned.getOneMarker(ctx, ctx.pathParam(idParam)));
+            getAll = conditionalGet(getAll, versioned::getAllMarker);
+        }
+
         Javalin instance = staticInstance();
         // getOne and getAll are assumed not to need authorization
         String pathWithoutResource = fullPath.replace(resourceId, "");
         if (getRequiresAuth) {
-            instance.get(fullPath, crudFunctions.get(CrudFunction.GET_ONE), roles);
-            instance.get(pathWithoutResource, crudFunctions.get(CrudFunction.GET_ALL), roles);
+            instance.get(fullPath, getOne, roles);
+            instance.get(pathWithoutResource, getAll, roles);
         } else {
-            instance.get(fullPath, crudFunctions.get(CrudFunction.GET_ONE));
-            instance.get(pathWithoutResource, crudFunctions.get(CrudFunction.GET_ALL));
+            instance.get(fullPath, getOne);
+            instance.get(pathWithoutResource, getAll);
         }
 
         // create, update and delete need authorization.
@@ -758,6 +800,34 @@ public class ApiServlet extends HttpServlet {
         instance.delete(fullPath, crudFunctions.get(CrudFunction.DELETE), roles);
     }
 
+    /**
+     * Runs a GET handler only if the client's copy isn't current according to the change marker,
+     * so a conditional request costs the marker's query instead of the full one.
+     * @param handler the GET handler
+     * @param markers the change marker of a request, null if it can't be validated
+     * @return the wrapped handler
+     */
+    private static Handler conditionalGet(Handler handler, Function<Context, ChangeMarker> markers) {
+        return ctx -> {
+            ChangeMarker marker = null;
+            try {
+                marker = markers.apply(ctx);
+            } catch (RuntimeException e) {
+                // The handler will report whatever is wrong with the request.
+                logger.atFine().withCause(e).log("No change marker for %s", ctx.path());
+            }
+            if (marker == null || !Controllers.notModified(ctx, marker)) {
+                handler.handle(ctx);
+                if (marker != null && ctx.status() >= HttpServletResponse.SC_BAD_REQUEST
+                        && !ctx.res.isCommitted()) {
+                    // An error isn't the representation the validators describe.
+                    ctx.res.setHeader(Header.ETAG, null);
+                    ctx.res.setHeader(Header.LAST_MODIFIED, null);
+                }
+            }
+        };
+    }
+
     /**
      * Given a path like "/location/category/{category-id}" this method returns "{category-id}".
      * @param fullPath the full path to extract the resource id from.
@@ -797,6 +867,7 @@ public class ApiServlet extends HttpServlet {
         String provider = getAccessManagerName();
 
         CdaAccessManager am = buildAccessManager(provider);
+        accessManager = am;
         Components components = new Components();
         final ArrayList<SecurityRequirement> secReqs = new ArrayList<>();
         am.getContainedManagers().forEach(manager -> {
@@ -881,6 +952,7 @@ public class ApiServlet extends HttpServlet {
             //logger.atInfo().log("Connection user name is: %s")
             req.setAttribute(DATA_SOURCE, cwms);
             req.setAttribute(RAW_DATA_SOURCE,cwms);
+            req.setAttribute(ReferenceDataStore.ATTRIBUTE, referenceData);
             javalin.service(req, resp);
         } catch (Exception ex) {
             CdaError re = new CdaError("Major Database Issue");
@@ -891,6 +963,17 @@ public class ApiServlet extends HttpServlet {
                 ObjectMapper om = new ObjectMapper();
                 out.println(om.writeValueAsString(re));
             }
+        } finally {
+            // Usually released after the handler already; results streamed from the database
+            // hold the connection until they have been written.
+            JooqDao.releaseDslContext(req);
+        }
+        Object aborted = req.getAttribute(Controllers.ABORTED_RESPONSE);
+        if (aborted instanceof Throwable) {
+            // Escaping the servlet makes the container drop the connection instead of ending
+            // the partly sent body as if it were complete.
+            throw new ServletException("Response to " + req.getRequestURI() + " aborted",
+                    (Throwable) aborted);
         }
     }
 
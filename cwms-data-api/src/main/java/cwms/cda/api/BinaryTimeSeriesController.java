@@ -30,6 +30,7 @@ import static cwms.cda.api.Controllers.DATE;
 import static cwms.cda.api.Controllers.DELETE;
 import static cwms.cda.api.Controllers.END;
 import static cwms.cda.api.Controllers.GET_ALL;
+import static cwms.cda.api.Controllers.MEDIA_TYPE;
 import static cwms.cda.api.Controllers.NAME;
 import static cwms.cda.api.Controllers.NOT_SUPPORTED_YET;
 import static cwms.cda.api.Controllers.OFFICE;
@@ -37,6 +38,7 @@ import static cwms.cda.api.Controllers.STATUS_200;
 import static cwms.cda.api.Controllers.TIMEZONE;
 import static cwms.cda.api.Controllers.UPDATE;
 import static cwms.cda.api.Controllers.VERSION_DATE;
+import static cwms.cda.api.Controllers.isRawBinary;
 import static cwms.cda.api.Controllers.queryParamAsInstant;
 import static cwms.cda.api.Controllers.requiredInstant;
 import static cwms.cda.api.Controllers.requiredParam;
@@ -183,14 +185,27 @@ public class BinaryTimeSeriesController implements CrudHandler {
     }
 
     @OpenApi(
-            description = "Create new BinaryTimeSeries",
+            description = "Create new BinaryTimeSeries.  A single value can also be sent as the "
+                    + "raw bytes of an " + Formats.BINARY + " body, with the metadata in query "
+                    + "parameters, which avoids base64 encoding and holding large values in memory.",
             requestBody = @OpenApiRequestBody(
                 content = {
-                    @OpenApiContent(from = BinaryTimeSeries.class, type = Formats.JSONV2)
+                    @OpenApiContent(from = BinaryTimeSeries.class, type = Formats.JSONV2),
+                    @OpenApiContent(type = Formats.BINARY)
                 },
                 required = true),
             queryParams = {
-                @OpenApiParam(name = REPLACE_ALL, type = Boolean.class)
+                @OpenApiParam(name = REPLACE_ALL, type = Boolean.class),
+                @OpenApiParam(name = OFFICE, description = "Specifies the owning office of the "
+                        + "time series. Required for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = NAME, description = "Specifies the id of the time series. "
+                        + "Required for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = DATE, description = "The time of the value. "
+                        + "Required for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = VERSION_DATE, description = "The version date of the value, "
+                        + "for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = MEDIA_TYPE, description = "The media type of the value, "
+                        + "e.g. image/png. Required for " + Formats.BINARY + " bodies.")
             },
             method = HttpMethod.POST,
             tags = {TAG}
@@ -199,16 +214,21 @@ public class BinaryTimeSeriesController implements CrudHandler {
     public void create(@NotNull Context ctx) {
         try (Timer.Context ignored = markAndTime(CREATE)) {
             DSLContext dsl = getDslContext(ctx);
-
-            String formatHeader = ctx.req.getContentType();
-            ContentType contentType = Formats.parseHeader(formatHeader, BinaryTimeSeries.class);
-            BinaryTimeSeries tts = deserializeBody(ctx, contentType);
             TimeSeriesBinaryDao dao = getDao(dsl);
 
             boolean maxVersion = true;
             boolean replaceAll = ctx.queryParamAsClass(REPLACE_ALL, Boolean.class).getOrDefault(false);
 
-            dao.store(tts, maxVersion, replaceAll);
+            if (isRawBinary(ctx)) {
+                dao.store(requiredParam(ctx, OFFICE), requiredParam(ctx, NAME), ctx.bodyAsInputStream(),
+                        requiredParam(ctx, MEDIA_TYPE), requiredInstant(ctx, DATE),
+                        queryParamAsInstant(ctx, VERSION_DATE), maxVersion, replaceAll);
+            } else {
+                String formatHeader = ctx.req.getContentType();
+                ContentType contentType = Formats.parseHeader(formatHeader, BinaryTimeSeries.class);
+                BinaryTimeSeries tts = deserializeBody(ctx, contentType);
+                dao.store(tts, maxVersion, replaceAll);
+            }
             ctx.status(HttpServletResponse.SC_CREATED);
         }
     }
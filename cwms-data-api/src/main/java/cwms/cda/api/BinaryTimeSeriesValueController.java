@@ -44,6 +44,7 @@ import java.util.logging.Logger;
 import static com.codahale.metrics.MetricRegistry.name;
 import static cwms.cda.api.Controllers.*;
 import static cwms.cda.data.dao.JooqDao.getDslContext;
+import static cwms.cda.data.dao.JooqDao.holdConnectionUntilWritten;
 
 
 public class BinaryTimeSeriesValueController implements Handler {
@@ -101,6 +102,7 @@ public class BinaryTimeSeriesValueController implements Handler {
                     long size = blob.length();
                     requestResultSize.update(size);
                     InputStream is = blob.getBinaryStream();
+                    holdConnectionUntilWritten(ctx);
                     ctx.seekableStream(is, mediaType, size);
                 }
             });
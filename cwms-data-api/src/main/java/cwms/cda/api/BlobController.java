@@ -153,6 +153,7 @@ public class BlobController implements CrudHandler {
                     long size = blob.length();
                     requestResultSize.update(size);
                     InputStream is = blob.getBinaryStream();
+                    JooqDao.holdConnectionUntilWritten(ctx);
                     ctx.seekableStream(is, mediaType, size);
                 }
             };
@@ -166,15 +167,26 @@ public class BlobController implements CrudHandler {
 
 
     @OpenApi(
-            description = "Create new Blob",
+            description = "Create new Blob.  The value can also be sent as the raw bytes of an "
+                    + Formats.BINARY + " body, with the metadata in query parameters, which "
+                    + "avoids base64 encoding and holding large values in memory.",
             requestBody = @OpenApiRequestBody(
                     content = {
-                        @OpenApiContent(from = Blob.class, type = Formats.JSONV2)
+                        @OpenApiContent(from = Blob.class, type = Formats.JSONV2),
+                        @OpenApiContent(type = Formats.BINARY)
                     },
                     required = true),
             queryParams = {
                 @OpenApiParam(name = FAIL_IF_EXISTS, type = Boolean.class,
-                        description = "Create will fail if provided ID already exists. Default: true")
+                        description = "Create will fail if provided ID already exists. Default: true"),
+                @OpenApiParam(name = OFFICE, description = "Specifies the owning office. "
+                        + "Required for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = BLOB_ID, description = "The id of the blob. "
+                        + "Required for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = MEDIA_TYPE, description = "The media type of the value, "
+                        + "e.g. application/pdf. Required for " + Formats.BINARY + " bodies."),
+                @OpenApiParam(name = DESCRIPTION, description = "Description of the blob, "
+                        + "for " + Formats.BINARY + " bodies.")
             },
             method = HttpMethod.POST,
             tags = {TAG}
@@ -185,10 +197,16 @@ public class BlobController implements CrudHandler {
             DSLContext dsl = getDslContext(ctx);
             String formatHeader = ctx.req.getContentType();
             boolean failIfExists = ctx.queryParamAsClass(FAIL_IF_EXISTS, Boolean.class).getOrDefault(true);
-            ContentType contentType = Formats.parseHeader(formatHeader, Blob.class);
-            Blob blob = Formats.parseContent(contentType, ctx.bodyAsInputStream(), Blob.class);
             BlobDao dao = new BlobDao(dsl);
-            dao.create(blob, failIfExists, false);
+            if (isRawBinary(ctx)) {
+                dao.create(requiredParam(ctx, OFFICE), requiredParam(ctx, BLOB_ID),
+                        ctx.queryParam(DESCRIPTION), requiredParam(ctx, MEDIA_TYPE),
+                        ctx.bodyAsInputStream(), failIfExists, false);
+            } else {
+                ContentType contentType = Formats.parseHeader(formatHeader, Blob.class);
+                Blob blob = Formats.parseContent(contentType, ctx.bodyAsInputStream(), Blob.class);
+                dao.create(blob, failIfExists, false);
+            }
             ctx.status(HttpCode.CREATED);
         }
     }
@@ -2,6 +2,7 @@ package cwms.cda.api;
 
 import static com.codahale.metrics.MetricRegistry.name;
 import static cwms.cda.api.Controllers.ACCEPT;
+import static cwms.cda.api.Controllers.BBOX;
 import static cwms.cda.api.Controllers.BOUNDING_OFFICE_LIKE;
 import static cwms.cda.api.Controllers.CURSOR;
 import static cwms.cda.api.Controllers.EXCLUDE_EMPTY;
@@ -16,6 +17,7 @@ import static cwms.cda.api.Controllers.LOCATION_TYPE_LIKE;
 import static cwms.cda.api.Controllers.OFFICE;
 import static cwms.cda.api.Controllers.PAGE;
 import static cwms.cda.api.Controllers.PAGE_SIZE;
+import static cwms.cda.api.Controllers.RADIUS;
 import static cwms.cda.api.Controllers.RESULTS;
 import static cwms.cda.api.Controllers.SIZE;
 import static cwms.cda.api.Controllers.STATUS_200;
@@ -31,11 +33,13 @@ import com.codahale.metrics.Timer;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.errors.CdaError;
 import cwms.cda.data.dao.CatalogRequestParameters;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.JooqDao;
 import cwms.cda.data.dao.LocationsDao;
 import cwms.cda.data.dao.LocationsDaoImpl;
 import cwms.cda.data.dao.TimeSeriesDao;
 import cwms.cda.data.dao.TimeSeriesDaoImpl;
+import cwms.cda.data.dao.location.BoundingBox;
 import cwms.cda.data.dto.Catalog;
 import cwms.cda.data.dto.Office;
 import cwms.cda.formatters.ContentType;
@@ -54,10 +58,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.DSLContext;
 import org.owasp.html.PolicyFactory;
 
-public class CatalogController implements CrudHandler {
+public class CatalogController implements CrudHandler, VersionedEndpoint {
 
     private static final Logger logger = Logger.getLogger(CatalogController.class.getName());
     private static final String TAG = "Catalog";
@@ -168,6 +173,17 @@ public class CatalogController implements CrudHandler {
                     description = "Posix <a href=\"regexp.html\">regular expression</a> matching "
                         + "against the location type."
                 ),
+            @OpenApiParam(name = BBOX,
+                    description = "Only return locations within this box, given as "
+                        + "minLon,minLat,maxLon,maxLat in decimal degrees.  When a radius is "
+                        + "given the box may instead be the center point as lon,lat.  The box is "
+                        + "not kept in the page cursor and must be provided with every page. "
+                        + "Only valid for LOCATIONS."
+                ),
+            @OpenApiParam(name = RADIUS, type = Double.class,
+                    description = "Only return locations within this many kilometers of the "
+                        + "center of the " + BBOX + ". Only valid for LOCATIONS."
+                ),
         },
         pathParams = {
             @OpenApiParam(name = "dataset",
@@ -210,12 +226,6 @@ public class CatalogController implements CrudHandler {
 
             String like = ctx.queryParamAsClass(LIKE, String.class).getOrDefault(".*");
 
-            String tsCategoryLike = queryParamAsClass(ctx, new String[]{TIMESERIES_CATEGORY_LIKE},
-                    String.class, null, metrics, name(CatalogController.class.getName(), GET_ONE));
-
-            String tsGroupLike = queryParamAsClass(ctx, new String[]{TIMESERIES_GROUP_LIKE},
-                    String.class, null, metrics, name(CatalogController.class.getName(), GET_ONE));
-
             String locCategoryLike = queryParamAsClass(ctx, new String[]{LOCATION_CATEGORY_LIKE},
                     String.class, null, metrics, name(CatalogController.class.getName(), GET_ONE));
 
@@ -236,33 +246,16 @@ public class CatalogController implements CrudHandler {
             Catalog cat = null;
             if (TIMESERIES.equalsIgnoreCase(valDataSet)) {
                 TimeSeriesDao tsDao = new TimeSeriesDaoImpl(dsl, metrics);
-
-                boolean includeExtents = ctx.queryParamAsClass(INCLUDE_EXTENTS, Boolean.class)
-                        .getOrDefault(INCLUDE_EXTENTS_DEFAULT);
-                boolean excludeExtents = ctx.queryParamAsClass(EXCLUDE_EMPTY, Boolean.class)
-                        .getOrDefault(EXCLUDE_EMPTY_DEFAULT);
-
-                CatalogRequestParameters parameters = new CatalogRequestParameters.Builder()
-                        .withOffice(office)
-                        .withIdLike(like)
-                        .withLocCatLike(locCategoryLike)
-                        .withLocGroupLike(locGroupLike)
-                        .withTsCatLike(tsCategoryLike)
-                        .withTsGroupLike(tsGroupLike)
-                        .withBoundingOfficeLike(boundingOfficeLike)
-                        .withIncludeExtents(includeExtents)
-                        .withExcludeEmpty(excludeExtents)
-                        .withLocationKind(locationKind)
-                        .withLocationType(locationType)
-                        .build();
-
-                cat = tsDao.getTimeSeriesCatalog(cursor, pageSize, parameters);
+                cat = tsDao.getTimeSeriesCatalog(cursor, pageSize, timeSeriesParameters(ctx));
 
             } else if (LOCATIONS.equalsIgnoreCase(valDataSet)) {
 
                 warnAboutNotSupported(ctx, new String[]{TIMESERIES_CATEGORY_LIKE,
                         TIMESERIES_GROUP_LIKE, EXCLUDE_EMPTY, INCLUDE_EXTENTS});
 
+                BoundingBox bbox = BoundingBox.parse(ctx.queryParam(BBOX),
+                        ctx.queryParamAsClass(RADIUS, Double.class).allowNullable().get());
+
                 CatalogRequestParameters parameters = new CatalogRequestParameters.Builder()
                         .withUnitSystem(unitSystem)
                         .withOffice(office)
@@ -272,6 +265,7 @@ public class CatalogController implements CrudHandler {
                         .withBoundingOfficeLike(boundingOfficeLike)
                         .withLocationKind(locationKind)
                         .withLocationType(locationType)
+                        .withBbox(bbox)
                         .build();
 
                 LocationsDao dao = new LocationsDaoImpl(dsl);
@@ -291,6 +285,47 @@ public class CatalogController implements CrudHandler {
         }
     }
 
+    /**
+     * Time series searches the catalog index answers are validated with
+     * TimeSeriesDao#getTimeSeriesCatalogMarker, locations with
+     * LocationsDaoImpl#getLocationsMarker.
+     */
+    @Override
+    @Nullable
+    public ChangeMarker getOneMarker(@NotNull Context ctx, @NotNull String dataSet) {
+        if (LOCATIONS.equalsIgnoreCase(dataSet)) {
+            return LocationsDaoImpl.getLocationsMarker(ctx.queryParam(OFFICE));
+        }
+        if (!TIMESERIES.equalsIgnoreCase(dataSet)) {
+            return null;
+        }
+        String cursor = queryParamAsClass(ctx, new String[]{PAGE, CURSOR}, String.class, "");
+        int pageSize = queryParamAsClass(ctx, new String[]{PAGE_SIZE}, Integer.class,
+                DEFAULT_PAGE_SIZE);
+        TimeSeriesDao tsDao = new TimeSeriesDaoImpl(JooqDao.getDslContext(ctx), metrics);
+        return tsDao.getTimeSeriesCatalogMarker(cursor, pageSize, timeSeriesParameters(ctx));
+    }
+
+    private static CatalogRequestParameters timeSeriesParameters(Context ctx) {
+        return new CatalogRequestParameters.Builder()
+                .withOffice(ctx.queryParamAsClass(OFFICE, String.class).allowNullable()
+                        .check(Office::validOfficeCanNull, "Invalid office provided")
+                        .get())
+                .withIdLike(ctx.queryParamAsClass(LIKE, String.class).getOrDefault(".*"))
+                .withLocCatLike(ctx.queryParam(LOCATION_CATEGORY_LIKE))
+                .withLocGroupLike(ctx.queryParam(LOCATION_GROUP_LIKE))
+                .withTsCatLike(ctx.queryParam(TIMESERIES_CATEGORY_LIKE))
+                .withTsGroupLike(ctx.queryParam(TIMESERIES_GROUP_LIKE))
+                .withBoundingOfficeLike(ctx.queryParam(BOUNDING_OFFICE_LIKE))
+                .withIncludeExtents(ctx.queryParamAsClass(INCLUDE_EXTENTS, Boolean.class)
+                        .getOrDefault(INCLUDE_EXTENTS_DEFAULT))
+                .withExcludeEmpty(ctx.queryParamAsClass(EXCLUDE_EMPTY, Boolean.class)
+                        .getOrDefault(EXCLUDE_EMPTY_DEFAULT))
+                .withLocationKind(ctx.queryParam(LOCATION_KIND_LIKE))
+                .withLocationType(ctx.queryParam(LOCATION_TYPE_LIKE))
+                .build();
+    }
+
     private static void warnAboutNotSupported(@NotNull Context ctx, String[] warnAbout) {
         Set<String> notSupported = new LinkedHashSet<>();
         Collections.addAll(notSupported, warnAbout);
@@ -29,25 +29,44 @@ import static com.codahale.metrics.MetricRegistry.name;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.hash.Hashing;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.enums.VersionType;
 import cwms.cda.api.errors.RequiredQueryParameterException;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.JooqDao;
+import cwms.cda.data.dao.ReferenceDataStore;
+import cwms.cda.data.dao.StoreRule;
 import cwms.cda.formatters.ContentType;
 import cwms.cda.formatters.Formats;
 import cwms.cda.helpers.DateUtils;
+import io.javalin.core.util.Header;
 import io.javalin.core.validation.JavalinValidation;
 import io.javalin.core.validation.Validator;
 import io.javalin.http.Context;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.Nullable;
 
 public final class Controllers {
+    private static final Logger logger = Logger.getLogger(Controllers.class.getName());
 
+    /**
+     * Request attribute holding the failure of a response that was already partly sent, see
+     * {@link #streamFailed(Context, Exception)}.
+     */
+    public static final String ABORTED_RESPONSE = "cwms.cda.abortedResponse";
 
     public static final String GET_ONE = "getOne";
     public static final String GET_ALL = "getAll";
@@ -81,6 +100,8 @@ public final class Controllers {
     public static final String ACCEPT = "Accept";
     public static final String CLOB_ID = "clob-id";
     public static final String BLOB_ID = "blob-id";
+    public static final String MEDIA_TYPE = "media-type";
+    public static final String DESCRIPTION = "description";
     public static final String INCLUDE_VALUES = "include-values";
     public static final String FAIL_IF_EXISTS = "fail-if-exists";
     public static final String IGNORE_NULLS = "ignore-nulls";
@@ -134,6 +155,8 @@ public final class Controllers {
     public static final String ISSUE_DATE = "issue-date";
     public static final String LOCATION_KIND_LIKE = "location-kind-like";
     public static final String LOCATION_TYPE_LIKE = "location-type-like";
+    public static final String BBOX = "bbox";
+    public static final String RADIUS = "radius";
     public static final String MIN_NUMBER = "min-number";
     public static final String MAX_NUMBER = "max-number";
     public static final String MIN_HEIGHT = "min-height";
@@ -217,6 +240,7 @@ public final class Controllers {
         JavalinValidation.register(JooqDao.DeleteMethod.class, Controllers::getDeleteMethod);
         JavalinValidation.register(VersionType.class, VersionType::versionTypeFor);
         JavalinValidation.register(UnitSystem.class, UnitSystem::systemFor);
+        JavalinValidation.register(StoreRule.class, StoreRule::getStoreRule);
     }
 
     private Controllers() {
@@ -456,6 +480,117 @@ public final class Controllers {
         return retval;
     }
 
+    /**
+     * Whether the request body is raw binary data, which is streamed to the database rather than
+     * parsed, with the metadata in query parameters.
+     * @param ctx Request Context
+     * @return true for an application/octet-stream body
+     */
+    public static boolean isRawBinary(Context ctx) {
+        String contentType = ctx.req.getContentType();
+        return contentType != null
+                && contentType.split(";")[0].trim().equalsIgnoreCase(Formats.BINARY);
+    }
+
+    /**
+     * Set the ETag of the response and, if the client already has that representation, answer
+     * 304 Not Modified.
+     * @param ctx Request Context
+     * @param etag quoted strong entity tag of the representation
+     * @return true if the response is complete and no body should be written
+     */
+    public static boolean notModified(Context ctx, String etag) {
+        ctx.header(Header.ETAG, etag);
+        String ifNoneMatch = ctx.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                ctx.status(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validate a GET request against a change marker before the response is produced.  The
+     * ETag is derived from the marker and what was asked for (path, query string and Accept
+     * header); the marker's last modification, if any, is sent as Last-Modified and checked
+     * against If-Modified-Since when there is no If-None-Match.
+     * @param ctx Request Context
+     * @param marker the change marker of the data behind the response
+     * @return true if 304 Not Modified was answered and the handler should not run
+     */
+    public static boolean notModified(Context ctx, ChangeMarker marker) {
+        String etag = "\"" + Hashing.sha256().newHasher()
+                .putString(marker.getValue(), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(ctx.path(), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(String.valueOf(ctx.queryString()), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(String.valueOf(ctx.header(Header.ACCEPT)), StandardCharsets.UTF_8)
+                .hash() + "\"";
+        Instant lastModified = marker.getLastModified();
+        if (lastModified != null) {
+            ctx.header(Header.LAST_MODIFIED, DateTimeFormatter.RFC_1123_DATE_TIME
+                    .format(lastModified.atOffset(ZoneOffset.UTC)));
+            String ifModifiedSince = ctx.header(Header.IF_MODIFIED_SINCE);
+            if (ctx.header(Header.IF_NONE_MATCH) == null && ifModifiedSince != null) {
+                try {
+                    Instant since = DateTimeFormatter.RFC_1123_DATE_TIME.parse(ifModifiedSince,
+                            Instant::from);
+                    if (!lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(since)) {
+                        ctx.header(Header.ETAG, etag);
+                        ctx.status(HttpServletResponse.SC_NOT_MODIFIED);
+                        return true;
+                    }
+                } catch (DateTimeParseException e) {
+                    // An invalid date is ignored, as RFC 7232 requires.
+                }
+            }
+        }
+        return notModified(ctx, etag);
+    }
+
+    /**
+     * Write a serialized response, or 304 Not Modified if the client already has it.
+     * @param ctx Request Context
+     * @param body the response
+     */
+    public static void result(Context ctx, ReferenceDataStore.Body body) {
+        ctx.contentType(body.getContentType());
+        if (!notModified(ctx, body.getEtag())) {
+            ctx.status(HttpServletResponse.SC_OK);
+            ctx.result(body.getBytes());
+        }
+    }
+
+    /**
+     * Handle a failure part way through writing a streamed response.  While nothing has been
+     * sent, whatever was buffered is discarded and the exception is thrown on for the usual
+     * error response.  Once the response is committed an error body would only corrupt what was
+     * sent, so the failure is logged and recorded for ApiServlet to abort the connection, and
+     * the client sees the response was cut short.
+     * @param ctx Request Context
+     * @param e the failure
+     * @throws E if the response can still carry an error
+     */
+    public static <E extends Exception> void streamFailed(Context ctx, E e) throws E {
+        if (!ctx.res.isCommitted()) {
+            ctx.res.resetBuffer();
+            throw e;
+        }
+        logger.log(Level.SEVERE, e, () -> "Aborting partly sent response to " + ctx.fullUrl());
+        ctx.req.setAttribute(ABORTED_RESPONSE, e);
+    }
+
     static void addDeprecatedContentTypeWarning(Context ctx, ContentType type) {
         if (type.getType().equalsIgnoreCase(Formats.TAB)) {
             ctx.res.addHeader(DEPRECATED_HEADER, DEPRECATED_TAB);
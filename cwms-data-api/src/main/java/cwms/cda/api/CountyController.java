@@ -35,6 +35,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.cda.api.errors.CdaError;
 import cwms.cda.data.dao.CountyDao;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.data.dto.County;
 import cwms.cda.formatters.ContentType;
 import cwms.cda.formatters.Formats;
@@ -48,7 +49,6 @@ import io.javalin.plugin.openapi.annotations.OpenApiResponse;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.NotNull;
-import org.jooq.DSLContext;
 
 /**
  * Handles all county CRUD methods.
@@ -88,15 +88,20 @@ public class CountyController implements CrudHandler {
     @Override
     public void getAll(@NotNull Context ctx) {
         try (Timer.Context ignored = markAndTime(GET_ALL)) {
-            DSLContext dsl = getDslContext(ctx);
-            CountyDao dao = new CountyDao(dsl);
-            List<County> counties = dao.getCounties();
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
             String formatHeader = ctx.header(Header.ACCEPT);
             ContentType contentType = Formats.parseHeader(formatHeader, County.class);
-            String result = Formats.format(contentType, counties, County.class);
-            ctx.result(result).contentType(contentType.toString());
-            requestResultSize.update(result.length());
-            ctx.status(HttpServletResponse.SC_OK);
+            String type = contentType.toString();
+            ReferenceDataStore.Body body;
+            if (snapshot != null) {
+                body = snapshot.body("counties:" + type, type,
+                        () -> Formats.format(contentType, snapshot.getCounties(), County.class));
+            } else {
+                List<County> counties = new CountyDao(getDslContext(ctx)).getCounties();
+                body = ReferenceDataStore.Body.of(Formats.format(contentType, counties, County.class), type);
+            }
+            Controllers.result(ctx, body);
+            requestResultSize.update(body.getBytes().length);
         }
     }
 
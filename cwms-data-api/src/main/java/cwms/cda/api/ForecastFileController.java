@@ -44,6 +44,7 @@ import java.time.Instant;
 import static com.codahale.metrics.MetricRegistry.name;
 import static cwms.cda.api.Controllers.*;
 import static cwms.cda.data.dao.JooqDao.getDslContext;
+import static cwms.cda.data.dao.JooqDao.holdConnectionUntilWritten;
 
 public final class ForecastFileController implements Handler {
     private final MetricRegistry metrics;
@@ -110,6 +111,7 @@ public final class ForecastFileController implements Handler {
                     long size = blob.length();
                     requestResultSize.update(size);
                     InputStream is = blob.getBinaryStream();
+                    holdConnectionUntilWritten(ctx);
                     ctx.seekableStream(is, mediaType, size);
                 }
             });
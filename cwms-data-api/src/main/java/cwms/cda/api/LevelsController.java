@@ -68,6 +68,7 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.errors.CdaError;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.LocationLevelsDao;
 import cwms.cda.data.dao.LocationLevelsDaoImpl;
 import cwms.cda.data.dto.LocationLevel;
@@ -95,10 +96,11 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.DSLContext;
 
 
-public class LevelsController implements CrudHandler {
+public class LevelsController implements CrudHandler, VersionedEndpoint {
     static final String TAG = "Levels";
     private final MetricRegistry metrics;
 
@@ -328,6 +330,20 @@ public class LevelsController implements CrudHandler {
         }
     }
 
+    /**
+     * Levels can only be validated when both ends of the window are fixed; the default window
+     * ends now and moves even when the levels don't.
+     */
+    @Override
+    @Nullable
+    public ChangeMarker getAllMarker(@NotNull Context ctx) {
+        String begin = ctx.queryParam(BEGIN);
+        String end = ctx.queryParam(END);
+        if (begin == null || end == null || begin.startsWith("P") || end.startsWith("P")) {
+            return null;
+        }
+        return LocationLevelsDaoImpl.getLocationLevelsMarker(ctx.queryParam(OFFICE));
+    }
 
     @OpenApi(
             pathParams = {
@@ -377,6 +393,19 @@ public class LevelsController implements CrudHandler {
         }
     }
 
+    @Override
+    @Nullable
+    public ChangeMarker getOneMarker(@NotNull Context ctx, @NotNull String id) {
+        String dateString = ctx.queryParam(EFFECTIVE_DATE);
+        if (dateString == null) {
+            dateString = ctx.queryParam(DATE);
+        }
+        if (dateString == null) {
+            return null;
+        }
+        return LocationLevelsDaoImpl.getLocationLevelsMarker(ctx.queryParam(OFFICE));
+    }
+
     @OpenApi(
             pathParams = {
                 @OpenApiParam(name = LEVEL_ID, required = true, description = "Specifies the "
@@ -25,6 +25,7 @@
 package cwms.cda.api;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static cwms.cda.api.Controllers.BBOX;
 import static cwms.cda.api.Controllers.CASCADE_DELETE;
 import static cwms.cda.api.Controllers.CREATE;
 import static cwms.cda.api.Controllers.DATUM;
@@ -33,6 +34,7 @@ import static cwms.cda.api.Controllers.FORMAT;
 import static cwms.cda.api.Controllers.GET_ALL;
 import static cwms.cda.api.Controllers.GET_ONE;
 import static cwms.cda.api.Controllers.OFFICE;
+import static cwms.cda.api.Controllers.RADIUS;
 import static cwms.cda.api.Controllers.RESULTS;
 import static cwms.cda.api.Controllers.SIZE;
 import static cwms.cda.api.Controllers.STATUS_200;
@@ -58,8 +60,10 @@ import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.errors.CdaError;
 import cwms.cda.api.errors.DeleteConflictException;
 import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.LocationsDao;
 import cwms.cda.data.dao.LocationsDaoImpl;
+import cwms.cda.data.dao.location.BoundingBox;
 import cwms.cda.data.dto.Location;
 import cwms.cda.formatters.ContentType;
 import cwms.cda.formatters.Formats;
@@ -85,11 +89,12 @@ import java.util.logging.Logger;
 import javax.servlet.http.HttpServletResponse;
 import org.geojson.FeatureCollection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.DSLContext;
 import org.jooq.exception.DataAccessException;
 
 
-public class LocationController implements CrudHandler {
+public class LocationController implements CrudHandler, VersionedEndpoint {
     public static final Logger logger = Logger.getLogger(LocationController.class.getName());
     public static final String NAMES = "names";
     private final MetricRegistry metrics;
@@ -144,7 +149,15 @@ public class LocationController implements CrudHandler {
                         + "\n* `xml`"
                         + "\n* `wml2` (only if name field is specified)"
                         + "\n* `json` (default)\n"
-                        + "\n* `geojson`")
+                        + "\n* `geojson`"),
+                @OpenApiParam(name = BBOX, description = "Only return locations within this "
+                        + "box, given as minLon,minLat,maxLon,maxLat in decimal degrees.  When a "
+                        + "radius is given the box may instead be the center point as lon,lat.  "
+                        + "Supported by the `geojson` format and the `" + Formats.JSONV2
+                        + "` accept header."),
+                @OpenApiParam(name = RADIUS, type = Double.class, description = "Only return "
+                        + "locations within this many kilometers of the center of the `" + BBOX
+                        + "`.")
             },
             responses = {
                 @OpenApiResponse(status = STATUS_200,
@@ -166,6 +179,9 @@ public class LocationController implements CrudHandler {
     @Override
     public void getAll(@NotNull Context ctx) {
 
+        BoundingBox bbox = BoundingBox.parse(ctx.queryParam(BBOX),
+                ctx.queryParamAsClass(RADIUS, Double.class).allowNullable().get());
+
         try (final Timer.Context ignored = markAndTime(GET_ALL)) {
             DSLContext dsl = getDslContext(ctx);
 
@@ -187,7 +203,7 @@ public class LocationController implements CrudHandler {
 
             if (contentType.getType().equals(Formats.GEOJSON)) {
                 FeatureCollection collection = locationsDao.buildFeatureCollection(names, units,
-                        office);
+                        office, bbox);
                 ctx.json(collection);
 
                 requestResultSize.update(ctx.res.getBufferSize());
@@ -195,12 +211,19 @@ public class LocationController implements CrudHandler {
             }
             else if (formatParm.isEmpty() && !isLegacyFormat)
             {
-                List<Location> locations = locationsDao.getLocations(names, units, datum, office);
+                List<Location> locations = locationsDao.getLocations(names, units, datum, office, bbox);
                 results = Formats.format(contentType, locations, Location.class);
                 ctx.result(results);
                 requestResultSize.update(results.length());
                 ctx.contentType(contentType.toString());
             }
+            else if (bbox != null)
+            {
+                CdaError re = new CdaError("The " + BBOX + " parameter is not supported by the "
+                        + contentType + " format.");
+                ctx.status(HttpServletResponse.SC_BAD_REQUEST).json(re);
+                return;
+            }
             else
             {
                 String format = Formats.getLegacyTypeFromContentType(contentType);
@@ -228,6 +251,12 @@ public class LocationController implements CrudHandler {
         }
     }
 
+    @Override
+    @Nullable
+    public ChangeMarker getAllMarker(@NotNull Context ctx) {
+        return LocationsDaoImpl.getLocationsMarker(ctx.queryParam(OFFICE));
+    }
+
     @OpenApi(
             queryParams = {
                 @OpenApiParam(name = OFFICE, required = true, description = "Specifies the "
@@ -286,6 +315,12 @@ public class LocationController implements CrudHandler {
         }
     }
 
+    @Override
+    @Nullable
+    public ChangeMarker getOneMarker(@NotNull Context ctx, @NotNull String id) {
+        return LocationsDaoImpl.getLocationsMarker(ctx.queryParam(OFFICE));
+    }
+
     @OpenApi(
             requestBody = @OpenApiRequestBody(
                     content = {
@@ -17,6 +17,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.cda.api.errors.CdaError;
 import cwms.cda.data.dao.OfficeDao;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.data.dto.Office;
 import cwms.cda.formatters.ContentType;
 import cwms.cda.formatters.Formats;
@@ -34,7 +35,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import javax.servlet.http.HttpServletResponse;
-import org.jooq.DSLContext;
 
 /**
  * Handles all Office CRUD methods.
@@ -95,26 +95,31 @@ public class OfficeController implements CrudHandler {
     public void getAll(Context ctx) {
 
         try (final Timer.Context timeContext = markAndTime(GET_ALL)) {
-            DSLContext dsl = getDslContext(ctx);
-
-            OfficeDao dao = new OfficeDao(dsl);
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
             String formatParm = ctx
                 .queryParamAsClass(FORMAT, String.class)
                 .getOrDefault("");
             Boolean hasDataParm = ctx
                 .queryParamAsClass(HAS_DATA, Boolean.class)
                 .getOrDefault(false);
-            List<Office> offices = dao.getOffices(hasDataParm);
-            
+
             String formatHeader = ctx.header(Header.ACCEPT);
             ContentType contentType = Formats.parseQueryOrHeaderParam(formatHeader, formatParm, Office.class);
+            String type = contentType.toString();
 
-            String result = Formats.format(contentType, offices, Office.class);
+            ReferenceDataStore.Body body;
+            if (snapshot != null) {
+                body = snapshot.body("offices:" + hasDataParm + ":" + type, type,
+                        () -> Formats.format(contentType, snapshot.getOffices(hasDataParm), Office.class));
+            } else {
+                List<Office> offices = new OfficeDao(getDslContext(ctx)).getOffices(hasDataParm);
+                body = ReferenceDataStore.Body.of(Formats.format(contentType, offices, Office.class), type);
+            }
 
             Controllers.addDeprecatedContentTypeWarning(ctx, contentType);
 
-            ctx.result(result).contentType(contentType.toString());
-            requestResultSize.update(result.length());
+            Controllers.result(ctx, body);
+            requestResultSize.update(body.getBytes().length);
 
         }
     }
@@ -147,19 +152,27 @@ public class OfficeController implements CrudHandler {
     @Override
     public void getOne(Context ctx, String officeId) {
         try (final Timer.Context timeContext = markAndTime(GET_ONE)) {
-            DSLContext dsl = getDslContext(ctx);
-
-            OfficeDao dao = new OfficeDao(dsl);
-            Optional<Office> office = dao.getOfficeById(officeId);
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
+            Optional<Office> office = snapshot != null
+                    ? snapshot.getOffice(officeId)
+                    : new OfficeDao(getDslContext(ctx)).getOfficeById(officeId);
             if (office.isPresent()) {
                 String formatParm = ctx.queryParamAsClass(FORMAT, String.class).getOrDefault("");
                 String formatHeader = ctx.header(Header.ACCEPT);
                 ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, formatParm, Office.class);
-                String result = Formats.format(contentType, office.get());
+                String type = contentType.toString();
+                ReferenceDataStore.Body body;
+                if (snapshot != null) {
+                    String name = office.get().getName();
+                    body = snapshot.body("office:" + name + ":" + type, type,
+                            () -> Formats.format(contentType, office.get()));
+                } else {
+                    body = ReferenceDataStore.Body.of(Formats.format(contentType, office.get()), type);
+                }
                 Controllers.addDeprecatedContentTypeWarning(ctx, contentType);
-                ctx.result(result).contentType(contentType.toString());
+                Controllers.result(ctx, body);
 
-                requestResultSize.update(result.length());
+                requestResultSize.update(body.getBytes().length);
             } else {
                 Map<String, String> map = new HashMap<>();
                 map.put(OFFICE, "An office with that name does not exist");
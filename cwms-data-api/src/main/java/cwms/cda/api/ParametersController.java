@@ -18,6 +18,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.cda.api.errors.CdaError;
 import cwms.cda.data.dao.ParameterDao;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.data.dto.Parameter;
 import cwms.cda.formatters.ContentType;
 import cwms.cda.formatters.Formats;
@@ -32,7 +33,6 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletResponse;
-import org.jooq.DSLContext;
 
 public class ParametersController implements CrudHandler {
     private static final Logger logger = Logger.getLogger(ParametersController.class.getName());
@@ -89,8 +89,7 @@ public class ParametersController implements CrudHandler {
     @Override
     public void getAll(Context ctx) {
         try (final Timer.Context timeContext = markAndTime(GET_ALL)) {
-            DSLContext dsl = getDslContext(ctx);
-            ParameterDao dao = new ParameterDao(dsl);
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
             String format = ctx.queryParamAsClass(FORMAT, String.class).getOrDefault("");
             String office = ctx.queryParamAsClass(OFFICE, String.class).getOrDefault(null);
             String header = ctx.header(ACCEPT);
@@ -100,12 +99,21 @@ public class ParametersController implements CrudHandler {
 
             boolean isLegacyVersion = version.equals("1");
 
-            String results;
+            ReferenceDataStore.Body body;
             if (format.isEmpty() && !isLegacyVersion)
             {
-                List<Parameter> params = dao.getParametersV2(office);
-                results = Formats.format(contentType, params, Parameter.class);
-                ctx.contentType(contentType.toString());
+                String type = contentType.toString();
+                List<Parameter> params = snapshot == null ? null : snapshot.getParameters(office);
+                if (params != null) {
+                    body = snapshot.body("parameters:" + snapshot.parameterOffice(office) + ":" + type, type,
+                            () -> Formats.format(contentType, params, Parameter.class));
+                } else {
+                    List<Parameter> loaded = new ParameterDao(getDslContext(ctx)).getParametersV2(office);
+                    if (snapshot != null) {
+                        snapshot.putParameters(office, loaded);
+                    }
+                    body = ReferenceDataStore.Body.of(Formats.format(contentType, loaded, Parameter.class), type);
+                }
             }
             else
             {
@@ -114,21 +122,18 @@ public class ParametersController implements CrudHandler {
                     format = Formats.getLegacyTypeFromContentType(contentType);
                 }
 
-                results = dao.getParameters(format);
-                if (isLegacyVersion)
-                {
-                    ctx.contentType(contentType.toString());
-                }
-                else
-                {
-                    ctx.contentType(contentType.getType());
+                String type = isLegacyVersion ? contentType.toString() : contentType.getType();
+                String legacy = snapshot == null ? null : snapshot.getLegacyParameters(format);
+                if (legacy != null) {
+                    body = snapshot.body("parameters:" + format + ":" + type, type, () -> legacy);
+                } else {
+                    body = ReferenceDataStore.Body.of(new ParameterDao(getDslContext(ctx)).getParameters(format), type);
                 }
             }
 
-            ctx.status(HttpServletResponse.SC_OK);
-            ctx.result(results);
+            Controllers.result(ctx, body);
             addDeprecatedContentTypeWarning(ctx, contentType);
-            requestResultSize.update(results.length());
+            requestResultSize.update(body.getBytes().length);
         } catch (Exception ex) {
             CdaError re = new CdaError("Failed to process request");
             logger.log(Level.SEVERE, re.toString(), ex);
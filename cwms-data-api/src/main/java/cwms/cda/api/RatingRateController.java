@@ -0,0 +1,219 @@
+package cwms.cda.api;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static cwms.cda.api.Controllers.AT;
+import static cwms.cda.api.Controllers.BEGIN;
+import static cwms.cda.api.Controllers.DATE_FORMAT;
+import static cwms.cda.api.Controllers.END;
+import static cwms.cda.api.Controllers.EXAMPLE_DATE;
+import static cwms.cda.api.Controllers.GET_ONE;
+import static cwms.cda.api.Controllers.OFFICE;
+import static cwms.cda.api.Controllers.RATING_ID;
+import static cwms.cda.api.Controllers.RESULTS;
+import static cwms.cda.api.Controllers.SIZE;
+import static cwms.cda.api.Controllers.STATUS_200;
+import static cwms.cda.api.Controllers.STATUS_400;
+import static cwms.cda.api.Controllers.STATUS_404;
+import static cwms.cda.api.Controllers.TIMESERIES;
+import static cwms.cda.api.Controllers.TIMEZONE;
+import static cwms.cda.api.Controllers.queryParamAsInstant;
+import static cwms.cda.api.Controllers.requiredParam;
+import static cwms.cda.api.Controllers.requiredZdt;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import cwms.cda.api.errors.CdaError;
+import cwms.cda.data.dao.JooqDao;
+import cwms.cda.data.dao.RatingDao;
+import cwms.cda.data.dao.RatingSetDao;
+import cwms.cda.data.dao.TimeSeriesDao;
+import cwms.cda.data.dao.TimeSeriesDaoImpl;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.data.dto.rating.RatedValues;
+import cwms.cda.formatters.ContentType;
+import cwms.cda.formatters.Formats;
+import hec.data.RatingException;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.plugin.openapi.annotations.OpenApi;
+import io.javalin.plugin.openapi.annotations.OpenApiContent;
+import io.javalin.plugin.openapi.annotations.OpenApiParam;
+import io.javalin.plugin.openapi.annotations.OpenApiResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.DSLContext;
+
+/**
+ * Rates values with a stored rating, either values given in the request or the values of a time
+ * series over a time window.
+ */
+public class RatingRateController implements Handler {
+    private static final Logger logger = Logger.getLogger(RatingRateController.class.getName());
+    public static final String VALUES = "values";
+
+    private final MetricRegistry metrics;
+    private final Histogram requestResultSize;
+
+    public RatingRateController(MetricRegistry metrics) {
+        this.metrics = metrics;
+        requestResultSize = this.metrics.histogram((name(RatingRateController.class, RESULTS, SIZE)));
+    }
+
+    private Timer.Context markAndTime(String subject) {
+        return Controllers.markAndTime(metrics, getClass().getName(), subject);
+    }
+
+    protected DSLContext getDslContext(Context ctx) {
+        return JooqDao.getDslContext(ctx);
+    }
+
+    @NotNull
+    protected RatingDao getRatingDao(DSLContext dsl) {
+        return new RatingSetDao(dsl);
+    }
+
+    @NotNull
+    protected TimeSeriesDao getTimeSeriesDao(DSLContext dsl) {
+        return new TimeSeriesDaoImpl(dsl, metrics);
+    }
+
+    @OpenApi(
+            pathParams = {
+                @OpenApiParam(name = RATING_ID, required = true, description = "The rating-id of the "
+                        + "rating used to rate the values."),
+            },
+            queryParams = {
+                @OpenApiParam(name = OFFICE, required = true, description = "Specifies the owning "
+                        + "office of the rating."),
+                @OpenApiParam(name = VALUES, description = "Independent values to rate, separated by "
+                        + "commas, in the rating's independent units. For ratings with several "
+                        + "independent parameters separate the parameters of each value with "
+                        + "semicolons, e.g. '101.5;12,102.0;12'. Either this or " + TIMESERIES
+                        + " is required."),
+                @OpenApiParam(name = AT, description = "The time used to pick the effective rating "
+                        + "for " + VALUES + ". Defaults to now. The format for this field is ISO "
+                        + "8601 extended, with optional offset and timezone, i.e., '" + DATE_FORMAT
+                        + "', e.g., '" + EXAMPLE_DATE + "'."),
+                @OpenApiParam(name = TIMESERIES, description = "Time series whose values are rated "
+                        + "instead of " + VALUES + ". Only for ratings with one independent "
+                        + "parameter."),
+                @OpenApiParam(name = BEGIN, description = "Start of the time window of the "
+                        + TIMESERIES + " values. Required with " + TIMESERIES + "."),
+                @OpenApiParam(name = END, description = "End of the time window of the "
+                        + TIMESERIES + " values. Required with " + TIMESERIES + "."),
+                @OpenApiParam(name = TIMEZONE, description = "Specifies the time zone of "
+                        + AT + ", " + BEGIN + " and " + END + " when they have no offset. "
+                        + "Defaults to UTC."),
+            },
+            responses = {
+                @OpenApiResponse(status = STATUS_200, content = {
+                    @OpenApiContent(from = RatedValues.class, type = Formats.JSONV2)
+                }),
+                @OpenApiResponse(status = STATUS_400, description = "Neither or both of "
+                        + VALUES + " and " + TIMESERIES + " were provided, or the values do not "
+                        + "match the rating's independent parameters or can't be rated with "
+                        + "it."),
+                @OpenApiResponse(status = STATUS_404, description = "The rating or time series "
+                        + "was not found.")
+            },
+            description = "Rates values with a stored rating.",
+            tags = {"Ratings"},
+            path = "/ratings/{rating-id}/rate"
+    )
+    @Override
+    public void handle(@NotNull Context ctx) throws Exception {
+        try (Timer.Context ignored = markAndTime(GET_ONE)) {
+            String ratingId = ctx.pathParam(RATING_ID);
+            String office = requiredParam(ctx, OFFICE);
+            String values = ctx.queryParam(VALUES);
+            String tsId = ctx.queryParam(TIMESERIES);
+            if ((values == null) == (tsId == null)) {
+                throw new IllegalArgumentException("Exactly one of " + VALUES + " or " + TIMESERIES
+                        + " is required.");
+            }
+            ContentType contentType = Formats.parseHeader(ctx.header(Header.ACCEPT), RatedValues.class);
+
+            DSLContext dsl = getDslContext(ctx);
+            RatingDao ratingDao = getRatingDao(dsl);
+            RatedValues rated;
+            if (values != null) {
+                Instant at = queryParamAsInstant(ctx, AT);
+                double[][] independentValues = parseValues(values);
+                long[] times = new long[independentValues.length];
+                Arrays.fill(times, at == null ? System.currentTimeMillis() : at.toEpochMilli());
+                rated = ratingDao.rate(office, ratingId, times, independentValues);
+            } else {
+                rated = rateTimeSeries(dsl, ratingDao, office, ratingId, tsId,
+                        requiredZdt(ctx, BEGIN), requiredZdt(ctx, END));
+            }
+
+            String result = Formats.format(contentType, rated);
+            ctx.contentType(contentType.toString());
+            ctx.status(HttpServletResponse.SC_OK);
+            ctx.result(result);
+            requestResultSize.update(result.length());
+        } catch (IOException | RatingException ex) {
+            CdaError re = new CdaError("Failed to rate values");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR).json(re);
+        }
+    }
+
+    private RatedValues rateTimeSeries(DSLContext dsl, RatingDao ratingDao, String office,
+                                       String ratingId, String tsId, ZonedDateTime begin,
+                                       ZonedDateTime end) throws IOException, RatingException {
+        List<String> units = ratingDao.retrieveRatingUnits(office, ratingId);
+        if (units.size() != 2) {
+            throw new IllegalArgumentException("Only ratings with one independent parameter can "
+                    + "rate a time series.");
+        }
+        TimeSeries timeSeries = getTimeSeriesDao(dsl).getTimeseries(null, -1, tsId, office,
+                units.get(0), begin, end, null, true);
+
+        List<TimeSeries.Record> records = timeSeries.getValues();
+        int count = 0;
+        for (TimeSeries.Record rec : records) {
+            if (rec.getValue() != null) {
+                count++;
+            }
+        }
+        long[] times = new long[count];
+        double[][] independentValues = new double[count][];
+        int i = 0;
+        for (TimeSeries.Record rec : records) {
+            if (rec.getValue() != null) {
+                times[i] = rec.getDateTime().getTime();
+                independentValues[i] = new double[]{rec.getValue()};
+                i++;
+            }
+        }
+        return ratingDao.rate(office, ratingId, times, independentValues);
+    }
+
+    // Package private for unit testing
+    static double[][] parseValues(String values) {
+        String[] sets = values.split(",");
+        double[][] retval = new double[sets.length][];
+        try {
+            for (int i = 0; i < sets.length; i++) {
+                String[] params = sets[i].split(";");
+                retval[i] = new double[params.length];
+                for (int j = 0; j < params.length; j++) {
+                    retval[i][j] = Double.parseDouble(params[j].trim());
+                }
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + VALUES + ": " + values, ex);
+        }
+        return retval;
+    }
+}
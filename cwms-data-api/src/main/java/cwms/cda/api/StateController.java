@@ -34,6 +34,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.cda.api.errors.CdaError;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.data.dao.StateDao;
 import cwms.cda.data.dto.State;
 import cwms.cda.formatters.ContentType;
@@ -48,7 +49,6 @@ import io.javalin.plugin.openapi.annotations.OpenApiResponse;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.NotNull;
-import org.jooq.DSLContext;
 
 
 /**
@@ -89,16 +89,20 @@ public class StateController implements CrudHandler {
     @Override
     public void getAll(@NotNull Context ctx) {
         try (Timer.Context ignored = markAndTime(GET_ALL)) {
-            DSLContext dsl = getDslContext(ctx);
-
-            StateDao dao = new StateDao(dsl);
-            List<State> states = dao.getStates();
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
             String formatHeader = ctx.header(Header.ACCEPT);
             ContentType contentType = Formats.parseHeader(formatHeader, State.class);
-            String result = Formats.format(contentType, states, State.class);
-            ctx.result(result).contentType(contentType.toString());
-            requestResultSize.update(result.length());
-            ctx.status(HttpServletResponse.SC_OK);
+            String type = contentType.toString();
+            ReferenceDataStore.Body body;
+            if (snapshot != null) {
+                body = snapshot.body("states:" + type, type,
+                        () -> Formats.format(contentType, snapshot.getStates(), State.class));
+            } else {
+                List<State> states = new StateDao(getDslContext(ctx)).getStates();
+                body = ReferenceDataStore.Body.of(Formats.format(contentType, states, State.class), type);
+            }
+            Controllers.result(ctx, body);
+            requestResultSize.update(body.getBytes().length);
         }
     }
 
@@ -74,7 +74,7 @@ public class TextTimeSeriesController implements CrudHandler {
 
     @NotNull
     protected TimeSeriesTextDao getDao(DSLContext dsl) {
-        return new TimeSeriesTextDao(dsl);
+        return new TimeSeriesTextDao(dsl, metrics);
     }
 
 
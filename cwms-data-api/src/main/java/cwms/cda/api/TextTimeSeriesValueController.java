@@ -43,6 +43,7 @@ import java.io.InputStream;
 import static com.codahale.metrics.MetricRegistry.name;
 import static cwms.cda.api.Controllers.*;
 import static cwms.cda.data.dao.JooqDao.getDslContext;
+import static cwms.cda.data.dao.JooqDao.holdConnectionUntilWritten;
 
 
 public class TextTimeSeriesValueController implements Handler {
@@ -100,6 +101,7 @@ public class TextTimeSeriesValueController implements Handler {
                     long size = clob.length();
                     requestResultSize.update(size);
                     InputStream is = clob.getAsciiStream();
+                    holdConnectionUntilWritten(ctx);
                     ctx.seekableStream(is, TEXT_PLAIN, size);
                 }
             });
@@ -0,0 +1,167 @@
+package cwms.cda.api;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static cwms.cda.api.Controllers.CREATE;
+import static cwms.cda.api.Controllers.CREATE_AS_LRTS;
+import static cwms.cda.api.Controllers.OVERRIDE_PROTECTION;
+import static cwms.cda.api.Controllers.RESULTS;
+import static cwms.cda.api.Controllers.SIZE;
+import static cwms.cda.api.Controllers.STATUS_200;
+import static cwms.cda.api.Controllers.STATUS_400;
+import static cwms.cda.api.Controllers.STORE_RULE;
+import static cwms.cda.api.Controllers.queryParamAsClass;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import cwms.cda.data.dao.JooqDao;
+import cwms.cda.data.dao.StoreRule;
+import cwms.cda.data.dao.TimeSeriesDao;
+import cwms.cda.data.dao.TimeSeriesDaoImpl;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.data.dto.TimeSeriesStoreResult;
+import cwms.cda.formatters.ContentType;
+import cwms.cda.formatters.Formats;
+import cwms.cda.formatters.FormattingException;
+import cwms.cda.formatters.UnsupportedFormatException;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.plugin.openapi.annotations.HttpMethod;
+import io.javalin.plugin.openapi.annotations.OpenApi;
+import io.javalin.plugin.openapi.annotations.OpenApiContent;
+import io.javalin.plugin.openapi.annotations.OpenApiParam;
+import io.javalin.plugin.openapi.annotations.OpenApiRequestBody;
+import io.javalin.plugin.openapi.annotations.OpenApiResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.DSLContext;
+
+/**
+ * Stores many time series in one request.  The body is newline delimited JSON, one v2 time series
+ * per line, and every series is stored on the same database connection.  The response lists the
+ * outcome of each series in the order they were sent.
+ */
+public class TimeSeriesBatchController implements Handler {
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_SERIES = Integer.parseInt(
+            System.getProperty("cda.api.ts.batch.max.series", "1000"));
+
+    private final MetricRegistry metrics;
+    private final Histogram requestResultSize;
+
+    public TimeSeriesBatchController(MetricRegistry metrics) {
+        this.metrics = metrics;
+        requestResultSize = this.metrics.histogram((name(TimeSeriesBatchController.class, RESULTS, SIZE)));
+    }
+
+    private Timer.Context markAndTime(String subject) {
+        return Controllers.markAndTime(metrics, getClass().getName(), subject);
+    }
+
+    protected DSLContext getDslContext(Context ctx) {
+        return JooqDao.getDslContext(ctx);
+    }
+
+    @NotNull
+    protected TimeSeriesDao getTimeSeriesDao(DSLContext dsl) {
+        return new TimeSeriesDaoImpl(dsl, metrics);
+    }
+
+    @OpenApi(
+            requestBody = @OpenApiRequestBody(
+                    content = {
+                        @OpenApiContent(from = TimeSeries.class, type = NDJSON)
+                    },
+                    required = true),
+            queryParams = {
+                @OpenApiParam(name = CREATE_AS_LRTS, type = Boolean.class, description = "Flag indicating if "
+                        + "new timeseries should be created as Local Regular Time Series. "
+                        + "'True' or 'False', default is 'False'"),
+                @OpenApiParam(name = STORE_RULE, type = StoreRule.class,
+                        description = TimeSeriesController.STORE_RULE_DESC),
+                @OpenApiParam(name = OVERRIDE_PROTECTION, type = Boolean.class, description = "A flag "
+                        + "to ignore the protected data quality when storing data. 'True' or 'False'")
+            },
+            responses = {
+                @OpenApiResponse(status = STATUS_200, description = "The outcome of storing each "
+                        + "time series, in the order they were sent.",
+                        content = {
+                            @OpenApiContent(isArray = true, from = TimeSeriesStoreResult.class,
+                                    type = Formats.JSONV2)
+                        }),
+                @OpenApiResponse(status = STATUS_400, description = "A line of the body is not a valid "
+                        + "time series or too many time series were sent.")
+            },
+            path = "/timeseries/batch",
+            description = "Stores several time series at once. The body holds one JSON time series, "
+                    + "as accepted by POST /timeseries, per line. A time series that fails to "
+                    + "store does not prevent the others from being stored.",
+            tags = TimeSeriesController.TAG,
+            method = HttpMethod.POST
+    )
+    @Override
+    public void handle(@NotNull Context ctx) throws Exception {
+        boolean createAsLrts = ctx.queryParamAsClass(CREATE_AS_LRTS, Boolean.class)
+                .getOrDefault(false);
+        StoreRule storeRule = queryParamAsClass(ctx, new String[]{STORE_RULE}, StoreRule.class,
+                StoreRule.REPLACE_ALL);
+        boolean overrideProtection = ctx.queryParamAsClass(OVERRIDE_PROTECTION, Boolean.class)
+                .getOrDefault(TimeSeriesDaoImpl.OVERRIDE_PROTECTION);
+
+        try (Timer.Context ignored = markAndTime(CREATE)) {
+            String contentType = ctx.req.getContentType();
+            if (contentType == null || !contentType.toLowerCase().startsWith(NDJSON)) {
+                throw new UnsupportedFormatException("Time series batches must be sent as " + NDJSON);
+            }
+            List<TimeSeries> timeSeries = readTimeSeries(ctx);
+
+            TimeSeriesDao dao = getTimeSeriesDao(getDslContext(ctx));
+            List<TimeSeriesStoreResult> results = dao.store(timeSeries, createAsLrts, storeRule,
+                    overrideProtection);
+
+            String result = Formats.format(new ContentType(Formats.JSONV2), results,
+                    TimeSeriesStoreResult.class);
+            ctx.contentType(Formats.JSONV2);
+            ctx.status(HttpServletResponse.SC_OK);
+            ctx.result(result);
+            requestResultSize.update(result.length());
+        }
+    }
+
+    private static List<TimeSeries> readTimeSeries(Context ctx) throws IOException {
+        ContentType lineType = new ContentType(Formats.JSONV2);
+        List<TimeSeries> timeSeries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(ctx.bodyAsInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (timeSeries.size() == MAX_SERIES) {
+                    throw new IllegalArgumentException("At most " + MAX_SERIES
+                            + " time series may be stored at once.");
+                }
+                try {
+                    timeSeries.add(Formats.parseContent(lineType, line, TimeSeries.class));
+                } catch (FormattingException ex) {
+                    throw new IllegalArgumentException("Line " + lineNumber
+                            + " is not a valid time series.", ex);
+                }
+            }
+        }
+        if (timeSeries.isEmpty()) {
+            throw new IllegalArgumentException("At least one time series is required.");
+        }
+        return timeSeries;
+    }
+}
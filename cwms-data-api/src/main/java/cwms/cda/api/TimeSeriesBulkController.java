@@ -0,0 +1,185 @@
+package cwms.cda.api;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static cwms.cda.api.Controllers.GET_ALL;
+import static cwms.cda.api.Controllers.RESULTS;
+import static cwms.cda.api.Controllers.SIZE;
+import static cwms.cda.api.Controllers.STATUS_200;
+import static cwms.cda.api.Controllers.STATUS_400;
+import static cwms.cda.api.Controllers.STATUS_404;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.io.CountingOutputStream;
+import cwms.cda.data.dao.JooqDao;
+import cwms.cda.data.dao.TimeSeriesDao;
+import cwms.cda.data.dao.TimeSeriesDaoImpl;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.data.dto.TimeSeriesBulkRequest;
+import cwms.cda.formatters.ContentType;
+import cwms.cda.formatters.Formats;
+import cwms.cda.formatters.TimeSeriesWriter;
+import cwms.cda.formatters.UnsupportedFormatException;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.plugin.openapi.annotations.HttpMethod;
+import io.javalin.plugin.openapi.annotations.OpenApi;
+import io.javalin.plugin.openapi.annotations.OpenApiContent;
+import io.javalin.plugin.openapi.annotations.OpenApiRequestBody;
+import io.javalin.plugin.openapi.annotations.OpenApiResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import javax.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.DSLContext;
+
+/**
+ * Retrieves many time series over the same time window in one request.  The response is a JSON
+ * array of v2 time series, written as the values are read from the database.
+ */
+public class TimeSeriesBulkController implements Handler {
+    private static final int MAX_NAMES = Integer.parseInt(
+            System.getProperty("cda.api.ts.bulk.max.names", "500"));
+
+    private final MetricRegistry metrics;
+    private final Histogram requestResultSize;
+
+    public TimeSeriesBulkController(MetricRegistry metrics) {
+        this.metrics = metrics;
+        requestResultSize = this.metrics.histogram((name(TimeSeriesBulkController.class, RESULTS, SIZE)));
+    }
+
+    private Timer.Context markAndTime(String subject) {
+        return Controllers.markAndTime(metrics, getClass().getName(), subject);
+    }
+
+    protected DSLContext getDslContext(Context ctx) {
+        return JooqDao.getDslContext(ctx);
+    }
+
+    @NotNull
+    protected TimeSeriesDao getTimeSeriesDao(DSLContext dsl) {
+        return new TimeSeriesDaoImpl(dsl, metrics);
+    }
+
+    @OpenApi(
+            requestBody = @OpenApiRequestBody(
+                    content = {
+                        @OpenApiContent(from = TimeSeriesBulkRequest.class, type = Formats.JSONV2),
+                        @OpenApiContent(from = TimeSeriesBulkRequest.class, type = Formats.JSON)
+                    },
+                    required = true),
+            responses = {
+                @OpenApiResponse(status = STATUS_200, content = {
+                    @OpenApiContent(isArray = true, from = TimeSeries.class, type = Formats.JSONV2),
+                    @OpenApiContent(isArray = true, from = TimeSeries.class, type = Formats.JSON)
+                }),
+                @OpenApiResponse(status = STATUS_400, description = "Invalid request body or "
+                        + "too many time series requested."),
+                @OpenApiResponse(status = STATUS_404, description = "One of the requested time "
+                        + "series was not found.")
+            },
+            path = "/timeseries/bulk",
+            description = "Returns the data of several time series over the same time window. "
+                    + "Each series is returned complete, without paging, in the order requested.",
+            tags = TimeSeriesController.TAG,
+            method = HttpMethod.POST
+    )
+    @Override
+    public void handle(@NotNull Context ctx) throws Exception {
+        try (Timer.Context ignored = markAndTime(GET_ALL)) {
+            ContentType requestType = Formats.parseHeader(ctx.req.getContentType(),
+                    TimeSeriesBulkRequest.class);
+            TimeSeriesBulkRequest request = Formats.parseContent(requestType, ctx.body(),
+                    TimeSeriesBulkRequest.class);
+            if (request.getNames().size() > MAX_NAMES) {
+                throw new IllegalArgumentException("At most " + MAX_NAMES
+                        + " time series may be requested at once.");
+            }
+
+            ContentType contentType = Formats.parseHeader(ctx.header(Header.ACCEPT), TimeSeries.class);
+            if (!Formats.JSON.equals(contentType.getType())) {
+                throw new UnsupportedFormatException("Bulk time series retrieval is only "
+                        + "available as " + Formats.JSONV2);
+            }
+
+            TimeSeriesDao dao = getTimeSeriesDao(getDslContext(ctx));
+
+            ctx.status(HttpServletResponse.SC_OK);
+            ctx.contentType(contentType.toString());
+            CountingOutputStream out = new CountingOutputStream(ctx.res.getOutputStream());
+            ArrayElementWriter writer = new ArrayElementWriter(contentType, out);
+            try {
+                // Nothing is written until every name has been resolved, so an unknown name
+                // still gets a proper error response.
+                dao.streamTimeseries(request.getNames(), request.getOfficeId(),
+                        request.getUnits() == null ? "EN" : request.getUnits(),
+                        request.getBegin(), request.getEnd(), request.getVersionDate(),
+                        request.getTrim() == null || request.getTrim(), writer);
+                writer.finish();
+                out.flush();
+            } catch (IOException e) {
+                Controllers.streamFailed(ctx, e);
+            } catch (RuntimeException e) {
+                Controllers.streamFailed(ctx, e);
+            }
+            requestResultSize.update(out.getCount());
+        }
+    }
+
+    /**
+     * Writes each series as one element of the enclosing JSON array, using a fresh format
+     * writer per series.
+     */
+    private static class ArrayElementWriter implements TimeSeriesWriter {
+        private final ContentType contentType;
+        private final OutputStream out;
+        private TimeSeriesWriter current;
+        private boolean first = true;
+
+        ArrayElementWriter(ContentType contentType, OutputStream out) {
+            this.contentType = contentType;
+            this.out = out;
+        }
+
+        @Override
+        public void writeHeader(TimeSeries header) throws IOException {
+            out.write(first ? '[' : ',');
+            first = false;
+            current = Formats.timeSeriesWriter(contentType, out);
+            current.writeHeader(header);
+        }
+
+        @Override
+        public void writeValue(Timestamp dateTime, Double value, int qualityCode) throws IOException {
+            current.writeValue(dateTime, value, qualityCode);
+        }
+
+        @Override
+        public void writeTrailer(TimeSeries header) throws IOException {
+            current.writeTrailer(header);
+            current.close();
+            current = null;
+        }
+
+        /**
+         * Close the array, which is only opened by the first series.
+         */
+        void finish() throws IOException {
+            if (first) {
+                out.write('[');
+            }
+            out.write(']');
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
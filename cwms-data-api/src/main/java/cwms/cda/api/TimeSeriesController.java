@@ -44,9 +44,11 @@ import static cwms.cda.api.Controllers.requiredZdt;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.io.CountingOutputStream;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.errors.CdaError;
 import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.JooqDao;
 import cwms.cda.data.dao.StoreRule;
 import cwms.cda.data.dao.TimeSeriesDao;
@@ -55,10 +57,11 @@ import cwms.cda.data.dao.TimeSeriesDeleteOptions;
 import cwms.cda.data.dto.TimeSeries;
 import cwms.cda.formatters.ContentType;
 import cwms.cda.formatters.Formats;
+import cwms.cda.formatters.TimeSeriesReader;
+import cwms.cda.formatters.TimeSeriesWriter;
 import cwms.cda.helpers.DateUtils;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
-import io.javalin.core.validation.JavalinValidation;
 import io.javalin.core.validation.Validator;
 import io.javalin.http.Context;
 import io.javalin.plugin.openapi.annotations.HttpMethod;
@@ -79,10 +82,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.DSLContext;
 import org.jooq.exception.DataAccessException;
 
-public class TimeSeriesController implements CrudHandler {
+public class TimeSeriesController implements CrudHandler, VersionedEndpoint {
     private static final Logger logger = Logger.getLogger(TimeSeriesController.class.getName());
 
     public static final String TAG = "TimeSeries";
@@ -93,7 +97,9 @@ public class TimeSeriesController implements CrudHandler {
             + "<tr>\n"
             + "    <td>Delete Insert</td>\n"
             + "    <td>All existing data in the time window will be deleted and "
-            + "then replaced with the new dataset.</td>\n"
+            + "then replaced with the new dataset. The dataset is stored in a single "
+            + "database call; the other rules store large datasets in chunks within one "
+            + "transaction.</td>\n"
             + "</tr>\n"
             + "<tr>\n"
             + "    <td>Replace All</td>\n"
@@ -145,6 +151,9 @@ public class TimeSeriesController implements CrudHandler {
 
     private final Histogram requestResultSize;
     private static final int DEFAULT_PAGE_SIZE = 500;
+    /** Pages larger than this, or unbounded pages, are written to the response as they are read. */
+    private static final int STREAM_MIN_PAGE_SIZE = Integer.getInteger(
+            TimeSeriesDaoImpl.PROP_BASE + ".stream.minPageSize", 5000);
 
 
     public TimeSeriesController(MetricRegistry metrics) {
@@ -153,10 +162,6 @@ public class TimeSeriesController implements CrudHandler {
         requestResultSize = this.metrics.histogram((name(className, RESULTS, SIZE)));
     }
 
-    static {
-        JavalinValidation.register(StoreRule.class, StoreRule::getStoreRule);
-    }
-
     private Timer.Context markAndTime(String subject) {
         return Controllers.markAndTime(metrics, getClass().getName(), subject);
     }
@@ -192,8 +197,8 @@ public class TimeSeriesController implements CrudHandler {
     public void create(@NotNull Context ctx) {
         boolean createAsLrts = ctx.queryParamAsClass(CREATE_AS_LRTS, Boolean.class)
                 .getOrDefault(false);
-        StoreRule storeRule = ctx.queryParamAsClass(STORE_RULE, StoreRule.class)
-                .getOrDefault(StoreRule.REPLACE_ALL);
+        StoreRule storeRule = queryParamAsClass(ctx, new String[]{STORE_RULE}, StoreRule.class,
+                StoreRule.REPLACE_ALL);
         boolean overrideProtection = ctx.queryParamAsClass(OVERRIDE_PROTECTION, Boolean.class)
                 .getOrDefault(TimeSeriesDaoImpl.OVERRIDE_PROTECTION);
 
@@ -201,8 +206,9 @@ public class TimeSeriesController implements CrudHandler {
             DSLContext dsl = getDslContext(ctx);
 
             TimeSeriesDao dao = getTimeSeriesDao(dsl);
-            TimeSeries timeSeries = deserializeTimeSeries(ctx);
-            dao.create(timeSeries, createAsLrts, storeRule, overrideProtection);
+            try (TimeSeriesReader reader = timeSeriesReader(ctx)) {
+                dao.create(reader, createAsLrts, storeRule, overrideProtection);
+            }
             ctx.status(HttpServletResponse.SC_OK);
         } catch (IOException | DataAccessException ex) {
             CdaError re = new CdaError("Internal Error");
@@ -211,6 +217,26 @@ public class TimeSeriesController implements CrudHandler {
         }
     }
 
+    /**
+     * Values can only be validated when both ends of the window are fixed; a window relative to
+     * now moves even when the data doesn't.
+     */
+    @Override
+    @Nullable
+    public ChangeMarker getAllMarker(@NotNull Context ctx) {
+        String names = ctx.queryParam(NAME);
+        String begin = ctx.queryParam(BEGIN);
+        String end = ctx.queryParam(END);
+        if (names == null || begin == null || end == null
+                || begin.startsWith("P") || end.startsWith("P")) {
+            return null;
+        }
+        String unit = ctx.queryParamAsClass(UNIT, String.class)
+                .getOrDefault(UnitSystem.EN.getValue());
+        return getTimeSeriesDao(getDslContext(ctx)).getTimeSeriesMarker(names,
+                ctx.queryParam(OFFICE), unit);
+    }
+
     protected DSLContext getDslContext(Context ctx) {
         return JooqDao.getDslContext(ctx);
     }
@@ -444,6 +470,7 @@ public class TimeSeriesController implements CrudHandler {
             ContentType contentType = Formats.parseHeaderAndQueryParm(acceptHeader, format, TimeSeries.class);
 
             String results;
+            long resultSize;
             String version = contentType.getParameters().get(VERSION);
 
             ZoneId tz = ZoneId.of(timezone, ZoneId.SHORT_IDS);
@@ -462,27 +489,35 @@ public class TimeSeriesController implements CrudHandler {
                 }
 
                 String office = requiredParam(ctx, OFFICE);
-                TimeSeries ts = dao.getTimeseries(cursor, pageSize, names, office, unit,
-                        beginZdt, endZdt, versionDate, trim.getOrDefault(true));
-
-                results = Formats.format(contentType, ts);
-
-                ctx.status(HttpServletResponse.SC_OK);
-
-                // Send back the link to the next page in the response header
-                StringBuilder linkValue = new StringBuilder(600);
-                linkValue.append(String.format("<%s>; rel=self; type=\"%s\"",
-                        buildRequestUrl(ctx, ts, ts.getPage()), contentType));
-
-                if (ts.getNextPage() != null) {
-                    linkValue.append(",");
-                    linkValue.append(String.format("<%s>; rel=next; type=\"%s\"",
-                            buildRequestUrl(ctx, ts, ts.getNextPage()),
-                            contentType));
+                if (pageSize < 0 || pageSize > STREAM_MIN_PAGE_SIZE) {
+                    resultSize = streamTimeSeries(ctx, dao, contentType, cursor, pageSize, names,
+                            office, unit, beginZdt, endZdt, versionDate, trim.getOrDefault(true));
+                } else {
+                    TimeSeries ts = dao.getTimeseries(cursor, pageSize, names, office, unit,
+                            beginZdt, endZdt, versionDate, trim.getOrDefault(true));
+                    // Done with the database, don't hold the connection while formatting.
+                    JooqDao.releaseDslContext(ctx.req);
+
+                    results = Formats.format(contentType, ts);
+
+                    ctx.status(HttpServletResponse.SC_OK);
+
+                    // Send back the link to the next page in the response header
+                    StringBuilder linkValue = new StringBuilder(600);
+                    linkValue.append(String.format("<%s>; rel=self; type=\"%s\"",
+                            buildRequestUrl(ctx, ts, ts.getPage()), contentType));
+
+                    if (ts.getNextPage() != null) {
+                        linkValue.append(",");
+                        linkValue.append(String.format("<%s>; rel=next; type=\"%s\"",
+                                buildRequestUrl(ctx, ts, ts.getNextPage()),
+                                contentType));
+                    }
+
+                    ctx.header("Link", linkValue.toString());
+                    ctx.result(results).contentType(contentType.toString());
+                    resultSize = results.length();
                 }
-
-                ctx.header("Link", linkValue.toString());
-                ctx.result(results).contentType(contentType.toString());
             } else {
                 if (versionDate != null) {
                     throw new IllegalArgumentException(String.format("Version date is only supported for:%s and %s",
@@ -502,9 +537,14 @@ public class TimeSeriesController implements CrudHandler {
                 results = dao.getTimeseries(format, names, office, unit, datum, beginZdt, endZdt, tz);
                 ctx.status(HttpServletResponse.SC_OK);
                 ctx.result(results);
+                resultSize = results.length();
             }
             addDeprecatedContentTypeWarning(ctx, contentType);
-            requestResultSize.update(results.length());
+            requestResultSize.update(resultSize);
+        } catch (IOException ex) {
+            CdaError re = new CdaError("Internal Error");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR).json(re);
         } catch (NotFoundException e) {
             CdaError re = new CdaError("Not found.");
             logger.log(Level.WARNING, re.toString(), e);
@@ -561,16 +601,17 @@ public class TimeSeriesController implements CrudHandler {
             DSLContext dsl = getDslContext(ctx);
 
             TimeSeriesDao dao = getTimeSeriesDao(dsl);
-            TimeSeries timeSeries = deserializeTimeSeries(ctx);
 
             boolean createAsLrts = ctx.queryParamAsClass(CREATE_AS_LRTS, Boolean.class)
                     .getOrDefault(false);
-            StoreRule storeRule = ctx.queryParamAsClass(STORE_RULE, StoreRule.class)
-                    .getOrDefault(StoreRule.REPLACE_ALL);
+            StoreRule storeRule = queryParamAsClass(ctx, new String[]{STORE_RULE},
+                    StoreRule.class, StoreRule.REPLACE_ALL);
             boolean overrideProtection = ctx.queryParamAsClass(OVERRIDE_PROTECTION, Boolean.class)
                     .getOrDefault(TimeSeriesDaoImpl.OVERRIDE_PROTECTION);
 
-            dao.store(timeSeries, createAsLrts, storeRule, overrideProtection);
+            try (TimeSeriesReader reader = timeSeriesReader(ctx)) {
+                dao.store(reader, createAsLrts, storeRule, overrideProtection);
+            }
 
             ctx.status(HttpServletResponse.SC_OK);
         } catch (IOException | DataAccessException ex) {
@@ -580,10 +621,59 @@ public class TimeSeriesController implements CrudHandler {
         }
     }
 
-    private TimeSeries deserializeTimeSeries(Context ctx) throws IOException {
+    /**
+     * Writes the requested page straight to the response while the values are read from the
+     * database.  Only the self link can go in the Link header since the next page is not known
+     * until the body is written; clients find it in the next-page field instead.
+     *
+     * @return number of bytes written
+     */
+    private long streamTimeSeries(Context ctx, TimeSeriesDao dao, ContentType contentType,
+                                  String cursor, int pageSize, String names, String office,
+                                  String unit, ZonedDateTime beginZdt, ZonedDateTime endZdt,
+                                  ZonedDateTime versionDate, boolean trim) throws IOException {
+        ctx.status(HttpServletResponse.SC_OK);
+        ctx.contentType(contentType.toString());
+        CountingOutputStream out = new CountingOutputStream(ctx.res.getOutputStream());
+        try (TimeSeriesWriter formatWriter = Formats.timeSeriesWriter(contentType, out)) {
+            dao.streamTimeseries(cursor, pageSize, names, office, unit, beginZdt, endZdt,
+                    versionDate, trim, new TimeSeriesWriter() {
+                        @Override
+                        public void writeHeader(TimeSeries header) throws IOException {
+                            // headers have to be set before the first byte of the body
+                            ctx.header("Link", String.format("<%s>; rel=self; type=\"%s\"",
+                                    buildRequestUrl(ctx, header, header.getPage()), contentType));
+                            formatWriter.writeHeader(header);
+                        }
+
+                        @Override
+                        public void writeValue(Timestamp dateTime, Double value, int qualityCode)
+                                throws IOException {
+                            formatWriter.writeValue(dateTime, value, qualityCode);
+                        }
+
+                        @Override
+                        public void writeTrailer(TimeSeries header) throws IOException {
+                            formatWriter.writeTrailer(header);
+                        }
+
+                        @Override
+                        public void close() {
+                            // closed by the enclosing try
+                        }
+                    });
+        } catch (IOException e) {
+            Controllers.streamFailed(ctx, e);
+        } catch (RuntimeException e) {
+            Controllers.streamFailed(ctx, e);
+        }
+        return out.getCount();
+    }
+
+    private TimeSeriesReader timeSeriesReader(Context ctx) throws IOException {
         String contentTypeHeader = ctx.req.getContentType();
         ContentType contentType = Formats.parseHeader(contentTypeHeader, TimeSeries.class);
-        return Formats.parseContent(contentType, ctx.bodyAsInputStream(), TimeSeries.class);
+        return Formats.timeSeriesReader(contentType, ctx.bodyAsInputStream());
     }
 
     /**
@@ -102,8 +102,8 @@ public class TimeSeriesRecentController implements Handler {
     @OpenApi(
             queryParams = {
                 @OpenApiParam(name = OFFICE, description = "Specifies the owning office of the "
-                        + "timeseries group(s) whose data is to be included in the response. "
-                        + "If this field is not specified, matching timeseries groups "
+                        + "timeseries group(s) or timeseries ids whose data is to be included in the "
+                        + "response. If this field is not specified, matching timeseries groups "
                         + "information from all offices shall be returned."),
                 @OpenApiParam(name = CATEGORY_ID, description = "Specifies the category id "
                         + "of the timeseries to be included in the response.  Optional."),
@@ -179,7 +179,7 @@ public class TimeSeriesRecentController implements Handler {
                 // just group provided
                 latestValues = dao.findRecentsInRange(office, categoryId, groupId, pastLimit, futureLimit, unitSystem);
             } else {
-                latestValues = dao.findMostRecentsInRange(tsIds, pastLimit, futureLimit, unitSystem);
+                latestValues = dao.findMostRecentsInRange(office, tsIds, pastLimit, futureLimit, unitSystem);
             }
 
             String formatHeader = ctx.header(Header.ACCEPT);
@@ -17,6 +17,7 @@ import static cwms.cda.data.dao.JooqDao.getDslContext;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.data.dao.TimeZoneDao;
 import cwms.cda.data.dto.TimeZoneId;
 import cwms.cda.data.dto.TimeZoneIds;
@@ -32,7 +33,6 @@ import io.javalin.plugin.openapi.annotations.OpenApiResponse;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletResponse;
-import org.jooq.DSLContext;
 
 public class TimeZoneController implements CrudHandler {
     private static final Logger logger = Logger.getLogger(TimeZoneController.class.getName());
@@ -87,8 +87,7 @@ public class TimeZoneController implements CrudHandler {
     @Override
     public void getAll(Context ctx) {
         try (Timer.Context timeContext = markAndTime(GET_ALL)) {
-            DSLContext dsl = getDslContext(ctx);
-            TimeZoneDao dao = new TimeZoneDao(dsl);
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
             String format = ctx.queryParamAsClass(FORMAT, String.class).getOrDefault("");
             String header = ctx.header(ACCEPT);
             ContentType contentType = Formats.parseQueryOrHeaderParam(header, format, TimeZoneId.class);
@@ -97,12 +96,17 @@ public class TimeZoneController implements CrudHandler {
 
             boolean isLegacyVersion = version.equals("1");
 
-            String results;
+            ReferenceDataStore.Body body;
             if (format.isEmpty() && !isLegacyVersion)
             {
-                TimeZoneIds zones = dao.getTimeZones();
-                results = Formats.format(contentType, zones);
-                ctx.contentType(contentType.toString());
+                String type = contentType.toString();
+                if (snapshot != null) {
+                    body = snapshot.body("timezones:" + type, type,
+                            () -> Formats.format(contentType, snapshot.getTimeZones()));
+                } else {
+                    TimeZoneIds zones = new TimeZoneDao(getDslContext(ctx)).getTimeZones();
+                    body = ReferenceDataStore.Body.of(Formats.format(contentType, zones), type);
+                }
             }
             else
             {
@@ -110,22 +114,19 @@ public class TimeZoneController implements CrudHandler {
                 {
                     format = Formats.getLegacyTypeFromContentType(contentType);
                 }
-                results = dao.getTimeZones(format);
-                if (isLegacyVersion)
-                {
-                    ctx.contentType(contentType.toString());
-                }
-                else
-                {
-                    ctx.contentType(contentType.getType());
+                String type = isLegacyVersion ? contentType.toString() : contentType.getType();
+                String legacy = snapshot == null ? null : snapshot.getLegacyTimeZones(format);
+                if (legacy != null) {
+                    body = snapshot.body("timezones:" + format + ":" + type, type, () -> legacy);
+                } else {
+                    body = ReferenceDataStore.Body.of(new TimeZoneDao(getDslContext(ctx)).getTimeZones(format), type);
                 }
             }
 
+            Controllers.result(ctx, body);
             addDeprecatedContentTypeWarning(ctx, contentType);
 
-            requestResultSize.update(results.length());
-            ctx.status(HttpServletResponse.SC_OK);
-            ctx.result(results);
+            requestResultSize.update(body.getBytes().length);
         } catch (Exception ex) {
             logger.log(Level.SEVERE, null, ex);
             ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -17,6 +17,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.cda.api.errors.CdaError;
+import cwms.cda.data.dao.ReferenceDataStore;
 import cwms.cda.data.dao.UnitsDao;
 import cwms.cda.data.dto.Unit;
 import cwms.cda.formatters.ContentType;
@@ -31,7 +32,6 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletResponse;
-import org.jooq.DSLContext;
 
 public class UnitsController implements CrudHandler {
     private static final Logger logger = Logger.getLogger(UnitsController.class.getName());
@@ -83,8 +83,7 @@ public class UnitsController implements CrudHandler {
     public void getAll(Context ctx) {
 
         try (final Timer.Context timeContext = markAndTime(GET_ALL)) {
-            DSLContext dsl = getDslContext(ctx);
-            UnitsDao dao = new UnitsDao(dsl);
+            ReferenceDataStore.Snapshot snapshot = ReferenceDataStore.snapshot(ctx);
             String format = ctx.queryParamAsClass(FORMAT, String.class).getOrDefault("");
             String header = ctx.header(ACCEPT);
 
@@ -94,12 +93,17 @@ public class UnitsController implements CrudHandler {
 
             boolean isLegacyVersion = version.equals("1");
 
-            String results;
+            ReferenceDataStore.Body body;
             if (format.isEmpty() && !isLegacyVersion)
             {
-                List<Unit> units = dao.getUnits();
-                results = Formats.format(contentType, units, Unit.class);
-                ctx.contentType(contentType.toString());
+                String type = contentType.toString();
+                if (snapshot != null) {
+                    body = snapshot.body("units:" + type, type,
+                            () -> Formats.format(contentType, snapshot.getUnits(), Unit.class));
+                } else {
+                    List<Unit> units = new UnitsDao(getDslContext(ctx)).getUnits();
+                    body = ReferenceDataStore.Body.of(Formats.format(contentType, units, Unit.class), type);
+                }
             }
             else
             {
@@ -107,21 +111,18 @@ public class UnitsController implements CrudHandler {
                 {
                     format = Formats.getLegacyTypeFromContentType(contentType);
                 }
-                results = dao.getUnits(format);
-                if (isLegacyVersion)
-                {
-                    ctx.contentType(contentType.toString());
-                }
-                else
-                {
-                    ctx.contentType(contentType.getType());
+                String type = isLegacyVersion ? contentType.toString() : contentType.getType();
+                String legacy = snapshot == null ? null : snapshot.getLegacyUnits(format);
+                if (legacy != null) {
+                    body = snapshot.body("units:" + format + ":" + type, type, () -> legacy);
+                } else {
+                    body = ReferenceDataStore.Body.of(new UnitsDao(getDslContext(ctx)).getUnits(format), type);
                 }
             }
 
-            ctx.status(HttpServletResponse.SC_OK);
-            ctx.result(results);
+            Controllers.result(ctx, body);
             addDeprecatedContentTypeWarning(ctx, contentType);
-            requestResultSize.update(results.length());
+            requestResultSize.update(body.getBytes().length);
         } catch (Exception ex) {
             logger.log(Level.SEVERE, null, ex);
             ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -0,0 +1,37 @@
+package cwms.cda.api;
+
+import cwms.cda.data.dao.ChangeMarker;
+import io.javalin.http.Context;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link io.javalin.apibuilder.CrudHandler} whose GET responses can be validated with a cheap
+ * change marker.  Routes registered with {@link cwms.cda.ApiServlet#cdaCrud} ask for the marker
+ * before running the handler and answer a matching If-None-Match or If-Modified-Since with 304
+ * Not Modified; otherwise the marker's ETag and Last-Modified are sent with the response.
+ *
+ * <p>A marker must change whenever any response to the request could; return null when that
+ * can't be promised (e.g. a time window relative to now) and the request runs as usual.
+ */
+public interface VersionedEndpoint {
+
+    /**
+     * @param ctx the getAll request
+     * @return the change marker, or null if the request can't be validated this way
+     */
+    @Nullable
+    default ChangeMarker getAllMarker(@NotNull Context ctx) {
+        return null;
+    }
+
+    /**
+     * @param ctx the getOne request
+     * @param id the resource id
+     * @return the change marker, or null if the request can't be validated this way
+     */
+    @Nullable
+    default ChangeMarker getOneMarker(@NotNull Context ctx, @NotNull String id) {
+        return null;
+    }
+}
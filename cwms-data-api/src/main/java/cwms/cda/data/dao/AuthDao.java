@@ -1,14 +1,16 @@
 package cwms.cda.data.dao;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
 import cwms.cda.ApiServlet;
 import cwms.cda.data.dto.auth.ApiKey;
 import cwms.cda.datasource.ConnectionPreparer;
 import cwms.cda.datasource.ConnectionPreparingDataSource;
 import cwms.cda.datasource.DelegatingConnectionPreparer;
-import cwms.cda.datasource.DirectUserPreparer;
-import cwms.cda.datasource.SessionOfficePreparer;
-import cwms.cda.datasource.SessionTimeZonePreparer;
+import cwms.cda.datasource.SessionStatePreparer;
 import cwms.cda.helpers.ResourceHelper;
 import cwms.cda.security.CwmsAuthException;
 import cwms.cda.security.DataApiPrincipal;
@@ -17,6 +19,7 @@ import cwms.cda.security.Role;
 import io.javalin.core.security.RouteRole;
 import io.javalin.http.Context;
 import io.javalin.http.HttpCode;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.sql.Connection;
@@ -27,6 +30,7 @@ import java.sql.SQLException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashSet;
@@ -36,6 +40,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -76,6 +81,20 @@ public class AuthDao extends Dao<DataApiPrincipal> {
             + "from cwms_20.at_api_keys where UPPER(userid) = UPPER(?) and key_name = ?";
     public static final String ONLY_OWN_KEY_MESSAGE = "You may not create API keys for any user other than your own.";
 
+    public static final String PROP_BASE = "cwms.cda.data.dao.auth";
+    public static final String PRINCIPAL_CACHE_NAME = "principal";
+
+    /**
+     * Principals, with their roles, that have recently been authenticated. Keyed by a hash of the
+     * API key or by EDIPI, so the keys themselves are never held in memory, and by the session
+     * the lookup ran with.
+     */
+    private static final PrincipalCache principalCache = new PrincipalCache(CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + PRINCIPAL_CACHE_NAME + ".maxSize", 10000))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + PRINCIPAL_CACHE_NAME
+                    + ".expireAfterSeconds", 300), TimeUnit.SECONDS)
+            .recordStats());
+
     private static boolean hasCwmsEnvMultiOfficeAuthFix = false;
     private static String connectionUser = null;
     private static String defaultOffice = null;
@@ -99,6 +118,7 @@ public class AuthDao extends Dao<DataApiPrincipal> {
                 connectionUser = dsl.connectionResult(c -> c.getMetaData().getUserName());
                 dsl.execute("BEGIN cwms_env.set_session_user_direct(?,?); END;", connectionUser, defaultOffice);
                 hasCwmsEnvMultiOfficeAuthFix = true;
+                SessionStatePreparer.forgetAll();
             } catch (DataAccessException ex) {
                 if (ex.getLocalizedMessage()
                     .toLowerCase()
@@ -159,9 +179,62 @@ public class AuthDao extends Dao<DataApiPrincipal> {
      * @throws CwmsAuthException throw for any issue with verification of Key or user information.
      */
     public DataApiPrincipal getByApiKey(String apikey) throws CwmsAuthException {
-        String userName = checkKey(apikey);
-        Set<RouteRole> roles = getRolesForUser(userName);
-        return new DataApiPrincipal(userName,roles);
+        return cachedPrincipal(apiKeyCredential(apikey), () -> {
+            String userName = checkKey(apikey);
+            Set<RouteRole> roles = getRolesForUser(userName);
+            return new DataApiPrincipal(userName,roles);
+        });
+    }
+
+    private static DataApiPrincipal cachedPrincipal(String credential,
+                                                    Callable<DataApiPrincipal> loader)
+            throws CwmsAuthException {
+        return principalCache.get(principalKey(credential, connectionUser, defaultOffice,
+                hasCwmsEnvMultiOfficeAuthFix), loader);
+    }
+
+    /**
+     * @return how an API key is named in the principal cache, a hash so the key itself is
+     *     never held.
+     */
+    // Package private for unit testing
+    static String apiKeyCredential(String apikey) {
+        return "key:" + Hashing.sha256().hashString(apikey, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The principal cache key: the credential and the session the user and roles were looked up
+     * with, see {@link #setSessionForAuthCheck(Connection)}.
+     */
+    // Package private for unit testing
+    static List<Object> principalKey(String credential, String sessionUser, String sessionOffice,
+                                     boolean multiOfficeAuthFix) {
+        return Arrays.asList(credential, sessionUser, sessionOffice, multiOfficeAuthFix);
+    }
+
+    /**
+     * Drops the cached principals of a user, e.g. after their keys or roles have changed.
+     * @param userName the user, case insensitive.
+     */
+    public static void invalidatePrincipal(String userName) {
+        principalCache.invalidate(userName);
+    }
+
+    /**
+     * Publish the hit and miss rates of the principal cache.
+     * @param metrics registry to add the gauges to.
+     */
+    public static void registerCacheMetrics(MetricRegistry metrics) {
+        String hrName = MetricRegistry.name(AuthDao.class, PRINCIPAL_CACHE_NAME, "hit-rate");
+        if (metrics.getGauges().get(hrName) == null) {
+            MetricRegistry.MetricSupplier<? extends Gauge> hr = () -> (Gauge<Double>) () -> principalCache.getCache().stats().hitRate();
+            metrics.gauge(hrName, hr);
+        }
+        String mrName = MetricRegistry.name(AuthDao.class, PRINCIPAL_CACHE_NAME, "miss-rate");
+        if (metrics.getGauges().get(mrName) == null) {
+            MetricRegistry.MetricSupplier<? extends Gauge> mr = () -> (Gauge<Double>) () -> principalCache.getCache().stats().missRate();
+            metrics.gauge(mrName, mr);
+        }
     }
 
     /**
@@ -170,6 +243,7 @@ public class AuthDao extends Dao<DataApiPrincipal> {
      * @throws SQLException if there is an issue setting up the session.
      */
     private void setSessionForAuthCheck(Connection conn) throws SQLException {
+        SessionStatePreparer.forget(conn);
         if (hasCwmsEnvMultiOfficeAuthFix) {
             try (PreparedStatement setApiUser = conn.prepareStatement(SET_API_USER_DIRECT_WITH_OFFICE)) {
                 setApiUser.setString(1,connectionUser);
@@ -250,9 +324,11 @@ public class AuthDao extends Dao<DataApiPrincipal> {
      * @throws CwmsAuthException if the user is not in the database.
      */
     public DataApiPrincipal getPrincipalFromEdipi(Long edipi) throws CwmsAuthException {
-        String username = userForEdipi(edipi);
-        Set<RouteRole> roles = this.getRolesForUser(username);
-        return new DataApiPrincipal(username, roles);
+        return cachedPrincipal("edipi:" + edipi, () -> {
+            String username = userForEdipi(edipi);
+            Set<RouteRole> roles = this.getRolesForUser(username);
+            return new DataApiPrincipal(username, roles);
+        });
     }
 
     /**
@@ -293,7 +369,7 @@ public class AuthDao extends Dao<DataApiPrincipal> {
               .atMostEvery(5,TimeUnit.SECONDS)
               .log("Validated Api Key for user=%s", p.getName());
         DataSource dataSource = ctx.attribute(ApiServlet.DATA_SOURCE);
-        ConnectionPreparer userPreparer = new DirectUserPreparer(p.getName());
+        ConnectionPreparer userPreparer = new SessionStatePreparer(null, p.getName(), null);
         ctx.attribute(DATA_API_PRINCIPAL,p);
         if (dataSource instanceof ConnectionPreparingDataSource) {
             ConnectionPreparingDataSource cpDs = (ConnectionPreparingDataSource)dataSource;
@@ -305,6 +381,8 @@ public class AuthDao extends Dao<DataApiPrincipal> {
             ctx.attribute(ApiServlet.DATA_SOURCE,
                           new ConnectionPreparingDataSource(userPreparer, dataSource));
         }
+        // Anything that already ran for this request was not prepared for this user.
+        JooqDao.releaseDslContext(ctx.req);
     }
 
     /**
@@ -337,10 +415,8 @@ public class AuthDao extends Dao<DataApiPrincipal> {
      */
     public void prepareGuestContext(Context ctx) {
         DataSource dataSource = ctx.attribute(ApiServlet.DATA_SOURCE);
-        SessionTimeZonePreparer utcPrep = new SessionTimeZonePreparer();
-        ConnectionPreparer officePreparer = new SessionOfficePreparer(defaultOffice);
-        ConnectionPreparer userPreparer = new DirectUserPreparer(connectionUser);
-        ConnectionPreparer guestPreparer = new DelegatingConnectionPreparer(utcPrep, userPreparer, officePreparer);
+        ConnectionPreparer guestPreparer = new SessionStatePreparer(SessionStatePreparer.UTC,
+                connectionUser, defaultOffice);
 
         if (dataSource instanceof ConnectionPreparingDataSource) {
             ConnectionPreparingDataSource cpDs = (ConnectionPreparingDataSource)dataSource;
@@ -352,6 +428,8 @@ public class AuthDao extends Dao<DataApiPrincipal> {
             ctx.attribute(ApiServlet.DATA_SOURCE,
                           new ConnectionPreparingDataSource(guestPreparer, dataSource));
         }
+        // Anything that already ran for this request was not prepared for a guest.
+        JooqDao.releaseDslContext(ctx.req);
     }
 
     private static List<String> getMissingRoles(@NotNull Context ctx,
@@ -410,6 +488,7 @@ public class AuthDao extends Dao<DataApiPrincipal> {
                     createKey.execute();
                 }
             });
+            invalidatePrincipal(newKey.getUserId());
             return newKey;
         } catch (NoSuchAlgorithmException ex) {
             throw new CwmsAuthException("Unable to generate appropriate key.", ex,
@@ -479,6 +558,7 @@ public class AuthDao extends Dao<DataApiPrincipal> {
                 deleteKey.execute();
             }
         });
+        invalidatePrincipal(p.getName());
     }
 
 
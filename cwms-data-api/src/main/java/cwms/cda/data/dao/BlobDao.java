@@ -11,6 +11,9 @@ import usace.cwms.db.jooq.codegen.packages.CWMS_TEXT_PACKAGE;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.CallableStatement;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -19,6 +22,10 @@ import java.util.Optional;
 
 public class BlobDao extends JooqDao<Blob> {
 
+    public static final String PROP_BASE = "cwms.cda.data.dao.blob";
+    /** Bytes per write when streaming an upload into a temporary LOB. */
+    private static final int STREAM_CHUNK_SIZE = Integer.getInteger(PROP_BASE + ".stream.chunkSize", 64 * 1024);
+
     public static final String BLOB_WITH_OFFICE = "SELECT CWMS_MEDIA_TYPE.MEDIA_TYPE_ID, AT_BLOB.VALUE \n"
             + "FROM CWMS_20.AT_BLOB \n"
             + "join CWMS_20.CWMS_MEDIA_TYPE on AT_BLOB.MEDIA_TYPE_CODE = CWMS_MEDIA_TYPE.MEDIA_TYPE_CODE \n"
@@ -177,6 +184,58 @@ public class BlobDao extends JooqDao<Blob> {
                 blob.getOfficeId()));
     }
 
+    /**
+     * Store a blob whose value is read from a stream, so the value is never held in memory.
+     * @param officeId the owning office
+     * @param id the blob id
+     * @param description optional description
+     * @param mediaTypeId internet media type or file extension of the value
+     * @param value the value, read until the end of the stream
+     * @param failIfExists fail if a blob with the id already exists
+     * @param ignoreNulls ignore null parameters when updating
+     */
+    public void create(String officeId, String id, String description, String mediaTypeId,
+                       InputStream value, boolean failIfExists, boolean ignoreNulls) {
+        connection(dsl, c -> {
+            setOffice(c, officeId);
+            java.sql.Blob lob = copyToTemporaryBlob(c, value);
+            try (CallableStatement stmt = c.prepareCall("{call CWMS_TEXT.STORE_BINARY(?,?,?,?,?,?,?)}")) {
+                stmt.setBlob(1, lob);
+                stmt.setString(2, id);
+                stmt.setString(3, mediaTypeId);
+                stmt.setString(4, description);
+                stmt.setString(5, formatBool(failIfExists));
+                stmt.setString(6, formatBool(ignoreNulls));
+                stmt.setString(7, officeId);
+                stmt.execute();
+            } finally {
+                lob.free();
+            }
+        });
+    }
+
+    /**
+     * Copy a stream into a temporary LOB on the connection in fixed size chunks.  The caller
+     * should free the LOB once it has been stored.
+     * @param connection the connection the LOB will be used on
+     * @param stream the data, read until the end of the stream
+     * @return the temporary LOB
+     */
+    public static java.sql.Blob copyToTemporaryBlob(Connection connection, InputStream stream)
+            throws SQLException, IOException {
+        java.sql.Blob lob = connection.createBlob();
+        try (OutputStream output = lob.setBinaryStream(1)) {
+            byte[] buffer = new byte[STREAM_CHUNK_SIZE];
+            int bytesRead;
+            while ((bytesRead = stream.read(buffer)) != -1) {
+                output.write(buffer, 0, bytesRead);
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            lob.free();
+            throw e;
+        }
+        return lob;
+    }
 
     public static byte[] readFully(@NotNull InputStream stream) throws IOException {
         byte[] buffer = new byte[8192];
@@ -2,6 +2,7 @@ package cwms.cda.data.dao;
 
 import static usace.cwms.db.jooq.codegen.tables.AV_TS_EXTENTS_UTC.AV_TS_EXTENTS_UTC;
 
+import cwms.cda.data.dao.location.BoundingBox;
 import org.jooq.Table;
 import usace.cwms.db.jooq.codegen.tables.AV_LOC;
 import usace.cwms.db.jooq.codegen.tables.AV_LOC_GRP_ASSGN;
@@ -20,6 +21,7 @@ public class CatalogRequestParameters {
     private final boolean excludeEmpty;
     private final String locationKind;
     private final String locationType;
+    private final BoundingBox bbox;
 
     private CatalogRequestParameters(Builder builder) {
         this.office = builder.office;
@@ -34,6 +36,7 @@ public class CatalogRequestParameters {
         this.excludeEmpty = builder.excludeEmpty;
         this.locationKind = builder.locationKind;
         this.locationType = builder.locationType;
+        this.bbox = builder.bbox;
     }
 
     public String getBoundingOfficeLike() {
@@ -84,6 +87,10 @@ public class CatalogRequestParameters {
         return locationType;
     }
 
+    public BoundingBox getBbox() {
+        return bbox;
+    }
+
 
     public static class Builder {
         String office;
@@ -98,6 +105,7 @@ public class CatalogRequestParameters {
         private boolean excludeEmpty = true;
         String locationKind;
         String locationType;
+        BoundingBox bbox;
 
         public Builder() {
 
@@ -163,6 +171,11 @@ public class CatalogRequestParameters {
             return this;
         }
 
+        public Builder withBbox(BoundingBox bbox) {
+            this.bbox = bbox;
+            return this;
+        }
+
         public static Builder from(CatalogRequestParameters params) {
             // This NEEDS to include every field in the CatalogRequestParameters
             return new Builder()
@@ -178,6 +191,7 @@ public class CatalogRequestParameters {
                     .withExcludeEmpty(params.excludeEmpty)
                     .withLocationKind(params.locationKind)
                     .withLocationType(params.locationType)
+                    .withBbox(params.bbox)
                     ;
         }
 
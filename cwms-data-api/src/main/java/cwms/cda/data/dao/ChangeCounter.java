@@ -0,0 +1,72 @@
+package cwms.cda.data.dao;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Change markers for data whose tables keep no last update: a count of the changes made
+ * through this server, per office, bumped by the write paths of the dao.
+ *
+ * <p>Changes made by other servers or directly in the database can't be counted, so the marker
+ * also moves every period, the same bound the caches of this data put on them.  Each instance
+ * also marks its markers as its own, so markers of another server or of an earlier start never
+ * match.
+ */
+public final class ChangeCounter {
+
+    private final String instance = UUID.randomUUID().toString();
+    private final long periodMillis;
+    private final LongSupplier clock;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong allOffices = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> byOffice = new ConcurrentHashMap<>();
+
+    /**
+     * @param periodSeconds how long a marker can stay the same without a counted change
+     */
+    public ChangeCounter(int periodSeconds) {
+        this(periodSeconds, System::currentTimeMillis);
+    }
+
+    // Package private for unit testing
+    ChangeCounter(int periodSeconds, LongSupplier clock) {
+        this.periodMillis = Math.max(1, TimeUnit.SECONDS.toMillis(periodSeconds));
+        this.clock = clock;
+    }
+
+    /**
+     * Counts a change.
+     * @param officeId the office of the changed data, null if it may be any office
+     */
+    public void changed(@Nullable String officeId) {
+        if (officeId == null) {
+            allOffices.incrementAndGet();
+        } else {
+            byOffice.computeIfAbsent(officeId.toUpperCase(), o -> new AtomicLong())
+                    .incrementAndGet();
+        }
+        total.incrementAndGet();
+    }
+
+    /**
+     * @param officeId the office a response covers, null for every office
+     * @return a marker that changes with every change counted for the office
+     */
+    public ChangeMarker marker(@Nullable String officeId) {
+        String count;
+        if (officeId == null) {
+            count = "*:" + total.get();
+        } else {
+            AtomicLong office = byOffice.get(officeId.toUpperCase());
+            count = officeId.toUpperCase() + ":" + allOffices.get() + ":"
+                    + (office == null ? 0 : office.get());
+        }
+        return new ChangeMarker(instance + ":" + clock.getAsLong() / periodMillis + ":" + count,
+                null);
+    }
+}
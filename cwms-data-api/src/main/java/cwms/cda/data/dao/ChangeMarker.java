@@ -0,0 +1,34 @@
+package cwms.cda.data.dao;
+
+import java.time.Instant;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A cheaply read value that changes whenever the data behind a response does, e.g. the last
+ * update of a time series, so a client's cached copy can be validated without running the full
+ * query.
+ */
+public final class ChangeMarker {
+
+    private final String value;
+    @Nullable
+    private final Instant lastModified;
+
+    /**
+     * @param value changes whenever the data changes
+     * @param lastModified when the data last changed, if known
+     */
+    public ChangeMarker(String value, @Nullable Instant lastModified) {
+        this.value = value;
+        this.lastModified = lastModified;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Nullable
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -33,6 +33,8 @@ import cwms.cda.api.errors.AlreadyExists;
 import cwms.cda.api.errors.InvalidItemException;
 import cwms.cda.api.errors.NotFoundException;
 import cwms.cda.datasource.ConnectionPreparingDataSource;
+import cwms.cda.datasource.RequestConnectionProvider;
+import cwms.cda.datasource.SessionStatePreparer;
 import cwms.cda.security.CwmsAuthException;
 import io.javalin.http.Context;
 import java.math.BigDecimal;
@@ -46,6 +48,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Level;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.sql.DataSource;
 import org.jetbrains.annotations.NotNull;
@@ -63,7 +66,6 @@ import org.jooq.impl.DSL;
 import org.jooq.impl.DefaultExecuteListenerProvider;
 import org.owasp.html.HtmlPolicyBuilder;
 import org.owasp.html.PolicyFactory;
-import usace.cwms.db.jooq.codegen.packages.CWMS_ENV_PACKAGE;
 
 
 public abstract class JooqDao<T> extends Dao<T> {
@@ -71,6 +73,9 @@ public abstract class JooqDao<T> extends Dao<T> {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
     static ExecuteListener listener = new ExceptionWrappingListener();
+    private static final String REQUEST_DSL = "cda.request.dsl";
+    private static final String REQUEST_CONNECTION = "cda.request.connection";
+    private static final String HOLD_CONNECTION = "cda.request.holdConnection";
 
     public enum DeleteMethod {
         DELETE_ALL(DeleteRule.DELETE_ALL),
@@ -105,13 +110,19 @@ public abstract class JooqDao<T> extends Dao<T> {
      * @return A DSLContext for the current request.
      */
     public static DSLContext getDslContext(Context ctx) {
-        DSLContext retVal;
+        DSLContext retVal = ctx.attribute(REQUEST_DSL);
+        if (retVal != null) {
+            return retVal;
+        }
         final String officeId = ctx.attribute(ApiServlet.OFFICE_ID);
         final DataSource dataSource = ctx.attribute(ApiServlet.DATA_SOURCE);
         if (dataSource != null) {
             DataSource wrappedDataSource = new ConnectionPreparingDataSource(connection ->
                     setClientInfo(ctx, connection), dataSource);
-            retVal = DSL.using(wrappedDataSource, SQLDialect.ORACLE18C);
+            RequestConnectionProvider provider = new RequestConnectionProvider(wrappedDataSource);
+            ctx.attribute(REQUEST_CONNECTION, provider);
+            retVal = DSL.using(provider, SQLDialect.ORACLE18C);
+            ctx.attribute(REQUEST_DSL, retVal);
         } else {
             // Some tests still use this method
             logger.atFine().withStackTrace(StackSize.FULL)
@@ -125,6 +136,46 @@ public abstract class JooqDao<T> extends Dao<T> {
         return retVal;
     }
 
+    /**
+     * Keeps the request's connection until the response has been written, for a result that is
+     * still read from the database after the handler returns, e.g. a blob streamed with
+     * {@code ctx.seekableStream}.
+     *
+     * @param ctx The current request context.
+     */
+    public static void holdConnectionUntilWritten(Context ctx) {
+        ctx.req.setAttribute(HOLD_CONNECTION, Boolean.TRUE);
+    }
+
+    /**
+     * Returns the request's connection to the pool once its handler is done, unless the result
+     * still needs it, so the connection isn't held while the response is written.
+     *
+     * @param ctx The current request context.
+     */
+    public static void releaseDslContextAfterHandler(Context ctx) {
+        if (ctx.req.getAttribute(HOLD_CONNECTION) == null) {
+            releaseDslContext(ctx.req);
+        }
+    }
+
+    /**
+     * Returns the connection the current request has been using to the pool.  Called once the
+     * request's database work is done, at the latest at the end of the request, and whenever the
+     * request's DataSource changes so that the next {@link #getDslContext(Context)} prepares a
+     * new connection.
+     *
+     * @param req the current request.
+     */
+    public static void releaseDslContext(ServletRequest req) {
+        RequestConnectionProvider provider = (RequestConnectionProvider) req.getAttribute(REQUEST_CONNECTION);
+        req.removeAttribute(REQUEST_DSL);
+        req.removeAttribute(REQUEST_CONNECTION);
+        if (provider != null) {
+            provider.close();
+        }
+    }
+
     public static DSLContext getDslContext(Connection connection, String officeId) {
         // Because this dsl is constructed with a connection, jOOQ will reuse the provided
         // connection and not get new connections from a DataSource.  See:
@@ -136,7 +187,7 @@ public abstract class JooqDao<T> extends Dao<T> {
         // This method should probably be called from within a connection{  } block and jOOQ
         // code within the block should use the returned DSLContext or the connection.
         DSLContext dsl = DSL.using(connection, SQLDialect.ORACLE18C);
-        CWMS_ENV_PACKAGE.call_SET_SESSION_OFFICE_ID(dsl.configuration(), officeId);
+        SessionStatePreparer.setOffice(connection, officeId);
 
         return dsl;
     }
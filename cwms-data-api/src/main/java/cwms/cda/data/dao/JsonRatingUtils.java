@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import hec.data.RatingException;
 import hec.data.cwmsRating.RatingSet;
@@ -13,17 +14,40 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import mil.army.usace.hec.cwms.rating.io.xml.RatingXmlFactory;
 
 public class JsonRatingUtils {
+    private static final String RESOURCE_BASE = "/cwms/cda/data/rating/";
+    private static final String ELEMENT_VALUE = "element-value";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectWriter JSON_WRITER = OBJECT_MAPPER.writer();
+    private static final XmlMapper XML_MAPPER = new XmlMapper();
+    private static final ObjectWriter XML_WRITER = XML_MAPPER.writer().withRootName("ratings");
+
+    // Factories are not guaranteed to be thread safe, every use is synchronized on it.
+    private static final SAXTransformerFactory TRANSFORMER_FACTORY = buildTransformerFactory();
+    // Compiled once, Templates are thread safe.
+    private static final List<Templates> CLEANUP_TEMPLATES = compileCleanupTemplates();
+
     private JsonRatingUtils() {
     }
 
@@ -51,54 +75,98 @@ public class JsonRatingUtils {
     }
 
     public static String jsonToXml(String json) throws IOException, TransformerException {
-        ObjectMapper om = new ObjectMapper();
+        JsonNode jsonNode = OBJECT_MAPPER.readTree(json);
 
-        JsonNode jsonNode = om.readTree(json);
-
-        XmlMapper mapper = new XmlMapper();
-        ObjectWriter writer = mapper.writer()
-                .withRootName("ratings");
-        String xml = writer.writeValueAsString(jsonNode);
+        String xml = XML_WRITER.writeValueAsString(jsonNode);
 
         return cleanupXml(xml);
     }
 
-    private static String cleanupXml(String xml) throws TransformerException {
-        // Doing this in steps b/c I'm not good enough at xslt to make it happen at once.
-
-        // The way we are writing out json, all the xml attributes were turned into
-        // child json fields.  We know certain fields (e.g. office-id, position)
-        // should be attributes.
-        String resourceLocation = "/cwms/cda/data/rating/remove_office.xsl";
-        InputStream resourceAsStream = JsonRatingUtils.class.getResourceAsStream(resourceLocation);
-        String officeXsl = readStream(resourceAsStream);
-
-        xml = applyTransform(xml, new StreamSource(new StringReader(officeXsl)));
+    private static SAXTransformerFactory buildTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        if (!factory.getFeature(SAXTransformerFactory.FEATURE)) {
+            throw new IllegalStateException("TransformerFactory " + factory.getClass().getName()
+                    + " does not support SAX transformations");
+        }
+        return (SAXTransformerFactory) factory;
+    }
 
+    private static List<Templates> compileCleanupTemplates() {
+        // Doing this in steps b/c I'm not good enough at xslt to make it happen at once.
+        List<Templates> templates = new ArrayList<>();
+        try {
+            // The way we are writing out json, all the xml attributes were turned into
+            // child json fields.  We know certain fields (e.g. office-id, position)
+            // should be attributes.
+            String officeXsl = readStream(JsonRatingUtils.class.getResourceAsStream(
+                    RESOURCE_BASE + "remove_office.xsl"));
+            templates.add(compile(new StreamSource(new StringReader(officeXsl))));
+
+            String[] additionalAttributes = new String[]{"position", "estimate", "unit",};
+
+            for (String attributeName : additionalAttributes) {
+                String template = officeXsl.replace("office-id", attributeName);
+                templates.add(compile(new StreamSource(new StringReader(template))));
+            }
 
-        String[] additionalAttributes = new String[]{"position", "estimate", "unit",};
+            // Value should become an attribute except when its inside offset so it needs
+            // a special transform.
+            templates.add(compile(buildSourceFromResource("move_value.xsl")));
+
+            // There is also the issue where the value of some elements was being
+            // written as an empty child field.  We manually renamed
+            // those to element-value in the json transformation.
+            // move_element-value will move the value of element-value
+            // back into the value of the parent element.
+            templates.add(compile(buildSourceFromResource("move_element-value.xsl")));
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("Unable to compile rating stylesheets", e);
+        }
+        return Collections.unmodifiableList(templates);
+    }
 
-        for (String attributeName : additionalAttributes) {
-            String template = officeXsl.replace("office-id", attributeName);
-            xml = applyTransform(xml, new StreamSource(new StringReader(template)));
+    private static Templates compile(Source xslt) throws TransformerConfigurationException {
+        synchronized (TRANSFORMER_FACTORY) {
+            return TRANSFORMER_FACTORY.newTemplates(xslt);
         }
+    }
 
-        // Value should become an attribute except when its inside offset so it needs
-        // a special transform.
-        xml = applyTransform(xml, buildSourceFromResource("move_value.xsl"));
+    /**
+     * Runs the xml through every cleanup stylesheet in one pass: each stylesheet hands its
+     * output straight to the next as SAX events, only the last one is serialized.
+     */
+    private static String cleanupXml(String xml) throws TransformerException {
+        StringWriter sw = new StringWriter();
+        TransformerHandler first = null;
+        Transformer reader;
+        synchronized (TRANSFORMER_FACTORY) {
+            TransformerHandler previous = null;
+            for (Templates templates : CLEANUP_TEMPLATES) {
+                TransformerHandler handler = TRANSFORMER_FACTORY.newTransformerHandler(templates);
+                if (previous == null) {
+                    first = handler;
+                } else {
+                    SAXResult next = new SAXResult(handler);
+                    next.setLexicalHandler(handler);
+                    previous.setResult(next);
+                }
+                previous = handler;
+            }
+            previous.setResult(new StreamResult(sw));
+            reader = TRANSFORMER_FACTORY.newTransformer();
+        }
 
-        // There is also the issue where the value of some elements was being
-        // written as an empty child field.  We manually renamed
-        // those to element-value in the json transformation.
-        // move_element-value will move the value of element-value
-        // back into the value of the parent element.
-        xml = applyTransform(xml, buildSourceFromResource("move_element-value.xsl"));
+        SAXResult start = new SAXResult(first);
+        start.setLexicalHandler(first);
+        reader.transform(new StreamSource(new StringReader(xml)), start);
 
-        return xml;
+        return sw.toString();
     }
 
     private static Source buildSourceFromResource(String filename) {
-        String resourceLocation = "/cwms/cda/data/rating/" + filename;
+        String resourceLocation = RESOURCE_BASE + filename;
         InputStream resourceAsStream = JsonRatingUtils.class.getResourceAsStream(resourceLocation);
         if (resourceAsStream == null) {
             throw new IllegalArgumentException("Could not find resource: " + resourceLocation);
@@ -112,31 +180,8 @@ public class JsonRatingUtils {
                 .lines().collect(Collectors.joining("\n"));
     }
 
-    private static String applyTransform(String xml, Source xslt) throws TransformerException {
-        TransformerFactory factory = TransformerFactory.newInstance();
-        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
-
-        Transformer transformer = factory.newTransformer(xslt);
-
-        StringReader input = new StringReader(xml);
-        StreamSource source = new StreamSource(input);
-
-        StringWriter sw = new StringWriter();
-        StreamResult outputResult = new StreamResult(sw);
-        transformer.transform(source, outputResult);
-
-        return sw.toString();
-    }
-
     public static String xmlToJson(String xml) throws JsonProcessingException {
-        XmlMapper mapper = new XmlMapper();
-        JsonNode jsonNode = mapper.readTree(xml);
-
-        ObjectMapper om = new ObjectMapper();
-        ObjectWriter writer = om.writer();
-
-        String json = writer.writeValueAsString(jsonNode);
+        JsonNode jsonNode = XML_MAPPER.readTree(xml);
 
         // When converted to json by parsing with XmlMapper
         // and passing the result to ObjectMapper
@@ -154,9 +199,28 @@ public class JsonRatingUtils {
         //
         // There is a weird field with an empty name in the json...
         // Lets find those and rename the empty field to something else.
+        renameEmptyFields(jsonNode);
 
-        json = json.replace("\"\":", "\"element-value\":");
+        return JSON_WRITER.writeValueAsString(jsonNode);
+    }
 
-        return json;
+    private static void renameEmptyFields(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            if (objectNode.has("")) {
+                // rebuild the object so the renamed field keeps its position
+                List<Map.Entry<String, JsonNode>> fields = new ArrayList<>();
+                objectNode.fields().forEachRemaining(fields::add);
+                objectNode.removeAll();
+                for (Map.Entry<String, JsonNode> field : fields) {
+                    String name = field.getKey().isEmpty() ? ELEMENT_VALUE : field.getKey();
+                    objectNode.set(name, field.getValue());
+                }
+            }
+        }
+        Iterator<JsonNode> children = node.elements();
+        while (children.hasNext()) {
+            renameEmptyFields(children.next());
+        }
     }
 }
@@ -80,6 +80,8 @@ public final class LocationCategoryDao extends JooqDao<LocationCategory> {
                     DSLContext dslContext = getDslContext(conn, office);
                     CWMS_LOC_PACKAGE.call_DELETE_LOC_CAT(dslContext.configuration(), categoryId, cascadeParam, office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
+        LocationsDaoImpl.locationsChanged(null);
     }
 
     public void create(LocationCategory category) {
@@ -95,5 +97,7 @@ public final class LocationCategoryDao extends JooqDao<LocationCategory> {
             DSLContext dslContext = getDslContext(conn, office);
             CWMS_LOC_PACKAGE.call_RENAME_LOC_CATEGORY(dslContext.configuration(), oldCategoryId, newCategoryId, null, "T", office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
+        LocationsDaoImpl.locationsChanged(null);
     }
 }
@@ -471,6 +471,8 @@ public final class LocationGroupDao extends JooqDao<LocationGroup> {
             CWMS_LOC_PACKAGE.call_DELETE_LOC_GROUP__2(dslContext.configuration(), categoryId,
                     groupId, formatBool(cascadeDelete), office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
+        LocationsDaoImpl.locationsChanged(null);
     }
 
     /**
@@ -488,6 +490,8 @@ public final class LocationGroupDao extends JooqDao<LocationGroup> {
                     group.getSharedRefLocationId());
             assignLocs(dslContext, group, office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(office);
+        LocationsDaoImpl.locationsChanged(office);
     }
 
     @NotNull
@@ -510,6 +514,8 @@ public final class LocationGroupDao extends JooqDao<LocationGroup> {
             CWMS_LOC_PACKAGE.call_RENAME_LOC_GROUP(dslContext.configuration(), newGroup.getLocationCategory().getId(),
                     oldGroupId, newGroup.getId(), newGroup.getDescription(), "T", office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
+        LocationsDaoImpl.locationsChanged(null);
     }
 
     public void unassignAllLocs(LocationGroup group, String office) {
@@ -519,6 +525,8 @@ public final class LocationGroupDao extends JooqDao<LocationGroup> {
             CWMS_LOC_PACKAGE.call_UNASSIGN_LOC_GROUP(dslContext.configuration(),
                     cat.getId(), group.getId(), null, "T", office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(office);
+        LocationsDaoImpl.locationsChanged(office);
     }
 
     public void assignLocs(LocationGroup group, String office) {
@@ -526,6 +534,8 @@ public final class LocationGroupDao extends JooqDao<LocationGroup> {
             DSLContext dslContext = getDslContext(conn, office);
             assignLocs(dslContext,group, office);
         });
+        TimeSeriesDaoImpl.invalidateCatalogIndex(office);
+        LocationsDaoImpl.locationsChanged(office);
     }
 
     /**
@@ -70,17 +70,20 @@ import mil.army.usace.hec.metadata.Interval;
 import mil.army.usace.hec.metadata.IntervalFactory;
 import mil.army.usace.hec.metadata.constants.NumericalConstants;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.Condition;
 import org.jooq.Configuration;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
-import org.jooq.SelectLimitPercentAfterOffsetStep;
+import org.jooq.Record3;
+import org.jooq.ResultQuery;
+import org.jooq.SelectLimitPercentStep;
 import org.jooq.TableField;
 import org.jooq.conf.ParamType;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
-import usace.cwms.db.jooq.codegen.packages.CWMS_ENV_PACKAGE;
 import usace.cwms.db.jooq.codegen.packages.CWMS_LEVEL_PACKAGE;
 import usace.cwms.db.jooq.codegen.packages.CWMS_LOC_PACKAGE;
 import usace.cwms.db.jooq.codegen.packages.CWMS_UTIL_PACKAGE;
@@ -97,6 +100,10 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
     public static final Pattern attributeIdParsingPattern =
             Pattern.compile(ATTRIBUTE_ID_PARSING_REGEXP);
 
+    /** Changes to location levels made through CDA, see getLocationLevelsMarker. */
+    private static final ChangeCounter changes = new ChangeCounter(Integer.getInteger(
+            "cwms.cda.data.dao.level.marker.periodSeconds", 900));
+
     public LocationLevelsDaoImpl(DSLContext dsl) {
         super(dsl);
     }
@@ -110,27 +117,39 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
                 names, format, unit, datum, begin, end, timezone, office);
     }
 
+    /**
+     * Pages through levels with a keyset on (office, level id, level date) rather than an offset,
+     * so deep pages cost the same as the first and a level's seasonal values always land on
+     * the same page.  Page size counts those keys; levels with several attribute values share a
+     * key, so a page can hold a few more levels than the page size.
+     */
     @Override
     public LocationLevels getLocationLevels(String cursor, int pageSize,
                                             String levelIdMask, String office, @NotNull String unit,
                                             String datum, ZonedDateTime beginZdt, ZonedDateTime endZdt) {
         Integer total = null;
-        int offset = 0;
+        String page = "*";
+        String cursorOffice = null;
+        String cursorLevelId = null;
+        Timestamp cursorDate = null;
 
         if (cursor != null && !cursor.isEmpty()) {
             String[] parts = CwmsDTOPaginated.decodeCursor(cursor);
-
-            if (parts.length > 2) {
-                offset = Integer.parseInt(parts[0]);
-                if (!"null".equals(parts[1])) {
-                    try {
-                        total = Integer.valueOf(parts[1]);
-                    } catch (NumberFormatException e) {
-                        logger.log(Level.INFO, "Could not parse {0}", parts[1]);
-                    }
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Invalid location levels page cursor.");
+            }
+            cursorOffice = parts[0];
+            cursorLevelId = parts[1];
+            cursorDate = new Timestamp(Long.parseLong(parts[2]));
+            if (!"null".equals(parts[3])) {
+                try {
+                    total = Integer.valueOf(parts[3]);
+                } catch (NumberFormatException e) {
+                    logger.log(Level.INFO, "Could not parse {0}", parts[3]);
                 }
-                pageSize = Integer.parseInt(parts[2]);
             }
+            pageSize = Integer.parseInt(parts[4]);
+            page = levelKey(cursorOffice, cursorLevelId, cursorDate);
         }
 
         usace.cwms.db.jooq.codegen.tables.AV_LOCATION_LEVEL view = AV_LOCATION_LEVEL;
@@ -155,31 +174,69 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
                     Timestamp.from(endZdt.toInstant())));
         }
 
-        Map<LevelLookup, LocationLevel.Builder> builderMap = new LinkedHashMap<>();
+        Field<String> officeKey = DSL.upper(view.OFFICE_ID);
+        Field<String> levelIdKey = DSL.upper(view.LOCATION_LEVEL_ID);
 
-        SelectLimitPercentAfterOffsetStep<Record> query = dsl.selectDistinct(getAddSeasonalValueFields())
-                .from(view)
-                .where(whereCondition)
-                .orderBy(DSL.upper(view.OFFICE_ID), DSL.upper(view.LOCATION_LEVEL_ID),
-                        view.LEVEL_DATE, view.CALENDAR_OFFSET
-                )
-                .offset(offset)
-                .limit(pageSize);
-
-        logger.info(() -> "getLocationLevels query: " + query.getSQL(ParamType.INLINED));
+        Condition keyCondition = whereCondition;
+        if (cursorOffice != null) {
+            keyCondition = keyCondition.and(DSL.row(officeKey, levelIdKey, view.LEVEL_DATE)
+                    .gt(cursorOffice, cursorLevelId, cursorDate));
+        }
+        SelectLimitPercentStep<Record3<String, String, Timestamp>> keyQuery =
+                dsl.selectDistinct(officeKey, levelIdKey, view.LEVEL_DATE)
+                        .from(view)
+                        .where(keyCondition)
+                        .orderBy(officeKey, levelIdKey, view.LEVEL_DATE)
+                        .limit(pageSize);
+        logger.finer(() -> "getLocationLevels key query: " + keyQuery.getSQL(ParamType.INLINED));
+        List<Record3<String, String, Timestamp>> keys = keyQuery.fetch();
+
+        if (cursorOffice == null) {
+            if (keys.size() < pageSize) {
+                total = keys.size();
+            } else {
+                total = dsl.fetchCount(dsl.selectDistinct(officeKey, levelIdKey, view.LEVEL_DATE)
+                        .from(view)
+                        .where(whereCondition));
+            }
+        }
 
-        query.stream().forEach(r -> addSeasonalValue(r, builderMap));
+        Map<LevelLookup, LocationLevel.Builder> builderMap = new LinkedHashMap<>();
+        if (!keys.isEmpty()) {
+            Record3<String, String, Timestamp> first = keys.get(0);
+            Record3<String, String, Timestamp> last = keys.get(keys.size() - 1);
+            ResultQuery<Record> query =
+                    dsl.selectDistinct(getAddSeasonalValueFields())
+                    .from(view)
+                    .where(whereCondition.and(DSL.row(officeKey, levelIdKey, view.LEVEL_DATE)
+                            .between(first.value1(), first.value2(), first.value3())
+                            .and(last.value1(), last.value2(), last.value3())))
+                    .orderBy(officeKey, levelIdKey, view.LEVEL_DATE, view.CALENDAR_OFFSET);
+
+            logger.finer(() -> "getLocationLevels query: " + query.getSQL(ParamType.INLINED));
+
+            query.stream().forEach(r -> addSeasonalValue(r, builderMap));
+        }
 
         List<LocationLevel> levels = new java.util.ArrayList<>();
         for (LocationLevel.Builder builder : builderMap.values()) {
             levels.add(builder.build());
         }
 
-        LocationLevels.Builder builder = new LocationLevels.Builder(offset, pageSize, total);
+        LocationLevels.Builder builder = new LocationLevels.Builder(page, pageSize, total);
+        if (keys.size() == pageSize) {
+            Record3<String, String, Timestamp> last = keys.get(keys.size() - 1);
+            builder.withNextPageKey(levelKey(last.value1(), last.value2(), last.value3()));
+        }
         builder.addAll(levels);
         return builder.build();
     }
 
+    private static String levelKey(String office, String levelId, Timestamp levelDate) {
+        return String.join(CwmsDTOPaginated.delimiter, office, levelId,
+                Long.toString(levelDate.getTime()));
+    }
+
     private static class LevelLookup {
         private final JDomLocationLevelRef locationLevelRef;
         private final Date effectiveDate;
@@ -236,6 +293,7 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
                 "F",
                 officeId);
         });
+        changes.changed(locationLevel.getOfficeId());
     }
 
     private static SEASONAL_VALUE_TAB_T getSeasonalValues(LocationLevel locationLevel) {
@@ -314,6 +372,7 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
         } catch (DataAccessException ex) {
             throw new RuntimeException("Failed to delete Location Level ", ex);
         }
+        changes.changed(officeId);
     }
 
     @Override
@@ -321,6 +380,21 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
                                     String officeId) {
         CWMS_LEVEL_PACKAGE.call_RENAME_LOCATION_LEVEL(dsl.configuration(),
                 oldLocationLevelName, newLocationLevelName, officeId);
+        changes.changed(officeId);
+    }
+
+    /**
+     * A cheap marker that changes whenever the levels of an office do, see ChangeMarker.  Levels
+     * have no last update to read, so the marker counts the changes made through this server
+     * and otherwise moves every {@code marker.periodSeconds}; it needs no connection.  Levels
+     * are named after, and converted with the datums of, their locations, so location changes
+     * move it too.
+     * @param officeId the office, null for every office
+     */
+    public static ChangeMarker getLocationLevelsMarker(@Nullable String officeId) {
+        ChangeMarker levels = changes.marker(officeId);
+        ChangeMarker locations = LocationsDaoImpl.getLocationsMarker(officeId);
+        return new ChangeMarker(levels.getValue() + ";" + locations.getValue(), null);
     }
 
     @Override
@@ -551,7 +625,7 @@ public class LocationLevelsDaoImpl extends JooqDao<LocationLevel> implements Loc
         }
         ZoneId locationZoneId = getLocationZoneId(levelRef.getLocationRef());
         ZTSV_ARRAY specifiedTimes = buildTsvArray(start, end, interval, locationZoneId);
-        CWMS_ENV_PACKAGE.call_SET_SESSION_OFFICE_ID(dsl.configuration(), officeId);
+        dsl.connection(c -> setOffice(c, officeId));
 
         ZTSV_ARRAY locLvlValues = call_RETRIEVE_LOC_LVL_VALUES3(dsl.configuration(),
                 specifiedTimes, locationLevelId, units, attributeId, attributeValue,
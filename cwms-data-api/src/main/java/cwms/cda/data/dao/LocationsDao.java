@@ -24,6 +24,7 @@
 
 package cwms.cda.data.dao;
 
+import cwms.cda.data.dao.location.BoundingBox;
 import cwms.cda.data.dto.Catalog;
 import cwms.cda.data.dto.Location;
 import java.io.IOException;
@@ -35,6 +36,9 @@ public interface LocationsDao {
 
     List<Location> getLocations(String names, String units, String datum, String officeId);
 
+    List<Location> getLocations(String names, String units, String datum, String officeId,
+                                BoundingBox bbox);
+
     Location getLocation(String locationName, String unitSystem, String officeId) throws IOException;
 
     void deleteLocation(String locationName, String officeId);
@@ -47,6 +51,9 @@ public interface LocationsDao {
 
     FeatureCollection buildFeatureCollection(String names, String units, String officeId);
 
+    FeatureCollection buildFeatureCollection(String names, String units, String officeId,
+                                             BoundingBox bbox);
+
     Catalog getLocationCatalog(String cursor, int pageSize, CatalogRequestParameters params);
 
 }
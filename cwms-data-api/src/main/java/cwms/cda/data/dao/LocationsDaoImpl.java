@@ -41,9 +41,13 @@ import static org.jooq.impl.DSL.name;
 import static org.jooq.impl.DSL.select;
 import static usace.cwms.db.jooq.codegen.tables.AV_LOC.AV_LOC;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import cwms.cda.api.enums.Nation;
 import cwms.cda.api.enums.Unit;
 import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dao.location.BoundingBox;
+import cwms.cda.data.dao.location.LocationSpatialIndex;
 import cwms.cda.data.dto.Catalog;
 import cwms.cda.data.dto.Location;
 import cwms.cda.data.dto.catalog.CatalogEntry;
@@ -59,8 +63,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.geojson.Feature;
 import org.geojson.FeatureCollection;
 import org.geojson.Point;
@@ -88,6 +94,37 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
     private static final Logger logger = Logger.getLogger(LocationsDaoImpl.class.getName());
     private static final long DELETED_TS_MARKER = 0L;
 
+    public static final String PROP_BASE = "cwms.cda.data.dao.location";
+    public static final String SPATIAL_INDEX_NAME = "spatialIndex";
+    private static final String ALL_OFFICES = "*";
+
+    /**
+     * Above this many matches a bounding box query filters on the coordinate columns instead of
+     * binding every location code found in the index.  Oracle allows 1000 values in one IN list.
+     */
+    private static final int SPATIAL_MAX_CODES = Integer.getInteger(PROP_BASE + "."
+            + SPATIAL_INDEX_NAME + ".maxCodes", 1000);
+
+    /**
+     * Coordinates of every location of an office, keyed by upper case office id or
+     * {@value #ALL_OFFICES}.  Dropped for the office whenever a location is stored, renamed or
+     * deleted through this dao, the expiry covers changes made any other way.
+     */
+    private static final Cache<String, LocationSpatialIndex> spatialIndexCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + SPATIAL_INDEX_NAME
+                    + ".maxSize", 100))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + SPATIAL_INDEX_NAME
+                    + ".expireAfterSeconds", 900), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
+    /**
+     * Changes to locations, and to the groups and categories the catalog searches, made through
+     * CDA.  The period matches the expiry of the spatial index by default.
+     */
+    private static final ChangeCounter changes = new ChangeCounter(Integer.getInteger(PROP_BASE
+            + ".marker.periodSeconds", 900));
+
     public LocationsDaoImpl(DSLContext dsl) {
         super(dsl);
     }
@@ -103,6 +140,12 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
 
     @Override
     public List<Location> getLocations(String nameRegex, String unitSystem, String datum, String officeId) {
+        return getLocations(nameRegex, unitSystem, datum, officeId, null);
+    }
+
+    @Override
+    public List<Location> getLocations(String nameRegex, String unitSystem, String datum, String officeId,
+                                       @Nullable BoundingBox bbox) {
 
         Condition whereCondition = JooqDao.caseInsensitiveLikeRegexNullTrue(AV_LOC.LOCATION_ID, nameRegex);
 
@@ -118,6 +161,11 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
             whereCondition = whereCondition.and(AV_LOC.VERTICAL_DATUM.equalIgnoreCase(datum));
         }
 
+        if (bbox != null) {
+            whereCondition = whereCondition.and(spatialCondition(officeId, bbox,
+                    AV_LOC.LOCATION_CODE, AV_LOC.LATITUDE, AV_LOC.LONGITUDE));
+        }
+
         return dsl.select(AV_LOC.asterisk())
                     .from(AV_LOC)
                     .where(whereCondition)
@@ -212,6 +260,10 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
                         DELETE_LOC.getRule(), officeId);
             }
         });
+        TimeSeriesDaoImpl.invalidateLocationCaches(officeId, locationName);
+        invalidateSpatialIndex(officeId);
+        StreamLocationDao.invalidateNetwork(officeId);
+        locationsChanged(officeId);
     }
 
     @Override
@@ -240,6 +292,9 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
         } catch (DataAccessException ex) {
             throw new IOException("Failed to store Location", ex);
         }
+        TimeSeriesDaoImpl.invalidateLocationCaches(location.getOfficeId(), location.getName());
+        invalidateSpatialIndex(location.getOfficeId());
+        locationsChanged(location.getOfficeId());
     }
 
     @Override
@@ -266,10 +321,151 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
         } catch (DataAccessException ex) {
             throw new IOException("Failed to rename Location", ex);
         }
+        TimeSeriesDaoImpl.invalidateLocationCaches(renamedLocation.getOfficeId(), oldLocationName);
+        invalidateSpatialIndex(renamedLocation.getOfficeId());
+        StreamLocationDao.invalidateNetwork(renamedLocation.getOfficeId());
+        locationsChanged(renamedLocation.getOfficeId());
+    }
+
+    /**
+     * Moves the change marker of an office's locations, see getLocationsMarker.  Must be called
+     * whenever a location, or a location group or category, is changed.
+     * @param officeId office of the change, null for any office
+     */
+    public static void locationsChanged(@Nullable String officeId) {
+        changes.changed(officeId);
+    }
+
+    /**
+     * A cheap marker that changes whenever the locations of an office, or the groups the
+     * location catalog searches, do, see ChangeMarker.  Locations have no last update to read,
+     * so the marker counts the changes made through this server and otherwise moves every
+     * {@code marker.periodSeconds}; it needs no connection.
+     * @param officeId the office, null for every office
+     */
+    public static ChangeMarker getLocationsMarker(@Nullable String officeId) {
+        return changes.marker(officeId);
+    }
+
+    /**
+     * Drop the spatial index of an office so the next bounding box query reloads it.
+     * @param officeId office of the changed location, null for any office
+     */
+    public static void invalidateSpatialIndex(@Nullable String officeId) {
+        if (officeId == null) {
+            spatialIndexCache.invalidateAll();
+        } else {
+            spatialIndexCache.invalidate(officeId.toUpperCase());
+            spatialIndexCache.invalidate(ALL_OFFICES);
+        }
+    }
+
+    /**
+     * Locations of an office within a box, answered from the spatial index.
+     * @param officeId office to search, null for all offices
+     * @param bbox the area to search
+     * @return the locations found, in no particular order
+     */
+    public List<LocationSpatialIndex.Entry> findLocationsInBox(@Nullable String officeId, BoundingBox bbox) {
+        return getSpatialIndex(officeId).query(bbox);
+    }
+
+    private LocationSpatialIndex getSpatialIndex(@Nullable String officeId) {
+        String key = officeId == null ? ALL_OFFICES : officeId.toUpperCase();
+        LocationSpatialIndex index = spatialIndexCache.getIfPresent(key);
+        if (index == null) {
+            index = loadSpatialIndex(officeId);
+            spatialIndexCache.put(key, index);
+        }
+        return index;
+    }
+
+    private LocationSpatialIndex loadSpatialIndex(@Nullable String officeId) {
+        final AV_LOC2 avLoc2 = AV_LOC2.AV_LOC2;
+        // Coordinates don't depend on the unit system, one row per location is enough.
+        Condition condition = avLoc2.ALIASED_ITEM.isNull()
+                .and(avLoc2.LOCATION_CODE.notEqual(DELETED_TS_MARKER))
+                .and(avLoc2.UNIT_SYSTEM.eq("SI"))
+                .and(avLoc2.LATITUDE.isNotNull())
+                .and(avLoc2.LONGITUDE.isNotNull());
+        if (officeId != null) {
+            condition = condition.and(DSL.upper(avLoc2.DB_OFFICE_ID).eq(officeId.toUpperCase()));
+        }
+        SelectConditionStep<?> query = dsl.select(avLoc2.LOCATION_CODE, avLoc2.DB_OFFICE_ID,
+                        avLoc2.LOCATION_ID, avLoc2.LATITUDE, avLoc2.LONGITUDE)
+                .from(avLoc2)
+                .where(condition);
+        logger.log(Level.FINER, () -> query.getSQL(ParamType.INLINED));
+        List<LocationSpatialIndex.Entry> entries = query.fetchSize(5000)
+                .fetch(r -> new LocationSpatialIndex.Entry(
+                        r.get(avLoc2.LOCATION_CODE, Long.class),
+                        r.get(avLoc2.DB_OFFICE_ID, String.class),
+                        r.get(avLoc2.LOCATION_ID, String.class),
+                        r.get(avLoc2.LATITUDE, Double.class),
+                        r.get(avLoc2.LONGITUDE, Double.class)));
+        LocationSpatialIndex index = new LocationSpatialIndex(entries);
+        logger.fine(() -> "Loaded spatial index of " + index.size() + " locations for office "
+                + (officeId == null ? ALL_OFFICES : officeId));
+        return index;
+    }
+
+    /**
+     * Condition limiting a query to the locations within a box.  The index is searched and the
+     * matching location codes used, unless there are too many of them to bind in which case the
+     * coordinate columns are compared against the box and its radius.
+     */
+    private Condition spatialCondition(@Nullable String officeId, BoundingBox bbox,
+                                       Field<?> locationCode, Field<?> latitude, Field<?> longitude) {
+        List<LocationSpatialIndex.Entry> found = findLocationsInBox(officeId, bbox);
+        if (found.isEmpty()) {
+            return DSL.falseCondition();
+        }
+        if (found.size() <= SPATIAL_MAX_CODES) {
+            return locationCode.coerce(Long.class).in(found.stream()
+                    .map(LocationSpatialIndex.Entry::getLocationCode)
+                    .collect(toSet()));
+        }
+        Field<Double> lat = latitude.coerce(Double.class);
+        Field<Double> lon = longitude.coerce(Double.class);
+        Condition inLat = lat.between(bbox.getMinLat(), bbox.getMaxLat());
+        Condition inLon = bbox.crossesAntimeridian()
+                ? lon.ge(bbox.getMinLon()).or(lon.le(bbox.getMaxLon()))
+                : lon.between(bbox.getMinLon(), bbox.getMaxLon());
+        Condition retVal = inLat.and(inLon);
+        Double radiusKm = bbox.getRadiusKm();
+        if (radiusKm != null) {
+            retVal = retVal.and(distanceKm(bbox.getCenterLon(), bbox.getCenterLat(), lon, lat)
+                    .le(radiusKm));
+        }
+        return retVal;
+    }
+
+    /**
+     * Great circle distance from a point to the coordinate columns, the same haversine formula
+     * the index uses.
+     */
+    private static Field<Double> distanceKm(double lon, double lat, Field<Double> lonColumn,
+                                            Field<Double> latColumn) {
+        Field<Double> halfDLat = DSL.rad(latColumn.minus(lat)).div(2).coerce(Double.class);
+        Field<Double> halfDLon = DSL.rad(lonColumn.minus(lon)).div(2).coerce(Double.class);
+        Field<Double> a = DSL.power(DSL.sin(halfDLat), 2)
+                .plus(DSL.inline(Math.cos(Math.toRadians(lat)))
+                        .times(DSL.cos(DSL.rad(latColumn)))
+                        .times(DSL.power(DSL.sin(halfDLon), 2)))
+                .coerce(Double.class);
+        return DSL.asin(DSL.least(DSL.inline(1.0), DSL.sqrt(a)))
+                .times(2 * BoundingBox.EARTH_RADIUS_KM)
+                .coerce(Double.class);
     }
 
     @Override
     public FeatureCollection buildFeatureCollection(String names, String units, String officeId) {
+        return buildFeatureCollection(names, units, officeId, null);
+    }
+
+    @Override
+    public FeatureCollection buildFeatureCollection(String names, String units, String officeId,
+                                                    @Nullable BoundingBox bbox) {
         if (!"EN".equals(units)) {
             units = "SI";
         }
@@ -291,6 +487,11 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
             selectQuery = selectQuery.and(AV_LOC.LOCATION_ID.in(identifiers));
         }
 
+        if (bbox != null) {
+            selectQuery = selectQuery.and(spatialCondition(officeId, bbox,
+                    AV_LOC.LOCATION_CODE, AV_LOC.LATITUDE, AV_LOC.LONGITUDE));
+        }
+
         List<Feature> features = selectQuery.fetchSize(500).stream()
                 .map(LocationsDaoImpl::buildFeatureFromAvLocRecord)
                 .collect(toList());
@@ -381,6 +582,10 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
 
         // "condition" needs to be used by the count query and the results query.
         Condition condition = buildWhereCondition(params);
+        if (params.getBbox() != null) {
+            condition = condition.and(spatialCondition(params.getOffice(), params.getBbox(),
+                    avLoc2.LOCATION_CODE, avLoc2.LATITUDE, avLoc2.LONGITUDE));
+        }
 
         int total;
         String cursorLocation; // The location-id of the cursor in the results
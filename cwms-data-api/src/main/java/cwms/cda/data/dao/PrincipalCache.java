@@ -0,0 +1,76 @@
+package cwms.cda.data.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import cwms.cda.security.CwmsAuthException;
+import cwms.cda.security.DataApiPrincipal;
+import io.javalin.http.HttpCode;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Principals, with their roles, that have recently been authenticated.  Failed lookups are
+ * not cached.
+ *
+ * <p>A principal that was being looked up while its user was invalidated is dropped again once
+ * the lookup finishes, since it may have been read before the change.
+ */
+final class PrincipalCache {
+
+    private final Cache<List<Object>, DataApiPrincipal> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param builder the expiry, size and statistics of the cache
+     */
+    PrincipalCache(CacheBuilder<Object, Object> builder) {
+        this.cache = builder.build();
+    }
+
+    /**
+     * @return the underlying cache, for its statistics
+     */
+    Cache<List<Object>, DataApiPrincipal> getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the cached principal or loads it.
+     *
+     * @param key everything the principal was looked up with
+     * @param loader looks the principal up, throws if there is none
+     * @throws CwmsAuthException if the loader does or fails
+     */
+    DataApiPrincipal get(List<Object> key, Callable<DataApiPrincipal> loader)
+            throws CwmsAuthException {
+        long before = invalidations.get();
+        DataApiPrincipal retVal;
+        try {
+            retVal = cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CwmsAuthException("Unable to retrieve user information.", cause,
+                    HttpCode.INTERNAL_SERVER_ERROR.getStatus());
+        }
+        if (invalidations.get() != before) {
+            cache.invalidate(key);
+        }
+        return retVal;
+    }
+
+    /**
+     * Drops the cached principals of a user.
+     *
+     * @param userName the user, case insensitive.
+     */
+    void invalidate(String userName) {
+        invalidations.incrementAndGet();
+        cache.asMap().values().removeIf(p -> p.getName().equalsIgnoreCase(userName));
+    }
+}
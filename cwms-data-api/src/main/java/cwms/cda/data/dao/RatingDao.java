@@ -24,11 +24,13 @@
 
 package cwms.cda.data.dao;
 
+import cwms.cda.data.dto.rating.RatedValues;
 import hec.data.RatingException;
 import hec.data.cwmsRating.RatingSet;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,6 +51,22 @@ public interface RatingDao {
 
     void delete(String officeId, String specificationId, Instant start, Instant end);
 
+    /**
+     * Returns the units of the rating: the independent parameters' units followed by the
+     * dependent parameter's unit.
+     */
+    List<String> retrieveRatingUnits(String officeId, String specificationId)
+            throws IOException, RatingException;
+
+    /**
+     * Rates each set of independent values with the rating in effect at its time.
+     *
+     * @param times the times of the values, in epoch milliseconds
+     * @param independentValues one array of independent values per time
+     */
+    RatedValues rate(String officeId, String specificationId, long[] times,
+                     double[][] independentValues) throws IOException, RatingException;
+
     static String extractOfficeFromXml(String xml) {
         Matcher officeMatch = officeMatcher.matcher(xml);
 
@@ -27,10 +27,16 @@ package cwms.cda.data.dao;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dto.rating.RatedValues;
 import hec.data.RatingException;
 import hec.data.cwmsRating.RatingSet;
 import mil.army.usace.hec.cwms.rating.io.jdbc.ConnectionProvider;
 import mil.army.usace.hec.cwms.rating.io.jdbc.RatingJdbcFactory;
+import mil.army.usace.hec.cwms.rating.io.xml.RatingXmlFactory;
 import org.jooq.DSLContext;
 import org.jooq.exception.DataAccessException;
 import usace.cwms.db.jooq.codegen.packages.CWMS_RATING_PACKAGE;
@@ -39,10 +45,29 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.Nullable;
 
 public class RatingSetDao extends JooqDao<RatingSet> implements RatingDao {
+    public static final String PROP_BASE = "cwms.cda.data.dao.rating";
+    public static final String RATING_SET_NAME = "ratingSet";
 
+    /**
+     * Copies of eagerly loaded rating sets used to rate values, keyed by office and
+     * specification.  Eager loads hold no reference to the connection they came from.
+     */
+    private static final Cache<List<String>, RatingSetCopies> ratingSetCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + RATING_SET_NAME
+                    + ".maxSize", 200))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + RATING_SET_NAME
+                    + ".expireAfterSeconds", 900), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
 
     public RatingSetDao(DSLContext dsl) {
         super(dsl);
@@ -61,6 +86,7 @@ public class RatingSetDao extends JooqDao<RatingSet> implements RatingDao {
                 {
                     throw new DataAccessException(errs);
                 }
+                invalidateCache(office, null);
             });
         } catch (DataAccessException ex) {
             Throwable cause = ex.getCause();
@@ -132,12 +158,13 @@ public class RatingSetDao extends JooqDao<RatingSet> implements RatingDao {
     @Override
     public void store(String ratingSetXml, boolean includeTemplate) throws IOException, RatingException {
         try {
+            String office = extractOfficeId(ratingSetXml);
             connection(dsl, c -> {
-                String office = extractOfficeId(ratingSetXml);
                 DSLContext context = getDslContext(c, office);
                 CWMS_RATING_PACKAGE.call_STORE_RATINGS_XML__5(context.configuration(),
                         ratingSetXml, "F", includeTemplate ? "T" : "F");
             });
+            invalidateCache(office, null);
         } catch (DataAccessException ex) {
             Throwable cause = ex.getCause();
             if (cause instanceof RatingException) {
@@ -157,6 +184,144 @@ public class RatingSetDao extends JooqDao<RatingSet> implements RatingDao {
                 endDate, "UTC", officeId
             )
         );
+        invalidateCache(officeId, specificationId);
+    }
+
+    @Override
+    public List<String> retrieveRatingUnits(String officeId, String specificationId)
+            throws IOException, RatingException {
+        return retrieveCached(officeId, specificationId).getUnits();
+    }
+
+    @Override
+    public RatedValues rate(String officeId, String specificationId, long[] times,
+                            double[][] independentValues) throws IOException, RatingException {
+        RatingSetCopies copies = retrieveCached(officeId, specificationId);
+        RatingSet ratingSet = copies.borrow();
+        try {
+            return rate(ratingSet, copies.getUnits(), officeId, specificationId, times,
+                    independentValues);
+        } finally {
+            copies.giveBack(ratingSet);
+        }
+    }
+
+    /**
+     * Rates values with a rating set that no other request is using.
+     *
+     * @param units the units of the rating's independent parameters and then its dependent one
+     * @throws IllegalArgumentException if the values do not match the rating's independent
+     *     parameters or can't be rated, e.g. because they are outside the rating
+     */
+    // Package private for unit testing
+    static RatedValues rate(RatingSet ratingSet, List<String> units, String officeId,
+                            String specificationId, long[] times, double[][] independentValues) {
+        int paramCount = units.size() - 1;
+
+        RatedValues.Builder builder = new RatedValues.Builder()
+                .withOfficeId(officeId)
+                .withRatingId(specificationId)
+                .withIndependentUnits(units.subList(0, paramCount))
+                .withDependentUnit(units.get(paramCount));
+        for (int i = 0; i < times.length; i++) {
+            if (independentValues[i].length != paramCount) {
+                throw new IllegalArgumentException("Rating " + specificationId + " requires "
+                        + paramCount + " independent value(s), received "
+                        + independentValues[i].length);
+            }
+            double rated;
+            try {
+                rated = ratingSet.rateOne(times[i], independentValues[i]);
+            } catch (RatingException ex) {
+                throw new IllegalArgumentException("Unable to rate "
+                        + Arrays.toString(independentValues[i]) + " with " + specificationId
+                        + ": " + ex.getMessage(), ex);
+            }
+            Double dependent = rated == -Float.MAX_VALUE || Double.isNaN(rated) ? null : rated;
+            builder.withValue(new RatedValues.Value(times[i], independentValues[i], dependent));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns copies of the eagerly loaded rating set, from the cache when it was loaded
+     * recently.
+     *
+     * @throws NotFoundException if the rating specification has no ratings
+     */
+    private RatingSetCopies retrieveCached(String officeId, String specificationId)
+            throws IOException, RatingException {
+        List<String> key = Arrays.asList(officeId.toUpperCase(), specificationId.toUpperCase());
+        try {
+            return ratingSetCache.get(key, () -> {
+                RatingSet ratingSet = retrieve(RatingSet.DatabaseLoadMethod.EAGER, officeId,
+                        specificationId, null, null);
+                if (ratingSet == null) {
+                    throw new NotFoundException("Unable to find rating " + specificationId
+                            + " for office " + officeId);
+                }
+                return new RatingSetCopies(ratingSet);
+            });
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RatingException) {
+                throw (RatingException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to retrieve Rating", cause);
+        }
+    }
+
+    /**
+     * Drops cached rating sets after ratings are stored or deleted.
+     *
+     * @param officeId office of the ratings
+     * @param specificationId the rating specification, null for every specification of the office
+     */
+    public static void invalidateCache(String officeId, @Nullable String specificationId) {
+        ratingSetCache.asMap().keySet().removeIf(k -> k.get(0).equalsIgnoreCase(officeId)
+                && (specificationId == null || k.get(1).equalsIgnoreCase(specificationId)));
+    }
+
+    /**
+     * One loaded rating set and the copies of it that are not rating right now.  Rating sets
+     * build some of their lookup state on first use, so each request rates with a copy of its
+     * own instead of waiting for the others.
+     */
+    static final class RatingSetCopies {
+        private static final int MAX_IDLE = Integer.getInteger(PROP_BASE + "." + RATING_SET_NAME
+                + ".maxIdleCopies", 8);
+
+        private final String xml;
+        private final List<String> units;
+        private final Queue<RatingSet> idle = new ConcurrentLinkedQueue<>();
+
+        RatingSetCopies(RatingSet ratingSet) throws RatingException {
+            this.xml = RatingXmlFactory.toXml(ratingSet, "");
+            this.units = Arrays.asList(ratingSet.getRatingUnits());
+            idle.add(ratingSet);
+        }
+
+        List<String> getUnits() {
+            return units;
+        }
+
+        /**
+         * @return a copy no other request is using, made from the loaded XML if all are in use
+         */
+        RatingSet borrow() throws RatingException {
+            RatingSet retval = idle.poll();
+            return retval != null ? retval : RatingXmlFactory.ratingSet(xml);
+        }
+
+        void giveBack(RatingSet ratingSet) {
+            if (idle.size() < MAX_IDLE) {
+                idle.offer(ratingSet);
+            }
+        }
     }
 
 
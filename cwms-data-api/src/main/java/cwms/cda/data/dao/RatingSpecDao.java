@@ -362,6 +362,7 @@ public class RatingSpecDao extends JooqDao<RatingSpec> {
                 deleteAction,
                 office)
         );
+        RatingSetDao.invalidateCache(office, ratingSpecId);
     }
 
     public void create(String xml, boolean failIfExists) {
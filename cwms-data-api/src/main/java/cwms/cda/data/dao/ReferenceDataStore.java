@@ -0,0 +1,353 @@
+package cwms.cda.data.dao;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
+import cwms.cda.data.dto.County;
+import cwms.cda.data.dto.Office;
+import cwms.cda.data.dto.Parameter;
+import cwms.cda.data.dto.State;
+import cwms.cda.data.dto.TimeZoneIds;
+import cwms.cda.data.dto.Unit;
+import cwms.cda.formatters.Formats;
+import io.javalin.http.Context;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.jetbrains.annotations.Nullable;
+import org.jooq.DSLContext;
+
+/**
+ * Units, parameters, time zones, states, counties and offices, which change about once per
+ * release, held in memory so their endpoints don't need a database connection.
+ *
+ * <p>A snapshot is loaded in the background at startup and replaced on a schedule; until the
+ * first load succeeds {@link #snapshot(Context)} returns null and the controllers query the
+ * database as before.  A failed refresh keeps the previous snapshot.  Each snapshot serializes a
+ * response once per content type and keeps the bytes with a strong ETag.
+ */
+public final class ReferenceDataStore implements AutoCloseable {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    /** Request attribute the store is passed to the controllers in. */
+    public static final String ATTRIBUTE = "ReferenceDataStore";
+    public static final String PROP_BASE = "cwms.cda.data.dao.referenceData";
+    /** Whether the store is used at all. */
+    public static final boolean ENABLED = Boolean.parseBoolean(
+            System.getProperty(PROP_BASE + ".enabled", "true"));
+    private static final long REFRESH_MINUTES = Long.getLong(PROP_BASE + ".refreshMinutes", 60L);
+
+    /** The format values the CWMS_CAT retrieve functions understand. */
+    static final List<String> LEGACY_FORMATS = Arrays.asList(Formats.TAB_LEGACY,
+            Formats.CSV_LEGACY, Formats.XML_LEGACY, Formats.JSON_LEGACY);
+
+    /**
+     * Reads a snapshot from the database.
+     */
+    @FunctionalInterface
+    interface Loader {
+        /**
+         * @param parameterOffices offices whose parameter catalog is wanted
+         * @return the current reference data
+         */
+        Snapshot load(Collection<String> parameterOffices) throws SQLException;
+    }
+
+    private final Loader loader;
+    private final String defaultOffice;
+    private final Set<String> parameterOffices = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService refresher;
+    @Nullable
+    private final Timer refreshTimer;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Start loading the reference data in the background.
+     * @param dataSource connections for loading and refreshing
+     * @param defaultOffice session office of those connections, and the office parameters are
+     *                      listed for when a request doesn't name one
+     * @param metrics registry for the refresh timer, may be null
+     */
+    public ReferenceDataStore(DataSource dataSource, String defaultOffice,
+                              @Nullable MetricRegistry metrics) {
+        this(offices -> load(dataSource, defaultOffice, offices), defaultOffice, metrics,
+                REFRESH_MINUTES);
+    }
+
+    ReferenceDataStore(Loader loader, String defaultOffice, @Nullable MetricRegistry metrics,
+                       long refreshMinutes) {
+        this.loader = loader;
+        this.defaultOffice = defaultOffice.toUpperCase();
+        this.refreshTimer = metrics == null ? null
+                : metrics.timer(name(ReferenceDataStore.class, "refresh"));
+        parameterOffices.add(this.defaultOffice);
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reference-data-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, refreshMinutes);
+        refresher.scheduleWithFixedDelay(this::refresh, 0, period, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @param ctx the request
+     * @return the current snapshot, or null if the store is disabled or not loaded yet
+     */
+    @Nullable
+    public static Snapshot snapshot(Context ctx) {
+        ReferenceDataStore store = ctx.attribute(ATTRIBUTE);
+        return store == null ? null : store.getSnapshot();
+    }
+
+    /**
+     * @return the current snapshot, or null if not loaded yet
+     */
+    @Nullable
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Reload the reference data now, keeping the current snapshot if that fails.
+     */
+    void refresh() {
+        try (Timer.Context ignored = refreshTimer == null ? null : refreshTimer.time()) {
+            Snapshot loaded = loader.load(parameterOffices);
+            loaded.store = this;
+            snapshot = loaded;
+            logger.atFine().log("Loaded reference data for %s offices", loaded.offices.size());
+        } catch (SQLException | RuntimeException ex) {
+            // Keep the scheduled refresh alive whatever went wrong.
+            logger.atSevere().withCause(ex).log("Unable to load reference data. "
+                    + "Will continue to use the previous data.");
+        }
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private static Snapshot load(DataSource dataSource, String defaultOffice,
+                                 Collection<String> parameterOffices) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DSLContext dsl = JooqDao.getDslContext(connection, defaultOffice);
+            UnitsDao unitsDao = new UnitsDao(dsl);
+            ParameterDao parameterDao = new ParameterDao(dsl);
+            TimeZoneDao timeZoneDao = new TimeZoneDao(dsl);
+            OfficeDao officeDao = new OfficeDao(dsl);
+            Map<String, String> legacyUnits = new HashMap<>();
+            Map<String, String> legacyParameters = new HashMap<>();
+            Map<String, String> legacyTimeZones = new HashMap<>();
+            for (String format : LEGACY_FORMATS) {
+                legacyUnits.put(format, unitsDao.getUnits(format));
+                legacyParameters.put(format, parameterDao.getParameters(format));
+                legacyTimeZones.put(format, timeZoneDao.getTimeZones(format));
+            }
+            Map<String, List<Parameter>> parameters = new HashMap<>();
+            for (String office : parameterOffices) {
+                parameters.put(office, parameterDao.getParametersV2(office));
+            }
+            return new Snapshot(unitsDao.getUnits(), legacyUnits, parameters, legacyParameters,
+                    timeZoneDao.getTimeZones(), legacyTimeZones,
+                    new StateDao(dsl).getStates(), new CountyDao(dsl).getCounties(),
+                    officeDao.getOffices(false), officeDao.getOffices(true));
+        }
+    }
+
+    /**
+     * One load of the reference data.  Lists are shared with every request and must not be
+     * modified.
+     */
+    public static final class Snapshot {
+        private final List<Unit> units;
+        private final Map<String, String> legacyUnits;
+        private final ConcurrentMap<String, List<Parameter>> parameters;
+        private final Map<String, String> legacyParameters;
+        private final TimeZoneIds timeZones;
+        private final Map<String, String> legacyTimeZones;
+        private final List<State> states;
+        private final List<County> counties;
+        private final List<Office> offices;
+        private final List<Office> officesWithData;
+        private final ConcurrentMap<String, Body> bodies = new ConcurrentHashMap<>();
+        private ReferenceDataStore store;
+
+        Snapshot(List<Unit> units, Map<String, String> legacyUnits,
+                 Map<String, List<Parameter>> parameters, Map<String, String> legacyParameters,
+                 TimeZoneIds timeZones, Map<String, String> legacyTimeZones,
+                 List<State> states, List<County> counties, List<Office> offices,
+                 List<Office> officesWithData) {
+            this.units = Collections.unmodifiableList(units);
+            this.legacyUnits = legacyUnits;
+            this.parameters = new ConcurrentHashMap<>(parameters);
+            this.legacyParameters = legacyParameters;
+            this.timeZones = timeZones;
+            this.legacyTimeZones = legacyTimeZones;
+            this.states = Collections.unmodifiableList(states);
+            this.counties = Collections.unmodifiableList(counties);
+            this.offices = Collections.unmodifiableList(offices);
+            this.officesWithData = Collections.unmodifiableList(officesWithData);
+        }
+
+        /**
+         * The serialized response for a key, made by the supplier the first time it is asked
+         * for.
+         * @param key identifies the response, including its content type
+         * @param contentType the Content-Type header to send
+         * @param formatter serializes the response from this snapshot's data
+         * @return the bytes and their ETag
+         */
+        public Body body(String key, String contentType, Supplier<String> formatter) {
+            return bodies.computeIfAbsent(key, k -> Body.of(formatter.get(), contentType));
+        }
+
+        public List<Unit> getUnits() {
+            return units;
+        }
+
+        /**
+         * @param format a value of the format query parameter
+         * @return the CWMS_CAT output for it, or null if it wasn't loaded
+         */
+        @Nullable
+        public String getLegacyUnits(String format) {
+            return legacyUnits.get(format.toLowerCase());
+        }
+
+        /**
+         * @param office the requested office, null for the default office
+         * @return the parameters of the office, or null if they haven't been loaded
+         */
+        @Nullable
+        public List<Parameter> getParameters(@Nullable String office) {
+            return parameters.get(parameterOffice(office));
+        }
+
+        /**
+         * Keep the parameters of an office loaded by a request, and load them on every refresh
+         * from now on.  Only offices that exist are kept.
+         * @param office the requested office, null for the default office
+         * @param officeParameters the parameters of the office
+         */
+        public void putParameters(@Nullable String office, List<Parameter> officeParameters) {
+            String key = parameterOffice(office);
+            if (getOffice(key).isPresent()) {
+                parameters.put(key, Collections.unmodifiableList(officeParameters));
+                if (store != null) {
+                    store.parameterOffices.add(key);
+                }
+            }
+        }
+
+        /**
+         * @param office the requested office, null for the default office
+         * @return the upper case office the parameters are kept under
+         */
+        public String parameterOffice(@Nullable String office) {
+            if (office != null) {
+                return office.toUpperCase();
+            }
+            return store == null ? "" : store.defaultOffice;
+        }
+
+        @Nullable
+        public String getLegacyParameters(String format) {
+            return legacyParameters.get(format.toLowerCase());
+        }
+
+        public TimeZoneIds getTimeZones() {
+            return timeZones;
+        }
+
+        @Nullable
+        public String getLegacyTimeZones(String format) {
+            return legacyTimeZones.get(format.toLowerCase());
+        }
+
+        public List<State> getStates() {
+            return states;
+        }
+
+        public List<County> getCounties() {
+            return counties;
+        }
+
+        /**
+         * @param hasData only offices that have locations
+         * @return the offices
+         */
+        public List<Office> getOffices(boolean hasData) {
+            return hasData ? officesWithData : offices;
+        }
+
+        /**
+         * @param officeId case insensitive office id
+         * @return the office, if it exists
+         */
+        public Optional<Office> getOffice(String officeId) {
+            return offices.stream()
+                    .filter(o -> o.getName().equalsIgnoreCase(officeId))
+                    .findFirst();
+        }
+    }
+
+    /**
+     * A serialized response.
+     */
+    public static final class Body {
+        private final byte[] bytes;
+        private final String contentType;
+        private final String etag;
+
+        private Body(byte[] bytes, String contentType) {
+            this.bytes = bytes;
+            this.contentType = contentType;
+            this.etag = "\"" + Hashing.sha256().hashBytes(bytes) + "\"";
+        }
+
+        /**
+         * @param result the response text
+         * @param contentType the Content-Type header to send
+         * @return the response as UTF-8 with a strong ETag of its content
+         */
+        public static Body of(String result, String contentType) {
+            return new Body(result.getBytes(StandardCharsets.UTF_8), contentType);
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return a quoted strong entity tag
+         */
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
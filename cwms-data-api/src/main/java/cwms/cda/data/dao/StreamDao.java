@@ -132,6 +132,7 @@ public final class StreamDao extends JooqDao<Stream> {
                     stream.getLength(), stream.getAverageSlope(), stream.getComment(), stream.getOfficeId());
             return null;
         });
+        StreamLocationDao.invalidateNetwork(stream.getOfficeId());
     }
 
     /**
@@ -145,6 +146,7 @@ public final class StreamDao extends JooqDao<Stream> {
             CWMS_STREAM_PACKAGE.call_RENAME_STREAM(DSL.using(conn).configuration(), oldStreamId,
                     newStreamId, officeId);
         });
+        StreamLocationDao.invalidateNetwork(officeId);
     }
 
     /**
@@ -161,6 +163,7 @@ public final class StreamDao extends JooqDao<Stream> {
                     officeId);
             return null;
         });
+        StreamLocationDao.invalidateNetwork(officeId);
     }
 
     private String getStationUnits(Stream stream) {
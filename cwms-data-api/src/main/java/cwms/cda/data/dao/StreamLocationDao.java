@@ -24,12 +24,21 @@
 package cwms.cda.data.dao;
 
 import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dao.basinconnectivity.BasinDao;
 import cwms.cda.data.dto.CwmsId;
 import cwms.cda.data.dto.stream.Bank;
+import cwms.cda.data.dto.stream.Stream;
 import cwms.cda.data.dto.stream.StreamLocation;
 import cwms.cda.data.dto.stream.StreamLocationNode;
 import cwms.cda.data.dto.stream.StreamNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.Result;
@@ -40,7 +49,6 @@ import usace.cwms.db.jooq.codegen.packages.cwms_stream.RETRIEVE_STREAM_LOCATION;
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
-import usace.cwms.db.jooq.codegen.udt.records.STR_TAB_T;
 
 public final class StreamLocationDao extends JooqDao<StreamLocation> {
 
@@ -58,6 +66,36 @@ public final class StreamLocationDao extends JooqDao<StreamLocation> {
     static final String STREAM_LOCATION_STAGE_UNITS_COLUMN = "STAGE_UNIT";
     static final String STREAM_LOCATION_STATION_UNITS_COLUMN = "STATION_UNIT";
 
+    public static final String PROP_BASE = "cwms.cda.data.dao.stream";
+    public static final String NETWORK_NAME = "network";
+    public static final String LOCATIONS_NAME = "locations";
+    private static final String NETWORK_STATION_UNITS = "km";
+    private static final String NETWORK_STAGE_UNITS = "m";
+    private static final String NETWORK_AREA_UNITS = "km2";
+
+    /**
+     * Stream graph of each office, keyed by upper case office id.
+     */
+    private static final Cache<String, StreamNetwork> networkCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + NETWORK_NAME
+                    + ".maxSize", 100))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + NETWORK_NAME
+                            + ".expireAfterSeconds", 300), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
+    /**
+     * Every stream location of an office by upper case location id, keyed by office and units.
+     */
+    private static final Cache<List<String>, Map<String, StreamLocation>> streamLocationCache =
+            CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + LOCATIONS_NAME
+                    + ".maxSize", 500))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + LOCATIONS_NAME
+                            + ".expireAfterSeconds", 300), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
     public StreamLocationDao(DSLContext dsl) {
         super(dsl);
     }
@@ -89,17 +127,9 @@ public final class StreamLocationDao extends JooqDao<StreamLocation> {
      */
     public List<StreamLocation> retrieveDownstreamLocations(String officeId, String locationId, Boolean allDownstream, Boolean sameStreamOnly,
                                                             String stationUnits, String stageUnits, String areaUnits) {
-        return connectionResult(dsl, conn -> {
-            String allDsLocationsStr = formatBool(allDownstream);
-            String sameStreamOnlyStr = formatBool(sameStreamOnly);
-            STR_TAB_T downstreamLocIds = CWMS_STREAM_PACKAGE.call_GET_DS_LOCATIONS__2(DSL.using(conn).configuration(),
-                    locationId, allDsLocationsStr, sameStreamOnlyStr, officeId);
-            return downstreamLocIds.stream()
-                    .map(dl -> retrieveStreamLocations(officeId, null, dl, stationUnits, stageUnits, areaUnits, conn).stream()
-                            .findFirst()
-                            .orElseThrow(() -> new NotFoundException("Downstream location " + dl + "not found.")))
-                    .collect(toList());
-        });
+        List<String> downstreamLocIds = getNetwork(officeId).downstream(locationId,
+                Boolean.TRUE.equals(allDownstream), Boolean.TRUE.equals(sameStreamOnly));
+        return toStreamLocations(officeId, downstreamLocIds, "Downstream", stationUnits, stageUnits, areaUnits);
     }
 
     /**
@@ -115,17 +145,73 @@ public final class StreamLocationDao extends JooqDao<StreamLocation> {
      */
     public List<StreamLocation> retrieveUpstreamLocations(String officeId, String locationId, Boolean allUpstream, Boolean sameStreamOnly,
                                                             String stationUnits, String stageUnits, String areaUnits) {
-        return connectionResult(dsl, conn -> {
-            String allUsLocationsStr = formatBool(allUpstream);
-            String sameStreamOnlyStr = formatBool(sameStreamOnly);
-            STR_TAB_T upstreamLocIds = CWMS_STREAM_PACKAGE.call_GET_US_LOCATIONS__2(DSL.using(conn).configuration(),
-                    locationId, allUsLocationsStr, sameStreamOnlyStr, officeId);
-            return upstreamLocIds.stream()
-                    .map(ul -> retrieveStreamLocations(officeId, null, ul, stationUnits, stageUnits, areaUnits, conn).stream()
-                            .findFirst()
-                            .orElseThrow(() -> new NotFoundException("Upstream location " + ul + "not found.")))
-                    .collect(toList());
-        });
+        List<String> upstreamLocIds = getNetwork(officeId).upstream(locationId,
+                Boolean.TRUE.equals(allUpstream), Boolean.TRUE.equals(sameStreamOnly));
+        return toStreamLocations(officeId, upstreamLocIds, "Upstream", stationUnits, stageUnits, areaUnits);
+    }
+
+    /**
+     * Drop the cached stream network and stream locations of an office, so the next upstream or
+     * downstream query sees a stream or stream location change.  The basin connectivity streams
+     * are built from the same data and are dropped too.
+     * @param officeId - the office id, null for every office
+     */
+    public static void invalidateNetwork(String officeId) {
+        BasinDao.invalidateBasins(officeId);
+        if (officeId == null) {
+            networkCache.invalidateAll();
+            streamLocationCache.invalidateAll();
+        } else {
+            networkCache.invalidate(officeId.toUpperCase());
+            streamLocationCache.asMap().keySet().removeIf(k -> officeId.equalsIgnoreCase(k.get(0)));
+        }
+    }
+
+    private StreamNetwork getNetwork(String officeId) {
+        String key = officeId.toUpperCase();
+        StreamNetwork network = networkCache.getIfPresent(key);
+        if (network == null) {
+            List<Stream> streams = new StreamDao(dsl).retrieveStreams(officeId, null, null, null,
+                    NETWORK_STATION_UNITS);
+            network = new StreamNetwork(streams, getStreamLocations(officeId, NETWORK_STATION_UNITS,
+                    NETWORK_STAGE_UNITS, NETWORK_AREA_UNITS).values());
+            networkCache.put(key, network);
+        }
+        return network;
+    }
+
+    private Map<String, StreamLocation> getStreamLocations(String officeId, String stationUnits,
+                                                           String stageUnits, String areaUnits) {
+        List<String> key = Arrays.asList(officeId.toUpperCase(), stationUnits, stageUnits, areaUnits);
+        Map<String, StreamLocation> streamLocations = streamLocationCache.getIfPresent(key);
+        if (streamLocations == null) {
+            Map<String, StreamLocation> byId = new LinkedHashMap<>();
+            connection(dsl, conn -> retrieveStreamLocations(officeId, null, null, stationUnits,
+                    stageUnits, areaUnits, conn)
+                    .forEach(sl -> byId.putIfAbsent(
+                            sl.getStreamLocationNode().getId().getName().toUpperCase(), sl)));
+            streamLocations = byId;
+            streamLocationCache.put(key, streamLocations);
+        }
+        return streamLocations;
+    }
+
+    private List<StreamLocation> toStreamLocations(String officeId, List<String> locationIds, String direction,
+                                                   String stationUnits, String stageUnits, String areaUnits) {
+        if (locationIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, StreamLocation> streamLocations = getStreamLocations(officeId, stationUnits,
+                stageUnits, areaUnits);
+        return locationIds.stream()
+                .map(id -> {
+                    StreamLocation streamLocation = streamLocations.get(id.toUpperCase());
+                    if (streamLocation == null) {
+                        throw new NotFoundException(direction + " location " + id + " not found.");
+                    }
+                    return streamLocation;
+                })
+                .collect(toList());
     }
 
     /**
@@ -177,6 +263,7 @@ public final class StreamLocationDao extends JooqDao<StreamLocation> {
                     streamLocation.getUngagedDrainageArea(), streamLocation.getAreaUnits(),streamLocationNode.getId().getOfficeId());
             return null;
         });
+        invalidateNetwork(streamLocation.getId().getOfficeId());
     }
 
     /**
@@ -203,6 +290,7 @@ public final class StreamLocationDao extends JooqDao<StreamLocation> {
             setOffice(conn, officeId);
             CWMS_STREAM_PACKAGE.call_DELETE_STREAM_LOCATION(DSL.using(conn).configuration(), locationId, streamId, officeId);
         });
+        invalidateNetwork(officeId);
     }
 
     static StreamLocation fromJooqStreamLocation(RETRIEVE_STREAM_LOCATION streamLocation, String locationId, String streamId, String officeId, String stationUnit, String stageUnit, String areaUnit) {
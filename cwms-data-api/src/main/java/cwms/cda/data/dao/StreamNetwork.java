@@ -0,0 +1,245 @@
+package cwms.cda.data.dao;
+
+import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dto.stream.Stream;
+import cwms.cda.data.dto.stream.StreamLocation;
+import cwms.cda.data.dto.stream.StreamNode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable directed graph of the streams of an office and the locations on them, so upstream and
+ * downstream locations can be found without asking the database.
+ *
+ * <p>Positions along a stream are kept as "upstream distance": the station when stationing starts
+ * at the downstream end and the negated station otherwise, so a larger value is always further
+ * upstream.  Streams are joined by their confluence (flows into) and diversion (diverts from)
+ * stations, which must be in the same units as the location stations.
+ */
+final class StreamNetwork {
+
+    private final Map<String, StreamEntry> streams = new HashMap<>();
+    private final Map<String, Node> locations = new HashMap<>();
+
+    StreamNetwork(Collection<Stream> streamList, Collection<StreamLocation> streamLocations) {
+        for (Stream stream : streamList) {
+            StreamEntry entry = new StreamEntry(stream);
+            streams.put(key(entry.id), entry);
+        }
+        for (StreamEntry entry : streams.values()) {
+            if (entry.flowsInto != null) {
+                StreamEntry parent = streams.get(key(entry.flowsInto));
+                if (parent != null && entry.flowsIntoStation != null) {
+                    parent.tributaries.add(new Junction(entry, parent.position(entry.flowsIntoStation)));
+                }
+            }
+            if (entry.divertsFrom != null) {
+                StreamEntry parent = streams.get(key(entry.divertsFrom));
+                if (parent != null && entry.divertsFromStation != null) {
+                    parent.diversions.add(new Junction(entry, parent.position(entry.divertsFromStation)));
+                }
+            }
+        }
+        for (StreamLocation streamLocation : streamLocations) {
+            StreamNode streamNode = streamLocation.getStreamLocationNode().getStreamNode();
+            StreamEntry stream = streams.get(key(streamNode.getStreamId().getName()));
+            if (stream == null || streamNode.getStation() == null) {
+                continue;
+            }
+            Node node = new Node(streamLocation.getStreamLocationNode().getId().getName(), stream,
+                    stream.position(streamNode.getStation()));
+            stream.nodes.add(node);
+            // A location on several streams is looked up on the first one, as the catalog does.
+            locations.putIfAbsent(key(node.locationId), node);
+        }
+        for (StreamEntry stream : streams.values()) {
+            stream.nodes.sort(Comparator.comparingDouble(n -> n.position));
+        }
+    }
+
+    /**
+     * Locations downstream of a location, nearest first.
+     * @param locationId the starting location
+     * @param all if false only the nearest location on each downstream branch is returned
+     * @param sameStreamOnly if true the walk doesn't leave the stream of the location
+     * @return ids of the downstream locations
+     */
+    List<String> downstream(String locationId, boolean all, boolean sameStreamOnly) {
+        Node start = node(locationId);
+        Walk walk = new Walk(all, sameStreamOnly, start);
+        walk.downstream(start.stream, start.position);
+        return new ArrayList<>(walk.found);
+    }
+
+    /**
+     * Locations upstream of a location, nearest first.
+     * @param locationId the starting location
+     * @param all if false only the nearest location on each upstream branch is returned
+     * @param sameStreamOnly if true the walk doesn't leave the stream of the location
+     * @return ids of the upstream locations
+     */
+    List<String> upstream(String locationId, boolean all, boolean sameStreamOnly) {
+        Node start = node(locationId);
+        Walk walk = new Walk(all, sameStreamOnly, start);
+        walk.upstream(start.stream, start.position);
+        return new ArrayList<>(walk.found);
+    }
+
+    private Node node(String locationId) {
+        Node node = locations.get(key(locationId));
+        if (node == null) {
+            throw new NotFoundException("Stream location " + locationId + " not found.");
+        }
+        return node;
+    }
+
+    private static String key(String id) {
+        return id.toUpperCase();
+    }
+
+    /**
+     * One traversal.  Remembers how far each stream has been walked so diversions that rejoin
+     * their stream don't loop.
+     */
+    private final class Walk {
+        private final boolean all;
+        private final boolean sameStreamOnly;
+        private final Node start;
+        private final Set<String> found = new LinkedHashSet<>();
+        private final Map<StreamEntry, Double> walkedFrom = new HashMap<>();
+
+        Walk(boolean all, boolean sameStreamOnly, Node start) {
+            this.all = all;
+            this.sameStreamOnly = sameStreamOnly;
+            this.start = start;
+        }
+
+        /**
+         * Walk down a stream from a position, exclusive.
+         */
+        void downstream(StreamEntry stream, double from) {
+            Double walked = walkedFrom.get(stream);
+            if (walked != null && walked >= from) {
+                return;
+            }
+            walkedFrom.put(stream, from);
+
+            double stop = Double.NEGATIVE_INFINITY;
+            for (int i = stream.nodes.size() - 1; i >= 0; i--) {
+                Node node = stream.nodes.get(i);
+                if (node.position < from && node != start) {
+                    found.add(node.locationId);
+                    if (!all) {
+                        stop = node.position;
+                        break;
+                    }
+                }
+            }
+            if (sameStreamOnly) {
+                return;
+            }
+            for (Junction diversion : stream.diversions) {
+                if (diversion.position < from && diversion.position >= stop) {
+                    downstream(diversion.stream, Double.POSITIVE_INFINITY);
+                }
+            }
+            if (stop == Double.NEGATIVE_INFINITY && stream.flowsInto != null) {
+                StreamEntry parent = streams.get(key(stream.flowsInto));
+                if (parent != null && stream.flowsIntoStation != null) {
+                    downstream(parent, parent.position(stream.flowsIntoStation));
+                }
+            }
+        }
+
+        /**
+         * Walk up a stream from a position, exclusive.
+         */
+        void upstream(StreamEntry stream, double from) {
+            Double walked = walkedFrom.get(stream);
+            if (walked != null && walked <= from) {
+                return;
+            }
+            walkedFrom.put(stream, from);
+
+            double stop = Double.POSITIVE_INFINITY;
+            for (Node node : stream.nodes) {
+                if (node.position > from && node != start) {
+                    found.add(node.locationId);
+                    if (!all) {
+                        stop = node.position;
+                        break;
+                    }
+                }
+            }
+            if (sameStreamOnly) {
+                return;
+            }
+            for (Junction tributary : stream.tributaries) {
+                if (tributary.position > from && tributary.position <= stop) {
+                    upstream(tributary.stream, Double.NEGATIVE_INFINITY);
+                }
+            }
+            if (stop == Double.POSITIVE_INFINITY && stream.divertsFrom != null) {
+                StreamEntry parent = streams.get(key(stream.divertsFrom));
+                if (parent != null && stream.divertsFromStation != null) {
+                    upstream(parent, parent.position(stream.divertsFromStation));
+                }
+            }
+        }
+    }
+
+    private static final class StreamEntry {
+        private final String id;
+        private final boolean startsDownstream;
+        private final String flowsInto;
+        private final Double flowsIntoStation;
+        private final String divertsFrom;
+        private final Double divertsFromStation;
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Junction> tributaries = new ArrayList<>();
+        private final List<Junction> diversions = new ArrayList<>();
+
+        StreamEntry(Stream stream) {
+            this.id = stream.getId().getName();
+            this.startsDownstream = !Boolean.FALSE.equals(stream.getStartsDownstream());
+            StreamNode flowsIntoNode = stream.getFlowsIntoStreamNode();
+            this.flowsInto = flowsIntoNode == null ? null : flowsIntoNode.getStreamId().getName();
+            this.flowsIntoStation = flowsIntoNode == null ? null : flowsIntoNode.getStation();
+            StreamNode divertsFromNode = stream.getDivertsFromStreamNode();
+            this.divertsFrom = divertsFromNode == null ? null : divertsFromNode.getStreamId().getName();
+            this.divertsFromStation = divertsFromNode == null ? null : divertsFromNode.getStation();
+        }
+
+        double position(double station) {
+            return startsDownstream ? station : -station;
+        }
+    }
+
+    private static final class Junction {
+        private final StreamEntry stream;
+        private final double position;
+
+        Junction(StreamEntry stream, double position) {
+            this.stream = stream;
+            this.position = position;
+        }
+    }
+
+    private static final class Node {
+        private final String locationId;
+        private final StreamEntry stream;
+        private final double position;
+
+        Node(String locationId, StreamEntry stream, double position) {
+            this.locationId = locationId;
+            this.stream = stream;
+            this.position = position;
+        }
+    }
+}
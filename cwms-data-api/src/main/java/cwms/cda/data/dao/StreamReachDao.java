@@ -24,6 +24,7 @@
 package cwms.cda.data.dao;
 
 import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dao.basinconnectivity.BasinDao;
 import cwms.cda.data.dto.CwmsId;
 import cwms.cda.data.dto.stream.Bank;
 import cwms.cda.data.dto.stream.StreamLocation;
@@ -114,6 +115,7 @@ public final class StreamReachDao extends JooqDao<StreamReach> {
                     streamReach.getId().getOfficeId());
             return null;
         });
+        BasinDao.invalidateBasins(streamReach.getId().getOfficeId());
     }
 
     /**
@@ -127,6 +129,7 @@ public final class StreamReachDao extends JooqDao<StreamReach> {
             setOffice(conn, officeId);
             CWMS_STREAM_PACKAGE.call_RENAME_STREAM_REACH(DSL.using(conn).configuration(), oldReachId, newReachId, officeId);
         });
+        BasinDao.invalidateBasins(officeId);
     }
 
     /**
@@ -139,6 +142,7 @@ public final class StreamReachDao extends JooqDao<StreamReach> {
             setOffice(conn, officeId);
             CWMS_STREAM_PACKAGE.call_DELETE_STREAM_REACH(DSL.using(conn).configuration(), reachId, officeId);
         });
+        BasinDao.invalidateBasins(officeId);
     }
 
     static StreamReach fromJooqStreamReach(RETRIEVE_STREAM_REACH streamReach, String officeId, String streamId, String stationUnits,
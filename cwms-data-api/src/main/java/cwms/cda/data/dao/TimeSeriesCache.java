@@ -0,0 +1,181 @@
+package cwms.cda.data.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A cache of things looked up about time series, indexed by the time series ids and locations
+ * each entry depends on, so the entries of a changed time series or location are dropped
+ * directly instead of by scanning the whole cache.
+ *
+ * <p>Entries are indexed before they are cached and taken out of the index when the cache
+ * drops them, so an invalidation never misses a cached entry.
+ *
+ * @param <K> the cache key
+ * @param <V> the cached value
+ */
+final class TimeSeriesCache<K, V> {
+
+    private final Function<K, String> officeOf;
+    private final BiFunction<K, V, Collection<String>> tsIdsOf;
+    private final ConcurrentMap<String, Set<K>> byTsId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<K>> byLocation = new ConcurrentHashMap<>();
+    private final Cache<K, V> cache;
+
+    /**
+     * @param builder the expiry, size and statistics of the cache
+     * @param officeOf the office of a key, null if it covers every office
+     * @param tsIdsOf the time series ids an entry depends on
+     */
+    TimeSeriesCache(CacheBuilder<Object, Object> builder, Function<K, String> officeOf,
+                    BiFunction<K, V, Collection<String>> tsIdsOf) {
+        this.officeOf = officeOf;
+        this.tsIdsOf = tsIdsOf;
+        this.cache = builder.<K, V>removalListener(this::removed).build();
+    }
+
+    /**
+     * @return the underlying cache, for its statistics
+     */
+    Cache<K, V> getCache() {
+        return cache;
+    }
+
+    @Nullable
+    V getIfPresent(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    void put(K key, V value) {
+        Set<String> ids = upperIds(key, value);
+        for (String id : ids) {
+            index(byTsId, id, key);
+            index(byLocation, location(id), key);
+        }
+        V previous = cache.asMap().put(key, value);
+        if (previous != null) {
+            unindex(key, upperIds(key, previous));
+        }
+    }
+
+    /**
+     * Drops the entries that depend on a time series.
+     *
+     * @param officeId the office of the time series, null for any office
+     * @param tsId the time series id
+     */
+    void invalidate(@Nullable String officeId, String tsId) {
+        invalidate(byTsId.get(tsId.toUpperCase()), officeId);
+    }
+
+    /**
+     * Drops the entries that depend on any time series at a location.
+     *
+     * @param officeId the office of the location, null for any office
+     * @param locationId the location id
+     */
+    void invalidateLocation(@Nullable String officeId, String locationId) {
+        invalidate(byLocation.get(locationId.toUpperCase()), officeId);
+    }
+
+    /**
+     * Replaces the entries that depend on a time series with what the updater makes of them, or
+     * drops them where it returns null.  The updater must not change the time series ids an
+     * entry depends on.
+     *
+     * @param officeId the office of the time series, null for any office
+     * @param tsId the time series id
+     * @param updater the new value of a cached entry, null to drop it
+     */
+    void update(@Nullable String officeId, String tsId, BiFunction<K, V, V> updater) {
+        Set<K> keys = byTsId.get(tsId.toUpperCase());
+        if (keys == null) {
+            return;
+        }
+        for (K key : new ArrayList<>(keys)) {
+            if (matches(key, officeId)) {
+                cache.asMap().computeIfPresent(key, updater);
+            }
+        }
+    }
+
+    private void invalidate(@Nullable Set<K> keys, @Nullable String officeId) {
+        if (keys == null) {
+            return;
+        }
+        for (K key : new ArrayList<>(keys)) {
+            if (matches(key, officeId)) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    private boolean matches(K key, @Nullable String officeId) {
+        String keyOffice = officeOf.apply(key);
+        return officeId == null || keyOffice == null || keyOffice.equalsIgnoreCase(officeId);
+    }
+
+    private void removed(RemovalNotification<K, V> notification) {
+        // A replaced value is taken care of by put, which knows the new value's ids.
+        if (notification.getCause() != RemovalCause.REPLACED
+                && notification.getKey() != null && notification.getValue() != null) {
+            unindex(notification.getKey(), upperIds(notification.getKey(), notification.getValue()));
+        }
+    }
+
+    private void unindex(K key, Set<String> ids) {
+        for (String id : ids) {
+            unindex(byTsId, id, key, Function.identity());
+            unindex(byLocation, location(id), key, TimeSeriesCache::location);
+        }
+    }
+
+    private static <K> void index(ConcurrentMap<String, Set<K>> index, String name, K key) {
+        index.compute(name, (n, keys) -> {
+            Set<K> retVal = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            retVal.add(key);
+            return retVal;
+        });
+    }
+
+    /**
+     * @param nameOf how the index names an upper case time series id
+     */
+    private void unindex(ConcurrentMap<String, Set<K>> index, String name, K key,
+                         Function<String, String> nameOf) {
+        index.computeIfPresent(name, (n, keys) -> {
+            // The key may have been cached again under the same name since it was dropped.
+            V current = cache.asMap().get(key);
+            if (current == null || upperIds(key, current).stream().map(nameOf).noneMatch(name::equals)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private Set<String> upperIds(K key, V value) {
+        Set<String> retVal = new HashSet<>();
+        for (String id : tsIdsOf.apply(key, value)) {
+            if (id != null) {
+                retVal.add(id.toUpperCase());
+            }
+        }
+        return retVal;
+    }
+
+    private static String location(String upperTsId) {
+        int dot = upperTsId.indexOf('.');
+        return dot < 0 ? upperTsId : upperTsId.substring(0, dot);
+    }
+}
@@ -0,0 +1,569 @@
+package cwms.cda.data.dao;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The time series ids of one office with the attributes the catalog filters on, so id searches
+ * (e.g. type-ahead) don't have to run regular expressions over the catalog views.
+ *
+ * <p>Ids are kept sorted by upper-case id for anchored searches and in a trigram index for
+ * searches containing a literal; every candidate is then checked against the full patterns.
+ * Patterns are evaluated with java.util.regex, so {@link Query#of} refuses the ones Oracle would
+ * read differently and those searches are left to the database.
+ */
+final class TimeSeriesCatalogIndex {
+
+    private static final int GRAM = 3;
+    /**
+     * Versions are unique across indexes, so a rebuilt index never repeats one.  They start at a
+     * random number, so neither a restarted server nor another server behind the same address
+     * hands out a version that meant a different catalog; a client that switches servers just
+     * gets a full response.
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong(new SecureRandom().nextLong() >>> 1);
+
+    private final TreeMap<String, Entry> entries = new TreeMap<>();
+    private final Map<String, List<Entry>> trigrams = new HashMap<>();
+    private final Map<Long, List<Assignment>> tsGroups = new HashMap<>();
+    private final Map<Long, List<Assignment>> locGroups = new HashMap<>();
+    private final Set<String> pending = new HashSet<>();
+    private long version = VERSIONS.incrementAndGet();
+
+    /**
+     * @param entries the time series of the office
+     * @param tsAssignments time series group assignments of the time series, by ts code
+     * @param locAssignments location group assignments of their locations, by location code
+     */
+    TimeSeriesCatalogIndex(Collection<Entry> entries, Collection<Assignment> tsAssignments,
+                           Collection<Assignment> locAssignments) {
+        for (Entry entry : entries) {
+            add(entry);
+        }
+        for (Assignment assignment : tsAssignments) {
+            tsGroups.computeIfAbsent(assignment.code, k -> new ArrayList<>()).add(assignment);
+        }
+        for (Assignment assignment : locAssignments) {
+            locGroups.computeIfAbsent(assignment.code, k -> new ArrayList<>()).add(assignment);
+        }
+    }
+
+    /**
+     * Remember that a time series has changed; it is reloaded before the next search.
+     * @param tsId the time series id
+     */
+    synchronized void markPending(String tsId) {
+        pending.add(tsId.toUpperCase());
+    }
+
+    /**
+     * @return the ids marked since the last call
+     */
+    synchronized Set<String> takePending() {
+        if (pending.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> retVal = new HashSet<>(pending);
+        pending.clear();
+        return retVal;
+    }
+
+    /**
+     * @return changes whenever the content of the index does
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Replace some time series with their current state.
+     * @param upperIds upper-case ids of the time series that were reloaded
+     * @param entries the ones of them that still exist
+     * @param tsAssignments their time series group assignments
+     * @param locAssignments every location group assignment of their locations
+     */
+    synchronized void refresh(Collection<String> upperIds, Collection<Entry> entries,
+                              Collection<Assignment> tsAssignments,
+                              Collection<Assignment> locAssignments) {
+        Set<Entry> entriesBefore = new HashSet<>();
+        Set<Assignment> tsBefore = new HashSet<>();
+        Set<Assignment> locBefore = new HashSet<>();
+        for (String upperId : upperIds) {
+            Entry old = this.entries.remove(upperId);
+            if (old != null) {
+                entriesBefore.add(old);
+                for (String gram : grams(upperId)) {
+                    List<Entry> posting = trigrams.get(gram);
+                    posting.remove(old);
+                    if (posting.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+                List<Assignment> oldGroups = tsGroups.remove(old.tsCode);
+                if (oldGroups != null) {
+                    tsBefore.addAll(oldGroups);
+                }
+            }
+        }
+        for (Entry entry : entries) {
+            add(entry);
+            if (entry.locationCode != null) {
+                List<Assignment> oldGroups = locGroups.remove(entry.locationCode);
+                if (oldGroups != null) {
+                    locBefore.addAll(oldGroups);
+                }
+            }
+        }
+        for (Assignment assignment : tsAssignments) {
+            tsGroups.computeIfAbsent(assignment.code, k -> new ArrayList<>()).add(assignment);
+        }
+        for (Assignment assignment : locAssignments) {
+            locGroups.computeIfAbsent(assignment.code, k -> new ArrayList<>()).add(assignment);
+        }
+        // Most refreshes follow stores that changed nothing the catalog shows.
+        if (!entriesBefore.equals(new HashSet<>(entries))
+                || !tsBefore.equals(new HashSet<>(tsAssignments))
+                || !locBefore.equals(new HashSet<>(locAssignments))) {
+            version = VERSIONS.incrementAndGet();
+        }
+    }
+
+    private void add(Entry entry) {
+        if (entries.putIfAbsent(entry.upperId, entry) != null) {
+            return;
+        }
+        for (String gram : grams(entry.upperId)) {
+            trigrams.computeIfAbsent(gram, k -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param query what to find
+     * @param after upper-case id the page starts after, null for the first page
+     * @param pageSize most entries to return
+     * @return the number of matches and the page of them, ordered by upper-case id
+     */
+    synchronized Result query(Query query, @Nullable String after, int pageSize) {
+        Collection<Entry> candidates = candidates(query);
+        int total = 0;
+        List<Entry> page = new ArrayList<>();
+        for (Entry entry : candidates) {
+            if (!matches(query, entry)) {
+                continue;
+            }
+            total++;
+            if (page.size() < pageSize && (after == null || entry.upperId.compareTo(after) > 0)) {
+                page.add(entry);
+            }
+        }
+        return new Result(total, page);
+    }
+
+    private Collection<Entry> candidates(Query query) {
+        if (query.prefix != null && !query.prefix.isEmpty()) {
+            return entries.subMap(query.prefix, true, query.prefix + Character.MAX_VALUE, false)
+                    .values();
+        }
+        List<Entry> smallest = null;
+        for (String literal : query.literals) {
+            for (String gram : grams(literal)) {
+                List<Entry> posting = trigrams.getOrDefault(gram, Collections.emptyList());
+                if (smallest == null || posting.size() < smallest.size()) {
+                    smallest = posting;
+                }
+            }
+        }
+        if (smallest == null) {
+            return entries.values();
+        }
+        List<Entry> retVal = new ArrayList<>(smallest);
+        retVal.sort(Comparator.comparing(e -> e.upperId));
+        return retVal;
+    }
+
+    private boolean matches(Query query, Entry entry) {
+        if (query.excludeEmpty && !entry.hasData) {
+            return false;
+        }
+        if (query.literal != null) {
+            if (!query.matchesLiteral(entry.upperId)) {
+                return false;
+            }
+        } else if (query.id != null && !query.id.matcher(entry.tsId).find()) {
+            return false;
+        }
+        if ((query.tsCategory != null || query.tsGroup != null)
+                && !anyMatch(tsGroups.get(entry.tsCode), query.tsCategory, query.tsGroup)) {
+            return false;
+        }
+        return (query.locCategory == null && query.locGroup == null)
+                || anyMatch(entry.locationCode == null ? null : locGroups.get(entry.locationCode),
+                        query.locCategory, query.locGroup);
+    }
+
+    private static boolean anyMatch(@Nullable List<Assignment> assignments,
+                                    @Nullable Pattern category, @Nullable Pattern group) {
+        if (assignments == null) {
+            return false;
+        }
+        for (Assignment assignment : assignments) {
+            if (find(category, assignment.categoryId) && find(group, assignment.groupId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean find(@Nullable Pattern pattern, @Nullable String value) {
+        return pattern == null || (value != null && pattern.matcher(value).find());
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> retVal = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            retVal.add(value.substring(i, i + GRAM));
+        }
+        return retVal;
+    }
+
+    /**
+     * Case-insensitive version of an Oracle regular expression, or null if java.util.regex
+     * would read it differently: POSIX classes, equivalence classes and collating elements, or
+     * class intersections.
+     */
+    @Nullable
+    static Pattern compile(String regex) {
+        if (hasBracketExpression(regex, ':') || hasBracketExpression(regex, '=')
+                || hasBracketExpression(regex, '.') || regex.contains("&&")) {
+            return null;
+        }
+        try {
+            return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasBracketExpression(String regex, char c) {
+        int start = regex.indexOf("[" + c);
+        return start >= 0 && regex.indexOf(c + "]", start + 2) >= 0;
+    }
+
+    /**
+     * Upper-case literals every match of a regular expression contains, read conservatively: an
+     * alternation yields nothing and reading stops at the first group.  If the expression is
+     * anchored at the start the first literal is returned separately as the prefix.  Expressions
+     * that are nothing but an (optionally anchored) literal are marked plain.
+     */
+    static Literals literals(String regex) {
+        Literals retVal = new Literals();
+        if (regex.indexOf('|') >= 0) {
+            retVal.plain = false;
+            return retVal;
+        }
+        boolean atStart = regex.startsWith("^");
+        StringBuilder current = new StringBuilder();
+        int i = atStart ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    current.append(regex.charAt(i + 1));
+                } else {
+                    retVal.plain = false;
+                    atStart = retVal.end(current, atStart);
+                }
+                i += 2;
+            } else if (c == '*' || c == '?' || c == '{') {
+                // The previous character is optional.
+                if (current.length() > 0) {
+                    current.setLength(current.length() - 1);
+                }
+                retVal.plain = false;
+                atStart = retVal.end(current, atStart);
+                i = c == '{' ? Math.max(regex.indexOf('}', i), i) + 1 : i + 1;
+            } else if (c == '[') {
+                retVal.plain = false;
+                atStart = retVal.end(current, atStart);
+                i = endOfClass(regex, i);
+            } else if (c == '(' || c == ')') {
+                retVal.plain = false;
+                break;
+            } else if (c == '$' && i == regex.length() - 1) {
+                retVal.anchoredEnd = true;
+                i++;
+            } else if (c == '+' || c == '.' || c == '^' || c == '$') {
+                retVal.plain = false;
+                atStart = retVal.end(current, atStart);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        retVal.anchoredStart = regex.startsWith("^");
+        retVal.end(current, atStart);
+        return retVal;
+    }
+
+    private static int endOfClass(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        int end = regex.indexOf(']', i);
+        return end < 0 ? regex.length() : end + 1;
+    }
+
+    static final class Literals {
+        private String prefix;
+        private final List<String> required = new ArrayList<>();
+        private boolean plain = true;
+        private boolean anchoredStart;
+        private boolean anchoredEnd;
+
+        private boolean end(StringBuilder current, boolean atStart) {
+            if (current.length() > 0) {
+                String literal = current.toString().toUpperCase();
+                required.add(literal);
+                if (atStart) {
+                    prefix = literal;
+                }
+                current.setLength(0);
+            }
+            return false;
+        }
+
+        String getPrefix() {
+            return prefix;
+        }
+
+        List<String> getRequired() {
+            return required;
+        }
+
+        boolean isPlain() {
+            return plain;
+        }
+    }
+
+    /**
+     * The filters of a catalog search.
+     */
+    static final class Query {
+        private final Pattern id;
+        /** The upper-case id searched for when the id pattern is a plain literal. */
+        private final String literal;
+        private final boolean anchoredStart;
+        private final boolean anchoredEnd;
+        private final String prefix;
+        private final List<String> literals;
+        private final Pattern tsCategory;
+        private final Pattern tsGroup;
+        private final Pattern locCategory;
+        private final Pattern locGroup;
+        private final boolean excludeEmpty;
+
+        private Query(Pattern id, Literals literals, Pattern tsCategory, Pattern tsGroup,
+                      Pattern locCategory, Pattern locGroup, boolean excludeEmpty) {
+            this.id = id;
+            if (id != null && literals.isPlain()) {
+                this.literal = literals.getRequired().isEmpty() ? "" : literals.getRequired().get(0);
+            } else {
+                this.literal = null;
+            }
+            this.anchoredStart = literals.anchoredStart;
+            this.anchoredEnd = literals.anchoredEnd;
+            this.prefix = literals.getPrefix();
+            this.literals = literals.getRequired();
+            this.tsCategory = tsCategory;
+            this.tsGroup = tsGroup;
+            this.locCategory = locCategory;
+            this.locGroup = locGroup;
+            this.excludeEmpty = excludeEmpty;
+        }
+
+        private boolean matchesLiteral(String upperId) {
+            if (anchoredStart && anchoredEnd) {
+                return upperId.equals(literal);
+            } else if (anchoredStart) {
+                return upperId.startsWith(literal);
+            } else if (anchoredEnd) {
+                return upperId.endsWith(literal);
+            }
+            return upperId.contains(literal);
+        }
+
+        /**
+         * Null filters match everything.
+         * @return the query, or null if one of the patterns can't be answered from the index
+         */
+        @Nullable
+        static Query of(@Nullable String idLike, @Nullable String tsCategoryLike,
+                        @Nullable String tsGroupLike, @Nullable String locCategoryLike,
+                        @Nullable String locGroupLike, boolean excludeEmpty) {
+            String[] regexes = {idLike, tsCategoryLike, tsGroupLike, locCategoryLike, locGroupLike};
+            Pattern[] patterns = new Pattern[regexes.length];
+            for (int i = 0; i < regexes.length; i++) {
+                if (regexes[i] != null) {
+                    patterns[i] = compile(regexes[i]);
+                    if (patterns[i] == null) {
+                        return null;
+                    }
+                }
+            }
+            return new Query(patterns[0], idLike == null ? new Literals() : literals(idLike),
+                    patterns[1], patterns[2], patterns[3], patterns[4], excludeEmpty);
+        }
+    }
+
+    static final class Result {
+        private final int total;
+        private final List<Entry> page;
+
+        Result(int total, List<Entry> page) {
+            this.total = total;
+            this.page = page;
+        }
+
+        int getTotal() {
+            return total;
+        }
+
+        List<Entry> getPage() {
+            return page;
+        }
+    }
+
+    /**
+     * A group assignment of a time series or location.
+     */
+    static final class Assignment {
+        private final long code;
+        private final String categoryId;
+        private final String groupId;
+
+        Assignment(long code, String categoryId, String groupId) {
+            this.code = code;
+            this.categoryId = categoryId;
+            this.groupId = groupId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Assignment)) {
+                return false;
+            }
+            Assignment that = (Assignment) o;
+            return code == that.code && Objects.equals(categoryId, that.categoryId)
+                    && Objects.equals(groupId, that.groupId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(code, categoryId, groupId);
+        }
+    }
+
+    static final class Entry {
+        private final long tsCode;
+        private final String officeId;
+        private final String tsId;
+        private final String upperId;
+        private final String units;
+        private final String interval;
+        private final Long intervalOffset;
+        private final String timeZoneId;
+        private final Long locationCode;
+        private final boolean hasData;
+
+        Entry(long tsCode, String officeId, String tsId, String units, String interval,
+              Long intervalOffset, String timeZoneId, Long locationCode, boolean hasData) {
+            this.tsCode = tsCode;
+            this.officeId = officeId;
+            this.tsId = tsId;
+            this.upperId = tsId.toUpperCase();
+            this.units = units;
+            this.interval = interval;
+            this.intervalOffset = intervalOffset;
+            this.timeZoneId = timeZoneId;
+            this.locationCode = locationCode;
+            this.hasData = hasData;
+        }
+
+        long getTsCode() {
+            return tsCode;
+        }
+
+        String getOfficeId() {
+            return officeId;
+        }
+
+        String getTsId() {
+            return tsId;
+        }
+
+        String getUnits() {
+            return units;
+        }
+
+        String getInterval() {
+            return interval;
+        }
+
+        Long getIntervalOffset() {
+            return intervalOffset;
+        }
+
+        String getTimeZoneId() {
+            return timeZoneId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry that = (Entry) o;
+            return tsCode == that.tsCode && hasData == that.hasData
+                    && Objects.equals(officeId, that.officeId) && Objects.equals(tsId, that.tsId)
+                    && Objects.equals(units, that.units) && Objects.equals(interval, that.interval)
+                    && Objects.equals(intervalOffset, that.intervalOffset)
+                    && Objects.equals(timeZoneId, that.timeZoneId)
+                    && Objects.equals(locationCode, that.locationCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tsCode, tsId);
+        }
+    }
+}
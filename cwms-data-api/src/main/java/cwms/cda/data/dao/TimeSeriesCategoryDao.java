@@ -82,7 +82,7 @@ public class TimeSeriesCategoryDao extends JooqDao<TimeSeriesCategory> {
                     dslContext.configuration(), categoryId,
                     formatBool(cascadeDelete), office);
         });
-
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
     }
 
     public void create(TimeSeriesCategory category, boolean failIfExists) {
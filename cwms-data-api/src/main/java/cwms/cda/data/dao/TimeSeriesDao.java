@@ -4,15 +4,39 @@ import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.data.dto.Catalog;
 import cwms.cda.data.dto.RecentValue;
 import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.data.dto.TimeSeriesStoreResult;
+import cwms.cda.formatters.TimeSeriesReader;
+import cwms.cda.formatters.TimeSeriesWriter;
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
+import org.jetbrains.annotations.Nullable;
 
 public interface TimeSeriesDao {
 
     Catalog getTimeSeriesCatalog(String page, int pageSize, CatalogRequestParameters inputParams);
 
+    /**
+     * A cheap marker that changes whenever the catalog page would, see ChangeMarker.
+     * @return the marker, or null if this search can't be validated without running it
+     */
+    @Nullable
+    ChangeMarker getTimeSeriesCatalogMarker(String page, int pageSize,
+                                            CatalogRequestParameters inputParams);
+
+    /**
+     * A cheap marker that changes whenever the values of a time series do, see ChangeMarker.
+     * @param tsId the time series id
+     * @param office the office, null for the session's office
+     * @param units the requested units or unit system
+     * @return the marker, or null if the time series has no values
+     * @throws cwms.cda.api.errors.NotFoundException if there is no such time series
+     */
+    @Nullable
+    ChangeMarker getTimeSeriesMarker(String tsId, @Nullable String office, String units);
+
     void create(TimeSeries input);
 
     void create(TimeSeries input,
@@ -23,19 +47,52 @@ public interface TimeSeriesDao {
     void store(TimeSeries timeSeries, boolean createAsLrts,
                StoreRule replaceAll, boolean overrideProtection);
 
+    /**
+     * Same as create, reading the time series from the reader as its values are stored, so a
+     * large request body is never held in memory at once if its format can be streamed.
+     */
+    void create(TimeSeriesReader reader, boolean createAsLrts, StoreRule storeRule,
+                boolean overrideProtection);
+
+    /**
+     * Same as store, reading the time series from the reader as its values are stored.
+     */
+    void store(TimeSeriesReader reader, boolean createAsLrts, StoreRule storeRule,
+               boolean overrideProtection);
+
+    /**
+     * Stores many time series on one connection, reporting the outcome of each one.
+     */
+    List<TimeSeriesStoreResult> store(List<TimeSeries> timeSeries, boolean createAsLrts,
+                                      StoreRule storeRule, boolean overrideProtection);
+
     void delete(String officeId, String tsId, TimeSeriesDeleteOptions options);
 
     TimeSeries getTimeseries(String cursor, int pageSize, String names, String office,
                              String unit, ZonedDateTime begin, ZonedDateTime end,
                              ZonedDateTime versionDate, boolean trim);
 
+    void streamTimeseries(String cursor, int pageSize, String names, String office,
+                          String unit, ZonedDateTime begin, ZonedDateTime end,
+                          ZonedDateTime versionDate, boolean trim,
+                          TimeSeriesWriter writer) throws IOException;
+
+    /**
+     * Streams every named time series, in the order given, as a sequence of
+     * header/values/trailer calls on the writer.
+     */
+    void streamTimeseries(List<String> names, String office, String unit,
+                          ZonedDateTime begin, ZonedDateTime end,
+                          ZonedDateTime versionDate, boolean trim,
+                          TimeSeriesWriter writer) throws IOException;
+
     String getTimeseries(String format, String names, String office, String unit, String datum,
                          ZonedDateTime begin, ZonedDateTime end, ZoneId timezone);
 
     List<RecentValue> findRecentsInRange(String office, String categoryId, String groupId,
                                          Timestamp pastLimit, Timestamp futureLimit, UnitSystem unitSystem);
 
-    List<RecentValue> findMostRecentsInRange(List<String> tsIds, Timestamp pastLimit,
+    List<RecentValue> findMostRecentsInRange(String office, List<String> tsIds, Timestamp pastLimit,
                                              Timestamp futureLimit, UnitSystem unitSystem);
 
 }
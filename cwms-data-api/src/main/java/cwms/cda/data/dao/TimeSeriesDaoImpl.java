@@ -1,9 +1,11 @@
 package cwms.cda.data.dao;
 
 import static org.jooq.impl.DSL.asterisk;
+import static org.jooq.impl.DSL.count;
 import static org.jooq.impl.DSL.countDistinct;
 import static org.jooq.impl.DSL.field;
 import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.min;
 import static org.jooq.impl.DSL.name;
 import static org.jooq.impl.DSL.partitionBy;
 import static org.jooq.impl.DSL.select;
@@ -13,16 +15,18 @@ import static usace.cwms.db.jooq.codegen.tables.AV_TS_EXTENTS_UTC.AV_TS_EXTENTS_
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheStats;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.enums.VersionType;
+import cwms.cda.api.errors.NotFoundException;
 import cwms.cda.data.dto.Catalog;
 import cwms.cda.data.dto.CwmsDTOPaginated;
 import cwms.cda.data.dto.RecentValue;
 import cwms.cda.data.dto.TimeSeries;
 import cwms.cda.data.dto.TimeSeriesExtents;
+import cwms.cda.data.dto.TimeSeriesStoreResult;
 import cwms.cda.data.dto.Tsv;
 import cwms.cda.data.dto.TsvDqu;
 import cwms.cda.data.dto.TsvId;
@@ -30,7 +34,11 @@ import cwms.cda.data.dto.VerticalDatumInfo;
 import cwms.cda.data.dto.catalog.CatalogEntry;
 import cwms.cda.data.dto.catalog.TimeseriesCatalogEntry;
 import cwms.cda.formatters.FormattingException;
+import cwms.cda.formatters.TimeSeriesReader;
+import cwms.cda.formatters.TimeSeriesWriter;
 import cwms.cda.formatters.xml.XMLv1;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Connection;
@@ -46,11 +54,14 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -58,17 +69,25 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jooq.CommonTableExpression;
 import org.jooq.Condition;
+import org.jooq.Configuration;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record2;
 import org.jooq.Record3;
+import org.jooq.Record4;
 import org.jooq.Record7;
 import org.jooq.Result;
+import org.jooq.ResultQuery;
+import org.jooq.Row2;
 import org.jooq.SQL;
+import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectHavingStep;
 import org.jooq.SelectJoinStep;
+import org.jooq.SelectSeekStep1;
 import org.jooq.SelectSeekStep2;
 import org.jooq.Table;
 import org.jooq.TableField;
@@ -101,6 +120,24 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
     public static final String PROP_BASE = "cwms.cda.data.dao.ts";
 
     public static final String VERSIONED_NAME = "isVersioned";
+    public static final String PAGE_WINDOW_NAME = "pageWindow";
+    public static final String METADATA_NAME = "metadata";
+    public static final String RECENT_NAME = "recent";
+    public static final String RECENT_GROUP_NAME = "recentGroup";
+    public static final String CATALOG_INDEX_NAME = "catalogIndex";
+
+    /** Rows per round trip when streaming values; the Oracle driver default of 10 is far too small. */
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger(PROP_BASE + ".stream.fetchSize", 1000);
+    /** Series per UNION ALL query in the bulk retrieval. */
+    private static final int BULK_QUERY_SIZE = Integer.getInteger(PROP_BASE + ".bulk.querySize", 50);
+    /** Whether catalog searches within an office may be answered from catalogIndexCache. */
+    private static final boolean CATALOG_INDEX_ENABLED = Boolean.parseBoolean(
+            System.getProperty(PROP_BASE + "." + CATALOG_INDEX_NAME + ".enabled", "true"));
+    /**
+     * Values per ZSTORE_TS call when storing; zero or less sends each store in a single call.
+     * DELETE INSERT stores always go in a single call, see {@link #storeChunkSize(StoreRule)}.
+     */
+    private static final int STORE_CHUNK_SIZE = Integer.getInteger(PROP_BASE + ".store.chunkSize", 10000);
 
     /** To be able to use a named inner table (otherwise JOOQ creates a random alias which messes
      * with the planner) we need to use fixed names to be able to reference the required columns.
@@ -119,14 +156,91 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
     private static final Field<String> locGroupField = locGroupView.GROUP_ID;
     private static final Field<String> locCategoryField = locGroupView.CATEGORY_ID;
 
-    private static final Cache<List<String>, Boolean> isVersionedCache = CacheBuilder.newBuilder()
-            .maximumSize(Integer.getInteger(PROP_BASE + "." + VERSIONED_NAME
-                    + ".maxSize", 32000))
-            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + VERSIONED_NAME
-                            + ".expireAfterSeconds", 600), TimeUnit.SECONDS)
+    /** Whether a time series is versioned, keyed by office and time series id. */
+    private static final TimeSeriesCache<List<String>, Boolean> isVersionedCache = new TimeSeriesCache<>(
+            CacheBuilder.newBuilder()
+                    .maximumSize(Integer.getInteger(PROP_BASE + "." + VERSIONED_NAME
+                            + ".maxSize", 32000))
+                    .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + VERSIONED_NAME
+                                    + ".expireAfterSeconds", 600), TimeUnit.SECONDS)
+                    .recordStats(),
+            k -> k.get(0), (k, v) -> Collections.singletonList(k.get(1)));
+
+    /**
+     * Resolved header of a time series, keyed by the requested office, name and units.  Only
+     * changes to the time series or its location drop an entry, storing values doesn't.
+     */
+    private static final TimeSeriesCache<List<String>, TsMetadata> metadataCache = new TimeSeriesCache<>(
+            CacheBuilder.newBuilder()
+                    .maximumSize(Integer.getInteger(PROP_BASE + "." + METADATA_NAME
+                            + ".maxSize", 32000))
+                    .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + METADATA_NAME
+                                    + ".expireAfterSeconds", 3600), TimeUnit.SECONDS)
+                    .recordStats(),
+            k -> k.get(0), (k, v) -> Arrays.asList(k.get(1), v.tsId));
+
+    /**
+     * Number of values in a retrieval window, keyed by the requested office, name, units, window,
+     * version date and trim flag.
+     */
+    private static final TimeSeriesCache<List<Object>, Integer> pageWindowCache = new TimeSeriesCache<>(
+            CacheBuilder.newBuilder()
+                    .maximumSize(Integer.getInteger(PROP_BASE + "." + PAGE_WINDOW_NAME
+                            + ".maxSize", 10000))
+                    .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + PAGE_WINDOW_NAME
+                                    + ".expireAfterSeconds", 300), TimeUnit.SECONDS)
+                    .recordStats(),
+            k -> (String) k.get(0), (k, v) -> Collections.singletonList((String) k.get(1)));
+
+    /**
+     * Latest values of each time series id, keyed by requested office, id, unit system and time
+     * window, as found by findMostRecentsInRange.  An empty list means the series has no value in
+     * the window.  The values aren't limited to the requested office, so a change at any office
+     * applies to every entry of the id.  A store through CDA puts its latest value into the
+     * entries it belongs in, see withStoredValue, and drops the rest; expiry bounds how stale
+     * values written by anything else can get.
+     */
+    private static final TimeSeriesCache<List<Object>, List<RecentValue>> recentCache = new TimeSeriesCache<>(
+            CacheBuilder.newBuilder()
+                    .maximumSize(Integer.getInteger(PROP_BASE + "." + RECENT_NAME
+                            + ".maxSize", 32000))
+                    .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + RECENT_NAME
+                                    + ".expireAfterSeconds", 60), TimeUnit.SECONDS)
+                    .recordStats(),
+            k -> null, (k, v) -> Collections.singletonList((String) k.get(1)));
+
+    /**
+     * Latest values of the members of a time series group, keyed by office, category, group, unit
+     * system and time window, and indexed by the members found.  Entries are dropped whenever CDA
+     * stores to one of the members; changes to group membership, and the first value of a member
+     * that had none in the window, show up when the entry expires.
+     */
+    private static final TimeSeriesCache<List<Object>, List<RecentValue>> recentGroupCache = new TimeSeriesCache<>(
+            CacheBuilder.newBuilder()
+                    .maximumSize(Integer.getInteger(PROP_BASE + "." + RECENT_GROUP_NAME
+                            + ".maxSize", 1000))
+                    .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + RECENT_GROUP_NAME
+                                    + ".expireAfterSeconds", 60), TimeUnit.SECONDS)
+                    .recordStats(),
+            k -> (String) k.get(0),
+            (k, v) -> v.stream().map(RecentValue::getId).collect(Collectors.toList()));
+
+    /**
+     * Catalog index of each office, keyed by upper case office id, see TimeSeriesCatalogIndex.
+     * Time series stored, deleted or renamed through CDA are reloaded individually before the
+     * next search; location and group changes drop the office.  Expiry bounds how stale changes
+     * made by anything else, including whether a series has data, can get.
+     */
+    private static final Cache<String, TimeSeriesCatalogIndex> catalogIndexCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + CATALOG_INDEX_NAME
+                    + ".maxSize", 64))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + CATALOG_INDEX_NAME
+                            + ".expireAfterSeconds", 900), TimeUnit.SECONDS)
             .recordStats()
             .build();
 
+    @Nullable
+    private final Timer storeChunkTimer;
 
     public TimeSeriesDaoImpl(DSLContext dsl) {
         this(dsl, null);
@@ -136,17 +250,115 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
         super(dsl);
 
         if (metrics != null) {
-            CacheStats stats = isVersionedCache.stats();
-            String hrName = MetricRegistry.name(this.getClass().getName(), VERSIONED_NAME, "hit-rate");
-            if (metrics.getGauges().get(hrName) == null) {
-                MetricRegistry.MetricSupplier<? extends Gauge> hr = () -> (Gauge<Double>) stats::hitRate;
-                metrics.gauge(hrName, hr);
-            }
-            String mrName = MetricRegistry.name(this.getClass().getName(),VERSIONED_NAME, "miss-rate");
-            if (metrics.getGauges().get(mrName) == null) {
-                MetricRegistry.MetricSupplier<? extends Gauge> mr = () -> (Gauge<Double>) stats::missRate;
-                metrics.gauge(mrName, mr);
+            registerCacheGauges(metrics, VERSIONED_NAME, isVersionedCache.getCache());
+            registerCacheGauges(metrics, PAGE_WINDOW_NAME, pageWindowCache.getCache());
+            registerCacheGauges(metrics, METADATA_NAME, metadataCache.getCache());
+            registerCacheGauges(metrics, RECENT_NAME, recentCache.getCache());
+            registerCacheGauges(metrics, RECENT_GROUP_NAME, recentGroupCache.getCache());
+            registerCacheGauges(metrics, CATALOG_INDEX_NAME, catalogIndexCache);
+            storeChunkTimer = metrics.timer(MetricRegistry.name(TimeSeriesDaoImpl.class, "store", "chunk"));
+        } else {
+            storeChunkTimer = null;
+        }
+    }
+
+    /**
+     * Drops everything cached about a time series.  Must be called whenever the time series is
+     * created, renamed, deleted or otherwise changed in the catalog.
+     *
+     * @param officeId office of the time series, null for any office
+     * @param tsId the time series id
+     */
+    public static void invalidateCaches(@Nullable String officeId, String tsId) {
+        metadataCache.invalidate(officeId, tsId);
+        invalidateValueCaches(officeId, tsId);
+    }
+
+    /**
+     * Drops what is cached about the values of a time series.  Must be called whenever values
+     * of the time series are stored or deleted.  Storing with a version date can make the time
+     * series versioned, so that is dropped as well.
+     *
+     * @param officeId office of the time series, null for any office
+     * @param tsId the time series id
+     */
+    public static void invalidateValueCaches(@Nullable String officeId, String tsId) {
+        recentCache.invalidate(officeId, tsId);
+        invalidateOtherValueCaches(officeId, tsId);
+    }
+
+    /**
+     * Same as invalidateValueCaches, but puts the latest of the values just stored into the
+     * cached latest values where it belongs, instead of dropping them all.
+     */
+    // Package private for unit testing
+    static void invalidateValueCaches(@Nullable String officeId, String tsId, String units,
+                                      @Nullable Timestamp versionDate,
+                                      @Nullable List<TimeSeries.Record> values,
+                                      StoreRule storeRule) {
+        TimeSeries.Record latest = versionDate == null && officeId != null
+                ? latestStoredValue(values, storeRule) : null;
+        if (latest == null) {
+            recentCache.invalidate(officeId, tsId);
+        } else {
+            Date now = new Date();
+            recentCache.update(officeId, tsId,
+                    (key, cached) -> withStoredValue(key, cached, officeId, units, latest, now));
+        }
+        invalidateOtherValueCaches(officeId, tsId);
+    }
+
+    private static void invalidateOtherValueCaches(@Nullable String officeId, String tsId) {
+        isVersionedCache.invalidate(officeId, tsId);
+        pageWindowCache.invalidate(officeId, tsId);
+        recentGroupCache.invalidate(officeId, tsId);
+        catalogIndexCache.asMap().forEach((office, index) -> {
+            if (officeId == null || office.equalsIgnoreCase(officeId)) {
+                index.markPending(tsId);
             }
+        });
+    }
+
+    /**
+     * Drops the cached metadata and totals of every time series at a location, e.g. after the location's
+     * vertical datum or time zone has changed.
+     *
+     * @param officeId office of the location, null for any office
+     * @param locationId the location id
+     */
+    public static void invalidateLocationCaches(@Nullable String officeId, String locationId) {
+        metadataCache.invalidateLocation(officeId, locationId);
+        pageWindowCache.invalidateLocation(officeId, locationId);
+        recentCache.invalidateLocation(officeId, locationId);
+        recentGroupCache.invalidateLocation(officeId, locationId);
+        invalidateCatalogIndex(officeId);
+    }
+
+    /**
+     * Drops the catalog index of an office, e.g. after its time series or location group
+     * assignments have changed.  Groups and categories themselves can be used by any office, so
+     * deleting or renaming one should drop every office.
+     *
+     * @param officeId the office, null for every office
+     */
+    public static void invalidateCatalogIndex(@Nullable String officeId) {
+        if (officeId == null) {
+            catalogIndexCache.invalidateAll();
+        } else {
+            catalogIndexCache.invalidate(officeId.toUpperCase());
+        }
+    }
+
+    private void registerCacheGauges(MetricRegistry metrics, String cacheName, Cache<?, ?> cache) {
+        String hrName = MetricRegistry.name(this.getClass().getName(), cacheName, "hit-rate");
+        if (metrics.getGauges().get(hrName) == null) {
+            MetricRegistry.MetricSupplier<? extends Gauge> hr = () -> (Gauge<Double>) () -> cache.stats().hitRate();
+            metrics.gauge(hrName, hr);
+        }
+        String mrName = MetricRegistry.name(this.getClass().getName(), cacheName, "miss-rate");
+        if (metrics.getGauges().get(mrName) == null) {
+            MetricRegistry.MetricSupplier<? extends Gauge> mr = () -> (Gauge<Double>) () -> cache.stats().missRate();
+            metrics.gauge(mrName, mr);
         }
     }
 
@@ -166,38 +378,248 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                                        String units,
                                        ZonedDateTime beginTime, ZonedDateTime endTime,
                                     ZonedDateTime versionDate, boolean shouldTrim) {
-        TimeSeries retVal = null;
-        String cursor = null;
-        Timestamp tsCursor = null;
-        Integer total = null;
+        try {
+            return retrieveTimeseries(page, pageSize, names, office, units, beginTime, endTime,
+                    versionDate, shouldTrim, (timeseries, query) -> {
+                        query.forEach(tsRecord -> timeseries.addValue(
+                                        tsRecord.value1(),
+                                        tsRecord.value2(),
+                                        tsRecord.value3().intValue()
+                                )
+                        );
+                        return timeseries;
+                    });
+        } catch (IOException ex) {
+            // Nothing is written while collecting the values
+            throw new UncheckedIOException(ex);
+        }
+    }
 
-        if (page != null && !page.isEmpty()) {
-            final String[] parts = CwmsDTOPaginated.decodeCursor(page);
+    /**
+     * Retrieves the same page of data as
+     * {@link #getTimeseries(String, int, String, String, String, ZonedDateTime, ZonedDateTime, ZonedDateTime, boolean)}
+     * but hands each value to the writer while the database cursor is still open, so the
+     * values are never collected in memory.
+     */
+    @Override
+    public void streamTimeseries(String page, int pageSize, String names, String office,
+                                 String units, ZonedDateTime beginTime, ZonedDateTime endTime,
+                                 ZonedDateTime versionDate, boolean shouldTrim,
+                                 TimeSeriesWriter writer) throws IOException {
+        retrieveTimeseries(page, pageSize, names, office, units, beginTime, endTime,
+                versionDate, shouldTrim, (timeseries, query) -> {
+                    writer.writeHeader(timeseries);
+                    try (Cursor<Record3<Timestamp, Double, BigDecimal>> rows =
+                                 query.fetchSize(STREAM_FETCH_SIZE).fetchLazy()) {
+                        int count = 0;
+                        for (Record3<Timestamp, Double, BigDecimal> tsRecord : rows) {
+                            if (!timeseries.trackValue(tsRecord.value1(), count)) {
+                                break;
+                            }
+                            writer.writeValue(tsRecord.value1(), tsRecord.value2(),
+                                    tsRecord.value3().intValue());
+                            count++;
+                        }
+                    }
+                    writer.writeTrailer(timeseries);
+                    return timeseries;
+                });
+    }
 
-            logger.fine("Decoded cursor");
-            logger.finest(() -> {
-                StringBuilder sb = new StringBuilder();
-                for (String p: parts) {
-                    sb.append(p).append("\n");
-                }
-                return sb.toString();
-            });
+    /**
+     * Bulk version of
+     * {@link #streamTimeseries(String, int, String, String, String, ZonedDateTime, ZonedDateTime, ZonedDateTime, boolean, TimeSeriesWriter)}.
+     * Metadata for all the names is resolved by a single query and the values are read with
+     * one UNION ALL of retrieve_ts_out_tab calls per {@link #BULK_QUERY_SIZE} series, instead
+     * of several round trips per series.
+     */
+    @Override
+    public void streamTimeseries(List<String> names, String office, String units,
+                                 ZonedDateTime beginTime, ZonedDateTime endTime,
+                                 ZonedDateTime versionDate, boolean shouldTrim,
+                                 TimeSeriesWriter writer) throws IOException {
+        List<TimeSeries> headers = retrieveBulkMetadata(names, office, units, beginTime, endTime,
+                versionDate);
 
-            if (parts.length > 1) {
-                cursor = parts[0];
-                tsCursor = Timestamp.from(Instant.ofEpochMilli(Long.parseLong(parts[0])));
+        Field<Timestamp> dateTimeCol = field("DATE_TIME", Timestamp.class).as("DATE_TIME");
+        Field<Double> valueCol = field("VALUE", Double.class).as("VALUE");
+        Field<Integer> qualityCol = field("QUALITY_CODE", Integer.class);
+        Field<BigDecimal> qualityNormCol = CWMS_TS_PACKAGE.call_NORMALIZE_QUALITY(
+                DSL.nvl(qualityCol, DSL.inline(5))).as("QUALITY_NORM");
 
-                if (parts.length > 2) {
-                    total = Integer.parseInt(parts[1]);
-                }
+        Long beginTimeMilli = beginTime.toInstant().toEpochMilli();
+        Long endTimeMilli = endTime.toInstant().toEpochMilli();
+        Long versionDateMilli = versionDate == null ? null : versionDate.toInstant().toEpochMilli();
+        String maxVersion = versionDate == null ? "T" : "F";
+        String trim = formatBool(shouldTrim);
 
-                // Use the pageSize from the original cursor, for consistent paging
-                pageSize = Integer.parseInt(parts[parts.length - 1]);   // Last item is pageSize
+        for (int start = 0; start < headers.size(); start += BULK_QUERY_SIZE) {
+            int end = Math.min(start + BULK_QUERY_SIZE, headers.size());
+            Select<Record4<Integer, Timestamp, Double, BigDecimal>> union = null;
+            for (int i = start; i < end; i++) {
+                TimeSeries header = headers.get(i);
+                Select<Record4<Integer, Timestamp, Double, BigDecimal>> one =
+                        select(DSL.inline(i).as("IDX"), dateTimeCol, valueCol, qualityNormCol)
+                        .from(DSL.sql(
+                                "table(cwms_20.cwms_ts.retrieve_ts_out_tab(?,?,"
+                                        + "cwms_20.cwms_util.to_timestamp(?), cwms_20.cwms_util.to_timestamp(?), 'UTC',"
+                                        + "?,'T','T','F','F',"
+                                        + getVersionPart(versionDate) + ",?,?) ) retrieveTs" + i,
+                                header.getName(), header.getUnits(),
+                                beginTimeMilli, endTimeMilli,
+                                trim, versionDateMilli, maxVersion, header.getOfficeId()));
+                union = union == null ? one : union.unionAll(one);
+            }
+
+            Table<Record4<Integer, Timestamp, Double, BigDecimal>> bulk = union.asTable("bulk");
+            Field<Integer> bulkIndex = bulk.field("IDX", Integer.class);
+            Field<Timestamp> bulkDateTime = bulk.field("DATE_TIME", Timestamp.class);
+            Field<Double> bulkValue = bulk.field("VALUE", Double.class);
+            Field<BigDecimal> bulkQuality = bulk.field("QUALITY_NORM", BigDecimal.class);
+            ResultQuery<Record4<Integer, Timestamp, Double, BigDecimal>> query =
+                    dsl.select(bulkIndex, bulkDateTime, bulkValue, bulkQuality)
+                            .from(bulk)
+                            .orderBy(bulkIndex, bulkDateTime);
+
+            logger.fine(() -> query.getSQL(ParamType.INLINED));
+
+            try (Cursor<Record4<Integer, Timestamp, Double, BigDecimal>> rows =
+                         query.fetchSize(STREAM_FETCH_SIZE).fetchLazy()) {
+                int current = start;
+                writer.writeHeader(headers.get(current));
+                for (Record4<Integer, Timestamp, Double, BigDecimal> tsRecord : rows) {
+                    int index = tsRecord.value1();
+                    while (current < index) {
+                        // series without values still get an (empty) entry
+                        writer.writeTrailer(headers.get(current));
+                        current++;
+                        writer.writeHeader(headers.get(current));
+                    }
+                    writer.writeValue(tsRecord.value2(), tsRecord.value3(),
+                            tsRecord.value4().intValue());
+                }
+                writer.writeTrailer(headers.get(current));
+                for (current++; current < end; current++) {
+                    writer.writeHeader(headers.get(current));
+                    writer.writeTrailer(headers.get(current));
+                }
             }
         }
+    }
 
-        final String recordCursor = cursor;
-        final int recordPageSize = pageSize;
+    /**
+     * Resolves the id, office, units, interval, vertical datum, interval offset and, without a
+     * version date, whether each series is versioned, for every name with one query.
+     *
+     * @return unpaged TimeSeries headers, in the same order as names.
+     * @throws NotFoundException if any of the names doesn't exist
+     */
+    private List<TimeSeries> retrieveBulkMetadata(List<String> names, String office,
+                                                  String units, ZonedDateTime beginTime,
+                                                  ZonedDateTime endTime,
+                                                  ZonedDateTime versionDate) {
+        @SuppressWarnings("unchecked")
+        Row2<Integer, String>[] rows = new Row2[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            rows[i] = DSL.row(i, names.get(i));
+        }
+        Table<Record2<Integer, String>> requested = DSL.values(rows).as("requested", "idx", "name");
+        Field<Integer> requestedIndex = requested.field("idx", Integer.class);
+        Field<String> requestedName = requested.field("name", String.class);
+
+        final Field<String> officeId = CWMS_UTIL_PACKAGE.call_GET_DB_OFFICE_ID(
+                office != null ? DSL.val(office) : CWMS_UTIL_PACKAGE.call_USER_OFFICE_ID());
+        final Field<String> tsId = CWMS_TS_PACKAGE.call_GET_TS_ID__2(requestedName, officeId);
+        final Field<BigDecimal> tsCode = CWMS_TS_PACKAGE.call_GET_TS_CODE__2(requestedName, officeId);
+
+        CommonTableExpression<Record4<Integer, BigDecimal, String, String>> validTs =
+                name("validts").fields("idx", "tscode", "tsid", "office_id")
+                        .as(select(requestedIndex, tsCode, tsId, officeId).from(requested));
+        Field<String> validTsId = validTs.field("tsid", String.class);
+        Field<BigDecimal> validTsCode = validTs.field("tscode", BigDecimal.class);
+        Field<String> validOffice = validTs.field("office_id", String.class);
+
+        Field<String> loc = CWMS_UTIL_PACKAGE.call_SPLIT_TEXT(validTsId,
+                DSL.val(BigInteger.valueOf(1L)), DSL.val("."), DSL.val(BigInteger.valueOf(6L)));
+        Field<String> param = DSL.upper(CWMS_UTIL_PACKAGE.call_SPLIT_TEXT(validTsId,
+                DSL.val(BigInteger.valueOf(2L)), DSL.val("."), DSL.val(BigInteger.valueOf(6L))));
+        Field<String> unit = units.compareToIgnoreCase("SI") == 0
+                || units.compareToIgnoreCase("EN") == 0
+                ? CWMS_UTIL_PACKAGE.call_GET_DEFAULT_UNITS(
+                        CWMS_TS_PACKAGE.call_GET_BASE_PARAMETER_ID(validTsCode),
+                        DSL.val(units, String.class))
+                : DSL.val(units, String.class);
+        Field<String> unitCol = unit.as("units");
+        Field<BigDecimal> ivalCol = CWMS_TS_PACKAGE.call_GET_TS_INTERVAL__2(validTsId).as("interval");
+        Field<String> verticalDatumCol = DSL.choose(param)
+                .when("ELEV", CWMS_LOC_PACKAGE.call_GET_VERTICAL_DATUM_INFO_F__2(loc, unit, validOffice))
+                .otherwise("")
+                .as("VERTICAL_DATUM");
+        // Only needed without a version date, see getVersionType.
+        Field<String> versionedCol = (versionDate == null
+                ? CWMS_TS_PACKAGE.call_IS_TSID_VERSIONED(validTsId, validOffice)
+                : DSL.inline((String) null)).as("VERSIONED");
+
+        SelectSeekStep1<?, Integer> metadataQuery = dsl.with(validTs)
+                .select(validTs.field("idx", Integer.class),
+                        validTsId,
+                        validOffice,
+                        unitCol,
+                        ivalCol,
+                        verticalDatumCol,
+                        versionedCol,
+                        AV_CWMS_TS_ID2.INTERVAL_UTC_OFFSET,
+                        AV_CWMS_TS_ID2.TIME_ZONE_ID)
+                .from(validTs)
+                .leftOuterJoin(AV_CWMS_TS_ID2)
+                .on(AV_CWMS_TS_ID2.DB_OFFICE_ID.eq(validOffice)
+                        .and(AV_CWMS_TS_ID2.TS_CODE.eq(validTsCode))
+                        .and(AV_CWMS_TS_ID2.ALIASED_ITEM.isNull()))
+                .orderBy(validTs.field("idx", Integer.class));
+
+        logger.fine(() -> metadataQuery.getSQL(ParamType.INLINED));
+
+        Result<? extends Record> metadata;
+        try {
+            metadata = metadataQuery.fetch();
+        } catch (DataAccessException e) {
+            // get_ts_code raises for an unknown name
+            throw wrapException(e);
+        }
+        return metadata.map(tsMetadata -> {
+            String name = tsMetadata.get(validTsId);
+            String tsOffice = tsMetadata.get(validOffice);
+            BigDecimal interval = tsMetadata.get(ivalCol);
+            BigDecimal intervalOffset = tsMetadata.get(AV_CWMS_TS_ID2.INTERVAL_UTC_OFFSET);
+            VersionType versionType = VersionType.SINGLE_VERSION;
+            if (versionDate == null) {
+                boolean versioned = parseBool(tsMetadata.get(versionedCol));
+                isVersionedCache.put(Arrays.asList(tsOffice, name), versioned);
+                versionType = versioned ? VersionType.MAX_AGGREGATE : VersionType.UNVERSIONED;
+            }
+            return new TimeSeries(null, -1, null, name, tsOffice, beginTime, endTime,
+                    tsMetadata.get(unitCol),
+                    Duration.ofMinutes(interval == null ? 0 : interval.longValue()),
+                    parseVerticalDatumInfo(tsMetadata.get(verticalDatumCol)),
+                    intervalOffset == null ? null : intervalOffset.longValue(),
+                    tsMetadata.get(AV_CWMS_TS_ID2.TIME_ZONE_ID),
+                    versionDate, versionType);
+        });
+    }
+
+    /**
+     * Resolves the header of a time series.  It only changes when the time series or its
+     * location is changed, which invalidates it, so the PL/SQL lookups are skipped for cached
+     * series.
+     *
+     * @throws NotFoundException if there is no such time series
+     */
+    private TsMetadata getTsMetadata(String names, @Nullable String office, String units) {
+        List<String> metadataKey = Arrays.asList(office, names, units);
+        TsMetadata metadata = metadataCache.getIfPresent(metadataKey);
+        if (metadata != null) {
+            return metadata;
+        }
 
         // Call some stored_procs to validate the user input and get the ts_code and tsid for the provided name.
         final Field<String> officeId = CWMS_UTIL_PACKAGE.call_GET_DB_OFFICE_ID(
@@ -253,73 +675,10 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                                 ).from(validTs)
                         );
 
-        // Give the TVQ (time, value, quality) columns names
-        Field<Timestamp> dateTimeCol = field("DATE_TIME", Timestamp.class).as("DATE_TIME");
-        Field<Double> valueCol = field("VALUE", Double.class).as("VALUE");
-        Field<Integer> qualityCol = field("QUALITY_CODE", Integer.class).as("QUALITY_CODE");
-
-        Field<BigDecimal> qualityNormCol = CWMS_TS_PACKAGE.call_NORMALIZE_QUALITY(
-                DSL.nvl(qualityCol, DSL.inline(5))).as("QUALITY_NORM");
-
-        Long beginTimeMilli = beginTime.toInstant().toEpochMilli();
-        Long endTimeMilli = endTime.toInstant().toEpochMilli();
-        String trim = formatBool(shouldTrim);
-        String startInclusive = "T";
-        String endInclusive = "T";
-        String previous = "F";
-        String next = "F";
-        Long versionDateMilli = null;
-        String maxVersion = "F";
-
-        if (versionDate != null) {
-            versionDateMilli = versionDate.toInstant().toEpochMilli();
-        } else {
-            maxVersion = "T";
-        }
-
-        // Now we're going to call the retrieve_ts_out_tab function to get the data and build an
-        // internal table from it so we can manipulate it further
-        // This code assumes the database timezone is in UTC (per Oracle recommendation)
-        SQL retrieveSelectData = DSL.sql(
-                "table(cwms_20.cwms_ts.retrieve_ts_out_tab(?,?,"
-                        + "cwms_20.cwms_util.to_timestamp(?), cwms_20.cwms_util.to_timestamp(?), 'UTC',"
-                        + "?,?,?,?,?,"
-                        + getVersionPart(versionDate) + ",?,?) ) retrieveTs",
-                tsId, unit,
-                beginTimeMilli, endTimeMilli,  //tz hardcoded
-                trim, startInclusive, endInclusive, previous, next,
-                versionDateMilli, maxVersion, officeId);
-
-        Field<String> tzName = AV_CWMS_TS_ID2.TIME_ZONE_ID;
-
-        Field<Integer> totalField;
-        if (total != null) {
-            totalField = DSL.val(total).as("TOTAL");
-        } else {
-            // If we don't know the total, fetch it from the database (only for first fetch).
-            // Total is only an estimate, as it can change if fetching current data,
-            // or the timeseries otherwise changes between queries.
-
-            SelectJoinStep<Record3<Timestamp, Double, Integer>> retrieveSelectCount = select(
-                    dateTimeCol, valueCol, qualityCol
-            ).from(DSL.sql(
-                    "table(cwms_20.cwms_ts.retrieve_ts_out_tab(?,?,"
-                            + "cwms_20.cwms_util.to_timestamp(?),cwms_20.cwms_util.to_timestamp(?),"
-                            + "'UTC',?,?,?,?,?," + getVersionPart(versionDate) + ",?,?) ) retrieveTsTotal",
-                    valid.field("tsid", String.class),
-                    valid.field("units", String.class),
-                    beginTimeMilli,
-                    endTimeMilli,
-                    trim, startInclusive, endInclusive, previous, next, versionDateMilli, maxVersion,
-                    valid.field("office_id", String.class)
-            ));
-
-            totalField = DSL.selectCount().from(DSL.table(retrieveSelectCount)).asField("TOTAL");
-        }
-
         SelectJoinStep<?> metadataQuery =
                 dsl.with(valid)
                         .select(
+                                valid.field("tscode", BigDecimal.class).as("ts_code"),
                                 valid.field("tsid", String.class).as("NAME"),
                                 valid.field("office_id", String.class).as("office_id"),
                                 valid.field("units", String.class).as("units"),
@@ -335,7 +694,6 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                                                         valid.field("office_id", String.class)))
                                         .otherwise("")
                                         .as("VERTICAL_DATUM"),
-                                totalField,
                                 AV_CWMS_TS_ID2.INTERVAL_UTC_OFFSET,
                                 AV_CWMS_TS_ID2.TIME_ZONE_ID
                         )
@@ -351,23 +709,139 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 
         logger.fine(() -> metadataQuery.getSQL(ParamType.INLINED));
 
-        VersionType finalDateVersionType = getVersionType(dsl, names, office, versionDate != null);
-        TimeSeries timeseries = metadataQuery.fetchOne(tsMetadata -> {
+        metadata = metadataQuery.fetchOne(tsMetadata -> {
             String vert = (String) tsMetadata.getValue("VERTICAL_DATUM");
-            VerticalDatumInfo verticalDatumInfo = parseVerticalDatumInfo(vert);
-
-            return new TimeSeries(recordCursor, recordPageSize, tsMetadata.getValue("TOTAL",
-                    Integer.class), tsMetadata.getValue("NAME", String.class),
+            BigDecimal intervalOffset = tsMetadata.getValue(AV_CWMS_TS_ID2.INTERVAL_UTC_OFFSET);
+            return new TsMetadata(tsMetadata.getValue("ts_code", Long.class),
+                    tsMetadata.getValue("NAME", String.class),
                     tsMetadata.getValue("office_id", String.class),
-                    beginTime, endTime, tsMetadata.getValue("units", String.class),
-                    Duration.ofMinutes(tsMetadata.get("interval") == null ? 0 :
-                            tsMetadata.getValue("interval", Long.class)),
-                    verticalDatumInfo,
-                    tsMetadata.getValue(AV_CWMS_TS_ID2.INTERVAL_UTC_OFFSET).longValue(),
-                    tsMetadata.getValue(tzName),
-                    versionDate, finalDateVersionType
-            );
+                    tsMetadata.getValue("units", String.class),
+                    tsMetadata.get("interval") == null ? 0 :
+                            tsMetadata.getValue("interval", Long.class),
+                    vert,
+                    intervalOffset == null ? null : intervalOffset.longValue(),
+                    tsMetadata.getValue(AV_CWMS_TS_ID2.TIME_ZONE_ID));
         });
+        if (metadata == null) {
+            throw new NotFoundException("Unable to find time series " + names);
+        }
+        metadataCache.put(metadataKey, metadata);
+        return metadata;
+    }
+
+    @FunctionalInterface
+    private interface ValueQueryHandler {
+        TimeSeries handle(TimeSeries timeseries,
+                          SelectConditionStep<Record3<Timestamp, Double, BigDecimal>> query)
+                throws IOException;
+    }
+
+    private TimeSeries retrieveTimeseries(String page, int pageSize, String names, String office,
+                                          String units,
+                                          ZonedDateTime beginTime, ZonedDateTime endTime,
+                                          ZonedDateTime versionDate, boolean shouldTrim,
+                                          ValueQueryHandler handler) throws IOException {
+        TimeSeries retVal = null;
+        String cursor = null;
+        Timestamp tsCursor = null;
+        Integer total = null;
+
+        if (page != null && !page.isEmpty()) {
+            final String[] parts = CwmsDTOPaginated.decodeCursor(page);
+
+            logger.fine("Decoded cursor");
+            logger.finest(() -> {
+                StringBuilder sb = new StringBuilder();
+                for (String p: parts) {
+                    sb.append(p).append("\n");
+                }
+                return sb.toString();
+            });
+
+            if (parts.length > 1) {
+                cursor = parts[0];
+                tsCursor = Timestamp.from(Instant.ofEpochMilli(Long.parseLong(parts[0])));
+
+                if (parts.length > 2) {
+                    total = Integer.parseInt(parts[1]);
+                }
+
+                // Use the pageSize from the original cursor, for consistent paging
+                pageSize = Integer.parseInt(parts[parts.length - 1]);   // Last item is pageSize
+            }
+        }
+
+        final String recordCursor = cursor;
+        final int recordPageSize = pageSize;
+
+        // Give the TVQ (time, value, quality) columns names
+        Field<Timestamp> dateTimeCol = field("DATE_TIME", Timestamp.class).as("DATE_TIME");
+        Field<Double> valueCol = field("VALUE", Double.class).as("VALUE");
+        Field<Integer> qualityCol = field("QUALITY_CODE", Integer.class).as("QUALITY_CODE");
+
+        Field<BigDecimal> qualityNormCol = CWMS_TS_PACKAGE.call_NORMALIZE_QUALITY(
+                DSL.nvl(qualityCol, DSL.inline(5))).as("QUALITY_NORM");
+
+        Long beginTimeMilli = beginTime.toInstant().toEpochMilli();
+        Long endTimeMilli = endTime.toInstant().toEpochMilli();
+        String trim = formatBool(shouldTrim);
+        String startInclusive = "T";
+        String endInclusive = "T";
+        String previous = "F";
+        String next = "F";
+        Long versionDateMilli = null;
+        String maxVersion = "F";
+
+        if (versionDate != null) {
+            versionDateMilli = versionDate.toInstant().toEpochMilli();
+        } else {
+            maxVersion = "T";
+        }
+
+        TsMetadata metadata = getTsMetadata(names, office, units);
+
+        // From here on, use the resolved values instead of the PL/SQL calls
+        final Field<String> resolvedTsId = DSL.val(metadata.tsId);
+        final Field<String> resolvedUnit = DSL.val(metadata.units);
+        final Field<String> resolvedOffice = DSL.val(metadata.officeId);
+
+        // The total is only an estimate anyway, so it is read once per window and kept for
+        // the following requests.  It is never used to bound the values that are returned.
+        if (total == null) {
+            List<Object> windowKey = Arrays.asList(office, names, units, beginTimeMilli,
+                    endTimeMilli, versionDateMilli, trim);
+            total = pageWindowCache.getIfPresent(windowKey);
+            if (total == null) {
+                total = retrievePageTotal(resolvedTsId, resolvedUnit, resolvedOffice,
+                        beginTimeMilli, endTimeMilli,
+                        trim, versionDate, versionDateMilli, maxVersion);
+                pageWindowCache.put(windowKey, total);
+            }
+        }
+
+        // Start later pages at the cursor rather than reading from the beginning of the window
+        // and filtering.  The end of the window stays the requested one, so values written
+        // since the first page are still returned.
+        Long retrieveBeginMilli = tsCursor == null ? beginTimeMilli : tsCursor.getTime();
+
+        // Now we're going to call the retrieve_ts_out_tab function to get the data and build an
+        // internal table from it so we can manipulate it further
+        // This code assumes the database timezone is in UTC (per Oracle recommendation)
+        SQL retrieveSelectData = DSL.sql(
+                "table(cwms_20.cwms_ts.retrieve_ts_out_tab(?,?,"
+                        + "cwms_20.cwms_util.to_timestamp(?), cwms_20.cwms_util.to_timestamp(?), 'UTC',"
+                        + "?,?,?,?,?,"
+                        + getVersionPart(versionDate) + ",?,?) ) retrieveTs",
+                resolvedTsId, resolvedUnit,
+                retrieveBeginMilli, endTimeMilli,  //tz hardcoded
+                trim, startInclusive, endInclusive, previous, next,
+                versionDateMilli, maxVersion, resolvedOffice);
+
+        VersionType finalDateVersionType = getVersionType(dsl, names, office, versionDate != null);
+        TimeSeries timeseries = new TimeSeries(recordCursor, recordPageSize, total,
+                metadata.tsId, metadata.officeId, beginTime, endTime, metadata.units,
+                Duration.ofMinutes(metadata.intervalMinutes), metadata.verticalDatumInfo,
+                metadata.intervalOffset, metadata.timeZone, versionDate, finalDateVersionType);
 
         if (pageSize != 0) {
             SelectConditionStep<Record3<Timestamp, Double, BigDecimal>> query =
@@ -393,19 +867,59 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 
             logger.fine(() -> query.getSQL(ParamType.INLINED));
 
-            query.forEach(tsRecord -> timeseries.addValue(
-                            tsRecord.getValue(dateTimeCol),
-                            tsRecord.getValue(valueCol),
-                            tsRecord.getValue(qualityNormCol).intValue()
-                    )
-            );
-
-            retVal = timeseries;
+            retVal = handler.handle(timeseries, query);
         }
 
         return retVal;
     }
 
+    /**
+     * Counts the values in the window.  Total is only an estimate, as it can change if fetching
+     * current data, or the timeseries otherwise changes between queries.
+     */
+    private Integer retrievePageTotal(Field<String> tsId, Field<String> unit,
+                                      Field<String> officeId, Long beginTimeMilli,
+                                      Long endTimeMilli, String trim,
+                                      ZonedDateTime versionDate, Long versionDateMilli,
+                                      String maxVersion) {
+        return dsl.select(DSL.count())
+                .from(DSL.sql(
+                        "table(cwms_20.cwms_ts.retrieve_ts_out_tab(?,?,"
+                                + "cwms_20.cwms_util.to_timestamp(?),cwms_20.cwms_util.to_timestamp(?),"
+                                + "'UTC',?,'T','T','F','F'," + getVersionPart(versionDate) + ",?,?) ) retrieveTsTotal",
+                        tsId, unit, beginTimeMilli, endTimeMilli, trim, versionDateMilli, maxVersion,
+                        officeId))
+                .fetchOne(0, Integer.class);
+    }
+
+    /** Everything about a time series that retrieval needs besides its values. */
+    private static final class TsMetadata {
+        private final long tsCode;
+        private final String tsId;
+        private final String officeId;
+        private final String units;
+        private final long intervalMinutes;
+        /** As the database describes it, for change markers. */
+        private final String verticalDatum;
+        private final VerticalDatumInfo verticalDatumInfo;
+        private final Long intervalOffset;
+        private final String timeZone;
+
+        private TsMetadata(long tsCode, String tsId, String officeId, String units,
+                           long intervalMinutes, String verticalDatum, Long intervalOffset,
+                           String timeZone) {
+            this.tsCode = tsCode;
+            this.tsId = tsId;
+            this.officeId = officeId;
+            this.units = units;
+            this.intervalMinutes = intervalMinutes;
+            this.verticalDatum = verticalDatum;
+            this.verticalDatumInfo = parseVerticalDatumInfo(verticalDatum);
+            this.intervalOffset = intervalOffset;
+            this.timeZone = timeZone;
+        }
+    }
+
     private static String getVersionPart(ZonedDateTime versionDate) {
         if (versionDate != null) {
             return "cwms_20.cwms_util.to_timestamp(?)";
@@ -477,11 +991,15 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 
     @Override
     public Catalog getTimeSeriesCatalog(String page, int pageSize, CatalogRequestParameters inputParams) {
-        int total;
+        int total = 0;
         String cursorTsId = "*";
         String cursorOffice = null;
         Catalog.CatalogPage catPage = null;
         if (page == null || page.isEmpty()) {
+            Catalog indexed = getTimeSeriesCatalogFromIndex(null, pageSize, inputParams, null, null);
+            if (indexed != null) {
+                return indexed;
+            }
             CommonTableExpression<?> limiter = buildWithClause(inputParams, buildWhereConditions(inputParams), new ArrayList<>(), pageSize, true);
             SelectJoinStep<Record1<Integer>> totalQuery = dsl.with(limiter)
                     .select(countDistinct(limiter.field(AV_CWMS_TS_ID.AV_CWMS_TS_ID.TS_CODE)))
@@ -497,17 +1015,12 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
             cursorTsId = catPage.getCursorId();  // cursor cwms_id
             cursorOffice = catPage.getCurOffice();  // cursor office
 
-            inputParams = CatalogRequestParameters.Builder.from(inputParams)
-                    .withOffice(catPage.getSearchOffice())
-                    .withIdLike(catPage.getIdLike())
-                    .withLocCatLike(catPage.getLocCategoryLike())
-                    .withLocGroupLike(catPage.getLocGroupLike())
-                    .withTsCatLike(catPage.getTsCategoryLike())
-                    .withTsGroupLike(catPage.getTsGroupLike())
-                    .withBoundingOfficeLike(catPage.getBoundingOfficeLike())
-                    .withIncludeExtents(catPage.isIncludeExtents())
-                    .withExcludeEmpty(catPage.isExcludeEmpty())
-                    .build();
+            inputParams = pageParameters(inputParams, catPage);
+            Catalog indexed = getTimeSeriesCatalogFromIndex(catPage, pageSize, inputParams,
+                    cursorOffice, cursorTsId);
+            if (indexed != null) {
+                return indexed;
+            }
         }
         final CatalogRequestParameters params = inputParams;
 
@@ -532,7 +1045,7 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                                          .eq(AV_TS_EXTENTS_UTC.TS_CODE.coerce(limiterCode)));
         }
         final SelectSeekStep2<?, String, String> overallQuery = tmpQuery.orderBy(AV_CWMS_TS_ID.AV_CWMS_TS_ID.DB_OFFICE_ID, AV_CWMS_TS_ID.AV_CWMS_TS_ID.CWMS_TS_ID);
-        logger.info(() -> overallQuery.getSQL(ParamType.INLINED));
+        logger.fine(() -> overallQuery.getSQL(ParamType.INLINED));
         Result<?> result = overallQuery.fetch();
 
         Map<String, TimeseriesCatalogEntry.Builder> tsIdExtentMap = new LinkedHashMap<>();
@@ -575,6 +1088,261 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                 total, pageSize, entries, params);
     }
 
+    private static CatalogRequestParameters pageParameters(CatalogRequestParameters inputParams,
+                                                           Catalog.CatalogPage catPage) {
+        return CatalogRequestParameters.Builder.from(inputParams)
+                .withOffice(catPage.getSearchOffice())
+                .withIdLike(catPage.getIdLike())
+                .withLocCatLike(catPage.getLocCategoryLike())
+                .withLocGroupLike(catPage.getLocGroupLike())
+                .withTsCatLike(catPage.getTsCategoryLike())
+                .withTsGroupLike(catPage.getTsGroupLike())
+                .withBoundingOfficeLike(catPage.getBoundingOfficeLike())
+                .withIncludeExtents(catPage.isIncludeExtents())
+                .withExcludeEmpty(catPage.isExcludeEmpty())
+                .build();
+    }
+
+    /**
+     * The marker is the version of the office's catalog index, plus the extents of the page when
+     * they are included, so it is only available for searches the index answers.
+     */
+    @Override
+    @Nullable
+    public ChangeMarker getTimeSeriesCatalogMarker(String page, int pageSize,
+                                                   CatalogRequestParameters inputParams) {
+        CatalogRequestParameters params = inputParams;
+        String cursorOffice = null;
+        String cursorTsId = null;
+        if (page != null && !page.isEmpty()) {
+            Catalog.CatalogPage catPage = new Catalog.CatalogPage(page);
+            pageSize = catPage.getPageSize();
+            cursorTsId = catPage.getCursorId();
+            cursorOffice = catPage.getCurOffice();
+            params = pageParameters(inputParams, catPage);
+        }
+        TimeSeriesCatalogIndex.Query query = catalogIndexQuery(params, cursorOffice);
+        if (query == null) {
+            return null;
+        }
+        String office = params.getOffice().toUpperCase();
+        TimeSeriesCatalogIndex index = getCatalogIndex(office);
+        String value = office + ":" + index.getVersion();
+        if (!params.isIncludeExtents()) {
+            return new ChangeMarker(value, null);
+        }
+        List<Long> tsCodes = index.query(query, cursorOffice == null ? null : cursorTsId, pageSize)
+                .getPage().stream()
+                .map(TimeSeriesCatalogIndex.Entry::getTsCode)
+                .collect(Collectors.toList());
+        if (tsCodes.isEmpty()) {
+            return new ChangeMarker(value, null);
+        }
+        return extentsMarker(value, AV_TS_EXTENTS_UTC.TS_CODE.coerce(Long.class).in(tsCodes));
+    }
+
+    /**
+     * The marker is made of the last update of the series' values, read by ts code, and of the
+     * metadata a response shows: the id, units, interval offset, time zone and, for elevations,
+     * the location's vertical datum information.  The metadata comes from metadataCache, so a
+     * poll costs one indexed query.
+     */
+    @Override
+    @Nullable
+    public ChangeMarker getTimeSeriesMarker(String tsId, @Nullable String office, String units) {
+        TsMetadata metadata = getTsMetadata(tsId, office, units);
+        Timestamp lastUpdate = dsl.select(max(AV_TS_EXTENTS_UTC.LAST_UPDATE))
+                .from(AV_TS_EXTENTS_UTC)
+                .where(AV_TS_EXTENTS_UTC.TS_CODE.coerce(Long.class).eq(metadata.tsCode))
+                .fetchOne(0, Timestamp.class);
+        if (lastUpdate == null) {
+            return null;
+        }
+        return new ChangeMarker(Arrays.asList(metadata.officeId, metadata.tsId, metadata.units,
+                metadata.intervalOffset, metadata.timeZone, metadata.verticalDatum,
+                lastUpdate.getTime()).toString(), lastUpdate.toInstant());
+    }
+
+    /**
+     * @return a marker of the extents selected by the condition, or null if there are none
+     */
+    @Nullable
+    private ChangeMarker extentsMarker(String prefix, Condition condition) {
+        Record4<Integer, Timestamp, Timestamp, Timestamp> row = dsl.select(count(),
+                        max(AV_TS_EXTENTS_UTC.LAST_UPDATE), min(AV_TS_EXTENTS_UTC.EARLIEST_TIME),
+                        max(AV_TS_EXTENTS_UTC.LATEST_TIME))
+                .from(AV_TS_EXTENTS_UTC)
+                .where(condition)
+                .fetchOne();
+        if (row == null || row.value1() == 0) {
+            return null;
+        }
+        Timestamp lastUpdate = row.value2();
+        return new ChangeMarker(prefix + ":" + row.value1() + ":" + lastUpdate + ":"
+                + row.value3() + ":" + row.value4(),
+                lastUpdate == null ? null : lastUpdate.toInstant());
+    }
+
+    /**
+     * @return the index query for a catalog search, or null if the search has to go to the
+     *     database
+     */
+    @Nullable
+    private static TimeSeriesCatalogIndex.Query catalogIndexQuery(CatalogRequestParameters params,
+                                                                  @Nullable String cursorOffice) {
+        if (!CATALOG_INDEX_ENABLED || params.getOffice() == null || params.needs(AV_LOC.AV_LOC)) {
+            return null;
+        }
+        if (cursorOffice != null && !cursorOffice.equalsIgnoreCase(params.getOffice())) {
+            return null;
+        }
+        return TimeSeriesCatalogIndex.Query.of(params.getIdLike(),
+                params.getTsCatLike(), params.getTsGroupLike(), params.getLocCatLike(),
+                params.getLocGroupLike(), params.isExcludeEmpty());
+    }
+
+    /**
+     * Answers a catalog search within one office from the office's catalog index, fetching only
+     * the extents of the returned page.
+     * @return the catalog, or null if the search has to go to the database
+     */
+    @Nullable
+    private Catalog getTimeSeriesCatalogFromIndex(@Nullable Catalog.CatalogPage catPage, int pageSize,
+                                                  CatalogRequestParameters params,
+                                                  @Nullable String cursorOffice,
+                                                  @Nullable String cursorTsId) {
+        TimeSeriesCatalogIndex.Query query = catalogIndexQuery(params, cursorOffice);
+        if (query == null) {
+            return null;
+        }
+        String office = params.getOffice().toUpperCase();
+
+        TimeSeriesCatalogIndex.Result result = getCatalogIndex(office)
+                .query(query, cursorOffice == null ? null : cursorTsId, pageSize);
+        Map<Long, List<TimeSeriesExtents>> extents = params.isIncludeExtents()
+                ? getCatalogExtents(result.getPage()) : Collections.emptyMap();
+        List<TimeseriesCatalogEntry> entries = new ArrayList<>();
+        for (TimeSeriesCatalogIndex.Entry entry : result.getPage()) {
+            TimeseriesCatalogEntry.Builder builder = new TimeseriesCatalogEntry.Builder()
+                    .officeId(entry.getOfficeId())
+                    .cwmsTsId(entry.getTsId())
+                    .units(entry.getUnits())
+                    .interval(entry.getInterval())
+                    .intervalOffset(entry.getIntervalOffset())
+                    .timeZone(entry.getTimeZoneId());
+            if (params.isIncludeExtents()) {
+                // Like the outer join of the database search, a series without extents gets
+                // one empty extent.
+                builder.withExtents(new ArrayList<>(extents.getOrDefault(entry.getTsCode(),
+                        Collections.singletonList(new TimeSeriesExtents((Timestamp) null, null, null, null)))));
+            }
+            entries.add(builder.build());
+        }
+        return new Catalog(catPage != null ? catPage.toString() : null,
+                catPage != null ? catPage.getTotal() : result.getTotal(), pageSize, entries, params);
+    }
+
+    private TimeSeriesCatalogIndex getCatalogIndex(String office) {
+        TimeSeriesCatalogIndex index = catalogIndexCache.getIfPresent(office);
+        if (index == null) {
+            index = new TimeSeriesCatalogIndex(getCatalogIndexEntries(office, null),
+                    getCatalogIndexTsAssignments(office, null),
+                    getCatalogIndexLocAssignments(office, null));
+            catalogIndexCache.put(office, index);
+            logger.fine(office + " catalog index loaded");
+            return index;
+        }
+        Set<String> pending = index.takePending();
+        if (!pending.isEmpty()) {
+            try {
+                index.refresh(pending, getCatalogIndexEntries(office, pending),
+                        getCatalogIndexTsAssignments(office, pending),
+                        getCatalogIndexLocAssignments(office, pending));
+            } catch (RuntimeException e) {
+                catalogIndexCache.invalidate(office);
+                throw e;
+            }
+        }
+        return index;
+    }
+
+    private static Condition catalogIndexCondition(String office, @Nullable Collection<String> upperIds) {
+        Condition retVal = cwmsTsIdView.DB_OFFICE_ID.eq(office);
+        if (upperIds != null) {
+            retVal = retVal.and(DSL.upper(cwmsTsIdView.CWMS_TS_ID).in(upperIds));
+        }
+        return retVal;
+    }
+
+    private List<TimeSeriesCatalogIndex.Entry> getCatalogIndexEntries(String office,
+                                                                      @Nullable Collection<String> upperIds) {
+        Field<Boolean> hasData = DSL.field(DSL.exists(DSL.selectOne()
+                .from(AV_TS_EXTENTS_UTC)
+                .where(AV_TS_EXTENTS_UTC.TS_CODE.coerce(cwmsTsIdView.TS_CODE).eq(cwmsTsIdView.TS_CODE))
+                .and(DSL.or(AV_TS_EXTENTS_UTC.VERSION_TIME.isNotNull(),
+                        AV_TS_EXTENTS_UTC.EARLIEST_TIME.isNotNull(),
+                        AV_TS_EXTENTS_UTC.LATEST_TIME.isNotNull(),
+                        AV_TS_EXTENTS_UTC.LAST_UPDATE.isNotNull()))));
+        return dsl.select(cwmsTsIdView.TS_CODE, cwmsTsIdView.DB_OFFICE_ID, cwmsTsIdView.CWMS_TS_ID,
+                        cwmsTsIdView.UNIT_ID, cwmsTsIdView.INTERVAL_ID, cwmsTsIdView.INTERVAL_UTC_OFFSET,
+                        cwmsTsIdView.TIME_ZONE_ID, cwmsTsIdView.LOCATION_CODE, hasData)
+                .from(cwmsTsIdView)
+                .where(catalogIndexCondition(office, upperIds))
+                .fetch(r -> new TimeSeriesCatalogIndex.Entry(
+                        r.get(cwmsTsIdView.TS_CODE, Long.class),
+                        r.get(cwmsTsIdView.DB_OFFICE_ID),
+                        r.get(cwmsTsIdView.CWMS_TS_ID),
+                        r.get(cwmsTsIdView.UNIT_ID),
+                        r.get(cwmsTsIdView.INTERVAL_ID),
+                        r.get(cwmsTsIdView.INTERVAL_UTC_OFFSET, Long.class),
+                        r.get(cwmsTsIdView.TIME_ZONE_ID),
+                        r.get(cwmsTsIdView.LOCATION_CODE, Long.class),
+                        Boolean.TRUE.equals(r.get(hasData))));
+    }
+
+    private List<TimeSeriesCatalogIndex.Assignment> getCatalogIndexTsAssignments(
+            String office, @Nullable Collection<String> upperIds) {
+        return dsl.select(tsGroupView.TS_CODE, tsCategoryField, tsGroupField)
+                .from(tsGroupView)
+                .where(tsGroupView.TS_CODE.in(select(cwmsTsIdView.TS_CODE)
+                        .from(cwmsTsIdView)
+                        .where(catalogIndexCondition(office, upperIds))))
+                .fetch(r -> new TimeSeriesCatalogIndex.Assignment(r.get(tsGroupView.TS_CODE, Long.class),
+                        r.get(tsCategoryField), r.get(tsGroupField)));
+    }
+
+    private List<TimeSeriesCatalogIndex.Assignment> getCatalogIndexLocAssignments(
+            String office, @Nullable Collection<String> upperIds) {
+        return dsl.select(locGroupView.LOCATION_CODE, locCategoryField, locGroupField)
+                .from(locGroupView)
+                .where(locGroupView.LOCATION_CODE.in(select(cwmsTsIdView.LOCATION_CODE)
+                        .from(cwmsTsIdView)
+                        .where(catalogIndexCondition(office, upperIds))))
+                .fetch(r -> new TimeSeriesCatalogIndex.Assignment(r.get(locGroupView.LOCATION_CODE, Long.class),
+                        r.get(locCategoryField), r.get(locGroupField)));
+    }
+
+    private Map<Long, List<TimeSeriesExtents>> getCatalogExtents(List<TimeSeriesCatalogIndex.Entry> page) {
+        Map<Long, List<TimeSeriesExtents>> retVal = new HashMap<>();
+        if (page.isEmpty()) {
+            return retVal;
+        }
+        List<Long> tsCodes = page.stream()
+                .map(TimeSeriesCatalogIndex.Entry::getTsCode)
+                .collect(Collectors.toList());
+        dsl.select(AV_TS_EXTENTS_UTC.TS_CODE, AV_TS_EXTENTS_UTC.VERSION_TIME,
+                        AV_TS_EXTENTS_UTC.EARLIEST_TIME, AV_TS_EXTENTS_UTC.LATEST_TIME,
+                        AV_TS_EXTENTS_UTC.LAST_UPDATE)
+                .from(AV_TS_EXTENTS_UTC)
+                .where(AV_TS_EXTENTS_UTC.TS_CODE.coerce(Long.class).in(tsCodes))
+                .fetch()
+                .forEach(r -> retVal.computeIfAbsent(r.get(AV_TS_EXTENTS_UTC.TS_CODE, Long.class),
+                        k -> new ArrayList<>()).add(new TimeSeriesExtents(r.get(AV_TS_EXTENTS_UTC.VERSION_TIME),
+                        r.get(AV_TS_EXTENTS_UTC.EARLIEST_TIME), r.get(AV_TS_EXTENTS_UTC.LATEST_TIME),
+                        r.get(AV_TS_EXTENTS_UTC.LAST_UPDATE))));
+        return retVal;
+    }
+
     private static @NotNull List<Condition> buildPagingConditions(String cursorOffice, String cursorTsId) {
         List<Condition> pagingConditions = new ArrayList<>();
 
@@ -874,88 +1642,222 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
     }
 
 
+    /**
+     * Latest values of the given time series.  Values are answered from memory where possible,
+     * only the time series without a cached value are queried.  The values of every office
+     * are returned; the office only keeps the cached entries of different requests apart.
+     */
     @Override
-    public List<RecentValue> findMostRecentsInRange(List<String> tsIds, Timestamp pastdate,
-                                                    Timestamp futuredate, UnitSystem unitSystem) {
+    public List<RecentValue> findMostRecentsInRange(@Nullable String office, List<String> tsIds,
+                                                    Timestamp pastdate, Timestamp futuredate,
+                                                    UnitSystem unitSystem) {
         List<RecentValue> retval = Collections.emptyList();
 
         if (tsIds != null && !tsIds.isEmpty()) {
-            String tsFieldName = "TSVIEW_CWMS_TS_ID";
-            Field<String> tsField = AV_CWMS_TS_ID2.CWMS_TS_ID.as(tsFieldName);
-
-            Field<Timestamp> maxDateField = max(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME)
-                    .over(partitionBy(AV_TSV_DQU.AV_TSV_DQU.TS_CODE))
-                    .as(MAX_DATE_TIME);
-
-            Field<String> defUnitsField = CWMS_UTIL_PACKAGE.call_GET_DEFAULT_UNITS(
-                    CWMS_TS_PACKAGE.call_GET_BASE_PARAMETER_ID(AV_TSV_DQU.AV_TSV_DQU.TS_CODE),
-                    DSL.val(unitSystem, String.class))
-                    .as(DEFAULT_UNITS);
-
-            SelectConditionStep<? extends Record> innerSelect = dsl.select(
-                            AV_TSV_DQU.AV_TSV_DQU.OFFICE_ID,
-                            AV_TSV_DQU.AV_TSV_DQU.CWMS_TS_ID,
-                            AV_TSV_DQU.AV_TSV_DQU.TS_CODE,
-                            AV_TSV_DQU.AV_TSV_DQU.UNIT_ID,
-                            AV_TSV_DQU.AV_TSV_DQU.DATE_TIME,
-                            AV_TSV_DQU.AV_TSV_DQU.VERSION_DATE,
-                            AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE,
-                            AV_TSV_DQU.AV_TSV_DQU.VALUE,
-                            AV_TSV_DQU.AV_TSV_DQU.QUALITY_CODE,
-                            AV_TSV_DQU.AV_TSV_DQU.START_DATE,
-                            AV_TSV_DQU.AV_TSV_DQU.END_DATE,
-                            defUnitsField,
-                            maxDateField,
-                            tsField
-                    )
-                    .from(AV_TSV_DQU.AV_TSV_DQU.join(AV_CWMS_TS_ID2)
-                            .on(AV_TSV_DQU.AV_TSV_DQU.TS_CODE.eq(
-                                    AV_CWMS_TS_ID2.TS_CODE.cast(Long.class))))
-                    .where(
-                            AV_CWMS_TS_ID2.CWMS_TS_ID.in(tsIds)
-                                    .and(AV_TSV_DQU.AV_TSV_DQU.VALUE.isNotNull())
-                                    .and(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME.lt(futuredate))
-                                    .and(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME.gt(pastdate))
-                                    .and(AV_TSV_DQU.AV_TSV_DQU.START_DATE.le(futuredate))
-                                    .and(AV_TSV_DQU.AV_TSV_DQU.END_DATE.gt(pastdate)));
-
-            // We want to use some of the fields from the innerSelect statement in our WHERE clause
-            // Its cleaner if we call them out individually.
-            Field<Timestamp> dateTimeField = innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME);
-            Field<String> unitField = innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.UNIT_ID);
-
-            // We want to return fields from the innerSelect.
-            // Note: Although they are both fields, jOOQ treats
-            //      innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE)
-            //      differently than
-            //      AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE
-            // Using the innerSelect field makes DATA_ENTRY_DATE correctly map to Timestamp
-            // and the generated sql refers to columns from the alias_??? table.
-            Field[] queryFields = new Field[]{
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.CWMS_TS_ID),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.OFFICE_ID),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.TS_CODE),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.VERSION_DATE),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.VALUE),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.QUALITY_CODE),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.START_DATE),
-                    innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.END_DATE),
-                    unitField,
-                    dateTimeField,
-                    innerSelect.field(tsField)
-            };
-
-            SelectConditionStep<? extends Record> query = dsl.select(queryFields)
-                    .from(innerSelect)
-                    .where(dateTimeField.eq(maxDateField).and(unitField.eq(defUnitsField)));
+            Set<String> uniqueIds = new LinkedHashSet<>(tsIds);
+            Map<String, List<RecentValue>> found = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String tsId : uniqueIds) {
+                List<RecentValue> cached = recentCache.getIfPresent(
+                        recentKey(office, tsId, pastdate, futuredate, unitSystem));
+                if (cached == null) {
+                    missing.add(tsId);
+                } else {
+                    found.put(tsId, cached);
+                }
+            }
 
-            logger.fine(() -> query.getSQL(ParamType.INLINED));
-            retval = query.fetch(r -> buildRecentValue(AV_TSV_DQU.AV_TSV_DQU, r, tsFieldName));
+            if (!missing.isEmpty()) {
+                Map<String, List<RecentValue>> loaded = new HashMap<>();
+                missing.forEach(tsId -> loaded.put(tsId, new ArrayList<>()));
+                for (RecentValue value : queryMostRecentsInRange(missing, pastdate, futuredate, unitSystem)) {
+                    List<RecentValue> values = loaded.get(value.getId());
+                    if (values != null) {
+                        values.add(value);
+                    }
+                }
+                loaded.forEach((tsId, values) -> {
+                    List<RecentValue> unmodifiable = Collections.unmodifiableList(values);
+                    recentCache.put(recentKey(office, tsId, pastdate, futuredate, unitSystem), unmodifiable);
+                    found.put(tsId, unmodifiable);
+                });
+            }
+
+            retval = new ArrayList<>();
+            for (String tsId : uniqueIds) {
+                retval.addAll(found.get(tsId));
+            }
         }
         return retval;
     }
 
+    /**
+     * The latest stored value that is sure to have replaced whatever was stored at its time:
+     * the latest non missing value of a store that replaces existing values.
+     *
+     * @return null if there is none
+     */
+    // Package private for unit testing
+    @Nullable
+    static TimeSeries.Record latestStoredValue(@Nullable List<TimeSeries.Record> values,
+                                               StoreRule storeRule) {
+        if (values == null || (storeRule != StoreRule.REPLACE_ALL
+                && storeRule != StoreRule.REPLACE_WITH_NON_MISSING
+                && storeRule != StoreRule.DELETE_INSERT)) {
+            return null;
+        }
+        TimeSeries.Record retVal = null;
+        for (TimeSeries.Record value : values) {
+            Double dataValue = value.getValue();
+            if (dataValue != null && dataValue != -Float.MAX_VALUE
+                    && (retVal == null || value.getDateTime().after(retVal.getDateTime()))) {
+                retVal = value;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * The cached latest values of a recentCache entry with a value just stored put in.  Only a
+     * value inside the window, later than the cached value of its office, in the same units and
+     * in the same storage partition, can simply take its place; anything else has to be read
+     * again.
+     *
+     * @param key the recentCache key
+     * @param cached the cached latest values
+     * @param officeId the office the value was stored to
+     * @param units the units the value was stored in
+     * @param stored the latest value stored
+     * @param entryDate when it was stored
+     * @return the new latest values, null to drop the entry
+     */
+    // Package private for unit testing
+    @Nullable
+    static List<RecentValue> withStoredValue(List<Object> key, List<RecentValue> cached,
+                                             String officeId, String units,
+                                             TimeSeries.Record stored, Date entryDate) {
+        long time = stored.getDateTime().getTime();
+        if (time <= (long) key.get(3)) {
+            // everything stored is before the window
+            return cached;
+        } else if (time >= (long) key.get(4)) {
+            return null;
+        }
+        int index = -1;
+        for (int i = 0; i < cached.size(); i++) {
+            TsvDqu dqu = cached.get(i).getDqu();
+            if (dqu != null && officeId.equalsIgnoreCase(dqu.getOfficeId())) {
+                if (index >= 0) {
+                    // one per version date, leave those to the database
+                    return null;
+                }
+                index = i;
+            }
+        }
+        if (index < 0) {
+            return null;
+        }
+        RecentValue previous = cached.get(index);
+        TsvDqu dqu = previous.getDqu();
+        if (!units.equals(dqu.getUnitId())
+                || time <= dqu.getDateTime().getTime()
+                || time < dqu.getStartDate().getTime()
+                || time >= dqu.getEndDate().getTime()) {
+            return null;
+        }
+        List<RecentValue> retVal = new ArrayList<>(cached);
+        retVal.set(index, new RecentValue(previous.getId(), new TsvDqu.Builder()
+                .from(dqu)
+                .withDateTime(stored.getDateTime())
+                .withDataEntryDate(entryDate)
+                .withValue(stored.getValue())
+                .withQualityCode((long) stored.getQualityCode())
+                .build()));
+        return Collections.unmodifiableList(retVal);
+    }
+
+    private static List<Object> recentKey(@Nullable String office, String tsId, Timestamp pastdate,
+                                          Timestamp futuredate, UnitSystem unitSystem) {
+        return Arrays.asList(office == null ? null : office.toUpperCase(), tsId, unitSystem,
+                pastdate.getTime(), futuredate.getTime());
+    }
+
+    List<RecentValue> queryMostRecentsInRange(List<String> tsIds, Timestamp pastdate,
+                                              Timestamp futuredate, UnitSystem unitSystem) {
+        String tsFieldName = "TSVIEW_CWMS_TS_ID";
+        Field<String> tsField = AV_CWMS_TS_ID2.CWMS_TS_ID.as(tsFieldName);
+
+        Field<Timestamp> maxDateField = max(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME)
+                .over(partitionBy(AV_TSV_DQU.AV_TSV_DQU.TS_CODE))
+                .as(MAX_DATE_TIME);
+
+        Field<String> defUnitsField = CWMS_UTIL_PACKAGE.call_GET_DEFAULT_UNITS(
+                CWMS_TS_PACKAGE.call_GET_BASE_PARAMETER_ID(AV_TSV_DQU.AV_TSV_DQU.TS_CODE),
+                DSL.val(unitSystem, String.class))
+                .as(DEFAULT_UNITS);
+
+        SelectConditionStep<? extends Record> innerSelect = dsl.select(
+                        AV_TSV_DQU.AV_TSV_DQU.OFFICE_ID,
+                        AV_TSV_DQU.AV_TSV_DQU.CWMS_TS_ID,
+                        AV_TSV_DQU.AV_TSV_DQU.TS_CODE,
+                        AV_TSV_DQU.AV_TSV_DQU.UNIT_ID,
+                        AV_TSV_DQU.AV_TSV_DQU.DATE_TIME,
+                        AV_TSV_DQU.AV_TSV_DQU.VERSION_DATE,
+                        AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE,
+                        AV_TSV_DQU.AV_TSV_DQU.VALUE,
+                        AV_TSV_DQU.AV_TSV_DQU.QUALITY_CODE,
+                        AV_TSV_DQU.AV_TSV_DQU.START_DATE,
+                        AV_TSV_DQU.AV_TSV_DQU.END_DATE,
+                        defUnitsField,
+                        maxDateField,
+                        tsField
+                )
+                .from(AV_TSV_DQU.AV_TSV_DQU.join(AV_CWMS_TS_ID2)
+                        .on(AV_TSV_DQU.AV_TSV_DQU.TS_CODE.eq(
+                                AV_CWMS_TS_ID2.TS_CODE.cast(Long.class))))
+                .where(
+                        AV_CWMS_TS_ID2.CWMS_TS_ID.in(tsIds)
+                                .and(AV_TSV_DQU.AV_TSV_DQU.VALUE.isNotNull())
+                                .and(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME.lt(futuredate))
+                                .and(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME.gt(pastdate))
+                                .and(AV_TSV_DQU.AV_TSV_DQU.START_DATE.le(futuredate))
+                                .and(AV_TSV_DQU.AV_TSV_DQU.END_DATE.gt(pastdate)));
+
+        // We want to use some of the fields from the innerSelect statement in our WHERE clause
+        // Its cleaner if we call them out individually.
+        Field<Timestamp> dateTimeField = innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.DATE_TIME);
+        Field<String> unitField = innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.UNIT_ID);
+
+        // We want to return fields from the innerSelect.
+        // Note: Although they are both fields, jOOQ treats
+        //      innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE)
+        //      differently than
+        //      AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE
+        // Using the innerSelect field makes DATA_ENTRY_DATE correctly map to Timestamp
+        // and the generated sql refers to columns from the alias_??? table.
+        Field[] queryFields = new Field[]{
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.CWMS_TS_ID),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.OFFICE_ID),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.TS_CODE),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.VERSION_DATE),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.DATA_ENTRY_DATE),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.VALUE),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.QUALITY_CODE),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.START_DATE),
+                innerSelect.field(AV_TSV_DQU.AV_TSV_DQU.END_DATE),
+                unitField,
+                dateTimeField,
+                innerSelect.field(tsField)
+        };
+
+        SelectConditionStep<? extends Record> query = dsl.select(queryFields)
+                .from(innerSelect)
+                .where(dateTimeField.eq(maxDateField).and(unitField.eq(defUnitsField)));
+
+        logger.fine(() -> query.getSQL(ParamType.INLINED));
+        return query.fetch(r -> buildRecentValue(AV_TSV_DQU.AV_TSV_DQU, r, tsFieldName));
+    }
+
 
     @NotNull
     private RecentValue buildRecentValue(AV_TSV_DQU tsvView, Record jrecord, String tsColumnName) {
@@ -985,6 +1887,21 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
     public List<RecentValue> findRecentsInRange(String office, String categoryId, String groupId,
                                                 @NotNull Timestamp pastLimit, @NotNull Timestamp futureLimit,
                                                  @NotNull UnitSystem unitSystem) {
+        List<Object> key = Arrays.asList(office, categoryId, groupId, unitSystem,
+                pastLimit.getTime(), futureLimit.getTime());
+        List<RecentValue> cached = recentGroupCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<RecentValue> retval = Collections.unmodifiableList(
+                queryRecentsInRange(office, categoryId, groupId, pastLimit, futureLimit, unitSystem));
+        recentGroupCache.put(key, retval);
+        return retval;
+    }
+
+    List<RecentValue> queryRecentsInRange(String office, String categoryId, String groupId,
+                                          @NotNull Timestamp pastLimit, @NotNull Timestamp futureLimit,
+                                          @NotNull UnitSystem unitSystem) {
         AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;  // should we look at the daterange and
         // possible use 30D view?
 
@@ -1094,6 +2011,7 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                     versionDate = Timestamp.from(input.getVersionDate().toInstant());
                 }
 
+                setOffice(connection, input.getOfficeId());
                 store(connection, input.getOfficeId(), input.getName(), input.getUnits(),
                         versionDate, input.getValues(), createAsLrts, storeRule,
                         overrideProtection);
@@ -1113,30 +2031,162 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                 versionDate = Timestamp.from(input.getVersionDate().toInstant());
             }
 
+            setOffice(connection, input.getOfficeId());
             store(connection, input.getOfficeId(), input.getName(), input.getUnits(),
                     versionDate, input.getValues(), createAsLrts, replaceAll, overrideProtection);
         });
     }
 
-    private void store(Connection connection, String officeId, String tsId, String units,
-                       Timestamp versionDate, List<TimeSeries.Record> values, boolean createAsLrts,
-                       StoreRule storeRule, boolean overrideProtection) throws SQLException {
-        setOffice(connection,officeId);
+    /**
+     * Stores each time series in turn on a single connection.  Every series is stored in its own
+     * transaction, so a series that fails is rolled back and reported without stopping the rest.
+     *
+     * @param timeSeries the time series to store
+     * @param createAsLrts create missing time series as local regular time series
+     * @param storeRule How to update the database if data exists
+     * @param overrideProtection honor override protection
+     * @return one result per time series, in the order given
+     */
+    @Override
+    public List<TimeSeriesStoreResult> store(List<TimeSeries> timeSeries, boolean createAsLrts,
+                                             StoreRule storeRule, boolean overrideProtection) {
+        List<TimeSeriesStoreResult> results = new ArrayList<>(timeSeries.size());
+        connection(dsl, connection -> {
+            String sessionOffice = null;
+            for (TimeSeries input : timeSeries) {
+                String officeId = input.getOfficeId();
+                try {
+                    if (!officeId.equals(sessionOffice)) {
+                        setOffice(connection, officeId);
+                        sessionOffice = officeId;
+                    }
+                    if (!input.getValues().isEmpty()) {
+                        Timestamp versionDate = null;
+                        if (input.getVersionDate() != null) {
+                            versionDate = Timestamp.from(input.getVersionDate().toInstant());
+                        }
+                        store(connection, officeId, input.getName(), input.getUnits(), versionDate,
+                                input.getValues(), createAsLrts, storeRule, overrideProtection);
+                    }
+                    results.add(TimeSeriesStoreResult.stored(officeId, input.getName()));
+                } catch (RuntimeException | SQLException e) {
+                    RuntimeException wrapped = wrapException(e instanceof RuntimeException
+                            ? (RuntimeException) e : new DataAccessException(e.getMessage(), e));
+                    String message;
+                    if (wrapped instanceof DataAccessException) {
+                        // not one of the errors we know how to describe, keep the details in the log
+                        logger.log(Level.WARNING, e, () -> "Unable to store " + input.getName()
+                                + " for office " + officeId);
+                        message = "Unable to store time series";
+                    } else {
+                        message = wrapped.getMessage();
+                    }
+                    results.add(TimeSeriesStoreResult.failed(officeId, input.getName(), message));
+                    // set the session office again in case the failure was setting it
+                    sessionOffice = null;
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Same as {@link #create(TimeSeries, boolean, StoreRule, boolean)}, reading the values as
+     * they are stored.
+     */
+    @Override
+    public void create(TimeSeriesReader reader, boolean createAsLrts, StoreRule storeRule,
+                       boolean overrideProtection) {
+        store(reader, true, createAsLrts, storeRule, overrideProtection);
+    }
 
-        final ZTSV_ARRAY tsvArray = new ZTSV_ARRAY();
+    /**
+     * Same as {@link #store(TimeSeries, boolean, StoreRule, boolean)}, reading the values as
+     * they are stored.
+     */
+    @Override
+    public void store(TimeSeriesReader reader, boolean createAsLrts, StoreRule storeRule,
+                      boolean overrideProtection) {
+        store(reader, false, createAsLrts, storeRule, overrideProtection);
+    }
 
-        if (values != null && !values.isEmpty()) {
-            Iterator<TimeSeries.Record> iter = values.iterator();
-            while (iter.hasNext()) {
-                TimeSeries.Record value = iter.next();
-                Double dataValue = value.getValue();
-                if (dataValue != null && dataValue == -Float.MAX_VALUE) {
-                    dataValue = null;
-                }
-                tsvArray.add(new ZTSV_TYPE(value.getDateTime(), dataValue, BigDecimal.valueOf(value.getQualityCode())));
+    private void store(TimeSeriesReader reader, boolean skipEmpty, boolean createAsLrts,
+                       StoreRule storeRule, boolean overrideProtection) {
+        TimeSeries input = reader.readHeader();
+        int chunkSize = storeChunkSize(storeRule);
+        // read ahead so a create without values never takes a connection, like the create above
+        ReaderChunks chunks = new ReaderChunks(reader, reader.readValues(chunkSize), storeRule);
+        if (skipEmpty && chunks.isEmpty()) {
+            return;
+        }
+        connection(dsl, connection -> {
+            String officeId = input.getOfficeId();
+            String tsId = input.getName();
+            Timestamp versionDate = null;
+            if (input.getVersionDate() != null) {
+                versionDate = Timestamp.from(input.getVersionDate().toInstant());
             }
+
+            setOffice(connection, officeId);
+            setVersioned(connection, officeId, tsId, versionDate);
+            storeValues(getDslContext(connection, officeId), chunkSize, officeId, tsId,
+                    input.getUnits(), versionDate, chunks, createAsLrts, storeRule,
+                    overrideProtection);
+            TimeSeries.Record latest = chunks.getLatestStored();
+            invalidateValueCaches(officeId, tsId, input.getUnits(), versionDate,
+                    latest == null ? null : Collections.singletonList(latest), storeRule);
+        });
+    }
+
+    /**
+     * Hands the values of a reader to storeValues, keeping track of the latest value stored.
+     */
+    private static final class ReaderChunks implements IntFunction<List<TimeSeries.Record>> {
+        private final TimeSeriesReader reader;
+        private final StoreRule storeRule;
+        private List<TimeSeries.Record> first;
+        private TimeSeries.Record latestStored;
+
+        private ReaderChunks(TimeSeriesReader reader, List<TimeSeries.Record> first,
+                             StoreRule storeRule) {
+            this.reader = reader;
+            this.first = first;
+            this.storeRule = storeRule;
+        }
+
+        boolean isEmpty() {
+            return first != null && first.isEmpty();
         }
 
+        @Override
+        public List<TimeSeries.Record> apply(int max) {
+            List<TimeSeries.Record> chunk = first != null ? first : reader.readValues(max);
+            first = null;
+            TimeSeries.Record latest = latestStoredValue(chunk, storeRule);
+            if (latest != null && (latestStored == null
+                    || latest.getDateTime().after(latestStored.getDateTime()))) {
+                latestStored = latest;
+            }
+            return chunk;
+        }
+
+        @Nullable
+        TimeSeries.Record getLatestStored() {
+            return latestStored;
+        }
+    }
+
+    private void store(Connection connection, String officeId, String tsId, String units,
+                       Timestamp versionDate, List<TimeSeries.Record> values, boolean createAsLrts,
+                       StoreRule storeRule, boolean overrideProtection) throws SQLException {
+        setVersioned(connection, officeId, tsId, versionDate);
+        storeValues(getDslContext(connection, officeId), storeChunkSize(storeRule), officeId, tsId,
+                units, versionDate, values, createAsLrts, storeRule, overrideProtection);
+        invalidateValueCaches(officeId, tsId, units, versionDate, values, storeRule);
+    }
+
+    private void setVersioned(Connection connection, String officeId, String tsId,
+                              Timestamp versionDate) {
         if (versionDate != null) {
             try {
                 CWMS_TS_PACKAGE.call_SET_TSID_VERSIONED(getDslContext(connection, officeId).configuration(),
@@ -1155,7 +2205,78 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                 }
             }
         }
-        CWMS_TS_PACKAGE.call_ZSTORE_TS(getDslContext(connection, officeId).configuration(),
+    }
+
+    /**
+     * Large stores are sent in chunks so neither the Oracle object array nor the call grows
+     * with the size of the request.  Stores given a TimeSeriesReader also read the request
+     * body a chunk at a time, if its content type can be read as a stream.
+     *
+     * <p>DELETE INSERT is never chunked.  It deletes the existing values over the time range
+     * of each call, so values stored between the last time of one chunk and the first time of
+     * the next would survive.
+     *
+     * @return the number of values per ZSTORE_TS call
+     */
+    // Package private for unit testing
+    static int storeChunkSize(StoreRule storeRule) {
+        return storeRule == StoreRule.DELETE_INSERT || STORE_CHUNK_SIZE <= 0
+                ? Integer.MAX_VALUE : STORE_CHUNK_SIZE;
+    }
+
+    /**
+     * Sends the values to ZSTORE_TS chunkSize at a time, all in one transaction, so a chunk
+     * that fails rolls back the chunks stored before it.
+     */
+    // Package private for unit testing
+    void storeValues(DSLContext dsl, int chunkSize, String officeId, String tsId, String units,
+                     Timestamp versionDate, List<TimeSeries.Record> values, boolean createAsLrts,
+                     StoreRule storeRule, boolean overrideProtection) {
+        List<TimeSeries.Record> all = values == null ? Collections.emptyList() : values;
+        int[] next = {0};
+        storeValues(dsl, chunkSize, officeId, tsId, units, versionDate, max -> {
+            int start = next[0];
+            next[0] = (int) Math.min((long) start + max, all.size());
+            return all.subList(start, next[0]);
+        }, createAsLrts, storeRule, overrideProtection);
+    }
+
+    /**
+     * Same as above, taking each chunk from chunks as it is sent, so only one chunk has to be
+     * in memory at a time.
+     *
+     * @param chunks returns up to the given number of values, empty once there are no more
+     */
+    // Package private for unit testing
+    void storeValues(DSLContext dsl, int chunkSize, String officeId, String tsId, String units,
+                     Timestamp versionDate, IntFunction<List<TimeSeries.Record>> chunks,
+                     boolean createAsLrts, StoreRule storeRule, boolean overrideProtection) {
+        dsl.transaction((Configuration trx) -> {
+            Configuration config = trx.dsl().configuration();
+            List<TimeSeries.Record> chunk = chunks.apply(chunkSize);
+            do {
+                final ZTSV_ARRAY tsvArray = new ZTSV_ARRAY();
+                for (TimeSeries.Record value : chunk) {
+                    Double dataValue = value.getValue();
+                    if (dataValue != null && dataValue == -Float.MAX_VALUE) {
+                        dataValue = null;
+                    }
+                    tsvArray.add(new ZTSV_TYPE(value.getDateTime(), dataValue, BigDecimal.valueOf(value.getQualityCode())));
+                }
+                try (Timer.Context ignored = storeChunkTimer == null ? null : storeChunkTimer.time()) {
+                    storeChunk(config, officeId, tsId, units, versionDate, tsvArray, createAsLrts,
+                            storeRule, overrideProtection);
+                }
+                chunk = chunks.apply(chunkSize);
+            } while (!chunk.isEmpty());
+        });
+    }
+
+    // Package private for unit testing
+    void storeChunk(Configuration config, String officeId, String tsId, String units,
+                    Timestamp versionDate, ZTSV_ARRAY tsvArray, boolean createAsLrts,
+                    StoreRule storeRule, boolean overrideProtection) {
+        CWMS_TS_PACKAGE.call_ZSTORE_TS(config,
                                       tsId,
                                       units,
                                       tsvArray,
@@ -1203,6 +2324,7 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
                     options.getVersionDate(), null, options.getMaxVersion(),
                     options.getTsItemMask(), options.getOverrideProtection());
         });
+        invalidateValueCaches(officeId, tsId);
     }
 
 
@@ -243,6 +243,7 @@ public class TimeSeriesGroupDao extends JooqDao<TimeSeriesGroup> {
                 getDslContext(c,office).configuration(), categoryId, groupId, office
             )
         );
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
     }
 
     public void create(TimeSeriesGroup group, boolean failIfExists) {
@@ -255,7 +256,7 @@ public class TimeSeriesGroupDao extends JooqDao<TimeSeriesGroup> {
             group.getSharedRefTsId(), group.getOfficeId());
             assignTs(configuration,group, group.getOfficeId());
         });
-        
+        TimeSeriesDaoImpl.invalidateCatalogIndex(group.getOfficeId());
     }
 
     private void assignTs(Configuration configuration,TimeSeriesGroup group, String office) {
@@ -273,6 +274,7 @@ public class TimeSeriesGroupDao extends JooqDao<TimeSeriesGroup> {
 
     public void assignTs(TimeSeriesGroup group, String office) {
         connection(dsl, c->assignTs(getDslContext(c, office).configuration(),group, office));
+        TimeSeriesDaoImpl.invalidateCatalogIndex(office);
     }
 
     private static TS_ALIAS_T convertToTsAliasType(AssignedTimeSeries assignedTimeSeries) {
@@ -288,6 +290,7 @@ public class TimeSeriesGroupDao extends JooqDao<TimeSeriesGroup> {
                 group.getTimeSeriesCategory().getId(), oldGroupId, group.getId(),
                 group.getOfficeId())
         );
+        TimeSeriesDaoImpl.invalidateCatalogIndex(null);
     }
 
     public void unassignAllTs(TimeSeriesGroup group, String officeId) {
@@ -297,6 +300,7 @@ public class TimeSeriesGroupDao extends JooqDao<TimeSeriesGroup> {
                 group.getTimeSeriesCategory().getId(), group.getId(),
                 null, "T", officeId)
         );
+        TimeSeriesDaoImpl.invalidateCatalogIndex(officeId);
     }
 
 
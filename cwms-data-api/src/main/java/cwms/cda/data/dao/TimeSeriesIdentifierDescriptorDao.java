@@ -63,6 +63,7 @@ public class TimeSeriesIdentifierDescriptorDao extends JooqDao<TimeSeriesIdentif
                 formatBool(failIfExists), tsid.getOfficeId());
             logger.atFine().log("Created tsCode: %s for %s", tsCode, tsid.getTimeSeriesId());
         });
+        TimeSeriesDaoImpl.invalidateCaches(tsid.getOfficeId(), tsid.getTimeSeriesId());
     }
 
     public TimeSeriesIdentifierDescriptors getTimeSeriesIdentifiers(String cursor, int pageSize, String office,
@@ -176,6 +177,7 @@ public class TimeSeriesIdentifierDescriptorDao extends JooqDao<TimeSeriesIdentif
             CwmsDbTs tsDao = CwmsDbServiceLookup.buildCwmsDb(CwmsDbTs.class, connection);
             tsDao.updateTsId(connection, office, timeseriesId, utcOffsetMinutes, intervalForward, intervalBackward, activeFlag);
         });
+        TimeSeriesDaoImpl.invalidateCaches(office, timeseriesId);
 
     }
 
@@ -189,6 +191,8 @@ public class TimeSeriesIdentifierDescriptorDao extends JooqDao<TimeSeriesIdentif
                         officeId);
             }
         });
+        TimeSeriesDaoImpl.invalidateCaches(officeId, origId);
+        TimeSeriesDaoImpl.invalidateCaches(officeId, newId);
         
     }
 
@@ -215,6 +219,7 @@ public class TimeSeriesIdentifierDescriptorDao extends JooqDao<TimeSeriesIdentif
             CwmsDbTs tsDao = CwmsDbServiceLookup.buildCwmsDb(CwmsDbTs.class, connection);
             tsDao.deleteAll(connection, officeId, tsId);
         });
+        TimeSeriesDaoImpl.invalidateCaches(officeId, tsId);
     }
 
     public void deleteData(String officeId, String tsId) {
@@ -223,6 +228,7 @@ public class TimeSeriesIdentifierDescriptorDao extends JooqDao<TimeSeriesIdentif
             CwmsDbTs tsDao = CwmsDbServiceLookup.buildCwmsDb(CwmsDbTs.class, connection);
             tsDao.deleteData(connection, officeId, tsId);
         });
+        TimeSeriesDaoImpl.invalidateValueCaches(officeId, tsId);
     }
 
     public void deleteKey(String officeId, String tsId) {
@@ -231,5 +237,6 @@ public class TimeSeriesIdentifierDescriptorDao extends JooqDao<TimeSeriesIdentif
             CwmsDbTs tsDao = CwmsDbServiceLookup.buildCwmsDb(CwmsDbTs.class, connection);
             tsDao.deleteKey(connection, officeId, tsId);
         });
+        TimeSeriesDaoImpl.invalidateCaches(officeId, tsId);
     }
 }
@@ -132,6 +132,7 @@ public class BasinDao extends JooqDao<Basin> {
                     parentBasinId, sortOrder, primaryStreamId, totalDrainageArea,
                     contributingDrainageArea, areaUnit, officeId);
         });
+        cwms.cda.data.dao.basinconnectivity.BasinDao.invalidateBasins(basin.getBasinId().getOfficeId());
     }
 
     public void renameBasin(CwmsId oldBasin, CwmsId newBasin) {
@@ -142,7 +143,7 @@ public class BasinDao extends JooqDao<Basin> {
             CWMS_BASIN_PACKAGE.call_RENAME_BASIN(DSL.using(c).configuration(), oldBasin.getName(),
                     newBasin.getName(), oldBasin.getOfficeId());
         });
-
+        cwms.cda.data.dao.basinconnectivity.BasinDao.invalidateBasins(oldBasin.getOfficeId());
     }
 
     public void deleteBasin(CwmsId basinId, DeleteRule deleteAction) {
@@ -153,6 +154,7 @@ public class BasinDao extends JooqDao<Basin> {
             CWMS_BASIN_PACKAGE.call_DELETE_BASIN(DSL.using(c).configuration(), basinId.getName(),
                 deleteAction.getRule(), basinId.getOfficeId());
         });
+        cwms.cda.data.dao.basinconnectivity.BasinDao.invalidateBasins(basinId.getOfficeId());
     }
 
     private List<Basin> buildBasinsFromResultSet(ResultSet rs, String unitSystem) throws SQLException {
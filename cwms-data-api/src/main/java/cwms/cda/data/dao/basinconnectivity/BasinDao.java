@@ -1,5 +1,7 @@
 package cwms.cda.data.dao.basinconnectivity;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import cwms.cda.api.enums.Unit;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.data.dao.JooqDao;
@@ -8,11 +10,27 @@ import cwms.cda.data.dto.basinconnectivity.Stream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.jooq.DSLContext;
 import usace.cwms.db.jooq.dao.CwmsDbBasinJooq;
 
 public class BasinDao extends JooqDao<Basin> {
+    public static final String BASIN_NAME = "basin";
+
+    /**
+     * Basins with their assembled primary stream, keyed by upper case office id, upper case basin
+     * id and unit system.
+     */
+    private static final Cache<List<String>, Basin> basinCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(StreamDao.PROP_BASE + "." + BASIN_NAME
+                    + ".maxSize", 1000))
+            .expireAfterWrite(Integer.getInteger(StreamDao.PROP_BASE + "." + BASIN_NAME
+                            + ".expireAfterSeconds", 300), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
     public BasinDao(DSLContext dsl) {
         super(dsl);
     }
@@ -35,6 +53,12 @@ public class BasinDao extends JooqDao<Basin> {
     }
 
     public Basin getBasin(String basinId, String unitSystem, String officeId) throws SQLException {
+        List<String> key = Arrays.asList(officeId == null ? null : officeId.toUpperCase(),
+                basinId.toUpperCase(), unitSystem);
+        Basin cached = basinCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
         CwmsDbBasinJooq basinJooq = new CwmsDbBasinJooq();
 
         String[] pParentBasinId = new String[1];
@@ -60,9 +84,24 @@ public class BasinDao extends JooqDao<Basin> {
             Stream primaryStream = streamDao.getStream(pPrimaryStreamId[0], unitSystem, officeId);
             retVal = new Basin.Builder(retVal).withPrimaryStream(primaryStream).build();
         }
+        basinCache.put(key, retVal);
         return retVal;
     }
 
+    /**
+     * Drop the cached basins and streams of an office, after a basin, stream, stream location
+     * or reach changed.
+     * @param officeId - the office id, null for every office
+     */
+    public static void invalidateBasins(String officeId) {
+        if (officeId == null) {
+            basinCache.invalidateAll();
+        } else {
+            basinCache.asMap().keySet().removeIf(k -> officeId.equalsIgnoreCase(k.get(0)));
+        }
+        StreamDao.invalidateStreams(officeId);
+    }
+
     private List<Basin> buildBasinsFromResultSet(ResultSet rs, String unitSystem) throws SQLException {
         List<Basin> retVal = new ArrayList<>();
         while (rs.next()) {
@@ -0,0 +1,98 @@
+package cwms.cda.data.dao.basinconnectivity;
+
+import cwms.cda.data.dto.basinconnectivity.Stream;
+import cwms.cda.data.dto.basinconnectivity.StreamLocation;
+import cwms.cda.data.dto.basinconnectivity.StreamReach;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Every stream, stream location and stream reach of an office, from which the stream trees of
+ * basins are assembled in memory instead of with a few catalog calls per stream.
+ *
+ * <p>Assembled streams are immutable and kept, so basins sharing tributaries share the work.
+ */
+final class BasinStreams {
+    private final Map<String, Stream> streams = new LinkedHashMap<>();
+    private final Map<String, List<String>> tributaryIds = new HashMap<>();
+    private final Map<String, Set<StreamLocation>> locationsByStream = new HashMap<>();
+    private final Map<String, Set<StreamReach>> reachesByStream = new HashMap<>();
+    private final Map<String, Stream> assembled = new HashMap<>();
+
+    /**
+     * @param streams streams without their locations, tributaries or reaches
+     * @param streamLocations stream locations of every stream
+     * @param streamReaches reaches of every stream
+     */
+    BasinStreams(Collection<Stream> streams, Collection<StreamLocation> streamLocations,
+                 Collection<StreamReach> streamReaches) {
+        for (Stream stream : streams) {
+            this.streams.put(key(stream.getStreamName()), stream);
+        }
+        for (Stream stream : streams) {
+            String receivingStreamId = stream.getReceivingStreamId();
+            if (receivingStreamId != null) {
+                tributaryIds.computeIfAbsent(key(receivingStreamId), k -> new ArrayList<>())
+                        .add(key(stream.getStreamName()));
+            }
+        }
+        for (StreamLocation streamLocation : streamLocations) {
+            locationsByStream.computeIfAbsent(key(streamLocation.getStreamName()),
+                    k -> new LinkedHashSet<>()).add(streamLocation);
+        }
+        for (StreamReach streamReach : streamReaches) {
+            reachesByStream.computeIfAbsent(key(streamReach.getStreamName()),
+                    k -> new HashSet<>()).add(streamReach);
+        }
+    }
+
+    /**
+     * @param streamId the stream
+     * @return the stream with its locations, reaches and tributaries, recursively, or null if the
+     *     office has no such stream
+     */
+    @Nullable
+    synchronized Stream getStream(String streamId) {
+        return assemble(key(streamId), new HashSet<>());
+    }
+
+    private Stream assemble(String key, Set<String> path) {
+        Stream retVal = assembled.get(key);
+        if (retVal != null) {
+            return retVal;
+        }
+        Stream stream = streams.get(key);
+        if (stream == null || !path.add(key)) {
+            // Unknown, or a stream that (eventually) flows into itself.
+            return null;
+        }
+        Set<Stream> tributaries = new LinkedHashSet<>();
+        for (String tributaryId : tributaryIds.getOrDefault(key, Collections.emptyList())) {
+            Stream tributary = assemble(tributaryId, path);
+            if (tributary != null) {
+                tributaries.add(tributary);
+            }
+        }
+        path.remove(key);
+        retVal = new Stream.Builder(stream)
+                .withStreamLocations(locationsByStream.getOrDefault(key, Collections.emptySet()))
+                .withTributaries(tributaries)
+                .withStreamReaches(reachesByStream.getOrDefault(key, Collections.emptySet()))
+                .build();
+        assembled.put(key, retVal);
+        return retVal;
+    }
+
+    private static String key(String id) {
+        return id == null ? null : id.toUpperCase();
+    }
+}
@@ -1,131 +1,140 @@
 package cwms.cda.data.dao.basinconnectivity;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import cwms.cda.api.enums.Unit;
 import cwms.cda.api.enums.UnitSystem;
+import cwms.cda.api.errors.NotFoundException;
 import cwms.cda.data.dao.JooqDao;
 import cwms.cda.data.dto.basinconnectivity.Stream;
-import cwms.cda.data.dto.basinconnectivity.StreamLocation;
-import cwms.cda.data.dto.basinconnectivity.StreamReach;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.jetbrains.annotations.Nullable;
 import org.jooq.DSLContext;
-import usace.cwms.db.dao.ifc.stream.StreamT;
 import usace.cwms.db.jooq.dao.CwmsDbStreamJooq;
 
 
 public class StreamDao extends JooqDao<Stream> {
+    public static final String PROP_BASE = "cwms.cda.data.dao.basinconnectivity";
+    public static final String STREAMS_NAME = "streams";
+
+    /**
+     * Streams, stream locations and reaches of an office, keyed by upper case office id and unit
+     * system.
+     */
+    private static final Cache<List<String>, BasinStreams> streamsCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger(PROP_BASE + "." + STREAMS_NAME
+                    + ".maxSize", 50))
+            .expireAfterWrite(Integer.getInteger(PROP_BASE + "." + STREAMS_NAME
+                            + ".expireAfterSeconds", 300), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
     public StreamDao(DSLContext dsl) {
         super(dsl);
     }
 
     public Stream getStream(String streamId, String unitSystem, String officeId) {
-        String pStationUnit = UnitSystem.EN.value().equals(unitSystem) ? Unit.MILE.getValue() :
-                Unit.KILOMETER.getValue();
-        CwmsDbStreamJooq streamJooq = new CwmsDbStreamJooq();
-
-        return connectionResult(dsl, c -> {
-            StreamT streamResult = streamJooq.retrieveStreamF(c, streamId, pStationUnit, officeId);
-            return new Stream.Builder(streamId, streamResult.getStartsDownstream(),
-                    streamResult.getLength(), streamResult.getOfficeId())
-                    .withDivertingStreamId(streamResult.getDivertsFromStream())
-                    .withDiversionStation(streamResult.getDivertsFromStation())
-                    .withDiversionBank(streamResult.getDivertsFromBank())
-                    .withReceivingStreamId(streamResult.getFlowsIntoStream())
-                    .withConfluenceStation(streamResult.getFlowsIntoStation())
-                    .withConfluenceBank(streamResult.getFlowsIntoBank())
-                    .withComment(streamResult.getComments())
-                    .withAverageSlope(streamResult.getAverageSlope())
-                    .withStreamLocations(getStreamLocationsOnStream(streamId, unitSystem, officeId))
-                    .withTributaries(getTributaries(streamId, unitSystem, officeId))
-                    .withStreamReaches(getReaches(streamId, officeId))
-                    .build();
-        });
+        Stream retVal = getBasinStreams(unitSystem, officeId).getStream(streamId);
+        if (retVal == null) {
+            throw new NotFoundException("Stream: " + officeId + "." + streamId + " not found");
+        }
+        return retVal;
     }
 
-    private Set<StreamLocation> getStreamLocationsOnStream(String streamId, String unitSystem,
-                                                           String officeId) throws SQLException {
-        StreamLocationDao streamLocationDao = new StreamLocationDao(dsl);
-        return streamLocationDao.getStreamLocations(streamId, unitSystem, officeId);
+    /**
+     * Drop the cached streams of an office.
+     * @param officeId - the office id, null for every office
+     */
+    public static void invalidateStreams(@Nullable String officeId) {
+        if (officeId == null) {
+            streamsCache.invalidateAll();
+        } else {
+            streamsCache.asMap().keySet().removeIf(k -> officeId.equalsIgnoreCase(k.get(0)));
+        }
     }
 
-    private Set<StreamReach> getReaches(String streamId, String officeId) throws SQLException {
-        StreamReachDao streamReachDao = new StreamReachDao(dsl);
-        return streamReachDao.getReachesOnStream(streamId, officeId);
+    /**
+     * Everything needed to assemble any stream of the office, read with one catalog call each for
+     * streams, stream locations and reaches.
+     */
+    BasinStreams getBasinStreams(String unitSystem, String officeId) {
+        List<String> key = Arrays.asList(officeId == null ? null : officeId.toUpperCase(), unitSystem);
+        BasinStreams retVal = streamsCache.getIfPresent(key);
+        if (retVal == null) {
+            retVal = connectionResult(dsl, c -> new BasinStreams(
+                    getStreams(c, unitSystem, officeId),
+                    StreamLocationDao.getStreamLocations(c, null, unitSystem, officeId),
+                    StreamReachDao.getReachesOnStream(c, null, officeId)));
+            streamsCache.put(key, retVal);
+        }
+        return retVal;
     }
 
-    private Set<Stream> getTributaries(String streamId, String unitSystem, String officeId)  {
+    private static Set<Stream> getStreams(Connection c, String unitSystem, String officeId)
+            throws SQLException {
         CwmsDbStreamJooq streamJooq = new CwmsDbStreamJooq();
+        String pStationUnit = UnitSystem.EN.value().equals(unitSystem)
+                ? Unit.MILE.getValue() : Unit.KILOMETER.getValue();
+        try (ResultSet rs = streamJooq.catStreams(c, null, pStationUnit, null,
+                null, null, null, null,
+                null, null, null, null,
+                null, null, null, null, null, officeId)) {
 
-        return connectionResult(dsl, c -> {
-            String pStationUnit = UnitSystem.EN.value().equals(unitSystem)
-                    ? Unit.MILE.getValue() : Unit.KILOMETER.getValue();
-            try (ResultSet rs = streamJooq.catStreams(c, null, pStationUnit, null,
-                    streamId, null, null, null,
-                    null, null, null, null,
-                    null, null, null, null, null, officeId)) {
-
-                return buildStreamsFromResultSet(rs, streamId, unitSystem);
-            }
-        });
+            return buildStreamsFromResultSet(rs);
+        }
     }
 
-    private Set<Stream> buildStreamsFromResultSet(ResultSet result, String parentStreamId,
-                                                  String unitSystem) throws SQLException {
+    private static Set<Stream> buildStreamsFromResultSet(ResultSet result) throws SQLException {
         Set<Stream> retVal = new LinkedHashSet<>();
 
         while (result.next()) {
-            Stream stream = buildStreamFromRow(result, parentStreamId, unitSystem);
-            if (stream != null) {
-                retVal.add(stream);
-            }
+            retVal.add(buildStreamFromRow(result));
         }
 
         return retVal;
     }
 
-    private @Nullable Stream buildStreamFromRow(ResultSet result, String parentStreamId, String unitSystem) throws SQLException {
-        Stream stream = null;
+    /**
+     * The stream of a catalog row, without its locations, tributaries or reaches.
+     */
+    private static Stream buildStreamFromRow(ResultSet result) throws SQLException {
         String officeId = result.getString("OFFICE_ID");
         String streamId = result.getString("STREAM_ID");
         String receivingStreamId = result.getString("FLOWS_INTO_STREAM");
-        if (receivingStreamId != null && receivingStreamId.equals(parentStreamId)) {
-            Double confluenceStation = null;
-            Object confluenceObject = result.getObject("FLOWS_INTO_STATION");
-            if (confluenceObject instanceof Double) {
-                confluenceStation = (Double) confluenceObject;
-            }
-            String confluenceBank = result.getString("FLOWS_INTO_BANK");
-            String divertingStreamId = result.getString("DIVERTS_FROM_STREAM");
-            Double diversionStation = null;
-            Object diversionObject = result.getObject("DIVERTS_FROM_STATION");
-            if (diversionObject instanceof Double) {
-                diversionStation = (Double) diversionObject;
-            }
-            String diversionBank = result.getString("DIVERTS_FROM_BANK");
-            Double streamLength = toDouble(result.getBigDecimal("STREAM_LENGTH"));
-            boolean startsDownstream = result.getBoolean("STATIONING_STARTS_DS");
-            Double averageSlope = toDouble(result.getBigDecimal("AVERAGE_SLOPE"));
-            String comment = result.getString("COMMENTS");
-            stream = new Stream.Builder(streamId, startsDownstream, streamLength,
-                    officeId)
-                    .withDivertingStreamId(divertingStreamId)
-                    .withDiversionStation(diversionStation)
-                    .withDiversionBank(diversionBank)
-                    .withReceivingStreamId(receivingStreamId)
-                    .withConfluenceStation(confluenceStation)
-                    .withConfluenceBank(confluenceBank)
-                    .withComment(comment)
-                    .withAverageSlope(averageSlope)
-                    .withStreamLocations(getStreamLocationsOnStream(streamId, unitSystem,
-                            officeId))
-                    .withTributaries(getTributaries(streamId, unitSystem, officeId))
-                    .withStreamReaches(getReaches(streamId, officeId))
-                    .build();
-
+        Double confluenceStation = null;
+        Object confluenceObject = result.getObject("FLOWS_INTO_STATION");
+        if (confluenceObject instanceof Double) {
+            confluenceStation = (Double) confluenceObject;
+        }
+        String confluenceBank = result.getString("FLOWS_INTO_BANK");
+        String divertingStreamId = result.getString("DIVERTS_FROM_STREAM");
+        Double diversionStation = null;
+        Object diversionObject = result.getObject("DIVERTS_FROM_STATION");
+        if (diversionObject instanceof Double) {
+            diversionStation = (Double) diversionObject;
         }
-        return stream;
+        String diversionBank = result.getString("DIVERTS_FROM_BANK");
+        Double streamLength = toDouble(result.getBigDecimal("STREAM_LENGTH"));
+        boolean startsDownstream = result.getBoolean("STATIONING_STARTS_DS");
+        Double averageSlope = toDouble(result.getBigDecimal("AVERAGE_SLOPE"));
+        String comment = result.getString("COMMENTS");
+        return new Stream.Builder(streamId, startsDownstream, streamLength,
+                officeId)
+                .withDivertingStreamId(divertingStreamId)
+                .withDiversionStation(diversionStation)
+                .withDiversionBank(diversionBank)
+                .withReceivingStreamId(receivingStreamId)
+                .withConfluenceStation(confluenceStation)
+                .withConfluenceBank(confluenceBank)
+                .withComment(comment)
+                .withAverageSlope(averageSlope)
+                .build();
     }
 }
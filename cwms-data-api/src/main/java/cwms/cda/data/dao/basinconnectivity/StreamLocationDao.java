@@ -4,6 +4,7 @@ import cwms.cda.api.enums.Unit;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.data.dao.JooqDao;
 import cwms.cda.data.dto.basinconnectivity.StreamLocation;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.LinkedHashSet;
@@ -22,6 +23,11 @@ public class StreamLocationDao extends JooqDao<StreamLocation> {
      */
     public Set<StreamLocation> getStreamLocations(String streamId, String unitSystem,
                                                   String officeId) {
+        return connectionResult(dsl, c -> getStreamLocations(c, streamId, unitSystem, officeId));
+    }
+
+    static Set<StreamLocation> getStreamLocations(Connection c, String streamId, String unitSystem,
+                                                  String officeId) throws SQLException {
         String pStreamIdMaskIn = streamId == null ? "*" : streamId;
         String pLocationIdMaskIn = "*";
         String pStationUnitIn = UnitSystem.EN.value().equalsIgnoreCase(unitSystem)
@@ -32,15 +38,13 @@ public class StreamLocationDao extends JooqDao<StreamLocation> {
                 ? Unit.SQUARE_MILES.getValue() : Unit.SQUARE_KILOMETERS.getValue();
         CwmsDbStreamJooq streamJooq = new CwmsDbStreamJooq();
 
-        return connectionResult(dsl, c -> {
-            try (ResultSet resultSet = streamJooq.catStreamLocations(c, pStreamIdMaskIn,
-                    pLocationIdMaskIn, pStationUnitIn, pStageUnitIn, pAreaUnitIn, officeId)) {
-                return buildStreamLocations(resultSet);
-            }
-        });
+        try (ResultSet resultSet = streamJooq.catStreamLocations(c, pStreamIdMaskIn,
+                pLocationIdMaskIn, pStationUnitIn, pStageUnitIn, pAreaUnitIn, officeId)) {
+            return buildStreamLocations(resultSet);
+        }
     }
 
-    private Set<StreamLocation> buildStreamLocations(ResultSet rs) throws SQLException {
+    private static Set<StreamLocation> buildStreamLocations(ResultSet rs) throws SQLException {
         Set<StreamLocation> retVal = new LinkedHashSet<>();
         while (rs.next()) {
             String locationId = rs.getString("LOCATION_ID");
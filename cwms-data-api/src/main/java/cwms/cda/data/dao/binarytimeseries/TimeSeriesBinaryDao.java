@@ -78,6 +78,48 @@ public final class TimeSeriesBinaryDao extends JooqDao<BinaryTimeSeries> {
                 maxVersion, storeExisting, storeNonExisting, replaceAll);
     }
 
+    /**
+     * Store binary data read from a stream at a single time of a time series, without holding
+     * the data in memory.
+     * @param officeId the owning office
+     * @param tsId the time series identifier
+     * @param binaryData the data, read until the end of the stream
+     * @param binaryType internet media type or file extension of the data
+     * @param dateTime the time of the data
+     * @param versionInstant the version date, or null for the maximum version date
+     * @param maxVersion whether to use the maximum version date when versionInstant is null
+     * @param replaceAll whether to replace existing data at the time
+     */
+    public void store(String officeId, String tsId, InputStream binaryData, String binaryType,
+                      @NotNull Instant dateTime, Instant versionInstant, boolean maxVersion,
+                      boolean replaceAll) {
+        Timestamp dateStamp = Timestamp.from(dateTime);
+        Timestamp verStamp = versionInstant == null ? null : Timestamp.from(versionInstant);
+        connection(dsl, connection -> {
+            setOffice(connection, officeId);
+            Blob lob = BlobDao.copyToTemporaryBlob(connection, binaryData);
+            try (CallableStatement stmt = connection.prepareCall(
+                    "{call CWMS_TEXT.STORE_TS_BINARY(?,?,?,?,?,?,?,?,?,?,?,?,?)}")) {
+                stmt.setString(1, tsId);
+                stmt.setBlob(2, lob);
+                stmt.setString(3, binaryType);
+                stmt.setTimestamp(4, dateStamp, UTC_CALENDAR);
+                stmt.setTimestamp(5, dateStamp, UTC_CALENDAR);
+                stmt.setTimestamp(6, verStamp, UTC_CALENDAR);
+                stmt.setString(7, "UTC");
+                stmt.setString(8, formatBool(maxVersion));
+                stmt.setString(9, "T");
+                stmt.setString(10, "T");
+                stmt.setString(11, formatBool(replaceAll));
+                stmt.setNull(12, Types.NUMERIC);
+                stmt.setString(13, officeId);
+                stmt.execute();
+            } finally {
+                lob.free();
+            }
+        });
+    }
+
     /**
      * Store binary data to a time series. The binary data can be:
      * <ul>
@@ -0,0 +1,202 @@
+package cwms.cda.data.dao.location;
+
+import javax.annotation.Nullable;
+
+/**
+ * A longitude/latitude box, in decimal degrees, optionally narrowed to a circle around its center.
+ *
+ * <p>A box whose minimum longitude is greater than its maximum longitude crosses the
+ * antimeridian.  The center of a box built {@link #around(double, double, double) around} a
+ * point is that point, which is not the middle of the box once the box is clamped at a pole or
+ * covers every longitude.
+ */
+public final class BoundingBox {
+    /** Mean earth radius used for distances, in kilometers. */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+    private final Double radiusKm;
+    private final double centerLon;
+    private final double centerLat;
+
+    public BoundingBox(double minLon, double minLat, double maxLon, double maxLat,
+                       @Nullable Double radiusKm) {
+        this(minLon, minLat, maxLon, maxLat, radiusKm,
+                minLon > maxLon ? wrap((minLon + maxLon + 360) / 2) : (minLon + maxLon) / 2,
+                (minLat + maxLat) / 2);
+    }
+
+    private BoundingBox(double minLon, double minLat, double maxLon, double maxLat,
+                        @Nullable Double radiusKm, double centerLon, double centerLat) {
+        checkLongitude(minLon);
+        checkLongitude(maxLon);
+        checkLatitude(minLat);
+        checkLatitude(maxLat);
+        if (minLat > maxLat) {
+            throw new IllegalArgumentException("Bounding box minimum latitude " + minLat
+                    + " is greater than maximum latitude " + maxLat);
+        }
+        if (radiusKm != null && !(radiusKm > 0)) {
+            throw new IllegalArgumentException("Radius must be greater than zero, got " + radiusKm);
+        }
+        this.minLon = minLon;
+        this.minLat = minLat;
+        this.maxLon = maxLon;
+        this.maxLat = maxLat;
+        this.radiusKm = radiusKm;
+        this.centerLon = centerLon;
+        this.centerLat = centerLat;
+    }
+
+    /**
+     * Parse a bbox query parameter.
+     * @param bbox either {@code minLon,minLat,maxLon,maxLat} or, when a radius is given,
+     *             the center point as {@code lon,lat}
+     * @param radiusKm optional radius in kilometers around the center of the box
+     * @return the bounding box, or null when no bbox was provided
+     * @throws IllegalArgumentException if the values can't be parsed or are out of range
+     */
+    @Nullable
+    public static BoundingBox parse(@Nullable String bbox, @Nullable Double radiusKm) {
+        if (bbox == null || bbox.trim().isEmpty()) {
+            if (radiusKm != null) {
+                throw new IllegalArgumentException("A radius requires a bbox to center it on.");
+            }
+            return null;
+        }
+        String[] parts = bbox.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                values[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid bbox value '" + parts[i] + "' in " + bbox, ex);
+            }
+        }
+        if (values.length == 4) {
+            return new BoundingBox(values[0], values[1], values[2], values[3], radiusKm);
+        }
+        if (values.length == 2 && radiusKm != null) {
+            return around(values[0], values[1], radiusKm);
+        }
+        throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat"
+                + " (or lon,lat with a radius), got " + bbox);
+    }
+
+    /**
+     * The box enclosing a circle.
+     * @param lon center longitude
+     * @param lat center latitude
+     * @param radiusKm radius in kilometers
+     * @return a box limited to the circle
+     */
+    public static BoundingBox around(double lon, double lat, double radiusKm) {
+        checkLongitude(lon);
+        checkLatitude(lat);
+        double latDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = Math.max(-90, lat - latDelta);
+        double maxLat = Math.min(90, lat + latDelta);
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonDelta = cosLat <= 0 ? 180 : Math.toDegrees(radiusKm / (EARTH_RADIUS_KM * cosLat));
+        if (lonDelta >= 180) {
+            return new BoundingBox(-180, minLat, 180, maxLat, radiusKm, lon, lat);
+        }
+        return new BoundingBox(wrap(lon - lonDelta), minLat, wrap(lon + lonDelta), maxLat, radiusKm,
+                lon, lat);
+    }
+
+    public double getMinLon() {
+        return minLon;
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    @Nullable
+    public Double getRadiusKm() {
+        return radiusKm;
+    }
+
+    public boolean crossesAntimeridian() {
+        return minLon > maxLon;
+    }
+
+    /**
+     * @return the latitude distances are measured from when there is a radius
+     */
+    public double getCenterLat() {
+        return centerLat;
+    }
+
+    /**
+     * @return the longitude distances are measured from when there is a radius
+     */
+    public double getCenterLon() {
+        return centerLon;
+    }
+
+    public boolean contains(double lon, double lat) {
+        if (lat < minLat || lat > maxLat) {
+            return false;
+        }
+        boolean inLon = crossesAntimeridian()
+                ? lon >= minLon || lon <= maxLon
+                : lon >= minLon && lon <= maxLon;
+        if (!inLon) {
+            return false;
+        }
+        return radiusKm == null || distanceKm(centerLon, centerLat, lon, lat) <= radiusKm;
+    }
+
+    /**
+     * Great circle distance, haversine formula.
+     */
+    static double distanceKm(double lon1, double lat1, double lon2, double lat2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static double wrap(double lon) {
+        if (lon > 180) {
+            return lon - 360;
+        }
+        if (lon < -180) {
+            return lon + 360;
+        }
+        return lon;
+    }
+
+    private static void checkLongitude(double lon) {
+        if (Double.isNaN(lon) || lon < -180 || lon > 180) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180, got " + lon);
+        }
+    }
+
+    private static void checkLatitude(double lat) {
+        if (Double.isNaN(lat) || lat < -90 || lat > 90) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90, got " + lat);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return minLon + "," + minLat + "," + maxLon + "," + maxLat
+                + (radiusKm == null ? "" : " radius " + radiusKm + "km");
+    }
+}
@@ -0,0 +1,146 @@
+package cwms.cda.data.dao.location;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable grid index of location coordinates.  Each location is filed under the cell of a
+ * fixed degree grid that contains it, so a box query only looks at the locations in the cells the
+ * box overlaps instead of every location.
+ */
+public final class LocationSpatialIndex {
+    public static final double DEFAULT_CELL_DEGREES = 0.5;
+
+    private final double cellDegrees;
+    private final int lonCells;
+    private final int latCells;
+    private final Map<Integer, List<Entry>> cells = new HashMap<>();
+    private final List<Entry> entries;
+
+    public LocationSpatialIndex(Collection<Entry> entries) {
+        this(entries, DEFAULT_CELL_DEGREES);
+    }
+
+    public LocationSpatialIndex(Collection<Entry> entries, double cellDegrees) {
+        if (!(cellDegrees > 0)) {
+            throw new IllegalArgumentException("Cell size must be greater than zero, got " + cellDegrees);
+        }
+        this.cellDegrees = cellDegrees;
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+        this.latCells = (int) Math.ceil(180 / cellDegrees);
+        List<Entry> indexed = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (entry.latitude < -90 || entry.latitude > 90
+                    || entry.longitude < -180 || entry.longitude > 180) {
+                continue;
+            }
+            indexed.add(entry);
+            cells.computeIfAbsent(cellKey(lonCell(entry.longitude), latCell(entry.latitude)),
+                    k -> new ArrayList<>()).add(entry);
+        }
+        this.entries = Collections.unmodifiableList(indexed);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Find the locations within a box.
+     * @param box the area to search
+     * @return the matching locations, in no particular order
+     */
+    public List<Entry> query(BoundingBox box) {
+        int minLatCell = latCell(box.getMinLat());
+        int maxLatCell = latCell(box.getMaxLat());
+        int minLonCell = lonCell(box.getMinLon());
+        int maxLonCell = lonCell(box.getMaxLon());
+        int lonSpan = box.crossesAntimeridian()
+                ? lonCells - minLonCell + maxLonCell + 1
+                : maxLonCell - minLonCell + 1;
+        long cellCount = (long) lonSpan * (maxLatCell - minLatCell + 1);
+
+        List<Entry> retval = new ArrayList<>();
+        if (cellCount >= cells.size()) {
+            // Big box, fewer occupied cells than the box covers.
+            for (List<Entry> cell : cells.values()) {
+                addContained(cell, box, retval);
+            }
+            return retval;
+        }
+        for (int i = 0; i < lonSpan; i++) {
+            int lon = (minLonCell + i) % lonCells;
+            for (int lat = minLatCell; lat <= maxLatCell; lat++) {
+                List<Entry> cell = cells.get(cellKey(lon, lat));
+                if (cell != null) {
+                    addContained(cell, box, retval);
+                }
+            }
+        }
+        return retval;
+    }
+
+    private static void addContained(List<Entry> cell, BoundingBox box, List<Entry> retval) {
+        for (Entry entry : cell) {
+            if (box.contains(entry.longitude, entry.latitude)) {
+                retval.add(entry);
+            }
+        }
+    }
+
+    private int lonCell(double lon) {
+        return Math.min(lonCells - 1, (int) Math.floor((lon + 180) / cellDegrees));
+    }
+
+    private int latCell(double lat) {
+        return Math.min(latCells - 1, (int) Math.floor((lat + 90) / cellDegrees));
+    }
+
+    private int cellKey(int lonCell, int latCell) {
+        return latCell * lonCells + lonCell;
+    }
+
+    /**
+     * A location and its coordinates.
+     */
+    public static final class Entry {
+        private final long locationCode;
+        private final String officeId;
+        private final String locationId;
+        private final double latitude;
+        private final double longitude;
+
+        public Entry(long locationCode, String officeId, String locationId,
+                     double latitude, double longitude) {
+            this.locationCode = locationCode;
+            this.officeId = officeId;
+            this.locationId = locationId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public long getLocationCode() {
+            return locationCode;
+        }
+
+        public String getOfficeId() {
+            return officeId;
+        }
+
+        public String getLocationId() {
+            return locationId;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+}
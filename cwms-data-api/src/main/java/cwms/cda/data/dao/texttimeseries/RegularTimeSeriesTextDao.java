@@ -1,5 +1,8 @@
 package cwms.cda.data.dao.texttimeseries;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.flogger.FluentLogger;
 import cwms.cda.api.Controllers;
 import cwms.cda.api.enums.VersionType;
@@ -30,7 +33,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 import static java.lang.String.format;
@@ -38,6 +43,9 @@ import usace.cwms.db.jooq.codegen.udt.records.DATE_TABLE_TYPE;
 
 public final class RegularTimeSeriesTextDao extends JooqDao {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    public static final String PROP_BASE = "cwms.cda.data.dao.texttimeseries";
+    /** Dates per STORE_TS_TEXT call when storing; zero or less sends each text in a single call. */
+    private static final int STORE_BATCH_SIZE = Integer.getInteger(PROP_BASE + ".store.batchSize", 10000);
 
     private static final TimeZone DEFAULT_TIME_ZONE = TimeZone.getDefault();
     public static final String TYPE = "Text Time Series";
@@ -61,8 +69,22 @@ public final class RegularTimeSeriesTextDao extends JooqDao {
     private static final int TEXT_DOES_NOT_EXIST_ERROR_CODE = 20034;
     private static final int TEXT_ID_DOES_NOT_EXIST_ERROR_CODE = 20001;
 
+    private final Timer storeBatchTimer;
+    private final Histogram storeBatchSize;
+
     public RegularTimeSeriesTextDao(DSLContext dsl) {
+        this(dsl, null);
+    }
+
+    public RegularTimeSeriesTextDao(DSLContext dsl, @Nullable MetricRegistry metrics) {
         super(dsl);
+        if (metrics != null) {
+            storeBatchTimer = metrics.timer(MetricRegistry.name(RegularTimeSeriesTextDao.class, "store", "batch"));
+            storeBatchSize = metrics.histogram(MetricRegistry.name(RegularTimeSeriesTextDao.class, "store", "batch", "size"));
+        } else {
+            storeBatchTimer = null;
+            storeBatchSize = null;
+        }
     }
 
     protected TextTimeSeries retrieveTimeSeriesText(
@@ -190,29 +212,60 @@ public final class RegularTimeSeriesTextDao extends JooqDao {
 
     public void storeRows(String officeId, String id, boolean replaceAll,
                           Collection<RegularTextTimeSeriesRow> regRows, Instant versionDate) {
-        // This could be made into a more efficient bulk store.
-        // We'd have to sort the rows by textId and textValue pairs and then build a set of all the matching dates
-        // Then for each set of dates we'd call the appropriate storeTsText or storeTsTextId method.
+        // STORE_TS_TEXT takes one text and a table of dates, so rows sharing a text go in one call
+        // and the number of calls follows the number of distinct texts rather than rows.
+        Map<String, List<Timestamp>> datesByText = groupByText(regRows, replaceAll);
+        Timestamp versionTimestamp = versionDate == null ? null : Timestamp.from(versionDate);
+        int batchSize = STORE_BATCH_SIZE <= 0 ? Integer.MAX_VALUE : STORE_BATCH_SIZE;
 
         connection(dsl, connection -> {
-            DSLContext dslContext = getDslContext(connection, officeId);
-            for (RegularTextTimeSeriesRow regRow : regRows) {
-                storeRow(dslContext.configuration(), officeId, id, replaceAll, regRow, versionDate);
+            Configuration configuration = getDslContext(connection, officeId).configuration();
+            for (Map.Entry<String, List<Timestamp>> entry : datesByText.entrySet()) {
+                List<Timestamp> dates = entry.getValue();
+                for (int start = 0; start < dates.size(); start += batchSize) {
+                    DATE_TABLE_TYPE dateTableType = new DATE_TABLE_TYPE();
+                    dateTableType.addAll(dates.subList(start, Math.min(start + batchSize, dates.size())));
+                    storeBatch(configuration, officeId, id, replaceAll, entry.getKey(), dateTableType,
+                            versionTimestamp);
+                }
             }
         });
+        logger.atFine().log("Stored %d text rows of %s in %d distinct texts", regRows.size(), id,
+                datesByText.size());
     }
 
-    private void storeRow(Configuration configuration, String officeId, String tsId, boolean replaceAll,
-                          RegularTextTimeSeriesRow regularTextTimeSeriesRow,
-                          Instant versionDate) {
-        String textValue = regularTextTimeSeriesRow.getTextValue();
-        Instant dateTime = regularTextTimeSeriesRow.getDateTime();
-
-        DATE_TABLE_TYPE dateTableType = new DATE_TABLE_TYPE();
-        dateTableType.add(Timestamp.from(dateTime));
-        CWMS_TEXT_PACKAGE.call_STORE_TS_TEXT__2(configuration, tsId, textValue, dateTableType,
-                versionDate == null ? null : Timestamp.from(versionDate), "UTC",
-                "T", formatBool(replaceAll), null, officeId);
+    /**
+     * Groups the dates of rows by their text, in order of first appearance.
+     * When replacing, only the last row for a date is kept since a later row would replace it
+     * anyway; otherwise every row is kept as the stores don't interact.
+     */
+    static Map<String, List<Timestamp>> groupByText(Collection<RegularTextTimeSeriesRow> regRows,
+                                                    boolean replaceAll) {
+        Collection<RegularTextTimeSeriesRow> rows = regRows;
+        if (replaceAll) {
+            Map<Instant, RegularTextTimeSeriesRow> lastByDate = new LinkedHashMap<>();
+            for (RegularTextTimeSeriesRow regRow : regRows) {
+                lastByDate.put(regRow.getDateTime(), regRow);
+            }
+            rows = lastByDate.values();
+        }
+        Map<String, List<Timestamp>> retVal = new LinkedHashMap<>();
+        for (RegularTextTimeSeriesRow regRow : rows) {
+            retVal.computeIfAbsent(regRow.getTextValue(), k -> new ArrayList<>())
+                    .add(Timestamp.from(regRow.getDateTime()));
+        }
+        return retVal;
+    }
+
+    private void storeBatch(Configuration configuration, String officeId, String tsId, boolean replaceAll,
+                            String textValue, DATE_TABLE_TYPE dateTableType, Timestamp versionDate) {
+        if (storeBatchSize != null) {
+            storeBatchSize.update(dateTableType.size());
+        }
+        try (Timer.Context ignored = storeBatchTimer == null ? null : storeBatchTimer.time()) {
+            CWMS_TEXT_PACKAGE.call_STORE_TS_TEXT__2(configuration, tsId, textValue, dateTableType,
+                    versionDate, "UTC", "T", formatBool(replaceAll), null, officeId);
+        }
     }
 
     public void delete(String officeId, String tsId, String textMask,
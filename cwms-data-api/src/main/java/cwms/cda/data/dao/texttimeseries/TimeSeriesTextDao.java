@@ -1,5 +1,6 @@
 package cwms.cda.data.dao.texttimeseries;
 
+import com.codahale.metrics.MetricRegistry;
 import cwms.cda.api.enums.VersionType;
 import cwms.cda.data.dao.JooqDao;
 import cwms.cda.data.dao.TimeSeriesDaoImpl;
@@ -19,8 +20,15 @@ public final class TimeSeriesTextDao extends JooqDao<TextTimeSeries> {
     public static final int TEXT_DOES_NOT_EXIST_ERROR_CODE = 20034;
     public static final int TEXT_ID_DOES_NOT_EXIST_ERROR_CODE = 20001;
 
+    private final MetricRegistry metrics;
+
     public TimeSeriesTextDao(DSLContext dsl) {
+        this(dsl, null);
+    }
+
+    public TimeSeriesTextDao(DSLContext dsl, @Nullable MetricRegistry metrics) {
         super(dsl);
+        this.metrics = metrics;
     }
 
     public TextTimeSeries retrieveFromDao(@NotNull String officeId, @NotNull String tsId,
@@ -77,6 +85,6 @@ public final class TimeSeriesTextDao extends JooqDao<TextTimeSeries> {
 
     @NotNull
     private RegularTimeSeriesTextDao getRegularDao(){
-        return new RegularTimeSeriesTextDao(dsl);
+        return new RegularTimeSeriesTextDao(dsl, metrics);
     }
 }
@@ -33,6 +33,18 @@ public class LocationLevels extends CwmsDTOPaginated {
         this.offset = offset;
     }
 
+    /**
+     * A page that starts after a key rather than an offset.
+     * @param page key of the last level of the previous page, "*" for the first page
+     * @param pageSize the page size
+     * @param total total number of keys, null if unknown
+     */
+    public LocationLevels(String page, int pageSize, Integer total) {
+        super(page, pageSize, total);
+        levels = new ArrayList<>();
+        this.offset = -1;
+    }
+
     public List<LocationLevel> getLevels() {
         return Collections.unmodifiableList(levels);
     }
@@ -40,13 +52,34 @@ public class LocationLevels extends CwmsDTOPaginated {
 
     public static class Builder {
         private LocationLevels workingLevels;
+        private final boolean keyset;
+        private String nextPageKey;
 
         public Builder(int offset, int pageSize, Integer total) {
             workingLevels = new LocationLevels(offset, pageSize, total);
+            keyset = false;
+        }
+
+        public Builder(String page, int pageSize, Integer total) {
+            workingLevels = new LocationLevels(page, pageSize, total);
+            keyset = true;
+        }
+
+        /**
+         * Where the next page starts when paging by key, leave unset on the last page.
+         * @param nextPageKey key of the last level on this page
+         * @return this builder
+         */
+        public Builder withNextPageKey(String nextPageKey) {
+            this.nextPageKey = nextPageKey;
+            return this;
         }
 
         public LocationLevels build() {
-            if (this.workingLevels.levels.size() == this.workingLevels.pageSize) {
+            if (keyset) {
+                this.workingLevels.nextPage = nextPageKey == null ? null
+                        : encodeCursor(nextPageKey, this.workingLevels.pageSize, this.workingLevels.total);
+            } else if (this.workingLevels.levels.size() == this.workingLevels.pageSize) {
 
                 String cursor =
                         Integer.toString(this.workingLevels.offset + this.workingLevels.levels.size());
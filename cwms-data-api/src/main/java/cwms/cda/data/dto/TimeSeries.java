@@ -22,8 +22,12 @@ import java.lang.reflect.Field;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.RandomAccess;
 
 @JsonRootName("timeseries")
 @JsonPropertyOrder(alphabetic = true)
@@ -75,13 +79,18 @@ public class TimeSeries extends CwmsDTOPaginated {
     )
     ZonedDateTime end;
 
-    @ArraySchema(
-            schema = @Schema(
-                    description = "List of retrieved time-series values",
-                    implementation = Record.class
-            )
-    )
-    List<Record> values;
+    // Values are held column-wise rather than as one Record per point; a Timestamp, a boxed
+    // Double and the Record itself cost several times more than the primitives they hold.
+    // getValues() exposes them as a List<Record> view so the wire format is unchanged.
+    private static final int CHUNK_SIZE = 1024;
+
+    private long[] dateTimes = new long[0];
+    private double[] dataValues = new double[0];
+    private final BitSet missing = new BitSet();
+    private int[] qualityCodes = new int[0];
+    private int size = 0;
+
+    private final List<Record> valueList = new ValueList();
 
     @Schema(
             accessMode = AccessMode.READ_ONLY,
@@ -126,7 +135,9 @@ public class TimeSeries extends CwmsDTOPaginated {
         this.verticalDatumInfo = info;
         this.intervalOffset = intervalOffset;
         this.timeZone = timeZone;
-        values = new ArrayList<>();
+        if (pageSize > 0) {
+            ensureCapacity(Math.min(pageSize, CHUNK_SIZE));
+        }
     }
 
     public String getName() {
@@ -160,13 +171,19 @@ public class TimeSeries extends CwmsDTOPaginated {
 
     // Use the array shape to optimize data transfer to client
     @JsonFormat(shape=JsonFormat.Shape.ARRAY)
+    @ArraySchema(
+            schema = @Schema(
+                    description = "List of retrieved time-series values",
+                    implementation = Record.class
+            )
+    )
     public List<Record> getValues() {
-        return values;
+        return valueList;
     }
 
     @JsonIgnore
     public List<Record> getXmlValues() {
-        return values;
+        return valueList;
     }
 
     public VerticalDatumInfo getVerticalDatumInfo()
@@ -195,15 +212,95 @@ public class TimeSeries extends CwmsDTOPaginated {
     }
 
     public boolean addValue(Timestamp dateTime, Double value, int qualityCode) {
+        return addValue(dateTime.getTime(), value, qualityCode);
+    }
+
+    /**
+     * Same as {@link #addValue(Timestamp, Double, int)} without requiring a Timestamp.
+     *
+     * @param dateTime milliseconds since the Unix epoch, UTC
+     * @param value data value, null if missing
+     * @param qualityCode quality code
+     * @return false if the page is full and the value was not added.
+     */
+    public boolean addValue(long dateTime, Double value, int qualityCode) {
+        if (!trackValue(dateTime, size)) {
+            return false;
+        }
+        append(dateTime, value, qualityCode);
+        return true;
+    }
+
+    /**
+     * Applies the paging rules of {@link #addValue(Timestamp, Double, int)} to a value that is
+     * written out by the caller instead of being held in this object.
+     *
+     * @param dateTime time of the value
+     * @param count number of values already accepted for this page
+     * @return false if the page is full; the value then becomes the start of the next page.
+     */
+    public boolean trackValue(Timestamp dateTime, int count) {
+        return trackValue(dateTime.getTime(), count);
+    }
+
+    private boolean trackValue(long dateTime, int count) {
         // Set the current page, if not set
-        if((page == null || page.isEmpty()) && values.isEmpty()) {
-            page = encodeCursor(String.format("%d", dateTime.getTime()), pageSize, total);
+        if ((page == null || page.isEmpty()) && count == 0) {
+            page = encodeCursor(Long.toString(dateTime), pageSize, total);
         }
-        if(pageSize > 0 && values.size() == pageSize) {
-            nextPage = encodeCursor(String.format("%d", dateTime.toInstant().toEpochMilli()), pageSize, total);
+        if (pageSize > 0 && count == pageSize) {
+            nextPage = encodeCursor(Long.toString(dateTime), pageSize, total);
             return false;
+        }
+        return true;
+    }
+
+    private void append(long dateTime, Double value, int qualityCode) {
+        ensureCapacity(size + 1);
+        dateTimes[size] = dateTime;
+        if (value == null) {
+            missing.set(size);
+            dataValues[size] = Double.NaN;
         } else {
-            return values.add(new Record(dateTime, value, qualityCode));
+            dataValues[size] = value;
+        }
+        qualityCodes[size] = qualityCode;
+        size++;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = dateTimes.length;
+        if (required > capacity) {
+            int newCapacity = Math.max(required, capacity + Math.max(capacity >> 1, CHUNK_SIZE));
+            dateTimes = Arrays.copyOf(dateTimes, newCapacity);
+            dataValues = Arrays.copyOf(dataValues, newCapacity);
+            qualityCodes = Arrays.copyOf(qualityCodes, newCapacity);
+        }
+    }
+
+    /**
+     * Read-only view of the value columns, except for appending which Jackson relies on when
+     * deserializing the values property.
+     */
+    private final class ValueList extends AbstractList<Record> implements RandomAccess {
+        @Override
+        public Record get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            Double value = missing.get(index) ? null : dataValues[index];
+            return new Record(new Timestamp(dateTimes[index]), value, qualityCodes[index]);
+        }
+
+        @Override
+        public boolean add(Record rec) {
+            append(rec.getDateTime().getTime(), rec.getValue(), rec.getQualityCode());
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 
@@ -0,0 +1,154 @@
+package cwms.cda.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import cwms.cda.formatters.Formats;
+import cwms.cda.formatters.annotations.FormattableWith;
+import cwms.cda.formatters.json.JsonV2;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Body of a POST to /timeseries/bulk: one time window applied to a list of time series.
+ */
+@JsonDeserialize(builder = TimeSeriesBulkRequest.Builder.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+@FormattableWith(contentType = Formats.JSONV2, formatter = JsonV2.class, aliases = {Formats.DEFAULT, Formats.JSON})
+public class TimeSeriesBulkRequest extends CwmsDTO {
+
+    @Schema(description = "Names of the time series to retrieve")
+    @JsonProperty(required = true)
+    private final List<String> names;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    @Schema(description = "Start of the time window, in ISO-8601 format with offset and timezone ('"
+            + TimeSeries.ZONED_DATE_TIME_FORMAT + "')")
+    @JsonProperty(required = true)
+    private final ZonedDateTime begin;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    @Schema(description = "End of the time window, in ISO-8601 format with offset and timezone ('"
+            + TimeSeries.ZONED_DATE_TIME_FORMAT + "')")
+    @JsonProperty(required = true)
+    private final ZonedDateTime end;
+
+    @Schema(description = "Units for the returned values: EN, SI or a specific unit. Defaults to EN.")
+    private final String units;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    @Schema(description = "Version date of the data to retrieve. Defaults to the latest version.")
+    private final ZonedDateTime versionDate;
+
+    @Schema(description = "Whether to trim missing values from the start and end of each "
+            + "series. Defaults to true.")
+    private final Boolean trim;
+
+    private TimeSeriesBulkRequest(Builder builder) {
+        super(builder.officeId);
+        this.names = builder.names == null ? null
+                : Collections.unmodifiableList(new ArrayList<>(builder.names));
+        this.begin = builder.begin;
+        this.end = builder.end;
+        this.units = builder.units;
+        this.versionDate = builder.versionDate;
+        this.trim = builder.trim;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public ZonedDateTime getBegin() {
+        return begin;
+    }
+
+    public ZonedDateTime getEnd() {
+        return end;
+    }
+
+    public String getUnits() {
+        return units;
+    }
+
+    public ZonedDateTime getVersionDate() {
+        return versionDate;
+    }
+
+    public Boolean getTrim() {
+        return trim;
+    }
+
+    @Override
+    protected void validateInternal(CwmsDTOValidator validator) {
+        super.validateInternal(validator);
+        validator.validate(() -> {
+            if (names != null && names.isEmpty()) {
+                throw new IllegalArgumentException("At least one time series name is required");
+            }
+            if (begin != null && end != null && begin.isAfter(end)) {
+                throw new IllegalArgumentException("begin must not be after end");
+            }
+            return null;
+        });
+    }
+
+    @JsonPOJOBuilder
+    @JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+    public static class Builder {
+        private String officeId;
+        private List<String> names;
+        private ZonedDateTime begin;
+        private ZonedDateTime end;
+        private String units;
+        private ZonedDateTime versionDate;
+        private Boolean trim;
+
+        public Builder withOfficeId(String officeId) {
+            this.officeId = officeId;
+            return this;
+        }
+
+        public Builder withNames(List<String> names) {
+            this.names = names;
+            return this;
+        }
+
+        public Builder withBegin(ZonedDateTime begin) {
+            this.begin = begin;
+            return this;
+        }
+
+        public Builder withEnd(ZonedDateTime end) {
+            this.end = end;
+            return this;
+        }
+
+        public Builder withUnits(String units) {
+            this.units = units;
+            return this;
+        }
+
+        public Builder withVersionDate(ZonedDateTime versionDate) {
+            this.versionDate = versionDate;
+            return this;
+        }
+
+        public Builder withTrim(Boolean trim) {
+            this.trim = trim;
+            return this;
+        }
+
+        public TimeSeriesBulkRequest build() {
+            return new TimeSeriesBulkRequest(this);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package cwms.cda.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRootName;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import cwms.cda.formatters.Formats;
+import cwms.cda.formatters.annotations.FormattableWith;
+import cwms.cda.formatters.json.JsonV2;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Outcome of storing one time series of a POST to /timeseries/batch.
+ */
+@JsonRootName("time-series-store-result")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+@FormattableWith(contentType = Formats.JSONV2, formatter = JsonV2.class, aliases = {Formats.DEFAULT, Formats.JSON})
+public final class TimeSeriesStoreResult extends CwmsDTO {
+
+    @Schema(description = "Time series identifier")
+    private final String name;
+
+    @Schema(description = "Whether the values of the time series were stored")
+    private final boolean stored;
+
+    @Schema(description = "Why the time series could not be stored")
+    private final String message;
+
+    private TimeSeriesStoreResult(String officeId, String name, boolean stored, String message) {
+        super(officeId);
+        this.name = name;
+        this.stored = stored;
+        this.message = message;
+    }
+
+    public static TimeSeriesStoreResult stored(String officeId, String name) {
+        return new TimeSeriesStoreResult(officeId, name, true, null);
+    }
+
+    public static TimeSeriesStoreResult failed(String officeId, String name, String message) {
+        return new TimeSeriesStoreResult(officeId, name, false, message);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
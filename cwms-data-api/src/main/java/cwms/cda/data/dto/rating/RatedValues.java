@@ -0,0 +1,126 @@
+package cwms.cda.data.dto.rating;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import cwms.cda.data.dto.CwmsDTO;
+import cwms.cda.formatters.Formats;
+import cwms.cda.formatters.annotations.FormattableWith;
+import cwms.cda.formatters.json.JsonV2;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dependent values computed by a rating for a set of independent values.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+@FormattableWith(contentType = Formats.JSONV2, formatter = JsonV2.class, aliases = {Formats.DEFAULT, Formats.JSON})
+public class RatedValues extends CwmsDTO {
+    private final String ratingId;
+    private final List<String> independentUnits;
+    private final String dependentUnit;
+    private final List<Value> values;
+
+    private RatedValues(Builder builder) {
+        super(builder.officeId);
+        this.ratingId = builder.ratingId;
+        this.independentUnits = builder.independentUnits;
+        this.dependentUnit = builder.dependentUnit;
+        this.values = Collections.unmodifiableList(builder.values);
+    }
+
+    public String getRatingId() {
+        return ratingId;
+    }
+
+    public List<String> getIndependentUnits() {
+        return independentUnits;
+    }
+
+    public String getDependentUnit() {
+        return dependentUnit;
+    }
+
+    @ArraySchema(schema = @Schema(implementation = Value.class,
+            description = "[date-time in epoch milliseconds, [independent values], dependent value]"))
+    public List<Value> getValues() {
+        return values;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"date-time", "independent-values", "dependent-value"})
+    @JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+    public static final class Value {
+        private final long dateTime;
+        private final double[] independentValues;
+        private final Double dependentValue;
+
+        public Value(long dateTime, double[] independentValues, Double dependentValue) {
+            this.dateTime = dateTime;
+            this.independentValues = independentValues;
+            this.dependentValue = dependentValue;
+        }
+
+        public long getDateTime() {
+            return dateTime;
+        }
+
+        public double[] getIndependentValues() {
+            return independentValues;
+        }
+
+        public Double getDependentValue() {
+            return dependentValue;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + dateTime + ", " + Arrays.toString(independentValues) + ", "
+                    + dependentValue + "]";
+        }
+    }
+
+    public static class Builder {
+        private String officeId;
+        private String ratingId;
+        private List<String> independentUnits;
+        private String dependentUnit;
+        private final List<Value> values = new ArrayList<>();
+
+        public Builder withOfficeId(String officeId) {
+            this.officeId = officeId;
+            return this;
+        }
+
+        public Builder withRatingId(String ratingId) {
+            this.ratingId = ratingId;
+            return this;
+        }
+
+        public Builder withIndependentUnits(List<String> independentUnits) {
+            this.independentUnits = independentUnits;
+            return this;
+        }
+
+        public Builder withDependentUnit(String dependentUnit) {
+            this.dependentUnit = dependentUnit;
+            return this;
+        }
+
+        public Builder withValue(Value value) {
+            this.values.add(value);
+            return this;
+        }
+
+        public RatedValues build() {
+            return new RatedValues(this);
+        }
+    }
+}
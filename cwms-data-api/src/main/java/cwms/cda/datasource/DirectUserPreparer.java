@@ -16,6 +16,7 @@ public class DirectUserPreparer implements ConnectionPreparer {
     public Connection prepare(Connection conn) {
         if (user != null) {
             String sql = "begin cwms_env.set_session_user_direct(upper(?)); end;";
+            SessionStatePreparer.forget(conn);
             try (PreparedStatement setApiUser = conn.prepareStatement(sql)) {
                 setApiUser.setString(1,user);
                 setApiUser.execute();                
@@ -0,0 +1,104 @@
+package cwms.cda.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.exception.DataAccessException;
+
+/**
+ * Hands every statement of a request the same connection, so a request checks a connection out of
+ * the pool, and prepares it, once.  The connection is returned to the pool by {@link #close()} once
+ * the request's database work is done, or by the last release if it is still in use then.
+ *
+ * <p>A request that works on several threads at once, e.g. RatingMetadataDao fetching ratings in
+ * parallel, can't share one connection.  While the pinned connection is in use by one thread any
+ * other thread gets a connection of its own, which is returned as soon as it's released.
+ */
+public class RequestConnectionProvider implements ConnectionProvider, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(RequestConnectionProvider.class.getName());
+
+    private final DataSource dataSource;
+    private Connection pinned;
+    private Thread owner;
+    private int depth;
+    private boolean closed;
+
+    public RequestConnectionProvider(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Connection acquire() throws DataAccessException {
+        synchronized (this) {
+            Thread current = Thread.currentThread();
+            if (!closed && (owner == null || owner == current)) {
+                if (pinned == null) {
+                    pinned = getConnection();
+                }
+                owner = current;
+                depth++;
+                return pinned;
+            }
+        }
+        return getConnection();
+    }
+
+    @Override
+    public void release(Connection connection) throws DataAccessException {
+        synchronized (this) {
+            if (connection == pinned) {
+                depth--;
+                if (depth > 0) {
+                    return;
+                }
+                owner = null;
+                if (!closed) {
+                    return;
+                }
+                pinned = null;
+            }
+        }
+        closeConnection(connection);
+    }
+
+    /**
+     * Return the pinned connection to the pool.  If a statement still holds it, it is returned
+     * when that statement releases it instead.  Anything using this provider afterwards gets a
+     * connection per statement, as a DataSource would.
+     */
+    @Override
+    public void close() {
+        Connection toClose;
+        synchronized (this) {
+            closed = true;
+            if (depth > 0) {
+                return;
+            }
+            toClose = pinned;
+            pinned = null;
+            owner = null;
+        }
+        if (toClose != null) {
+            closeConnection(toClose);
+        }
+    }
+
+    private Connection getConnection() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException ex) {
+            throw new DataAccessException("Error getting connection from data source " + dataSource, ex);
+        }
+    }
+
+    private static void closeConnection(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Unable to return connection to the pool.", ex);
+        }
+    }
+}
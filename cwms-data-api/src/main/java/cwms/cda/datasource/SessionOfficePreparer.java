@@ -3,11 +3,7 @@ package cwms.cda.datasource;
 import java.sql.Connection;
 import java.util.logging.Logger;
 
-import org.jooq.DSLContext;
-import org.jooq.SQLDialect;
 import org.jooq.exception.DataAccessException;
-import org.jooq.impl.DSL;
-import usace.cwms.db.jooq.codegen.packages.CWMS_ENV_PACKAGE;
 
 public class SessionOfficePreparer implements ConnectionPreparer {
     private static final Logger logger = Logger.getLogger(SessionOfficePreparer.class.getName());
@@ -22,10 +18,9 @@ public class SessionOfficePreparer implements ConnectionPreparer {
     public Connection prepare(Connection conn) {
 
         if(office != null && !office.isEmpty()) {
-            DSLContext dsl = DSL.using(conn, SQLDialect.ORACLE18C);
             try {
                 logger.fine("Setting office to: " + office);
-                CWMS_ENV_PACKAGE.call_SET_SESSION_OFFICE_ID(dsl.configuration(), office);
+                SessionStatePreparer.setOffice(conn, office);
             } catch (Exception e) {
                 throw new DataAccessException("Unable to set session office id to " + office, e);
             }
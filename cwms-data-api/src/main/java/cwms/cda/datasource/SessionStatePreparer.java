@@ -0,0 +1,195 @@
+package cwms.cda.datasource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import oracle.jdbc.OracleConnection;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import usace.cwms.db.jooq.codegen.packages.CWMS_ENV_PACKAGE;
+
+/**
+ * Applies the session time zone, user and office in a single anonymous PL/SQL block.
+ *
+ * <p>What was applied is remembered for each physical connection, so when the pool hands back a
+ * connection that already has the wanted time zone, user or office those calls are skipped.
+ * Anything else that changes the session user or office must go through
+ * {@link #setOffice(Connection, String)} or {@link #forget(Connection)} to keep this accurate.
+ * Set the system property {@value #TRACK_STATE_PROPERTY} to false to always apply everything.
+ */
+public class SessionStatePreparer implements ConnectionPreparer {
+    private static final Logger logger = Logger.getLogger(SessionStatePreparer.class.getName());
+    public static final String TRACK_STATE_PROPERTY = "cwms.cda.datasource.session.trackState";
+    public static final String UTC = "UTC";
+
+    private static final boolean TRACK_STATE =
+            Boolean.parseBoolean(System.getProperty(TRACK_STATE_PROPERTY, "true"));
+    // ALTER SESSION can't take a bind variable, so only allow time zone names and offsets.
+    private static final Pattern TIME_ZONE_PATTERN = Pattern.compile("[A-Za-z0-9_/+:-]+");
+
+    /**
+     * Keyed by the physical connection, weakly, so connections the pool discards are dropped.
+     */
+    private static final Cache<Connection, SessionState> appliedState = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final String timeZone;
+    private final String user;
+    private final String office;
+
+    /**
+     * Create a preparer, any of the parameters may be null to leave that part of the session as is.
+     * @param timeZone session time zone, e.g. {@value #UTC}
+     * @param user cwms user to set with cwms_env.set_session_user_direct
+     * @param office session office id
+     */
+    public SessionStatePreparer(@Nullable String timeZone, @Nullable String user,
+                                @Nullable String office) {
+        if (timeZone != null && !TIME_ZONE_PATTERN.matcher(timeZone).matches()) {
+            throw new IllegalArgumentException("Invalid session time zone: " + timeZone);
+        }
+        this.timeZone = timeZone;
+        this.user = user;
+        this.office = office == null || office.isEmpty() ? null : office;
+    }
+
+    @Override
+    public Connection prepare(Connection conn) {
+        Connection physical = physicalConnection(conn);
+        SessionState current = currentState(physical);
+
+        boolean setTimeZone = timeZone != null && !timeZone.equals(current.timeZone);
+        boolean setUser = user != null && !user.equalsIgnoreCase(current.user);
+        // Setting the user also resets the session office.
+        boolean setOffice = office != null && (setUser || !office.equalsIgnoreCase(current.office));
+        if (!setTimeZone && !setUser && !setOffice) {
+            return conn;
+        }
+
+        StringBuilder sql = new StringBuilder("begin ");
+        List<String> parameters = new ArrayList<>();
+        if (setTimeZone) {
+            sql.append("execute immediate 'ALTER SESSION SET TIME_ZONE = ''")
+               .append(timeZone)
+               .append("'''; ");
+        }
+        if (setUser) {
+            sql.append("cwms_env.set_session_user_direct(upper(?)); ");
+            parameters.add(user);
+        }
+        if (setOffice) {
+            sql.append("cwms_env.set_session_office_id(?); ");
+            parameters.add(office);
+        }
+        sql.append("end;");
+
+        // If anything below fails we no longer know what state the session is in.
+        appliedState.invalidate(physical);
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setString(i + 1, parameters.get(i));
+            }
+            stmt.execute();
+        } catch (Exception e) {
+            throw new DataAccessException("Unable to prepare session. user=" + user
+                    + ", office=" + office + ", time zone=" + timeZone, e);
+        }
+        // A new user without an office leaves the session with no office at all.
+        String appliedOffice = setOffice ? office : (setUser ? null : current.office);
+        remember(physical, new SessionState(
+                setTimeZone ? timeZone : current.timeZone,
+                setUser ? user : current.user,
+                appliedOffice));
+        logger.fine(() -> "Prepared session with: " + sql);
+        return conn;
+    }
+
+    /**
+     * Set the session office, skipped when the connection is already set to that office.
+     * @param conn connection to set
+     * @param office session office id
+     */
+    public static void setOffice(Connection conn, String office) {
+        Connection physical = physicalConnection(conn);
+        SessionState current = currentState(physical);
+        if (office != null && office.equalsIgnoreCase(current.office)) {
+            return;
+        }
+        appliedState.invalidate(physical);
+        CWMS_ENV_PACKAGE.call_SET_SESSION_OFFICE_ID(
+                DSL.using(conn, SQLDialect.ORACLE18C).configuration(), office);
+        if (office != null) {
+            remember(physical, new SessionState(current.timeZone, current.user, office));
+        }
+    }
+
+    /**
+     * Forget what is known about every session, e.g. after changing the session of a connection
+     * that isn't at hand.
+     */
+    public static void forgetAll() {
+        appliedState.invalidateAll();
+    }
+
+    /**
+     * Forget what is known about a connection's session, e.g. before changing the session user
+     * directly.
+     * @param conn the connection
+     */
+    public static void forget(Connection conn) {
+        appliedState.invalidate(physicalConnection(conn));
+    }
+
+    private static SessionState currentState(Connection physical) {
+        SessionState state = appliedState.getIfPresent(physical);
+        return state == null ? SessionState.UNKNOWN : state;
+    }
+
+    private static void remember(Connection physical, SessionState state) {
+        if (TRACK_STATE) {
+            appliedState.put(physical, state);
+        }
+    }
+
+    /**
+     * Pools hand out a new wrapper for every checkout, the session belongs to what is underneath.
+     * Asking for the driver's own class matters: wrappers such as DBCP's answer
+     * unwrap(Connection.class) with themselves, which would never be seen again.
+     */
+    private static Connection physicalConnection(Connection conn) {
+        try {
+            if (conn.isWrapperFor(OracleConnection.class)) {
+                Connection physical = conn.unwrap(OracleConnection.class);
+                if (physical != null) {
+                    return physical;
+                }
+            }
+        } catch (SQLException | RuntimeException ex) {
+            logger.finest(() -> "Unable to unwrap connection: " + ex.getMessage());
+        }
+        return conn;
+    }
+
+    private static final class SessionState {
+        static final SessionState UNKNOWN = new SessionState(null, null, null);
+
+        private final String timeZone;
+        private final String user;
+        private final String office;
+
+        SessionState(String timeZone, String user, String office) {
+            this.timeZone = timeZone;
+            this.user = user;
+            this.office = office;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package cwms.cda.formatters;
+
+import cwms.cda.data.dto.TimeSeries;
+import java.util.List;
+
+/**
+ * Reads a time series that was parsed completely, for formats that can't be read as a stream.
+ */
+final class BufferedTimeSeriesReader implements TimeSeriesReader {
+    private final TimeSeries timeSeries;
+    private int next = 0;
+
+    BufferedTimeSeriesReader(TimeSeries timeSeries) {
+        this.timeSeries = timeSeries;
+    }
+
+    @Override
+    public TimeSeries readHeader() {
+        return timeSeries;
+    }
+
+    @Override
+    public List<TimeSeries.Record> readValues(int max) {
+        List<TimeSeries.Record> values = timeSeries.getValues();
+        int start = next;
+        next = (int) Math.min((long) start + max, values.size());
+        return values.subList(start, next);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -14,6 +14,8 @@ public class ContentType implements Comparable<ContentType> {
     private final Map<String, String> parameters;
 
     private String charset = null;
+    // immutable once constructed, so the hash is computed on first use only
+    private int hash;
 
     public ContentType(String contentTypeHeader) {
         parameters = new LinkedHashMap<>();
@@ -82,7 +84,12 @@ public class ContentType implements Comparable<ContentType> {
 
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = this.toString().hashCode();
+            hash = h;
+        }
+        return h;
     }
 
     @Override
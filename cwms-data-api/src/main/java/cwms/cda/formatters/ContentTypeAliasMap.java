@@ -7,24 +7,38 @@
 
 package cwms.cda.formatters;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import cwms.cda.data.dto.CwmsDTOBase;
 import cwms.cda.formatters.annotations.FormattableWith;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 final class ContentTypeAliasMap
 {
-	private final Map<String, ContentType> _contentTypeMap = new HashMap<>();
-	private static final Map<Class<? extends CwmsDTOBase>, ContentTypeAliasMap> ALIAS_MAP = new HashMap<>();
+	private static final int HEADER_CACHE_SIZE = Integer.getInteger("cwms.cda.formatters.headerCache.maxSize", 256);
+	private static final Map<Class<? extends CwmsDTOBase>, ContentTypeAliasMap> ALIAS_MAP = new ConcurrentHashMap<>();
+	private static final ContentTypeAliasMap EMPTY = new ContentTypeAliasMap();
+
+	private final Map<String, ContentType> _contentTypeMap;
+	// Accept headers already resolved for this DTO class, least recently used are evicted first
+	private final Cache<String, ContentType> _parsedHeaders = CacheBuilder.newBuilder()
+			.maximumSize(HEADER_CACHE_SIZE)
+			.build();
 
 	private ContentTypeAliasMap()
 	{
+		_contentTypeMap = Collections.emptyMap();
 	}
 
 	private ContentTypeAliasMap(Class<? extends CwmsDTOBase> dtoClass)
 	{
+		Map<String, ContentType> contentTypeMap = new HashMap<>();
 		FormattableWith[] formats = dtoClass.getAnnotationsByType(FormattableWith.class);
 		for (FormattableWith format : formats)
 		{
@@ -32,23 +46,40 @@ final class ContentTypeAliasMap
 
 			for (String alias : format.aliases())
 			{
-				_contentTypeMap.put(alias, type);
+				contentTypeMap.put(alias, type);
 			}
 		}
+		_contentTypeMap = Collections.unmodifiableMap(contentTypeMap);
 	}
 
 	public static ContentTypeAliasMap forDtoClass(@NotNull Class<? extends CwmsDTOBase> dtoClass)
 	{
-		return ALIAS_MAP.computeIfAbsent(dtoClass, ContentTypeAliasMap::new);
+		ContentTypeAliasMap retval = ALIAS_MAP.get(dtoClass);
+		if (retval == null)
+		{
+			retval = ALIAS_MAP.computeIfAbsent(dtoClass, ContentTypeAliasMap::new);
+		}
+		return retval;
 	}
 
 	public static ContentTypeAliasMap empty()
 	{
-		return new ContentTypeAliasMap();
+		return EMPTY;
 	}
 
 	public ContentType getContentType(String alias)
 	{
 		return _contentTypeMap.get(alias);
 	}
+
+	@Nullable
+	ContentType getParsedHeader(String header)
+	{
+		return _parsedHeaders.getIfPresent(header);
+	}
+
+	void putParsedHeader(String header, ContentType contentType)
+	{
+		_parsedHeaders.put(header, contentType);
+	}
 }
@@ -25,17 +25,22 @@
 package cwms.cda.formatters;
 
 import cwms.cda.data.dto.CwmsDTOBase;
+import cwms.cda.data.dto.TimeSeries;
 import cwms.cda.formatters.annotations.FormattableWith;
 
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -61,6 +66,7 @@ public class Formats {
     public static final String PGJSON = "application/vnd.pg+json";
     public static final String NAMED_PGJSON = "application/vnd.named+pg+json";
     public static final String DEFAULT = "*/*";
+    public static final String BINARY = "application/octet-stream";    // Only used for raw uploads
 
     public static final String JSON_LEGACY = "json";
     public static final String XML_LEGACY = "xml";
@@ -96,7 +102,12 @@ public class Formats {
     }
 
 
-    private final Map<ContentType, Map<Class<? extends CwmsDTOBase>, OutputFormatter>> formatters = new LinkedHashMap<>();
+    /**
+     * Formatters of each DTO class by content type.  Built once per class from its
+     * {@link FormattableWith} annotations; the inner maps are never modified afterwards.
+     */
+    private final Map<Class<? extends CwmsDTOBase>, Map<ContentType, OutputFormatter>> formatters =
+            new ConcurrentHashMap<>();
 
     private static final Formats formats = new Formats();
 
@@ -115,7 +126,6 @@ public class Formats {
 
     private String getFormatted(ContentType type, CwmsDTOBase toFormat) throws FormattingException {
         Objects.requireNonNull(toFormat, "Object to be formatted should not be null");
-        formatters.keySet().forEach(k -> logger.fine(k::toString));
         OutputFormatter outputFormatter = getOutputFormatter(type, toFormat.getClass());
 
         if (outputFormatter != null) {
@@ -130,10 +140,6 @@ public class Formats {
 
     private String getFormatted(ContentType type, List<? extends CwmsDTOBase> dtos, Class<?
             extends CwmsDTOBase> rootType) throws FormattingException {
-        for (ContentType key : formatters.keySet()) {
-            logger.finest(() -> key.toString());
-        }
-
         OutputFormatter outputFormatter = getOutputFormatter(type, rootType);
 
         if (outputFormatter != null) {
@@ -145,6 +151,30 @@ public class Formats {
         }
     }
 
+    private TimeSeriesWriter getTimeSeriesWriter(ContentType type, OutputStream out) throws IOException {
+        OutputFormatter outputFormatter = getOutputFormatter(type, TimeSeries.class);
+
+        if (outputFormatter != null) {
+            return outputFormatter.timeSeriesWriter(out);
+        } else {
+            String message = String.format("No Format for this content-type and data-type : (%s, %s)",
+                    type.toString(), TimeSeries.class.getName());
+            throw new UnsupportedFormatException(message);
+        }
+    }
+
+    private TimeSeriesReader getTimeSeriesReader(ContentType type, InputStream in) throws IOException {
+        OutputFormatter outputFormatter = getOutputFormatter(type, TimeSeries.class);
+
+        if (outputFormatter != null) {
+            return outputFormatter.timeSeriesReader(in);
+        } else {
+            String message = String.format("No Format for this content-type and data type : (%s, %s)",
+                    type.toString(), TimeSeries.class.getName());
+            throw new UnsupportedFormatException(message);
+        }
+    }
+
     private <T extends CwmsDTOBase> T parseContentFromType(ContentType type, String content, Class<T> rootType)
             throws FormattingException {
         OutputFormatter outputFormatter = getOutputFormatter(type, rootType);
@@ -194,31 +224,37 @@ public class Formats {
 
     private OutputFormatter getOutputFormatter(ContentType type,
                                                Class<? extends CwmsDTOBase> klass) {
-        OutputFormatter outputFormatter = null;
-        Map<Class<? extends CwmsDTOBase>, OutputFormatter> contentFormatters = formatters.get(type);
-        if (contentFormatters != null && contentFormatters.containsKey(klass)) {
-            outputFormatter = contentFormatters.get(klass);
-        } else { // not in the list, look it up.
-            FormattableWith[] annotationsByType = klass.getAnnotationsByType(FormattableWith.class);
-            for (FormattableWith fw : annotationsByType) {
-                ContentType fwCt = new ContentType(fw.contentType());
-                if (type.equals(fwCt)) {
-                    try {
-                        outputFormatter = fw.formatter()
-                                            .getDeclaredConstructor()
-                                            .newInstance();
-                        formatters.computeIfAbsent(type, k -> new HashMap<>())
-                                  .put(klass,outputFormatter);
-                    } catch (Exception ex) {
-                        logger.log(Level.SEVERE, "Unable to create formatter.", ex);
-                        return null;
-                    }
+        Map<ContentType, OutputFormatter> contentFormatters = formatters.get(klass);
+        if (contentFormatters == null) {
+            contentFormatters = formatters.computeIfAbsent(klass, Formats::buildFormatters);
+        }
+        OutputFormatter outputFormatter = contentFormatters.get(type);
+        if (outputFormatter == null) {
+            // equality only considers the media type and version, other parameters
+            // still change the hash
+            for (Map.Entry<ContentType, OutputFormatter> entry : contentFormatters.entrySet()) {
+                if (type.equals(entry.getKey())) {
+                    outputFormatter = entry.getValue();
+                    break;
                 }
             }
         }
         return outputFormatter;
     }
 
+    private static Map<ContentType, OutputFormatter> buildFormatters(Class<? extends CwmsDTOBase> klass) {
+        Map<ContentType, OutputFormatter> retval = new HashMap<>();
+        for (FormattableWith fw : klass.getAnnotationsByType(FormattableWith.class)) {
+            try {
+                retval.put(new ContentType(fw.contentType()),
+                        fw.formatter().getDeclaredConstructor().newInstance());
+            } catch (Exception ex) {
+                logger.log(Level.SEVERE, "Unable to create formatter.", ex);
+            }
+        }
+        return Collections.unmodifiableMap(retval);
+    }
+
     public static String format(ContentType type, CwmsDTOBase toFormat) throws FormattingException {
         return formats.getFormatted(type, toFormat);
     }
@@ -228,6 +264,30 @@ public class Formats {
         return formats.getFormatted(type, toFormat, rootType);
     }
 
+    /**
+     * Creates a writer that streams a time series to the given output in the requested format.
+     * @param type content type of the response
+     * @param out the response stream
+     * @return a writer for the content type
+     * @throws UnsupportedFormatException if the content type can not be streamed
+     */
+    public static TimeSeriesWriter timeSeriesWriter(ContentType type, OutputStream out) throws IOException {
+        return formats.getTimeSeriesWriter(type, out);
+    }
+
+    /**
+     * Creates a reader for a time series request body.
+     *
+     * @param type content type of the request
+     * @param in the request body
+     * @return a reader for the content type; it only reads the values as they are needed if the
+     *     content type can be read as a stream.
+     * @throws UnsupportedFormatException if the content type can not be parsed
+     */
+    public static TimeSeriesReader timeSeriesReader(ContentType type, InputStream in) throws IOException {
+        return formats.getTimeSeriesReader(type, in);
+    }
+
     public static <T extends CwmsDTOBase> T parseContent(ContentType type, String content, Class<T> rootType)
             throws FormattingException {
         return formats.parseContentFromType(type, content, rootType);
@@ -346,6 +406,10 @@ public class Formats {
         if(header == null || header.trim().isEmpty()) {
             header = DEFAULT;
         }
+        ContentType cached = aliasMap.getParsedHeader(header);
+        if (cached != null) {
+            return cached;
+        }
         //TreeSet will sort based on prioritized content type
         //if multiple valid content types are specified in the header.
         SortedSet<ContentType> contentTypes = new TreeSet<>();
@@ -372,6 +436,7 @@ public class Formats {
         for (ContentType ct : contentTypes) {
             logger.finest(() -> "checking " + ct.toString());
             if (contentTypeList.contains(ct)) {
+                aliasMap.putParsedHeader(header, ct);
                 return ct;
             }
         }
@@ -1,9 +1,12 @@
 package cwms.cda.formatters;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import cwms.cda.data.dto.CwmsDTOBase;
+import cwms.cda.data.dto.TimeSeries;
 
 public interface OutputFormatter {
     String DESERIALIZE_CONTENT_MESSAGE = "Could not deserialize: %s of type: %s";
@@ -20,4 +23,26 @@ public interface OutputFormatter {
     default <T extends CwmsDTOBase> T parseContent(InputStream content, Class<T> type) {
         throw new UnsupportedOperationException(String.format(UNSUPPORTED_MESSAGE, getContentType()));
     }
+
+    /**
+     * Creates a writer that streams a time series straight to the given output.
+     * @param out the response stream, it is not closed by the writer.
+     * @return a writer for this formatter's content type
+     * @throws UnsupportedFormatException if this formatter can only build complete Strings.
+     */
+    default TimeSeriesWriter timeSeriesWriter(OutputStream out) throws IOException {
+        throw new UnsupportedFormatException("Streaming output is not supported for " + getContentType());
+    }
+
+    /**
+     * Creates a reader that reads a time series from the given input as its values are needed.
+     * Formatters that can't read a stream parse the whole input first.
+     * @param in the request body, it is not closed by the reader.
+     * @return a reader for this formatter's content type
+     */
+    default TimeSeriesReader timeSeriesReader(InputStream in) throws IOException {
+        TimeSeries timeSeries = parseContent(in, TimeSeries.class);
+        timeSeries.validate();
+        return new BufferedTimeSeriesReader(timeSeries);
+    }
 }
@@ -0,0 +1,28 @@
+package cwms.cda.formatters;
+
+import cwms.cda.data.dto.TimeSeries;
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Reads a time series from a request body a few values at a time, the counterpart of
+ * {@link TimeSeriesWriter}.
+ */
+public interface TimeSeriesReader extends Closeable {
+
+    /**
+     * Reads everything about the time series except the values.
+     * @return the validated time series metadata; any values it holds are ignored, they are
+     *     returned by readValues.
+     * @throws FormattingException if the content can't be parsed or is missing required fields
+     */
+    TimeSeries readHeader();
+
+    /**
+     * Reads the next values.  Must only be called after readHeader.
+     * @param max the most values to return
+     * @return up to max values, empty once every value was read.
+     * @throws FormattingException if the content can't be parsed
+     */
+    List<TimeSeries.Record> readValues(int max);
+}
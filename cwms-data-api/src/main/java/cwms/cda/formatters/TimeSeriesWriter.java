@@ -0,0 +1,32 @@
+package cwms.cda.formatters;
+
+import cwms.cda.data.dto.TimeSeries;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Timestamp;
+
+/**
+ * Writes a time series to an output stream one value at a time, so a page of data never has
+ * to be held in memory or rendered to a String first.
+ * <p>
+ * Calls must be made in order: {@link #writeHeader(TimeSeries)} once, {@link #writeValue}
+ * for each value, then {@link #writeTrailer(TimeSeries)}.  Because the paging cursors are only
+ * known once the values have been read, <code>page</code> and <code>next-page</code> are
+ * written after the values.
+ */
+public interface TimeSeriesWriter extends Closeable {
+
+    /**
+     * Writes everything about the time series except the values and the paging cursors.
+     * @param header time series metadata; any values it holds are ignored.
+     */
+    void writeHeader(TimeSeries header) throws IOException;
+
+    void writeValue(Timestamp dateTime, Double value, int qualityCode) throws IOException;
+
+    /**
+     * Closes the value list and writes the paging cursors.
+     * @param header the same object passed to writeHeader, with its cursors updated.
+     */
+    void writeTrailer(TimeSeries header) throws IOException;
+}
@@ -35,10 +35,13 @@ import cwms.cda.data.dto.CwmsDTOBase;
 import cwms.cda.formatters.Formats;
 import cwms.cda.formatters.FormattingException;
 import cwms.cda.formatters.OutputFormatter;
+import cwms.cda.formatters.TimeSeriesReader;
+import cwms.cda.formatters.TimeSeriesWriter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -90,6 +93,16 @@ public class JsonV2 implements OutputFormatter {
         }
     }
 
+    @Override
+    public TimeSeriesWriter timeSeriesWriter(OutputStream out) throws IOException {
+        return new TimeSeriesJsonWriter(om, out);
+    }
+
+    @Override
+    public TimeSeriesReader timeSeriesReader(InputStream in) throws IOException {
+        return new TimeSeriesJsonReader(om, in);
+    }
+
     @Override
     public <T extends CwmsDTOBase> T parseContent(String content, Class<T> type) {
         try {
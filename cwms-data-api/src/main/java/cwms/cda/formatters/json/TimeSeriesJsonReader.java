@@ -0,0 +1,228 @@
+package cwms.cda.formatters.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cwms.cda.api.enums.VersionType;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.formatters.FormattingException;
+import cwms.cda.formatters.OutputFormatter;
+import cwms.cda.formatters.TimeSeriesReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads a time series in the shape {@link JsonV2} produces, parsing the values array only as
+ * far as readValues asks.
+ *
+ * <p>Storing needs the name, office, units and version date before the first value, so the
+ * values are only read as a stream when those come first.  The version date is known to be
+ * absent when a date-version-type of UNVERSIONED or MAX_AGGREGATE comes first, as it does in
+ * the alphabetic order JsonV2 writes.  Otherwise the values are held until the end of the
+ * object, just as when the body is parsed completely.
+ */
+public class TimeSeriesJsonReader implements TimeSeriesReader {
+    private static final String VALUES = "values";
+    private static final String NAME = "name";
+    private static final String OFFICE_ID = "office-id";
+    private static final String UNITS = "units";
+    private static final String VERSION_DATE = "version-date";
+    private static final String DATE_VERSION_TYPE = "date-version-type";
+    /** Fields that change how values are stored, they can't follow values read as a stream. */
+    private static final Set<String> STORE_FIELDS = new HashSet<>(Arrays.asList(VALUES, NAME,
+            OFFICE_ID, UNITS, VERSION_DATE, DATE_VERSION_TYPE));
+
+    private final ObjectMapper om;
+    private final JsonParser parser;
+    private TimeSeries header;
+    /** Values read before the header was complete, null when they are read as a stream. */
+    private TimeSeries buffered;
+    private int next = 0;
+    private boolean inValues = false;
+
+    public TimeSeriesJsonReader(ObjectMapper om, InputStream in) throws IOException {
+        this.om = om;
+        this.parser = om.getFactory().createParser(in);
+        // the servlet container owns the request stream
+        this.parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    @Override
+    public TimeSeries readHeader() {
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a time series object");
+            }
+            ObjectNode fields = om.createObjectNode();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                token = parser.nextToken();
+                if (!VALUES.equals(name)) {
+                    fields.set(name, parser.readValueAsTree());
+                } else if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                } else if (token != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "Expected an array of values");
+                } else if (buffered == null && isSettled(fields)) {
+                    header = toHeader(fields);
+                    inValues = true;
+                    return header;
+                } else {
+                    if (buffered == null) {
+                        buffered = newChunk();
+                    }
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        readValue(buffered);
+                    }
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unexpected end of the time series");
+            }
+            header = toHeader(fields);
+            if (buffered == null) {
+                buffered = newChunk();
+            }
+            return header;
+        } catch (IOException e) {
+            throw new FormattingException(String.format(OutputFormatter.DESERIALIZE_CONTENT_MESSAGE,
+                    "request body", TimeSeries.class), e);
+        }
+    }
+
+    @Override
+    public List<TimeSeries.Record> readValues(int max) {
+        if (header == null) {
+            throw new IllegalStateException("readHeader must be called first");
+        }
+        if (buffered != null) {
+            List<TimeSeries.Record> values = buffered.getValues();
+            int start = next;
+            next = (int) Math.min((long) start + max, values.size());
+            return values.subList(start, next);
+        }
+        TimeSeries chunk = newChunk();
+        try {
+            while (inValues && chunk.getValues().size() < max) {
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    inValues = false;
+                    readTrailer();
+                } else {
+                    readValue(chunk);
+                }
+            }
+        } catch (IOException e) {
+            throw new FormattingException(String.format(OutputFormatter.DESERIALIZE_CONTENT_MESSAGE,
+                    "request body", TimeSeries.class), e);
+        }
+        return chunk.getValues();
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /**
+     * @return true if everything the store needs is known before the values
+     */
+    private static boolean isSettled(ObjectNode fields) {
+        if (!fields.hasNonNull(NAME) || !fields.hasNonNull(OFFICE_ID) || !fields.hasNonNull(UNITS)) {
+            return false;
+        }
+        if (fields.has(VERSION_DATE)) {
+            return true;
+        }
+        JsonNode versionType = fields.get(DATE_VERSION_TYPE);
+        if (versionType == null || !versionType.isTextual()) {
+            return false;
+        }
+        String type = versionType.asText();
+        return VersionType.UNVERSIONED.name().equalsIgnoreCase(type)
+                || VersionType.MAX_AGGREGATE.name().equalsIgnoreCase(type);
+    }
+
+    private TimeSeries toHeader(ObjectNode fields) throws IOException {
+        TimeSeries retval = om.treeToValue(fields, TimeSeries.class);
+        retval.validate();
+        return retval;
+    }
+
+    private static TimeSeries newChunk() {
+        return new TimeSeries(null, -1, 0, null, null, null, null, null, null);
+    }
+
+    /**
+     * Reads one <code>[date-time, value, quality-code]</code> array, the parser on its start.
+     */
+    private void readValue(TimeSeries into) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected [date-time, value, quality-code]");
+        }
+        Long dateTime = null;
+        Double value = null;
+        int qualityCode = 0;
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0:
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        dateTime = parser.getLongValue();
+                    } else {
+                        Timestamp time = parser.readValueAs(Timestamp.class);
+                        dateTime = time == null ? null : time.getTime();
+                    }
+                    break;
+                case 1:
+                    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                        value = parser.getDoubleValue();
+                    } else {
+                        value = parser.readValueAs(Double.class);
+                    }
+                    break;
+                case 2:
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        qualityCode = parser.getIntValue();
+                    } else {
+                        Integer quality = parser.readValueAs(Integer.class);
+                        qualityCode = quality == null ? 0 : quality;
+                    }
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Expected [date-time, value, quality-code]");
+            }
+        }
+        if (dateTime == null) {
+            throw new JsonParseException(parser, "Every value needs a date-time");
+        }
+        into.addValue(dateTime, value, qualityCode);
+    }
+
+    /**
+     * Reads the fields after values that were read as a stream.
+     */
+    private void readTrailer() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (STORE_FIELDS.contains(name)) {
+                throw new JsonParseException(parser, name + " must come before the values");
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of the time series");
+        }
+    }
+}
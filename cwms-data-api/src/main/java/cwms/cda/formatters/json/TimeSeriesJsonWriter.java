@@ -0,0 +1,81 @@
+package cwms.cda.formatters.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.formatters.TimeSeriesWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streams a time series in the same shape {@link JsonV2} produces, writing each value as a
+ * <code>[date-time, value, quality-code]</code> array as soon as it is handed over.
+ */
+public class TimeSeriesJsonWriter implements TimeSeriesWriter {
+    private static final String VALUES = "values";
+    private static final String PAGE = "page";
+    private static final String NEXT_PAGE = "next-page";
+
+    private final ObjectMapper om;
+    private final JsonGenerator generator;
+
+    public TimeSeriesJsonWriter(ObjectMapper om, OutputStream out) throws IOException {
+        this.om = om;
+        this.generator = om.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // the servlet container owns the response stream
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void writeHeader(TimeSeries header) throws IOException {
+        ObjectNode node = om.valueToTree(header);
+        generator.writeStartObject();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (!VALUES.equals(name) && !PAGE.equals(name) && !NEXT_PAGE.equals(name)) {
+                generator.writeFieldName(name);
+                om.writeTree(generator, field.getValue());
+            }
+        }
+        generator.writeArrayFieldStart(VALUES);
+    }
+
+    @Override
+    public void writeValue(Timestamp dateTime, Double value, int qualityCode) throws IOException {
+        generator.writeStartArray();
+        generator.writeNumber(dateTime.getTime());
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+        generator.writeNumber(qualityCode);
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void writeTrailer(TimeSeries header) throws IOException {
+        generator.writeEndArray();
+        if (header.getPage() != null) {
+            generator.writeStringField(PAGE, header.getPage());
+        }
+        if (header.getNextPage() != null) {
+            generator.writeStringField(NEXT_PAGE, header.getNextPage());
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
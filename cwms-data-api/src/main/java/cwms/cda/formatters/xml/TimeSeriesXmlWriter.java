@@ -0,0 +1,111 @@
+package cwms.cda.formatters.xml;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.formatters.TimeSeriesWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.Map;
+import javax.xml.namespace.QName;
+
+/**
+ * Streams a time series in the same shape {@link XMLv2} produces.  Values are written as
+ * <code>&lt;values&gt;&lt;values&gt;...&lt;/values&gt;&lt;/values&gt;</code> elements as they
+ * are handed over, everything else comes from the regular XML mapping of the header.
+ */
+public class TimeSeriesXmlWriter implements TimeSeriesWriter {
+    private static final String ROOT = "timeseries";
+    private static final String VALUES = "values";
+    private static final String PAGE = "page";
+    private static final String NEXT_PAGE = "next-page";
+
+    private final XmlMapper mapper;
+    private final ToXmlGenerator generator;
+
+    public TimeSeriesXmlWriter(XmlMapper mapper, OutputStream out) throws IOException {
+        this.mapper = mapper;
+        this.generator = mapper.getFactory().createGenerator(out);
+        // the servlet container owns the response stream
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void writeHeader(TimeSeries header) throws IOException {
+        ObjectNode node = mapper.valueToTree(header);
+        generator.setNextName(new QName(ROOT));
+        generator.writeStartObject();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (!VALUES.equals(name) && !PAGE.equals(name) && !NEXT_PAGE.equals(name)) {
+                writeNode(name, field.getValue());
+            }
+        }
+        generator.writeFieldName(VALUES);
+        generator.writeStartObject();
+    }
+
+    /**
+     * Writes a tree node the way the XML bean serializers would: lists are wrapped in an
+     * element of the same name as their items.
+     */
+    private void writeNode(String name, JsonNode node) throws IOException {
+        if (node.isObject()) {
+            generator.writeFieldName(name);
+            generator.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                writeNode(field.getKey(), field.getValue());
+            }
+            generator.writeEndObject();
+        } else if (node.isArray()) {
+            generator.writeFieldName(name);
+            generator.writeStartObject();
+            for (JsonNode item : node) {
+                writeNode(name, item);
+            }
+            generator.writeEndObject();
+        } else if (!node.isNull()) {
+            generator.writeFieldName(name);
+            generator.writeString(node.asText());
+        }
+    }
+
+    @Override
+    public void writeValue(Timestamp dateTime, Double value, int qualityCode) throws IOException {
+        generator.writeFieldName(VALUES);
+        generator.writeStartObject();
+        generator.writeNumberField("date-time", dateTime.getTime());
+        if (value != null) {
+            generator.writeNumberField("value", value);
+        }
+        generator.writeNumberField("quality-code", qualityCode);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeTrailer(TimeSeries header) throws IOException {
+        generator.writeEndObject();
+        if (header.getPage() != null) {
+            generator.writeStringField(PAGE, header.getPage());
+        }
+        if (header.getNextPage() != null) {
+            generator.writeStringField(NEXT_PAGE, header.getNextPage());
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
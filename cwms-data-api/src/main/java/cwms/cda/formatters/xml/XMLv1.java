@@ -2,6 +2,8 @@ package cwms.cda.formatters.xml;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
@@ -19,12 +21,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class XMLv1 implements OutputFormatter {
     private static final Logger logger = Logger.getLogger(XMLv1.class.getName());
 
+    // Shared by every formatter instance, see XMLv2.
+    private static final XmlMapper XML_MAPPER = buildObjectMapper();
+    private static final ObjectWriter WRITER = XML_MAPPER.writer();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
     public XMLv1() {
 
     }
@@ -37,11 +47,12 @@ public class XMLv1 implements OutputFormatter {
     @Override
     public String format(CwmsDTOBase dto) {
         try {
-            XmlMapper xmlMapper = buildObjectMapper();
             if (dto instanceof Office) {
-                return xmlMapper.writeValueAsString(new XMLv1Office(Collections.singletonList((Office)dto)));
+                return writerFor(XMLv1Office.class).writeValueAsString(
+                        new XMLv1Office(Collections.singletonList((Office)dto)));
             }
-            return xmlMapper.writeValueAsString(dto);
+            return dto == null ? WRITER.writeValueAsString(null)
+                    : writerFor(dto.getClass()).writeValueAsString(dto);
         } catch (IOException ex) {
             String msg = dto != null ?
                     "Error rendering '" + dto + "' to XML"
@@ -56,11 +67,11 @@ public class XMLv1 implements OutputFormatter {
     @SuppressWarnings("unchecked") // we're ALWAYS checking before conversion in this function
     public String format(List<? extends CwmsDTOBase> dtoList) {
         try {
-            XmlMapper xmlMapper = buildObjectMapper();
             if (!dtoList.isEmpty() && dtoList.get(0) instanceof Office) {
-                return xmlMapper.writeValueAsString(new XMLv1Office((List<Office>) dtoList));
+                return writerFor(XMLv1Office.class).writeValueAsString(
+                        new XMLv1Office((List<Office>) dtoList));
             }
-            return xmlMapper.writeValueAsString(dtoList);
+            return WRITER.writeValueAsString(dtoList);
         } catch (Exception err) {
             logger.log(Level.WARNING, "Error doing XML format of office list", err);
             throw new InternalServerErrorResponse("Invalid Parameters");
@@ -70,8 +81,7 @@ public class XMLv1 implements OutputFormatter {
     @Override
     public <T extends CwmsDTOBase> T parseContent(String content, Class<T> type) {
         try {
-            XmlMapper retval = buildObjectMapper();
-            return retval.readValue(content, type);
+            return READERS.computeIfAbsent(type, XML_MAPPER::readerFor).readValue(content);
         } catch (IOException e) {
             throw new FormattingException("Could not deserialize:" + content, e);
         }
@@ -80,13 +90,16 @@ public class XMLv1 implements OutputFormatter {
     @Override
     public <T extends CwmsDTOBase> T parseContent(InputStream content, Class<T> type) {
         try {
-            XmlMapper retval = buildObjectMapper();
-            return retval.readValue(content, type);
+            return READERS.computeIfAbsent(type, XML_MAPPER::readerFor).readValue(content);
         } catch (IOException e) {
             throw new FormattingException("Could not deserialize:" + content, e);
         }
     }
 
+    private static ObjectWriter writerFor(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, XML_MAPPER::writerFor);
+    }
+
     private static @NotNull XmlMapper buildObjectMapper() {
         XmlMapper retval = new XmlMapper();
 
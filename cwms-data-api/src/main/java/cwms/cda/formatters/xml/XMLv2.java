@@ -3,6 +3,8 @@ package cwms.cda.formatters.xml;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
@@ -12,18 +14,29 @@ import cwms.cda.data.dto.TimeSeries;
 import cwms.cda.formatters.Formats;
 import cwms.cda.formatters.FormattingException;
 import cwms.cda.formatters.OutputFormatter;
+import cwms.cda.formatters.TimeSeriesWriter;
 import io.javalin.http.InternalServerErrorResponse;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class XMLv2 implements OutputFormatter {
     private static final Logger logger = Logger.getLogger(XMLv2.class.getName());
 
+    // Mappers are expensive to build and configure but thread safe once configured, so
+    // every formatter instance shares one along with a reader and writer per DTO type.
+    private static final XmlMapper XML_MAPPER = buildXmlMapper();
+    private static final ObjectWriter LIST_WRITER = XML_MAPPER.writer();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
     public XMLv2() {
     }
 
@@ -35,7 +48,7 @@ public class XMLv2 implements OutputFormatter {
     @Override
     public String format(CwmsDTOBase dto) {
         try {
-            return buildXmlMapper().writeValueAsString(dto);
+            return writerFor(dto).writeValueAsString(dto);
         } catch (JsonProcessingException ex) {
             String msg = dto != null ?
                     "Error rendering '" + dto + "' to XML"
@@ -49,7 +62,7 @@ public class XMLv2 implements OutputFormatter {
     @Override
     public String format(List<? extends CwmsDTOBase> dtoList) {
         try {
-            return buildXmlMapper().writeValueAsString(dtoList);
+            return LIST_WRITER.writeValueAsString(dtoList);
         } catch (JsonProcessingException ex) {
             String msg = dtoList != null ?
                     "Error rendering '" + dtoList + "' to XML"
@@ -60,11 +73,15 @@ public class XMLv2 implements OutputFormatter {
         }
     }
 
+    @Override
+    public TimeSeriesWriter timeSeriesWriter(OutputStream out) throws IOException {
+        return new TimeSeriesXmlWriter(XML_MAPPER, out);
+    }
+
     @Override
     public <T extends CwmsDTOBase> T parseContent(String content, Class<T> type) {
         try {
-            XmlMapper retval = buildXmlMapper();
-            return retval.readValue(content, type);
+            return readerFor(type).readValue(content);
         } catch (IOException e) {
             throw new FormattingException("Could not deserialize:" + content, e);
         }
@@ -73,13 +90,23 @@ public class XMLv2 implements OutputFormatter {
     @Override
     public <T extends CwmsDTOBase> T parseContent(InputStream content, Class<T> type) {
         try {
-            XmlMapper retval = buildXmlMapper();
-            return retval.readValue(content, type);
+            return readerFor(type).readValue(content);
         } catch (IOException e) {
             throw new FormattingException("Could not deserialize:" + content, e);
         }
     }
 
+    private static ObjectWriter writerFor(CwmsDTOBase dto) {
+        if (dto == null) {
+            return LIST_WRITER;
+        }
+        return WRITERS.computeIfAbsent(dto.getClass(), XML_MAPPER::writerFor);
+    }
+
+    private static ObjectReader readerFor(Class<?> type) {
+        return READERS.computeIfAbsent(type, XML_MAPPER::readerFor);
+    }
+
     private static @NotNull XmlMapper buildXmlMapper() {
         XmlMapper retval = new XmlMapper();
         retval.findAndRegisterModules();
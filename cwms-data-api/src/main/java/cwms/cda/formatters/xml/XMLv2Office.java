@@ -35,6 +35,9 @@ import javax.xml.stream.XMLStreamWriter;
  */
 public class XMLv2Office implements OutputFormatter {
     private static final Logger logger = Logger.getLogger(XMLv2Office.class.getName());
+    // Shared by every formatter instance, see XMLv2.
+    private static final XmlMapper XML_MAPPER = buildXmlMapper();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
 
     public XMLv2Office() {
     }
@@ -47,7 +50,7 @@ public class XMLv2Office implements OutputFormatter {
     @Override
     public String format(CwmsDTOBase dto) {
         try {
-            return buildXmlMapper().writeValueAsString(dto);
+            return XML_MAPPER.writeValueAsString(dto);
         } catch (JsonProcessingException ex) {
             String msg = dto != null ?
                     "Error rendering '" + dto + "' to XML"
@@ -62,7 +65,7 @@ public class XMLv2Office implements OutputFormatter {
     public String format(List<? extends CwmsDTOBase> dtoList) {
         try {
             final StringWriter out = new StringWriter();
-            final XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out);
+            final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
             writer.writeStartDocument("UTF-8", "1.1");
             writer.writeStartElement("offices");
             for (CwmsDTOBase dto: dtoList) {
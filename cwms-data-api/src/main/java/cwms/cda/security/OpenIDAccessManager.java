@@ -27,37 +27,52 @@ import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.RSAPublicKeySpec;
-import java.time.ZonedDateTime;
 import java.util.Base64;
 import java.util.Base64.Decoder;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * This is currently more a placeholder for example than actual implementation
  */
-public class OpenIDAccessManager extends CdaAccessManager {
+public class OpenIDAccessManager extends CdaAccessManager implements AutoCloseable {
     private static final FluentLogger log = FluentLogger.forEnclosingClass();
     public static final String AUTHORIZATION = "Authorization";
     private JwtParser jwtParser = null;
     private OpenIDConfig config = null;
+    private UrlResolver resolver = null;
 
 
     public OpenIDAccessManager(String wellKnownUrl, String issuer, int realmKeyTimeout, String authUrl) {
         try {
             config = new OpenIDConfig(new URL(wellKnownUrl), authUrl);
+            resolver = new UrlResolver(config.getJwksUrl(),realmKeyTimeout);
             jwtParser = Jwts.parserBuilder()
                         .requireIssuer(issuer)
-                        .setSigningKeyResolver(new UrlResolver(config.getJwksUrl(),realmKeyTimeout))
+                        .setSigningKeyResolver(resolver)
                         .build();
         } catch (IOException ex) {
             log.atSevere().withCause(ex).log("Unable to initialize realm.");
         }
     }
 
+    /**
+     * Stops the background refresh of the realm's keys.
+     */
+    @Override
+    public void close() {
+        if (resolver != null) {
+            resolver.close();
+        }
+    }
+
     @Override
     public void manage(Handler handler, @NotNull Context ctx, @NotNull Set<RouteRole> routeRoles) throws Exception {
         DataApiPrincipal p = getUserFromToken(ctx);
@@ -116,52 +131,102 @@ public class OpenIDAccessManager extends CdaAccessManager {
     }
 
 
-    private static class UrlResolver extends SigningKeyResolverAdapter {
+    /**
+     * Keeps the realm's public keys current.  Keys are refreshed by a background thread and swapped
+     * in as a new immutable map, so resolving a key is a plain map read.  A key id that is not
+     * known triggers one fetch, shared by every request waiting on it, so that rotated keys are
+     * picked up before the next scheduled refresh.
+     */
+    static class UrlResolver extends SigningKeyResolverAdapter implements AutoCloseable {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+        private static final int HTTP_TIMEOUT_MILLIS = 10_000;
+        /**
+         * Unknown key ids can trigger a fetch at most this often, so a client sending random ids
+         * can't make us hammer the realm.
+         */
+        static final long MIN_UNKNOWN_KEY_FETCH_MILLIS =
+                Long.getLong("cwms.dataapi.access.openid.jwks.minFetchIntervalMillis", 30_000L);
+
         private final URL jwksUrl;
-        private ZonedDateTime lastCheck;
-        private final Map<String,Key> realmPublicKeys = new HashMap<>();
-        private final int realmPublicKeyTimeoutMinutes;
-        private KeyFactory keyFactory = null;
+        private final long minUnknownKeyFetchMillis;
+        private final KeyFactory keyFactory;
+        private final ScheduledExecutorService refresher;
+        private final Object fetchLock = new Object();
+        private volatile Map<String,Key> realmPublicKeys = Collections.emptyMap();
+        private long lastFetchMillis = 0; // guarded by fetchLock
 
         public UrlResolver(URL jwksUrl, int keyTimeoutMinutes) {
+            this(jwksUrl, keyTimeoutMinutes, MIN_UNKNOWN_KEY_FETCH_MILLIS);
+        }
+
+        UrlResolver(URL jwksUrl, int keyTimeoutMinutes, long minUnknownKeyFetchMillis) {
             this.jwksUrl = jwksUrl;
-            this.realmPublicKeyTimeoutMinutes = keyTimeoutMinutes;
+            this.minUnknownKeyFetchMillis = minUnknownKeyFetchMillis;
+            KeyFactory factory = null;
             try {
-                keyFactory = KeyFactory.getInstance("RSA");
+                factory = KeyFactory.getInstance("RSA");
             } catch (NoSuchAlgorithmException ex) {
                 log.atSevere().withCause(ex).log("Unable to initialize key factory.");
             }
+            keyFactory = factory;
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "openid-jwks-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            // The first request fetches the keys, after that they are kept current in the background.
+            long period = Math.max(1, keyTimeoutMinutes);
+            refresher.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MINUTES);
         }
 
         /**
-         * TODO: This needs more, some configurations may be more complex (like the
-         * authelia test environment) than others.
+         * Fetch the keys now, keeping the current ones if the fetch fails.
          */
-        private void updateKey() {
-            if (realmPublicKeys.isEmpty() || ZonedDateTime.now().isAfter(lastCheck.plusMinutes(realmPublicKeyTimeoutMinutes))) {
-                log.atInfo().log("Checking for new key at %s",jwksUrl);
-                try {
-                    realmPublicKeys.clear();
-                    updateSigningKey();
-                } catch (IOException ex) {
-                    log.atSevere().withCause(ex).log("Unable to update key. Will continue to use previous key.");
-                } catch (InvalidKeySpecException ex) {
-                    log.atSevere().withCause(ex).log("New Public Key was not valid. Will continue to use previous key.");
+        void refresh() {
+            synchronized (fetchLock) {
+                fetchKeys();
+            }
+        }
+
+        private void fetchKeys() {
+            lastFetchMillis = System.currentTimeMillis();
+            log.atInfo().log("Checking for new key at %s",jwksUrl);
+            try {
+                Map<String,Key> keys = retrieveSigningKeys();
+                if (keys.isEmpty()) {
+                    log.atSevere().log("No keys found at %s. Will continue to use previous key.", jwksUrl);
+                } else {
+                    realmPublicKeys = Collections.unmodifiableMap(keys);
                 }
-                lastCheck = ZonedDateTime.now();
+            } catch (IOException ex) {
+                log.atSevere().withCause(ex).log("Unable to update key. Will continue to use previous key.");
+            } catch (InvalidKeySpecException ex) {
+                log.atSevere().withCause(ex).log("New Public Key was not valid. Will continue to use previous key.");
+            } catch (RuntimeException ex) {
+                // Keep the scheduled refresh alive no matter what the realm sent back.
+                log.atSevere().withCause(ex).log("Unable to update key. Will continue to use previous key.");
             }
         }
 
-        private void updateSigningKey() throws IOException, InvalidKeySpecException {
+        /**
+         * TODO: This needs more, some configurations may be more complex (like the
+         * authelia test environment) than others.
+         */
+        private Map<String,Key> retrieveSigningKeys() throws IOException, InvalidKeySpecException {
+            Map<String,Key> retval = new HashMap<>();
             HttpURLConnection http = null;
             try {
                 http = (HttpURLConnection)jwksUrl.openConnection();
                 http.setRequestMethod("GET");
                 http.setInstanceFollowRedirects(true);
+                http.setConnectTimeout(HTTP_TIMEOUT_MILLIS);
+                http.setReadTimeout(HTTP_TIMEOUT_MILLIS);
                 int status = http.getResponseCode();
                 if (status == 200) {
-                    ObjectMapper mapper = new ObjectMapper();
-                    JsonNode keys = mapper.readTree(http.getInputStream()).get("keys");
+                    JsonNode keys = MAPPER.readTree(http.getInputStream()).get("keys");
+                    if (keys == null) {
+                        return retval;
+                    }
                     for (JsonNode key: keys) {
                         String kid = key.get("kid").textValue();
                         Decoder b64 = Base64.getUrlDecoder(); // https://datatracker.ietf.org/doc/id/draft-jones-json-web-key-01.html#RFC4648
@@ -171,7 +236,7 @@ public class OpenIDAccessManager extends CdaAccessManager {
                         BigInteger n = new BigInteger(1,b64.decode(nStr));
                         BigInteger e = new BigInteger(1,b64.decode(eStr));
                         Key pubKey = keyFactory.generatePublic(new RSAPublicKeySpec(n, e));
-                        realmPublicKeys.put(kid,pubKey);
+                        retval.put(kid,pubKey);
                     }
                 } else {
                     log.atSevere().log("Unable to retrieve actual keys. Response code %d",status);
@@ -181,6 +246,28 @@ public class OpenIDAccessManager extends CdaAccessManager {
                     http.disconnect();
                 }
             }
+            return retval;
+        }
+
+        /**
+         * Find the public key with the given id, fetching the keys once if it isn't known.
+         * @param keyId the key id from the token header
+         * @return the key or null if the realm doesn't have it.
+         */
+        Key getKey(String keyId) {
+            Map<String,Key> current = realmPublicKeys;
+            Key key = current.get(keyId);
+            if (key == null) {
+                synchronized (fetchLock) {
+                    // Another request may have fetched while we waited for the lock.
+                    if (realmPublicKeys == current
+                            && System.currentTimeMillis() - lastFetchMillis >= minUnknownKeyFetchMillis) {
+                        fetchKeys();
+                    }
+                }
+                key = realmPublicKeys.get(keyId);
+            }
+            return key;
         }
 
         @Override
@@ -189,12 +276,16 @@ public class OpenIDAccessManager extends CdaAccessManager {
                 log.atWarning().log("Request with invalid algorithm '%s'",header.getAlgorithm());
                 return null; // we only deal with RSA keys right now.
             }
-            updateKey();
-            Key key = realmPublicKeys.get(header.getKeyId());
+            Key key = getKey(header.getKeyId());
             if (key == null) {
                 log.atSevere().log("Key not found for id '%s'",header.getKeyId());
             }
             return key;
         }
+
+        @Override
+        public void close() {
+            refresher.shutdownNow();
+        }
     }
 }
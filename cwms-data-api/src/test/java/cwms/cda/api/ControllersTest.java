@@ -5,26 +5,34 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.codahale.metrics.MetricRegistry;
 import cwms.cda.api.enums.UnitSystem;
 import cwms.cda.api.enums.VersionType;
 import cwms.cda.api.errors.RequiredQueryParameterException;
+import cwms.cda.data.dao.ChangeMarker;
 import cwms.cda.data.dao.JooqDao;
 import cwms.cda.formatters.Formats;
 import io.javalin.core.util.Header;
 import io.javalin.core.validation.JavalinValidation;
 import io.javalin.http.Context;
+import java.time.Instant;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 class ControllersTest {
 
@@ -434,4 +442,84 @@ class ControllersTest {
         Double retVal3 = Controllers.queryParamAsDouble(ctx, "null");
         assertNull(retVal3);
     }
-}
\ No newline at end of file
+
+    private static Context conditionalContext(HttpServletResponse response, String ifNoneMatch,
+                                              String ifModifiedSince) {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/cwms-data/timeseries");
+        when(request.getQueryString()).thenReturn("name=KEYS.Flow.Inst.1Hour.0.Ccp-Rev");
+        when(request.getHeader(Header.ACCEPT)).thenReturn(Formats.JSONV2);
+        when(request.getHeader(Header.IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+        when(request.getHeader(Header.IF_MODIFIED_SINCE)).thenReturn(ifModifiedSince);
+        return new Context(request, response, new LinkedHashMap<>());
+    }
+
+    @Test
+    void testChangeMarkerIfNoneMatch() {
+        ChangeMarker marker = new ChangeMarker("3:2024-01-01 00:00:00.0",
+                Instant.parse("2024-01-01T00:00:00Z"));
+
+        HttpServletResponse first = mock(HttpServletResponse.class);
+        assertFalse(Controllers.notModified(conditionalContext(first, null, null), marker));
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(first).setHeader(eq(Header.ETAG), etag.capture());
+        verify(first).setHeader(Header.LAST_MODIFIED, "Mon, 1 Jan 2024 00:00:00 GMT");
+
+        HttpServletResponse second = mock(HttpServletResponse.class);
+        assertTrue(Controllers.notModified(conditionalContext(second, etag.getValue(), null), marker));
+        verify(second).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+        HttpServletResponse changed = mock(HttpServletResponse.class);
+        assertFalse(Controllers.notModified(conditionalContext(changed, etag.getValue(), null),
+                new ChangeMarker("4:2024-01-01 00:00:00.0", Instant.parse("2024-01-01T00:00:00Z"))));
+        verify(changed, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    @Test
+    void testChangeMarkerIfModifiedSince() {
+        ChangeMarker marker = new ChangeMarker("3", Instant.parse("2024-01-01T00:00:00.250Z"));
+
+        HttpServletResponse current = mock(HttpServletResponse.class);
+        assertTrue(Controllers.notModified(conditionalContext(current, null,
+                "Mon, 1 Jan 2024 00:00:00 GMT"), marker));
+
+        HttpServletResponse stale = mock(HttpServletResponse.class);
+        assertFalse(Controllers.notModified(conditionalContext(stale, null,
+                "Sun, 31 Dec 2023 23:59:59 GMT"), marker));
+
+        HttpServletResponse invalid = mock(HttpServletResponse.class);
+        assertFalse(Controllers.notModified(conditionalContext(invalid, null, "yesterday"), marker));
+
+        // If-None-Match takes precedence.
+        HttpServletResponse both = mock(HttpServletResponse.class);
+        assertFalse(Controllers.notModified(conditionalContext(both, "\"other\"",
+                "Mon, 1 Jan 2024 00:00:00 GMT"), marker));
+    }
+
+    @Test
+    void testStreamFailedBeforeCommit() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        Context ctx = new Context(request, response, new LinkedHashMap<>());
+        IllegalStateException failure = new IllegalStateException("database went away");
+
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> Controllers.streamFailed(ctx, failure)));
+        verify(response).resetBuffer();
+        verify(request, never()).setAttribute(eq(Controllers.ABORTED_RESPONSE), any());
+    }
+
+    @Test
+    void testStreamFailedAfterCommit() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.isCommitted()).thenReturn(true);
+        when(request.getRequestURL()).thenReturn(new StringBuffer("http://localhost/timeseries"));
+        Context ctx = new Context(request, response, new LinkedHashMap<>());
+        IllegalStateException failure = new IllegalStateException("database went away");
+
+        Controllers.streamFailed(ctx, failure);
+        verify(request).setAttribute(Controllers.ABORTED_RESPONSE, failure);
+        verify(response, never()).resetBuffer();
+    }
+}
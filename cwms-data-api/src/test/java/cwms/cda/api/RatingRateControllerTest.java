@@ -0,0 +1,135 @@
+package cwms.cda.api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import cwms.cda.data.dao.RatingDao;
+import cwms.cda.data.dto.rating.RatedValues;
+import cwms.cda.formatters.Formats;
+import hec.data.RatingException;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import io.javalin.http.util.ContextUtil;
+import io.javalin.plugin.json.JavalinJackson;
+import io.javalin.plugin.json.JsonMapperKt;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class RatingRateControllerTest {
+
+    private static final String RATING_ID = "BEAV.Stage;Flow.BASE.PRODUCTION";
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private Context context(String queryString) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ContextUtil.maxRequestSizeKey, Integer.MAX_VALUE);
+        attributes.put(JsonMapperKt.JSON_MAPPER_KEY, new JavalinJackson());
+        when(request.getQueryString()).thenReturn(queryString);
+        when(request.getHeader(Header.ACCEPT)).thenReturn(Formats.JSONV2);
+        return ContextUtil.init(request, response, "*",
+                Collections.singletonMap(Controllers.RATING_ID, RATING_ID), HandlerType.GET,
+                attributes);
+    }
+
+    private static RatingRateController controller(RatingDao dao) {
+        return new RatingRateController(new MetricRegistry()) {
+            @Override
+            protected DSLContext getDslContext(Context ctx) {
+                return null;
+            }
+
+            @NotNull
+            @Override
+            protected RatingDao getRatingDao(DSLContext dsl) {
+                return dao;
+            }
+        };
+    }
+
+    @Test
+    void testRateValues() throws Exception {
+        RatingDao dao = mock(RatingDao.class);
+        when(dao.rate(eq("SWT"), eq(RATING_ID), any(), any())).thenReturn(new RatedValues.Builder()
+                .withOfficeId("SWT")
+                .withRatingId(RATING_ID)
+                .withIndependentUnits(Collections.singletonList("ft"))
+                .withDependentUnit("cfs")
+                .withValue(new RatedValues.Value(1000L, new double[]{101.5}, 2500.0))
+                .build());
+        Context ctx = context("office=SWT&values=101.5&at=1970-01-01T00:00:01Z");
+
+        controller(dao).handle(ctx);
+
+        ArgumentCaptor<long[]> times = ArgumentCaptor.forClass(long[].class);
+        ArgumentCaptor<double[][]> values = ArgumentCaptor.forClass(double[][].class);
+        verify(dao).rate(eq("SWT"), eq(RATING_ID), times.capture(), values.capture());
+        assertArrayEquals(new long[]{1000L}, times.getValue());
+        assertArrayEquals(new double[][]{{101.5}}, values.getValue());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(ctx.resultString().contains("2500.0"), ctx.resultString());
+    }
+
+    @Test
+    void testValueThatCannotBeRatedIsABadRequest() throws Exception {
+        RatingDao dao = mock(RatingDao.class);
+        when(dao.rate(eq("SWT"), eq(RATING_ID), any(), any()))
+                .thenThrow(new IllegalArgumentException("Unable to rate [9999.0]"));
+        Context ctx = context("office=SWT&values=9999");
+
+        // The servlet maps IllegalArgumentException to 400.
+        assertThrows(IllegalArgumentException.class, () -> controller(dao).handle(ctx));
+    }
+
+    @Test
+    void testRatingThatCannotBeLoadedIsAServerError() throws Exception {
+        RatingDao dao = mock(RatingDao.class);
+        when(dao.rate(eq("SWT"), eq(RATING_ID), any(), any()))
+                .thenThrow(new RatingException("Unable to load rating"));
+        Context ctx = context("office=SWT&values=101.5");
+
+        controller(dao).handle(ctx);
+
+        verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    void testParseSingleParameterValues() {
+        double[][] values = RatingRateController.parseValues("101.5, 102,102.5");
+        assertEquals(3, values.length);
+        assertArrayEquals(new double[]{101.5}, values[0]);
+        assertArrayEquals(new double[]{102.0}, values[1]);
+        assertArrayEquals(new double[]{102.5}, values[2]);
+    }
+
+    @Test
+    void testParseMultipleParameterValues() {
+        double[][] values = RatingRateController.parseValues("101.5;12,102.0;14");
+        assertEquals(2, values.length);
+        assertArrayEquals(new double[]{101.5, 12.0}, values[0]);
+        assertArrayEquals(new double[]{102.0, 14.0}, values[1]);
+    }
+
+    @Test
+    void testParseInvalidValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RatingRateController.parseValues("101.5,abc"));
+    }
+}
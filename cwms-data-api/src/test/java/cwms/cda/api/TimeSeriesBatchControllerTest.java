@@ -0,0 +1,130 @@
+package cwms.cda.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import cwms.cda.data.dao.StoreRule;
+import cwms.cda.data.dao.TimeSeriesDao;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.data.dto.TimeSeriesStoreResult;
+import cwms.cda.formatters.UnsupportedFormatException;
+import fixtures.TestServletInputStream;
+import io.javalin.http.Context;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class TimeSeriesBatchControllerTest {
+
+    private static final String FLOW = "{\"office-id\": \"SWT\", "
+            + "\"name\": \"KEYS.Flow.Inst.1Hour.0.Ccp-Rev\", \"units\": \"cfs\", "
+            + "\"values\": [[1209654000000, 1, 0], [1209657600000, 2, 0]]}";
+    private static final String STAGE = "{\"office-id\": \"SWT\", "
+            + "\"name\": \"KEYS.Stage.Inst.1Hour.0.Ccp-Rev\", \"units\": \"ft\", "
+            + "\"values\": [[1209654000000, 700.5, 0]]}";
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private Context context(String body, String queryString) throws Exception {
+        when(request.getContentType()).thenReturn(TimeSeriesBatchController.NDJSON);
+        when(request.getInputStream()).thenReturn(new TestServletInputStream(body));
+        when(request.getQueryString()).thenReturn(queryString);
+        when(request.getRequestURL()).thenReturn(new StringBuffer("http://127.0.0.1:7001/timeseries/batch"));
+        return new Context(request, response, new LinkedHashMap<>());
+    }
+
+    private static TimeSeriesBatchController controller(TimeSeriesDao dao) {
+        return new TimeSeriesBatchController(new MetricRegistry()) {
+            @Override
+            protected DSLContext getDslContext(Context ctx) {
+                return null;
+            }
+
+            @NotNull
+            @Override
+            protected TimeSeriesDao getTimeSeriesDao(DSLContext dsl) {
+                return dao;
+            }
+        };
+    }
+
+    @Test
+    void testEachLineIsReported() throws Exception {
+        TimeSeriesDao dao = mock(TimeSeriesDao.class);
+        when(dao.store(anyList(), anyBoolean(), eq(StoreRule.REPLACE_ALL), anyBoolean()))
+                .thenReturn(Arrays.asList(
+                        TimeSeriesStoreResult.stored("SWT", "KEYS.Flow.Inst.1Hour.0.Ccp-Rev"),
+                        TimeSeriesStoreResult.failed("SWT", "KEYS.Stage.Inst.1Hour.0.Ccp-Rev",
+                                "Stage is protected")));
+        Context ctx = context(FLOW + "\n\n" + STAGE + "\n", null);
+
+        controller(dao).handle(ctx);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TimeSeries>> stored = ArgumentCaptor.forClass(List.class);
+        verify(dao).store(stored.capture(), eq(false), eq(StoreRule.REPLACE_ALL), anyBoolean());
+        assertEquals(2, stored.getValue().size());
+        assertEquals("KEYS.Flow.Inst.1Hour.0.Ccp-Rev", stored.getValue().get(0).getName());
+        assertEquals(2, stored.getValue().get(0).getValues().size());
+        assertEquals("KEYS.Stage.Inst.1Hour.0.Ccp-Rev", stored.getValue().get(1).getName());
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        String result = ctx.resultString();
+        assertTrue(result.indexOf("KEYS.Flow") < result.indexOf("KEYS.Stage"), result);
+        assertTrue(result.contains("Stage is protected"), result);
+    }
+
+    @Test
+    void testStoreRuleIsParsed() throws Exception {
+        TimeSeriesDao dao = mock(TimeSeriesDao.class);
+        controller(dao).handle(context(FLOW, Controllers.STORE_RULE + "=delete%20insert"));
+        verify(dao).store(anyList(), eq(false), eq(StoreRule.DELETE_INSERT), anyBoolean());
+    }
+
+    @Test
+    void testEmptyBodyIsRejected() throws Exception {
+        TimeSeriesDao dao = mock(TimeSeriesDao.class);
+        Context ctx = context("\n  \n", null);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> controller(dao).handle(ctx));
+        assertTrue(ex.getMessage().contains("At least one"), ex.getMessage());
+        verify(dao, never()).store(anyList(), anyBoolean(), eq(StoreRule.REPLACE_ALL), anyBoolean());
+    }
+
+    @Test
+    void testMalformedLineIsReportedByNumber() throws Exception {
+        TimeSeriesDao dao = mock(TimeSeriesDao.class);
+        Context ctx = context(FLOW + "\n{\"office-id\": \"SWT\", \"values\": [[\n" + STAGE, null);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> controller(dao).handle(ctx));
+        assertTrue(ex.getMessage().startsWith("Line 2 "), ex.getMessage());
+        verify(dao, never()).store(anyList(), anyBoolean(), eq(StoreRule.REPLACE_ALL), anyBoolean());
+    }
+
+    @Test
+    void testOtherContentTypesAreRejected() throws Exception {
+        TimeSeriesDao dao = mock(TimeSeriesDao.class);
+        Context ctx = context(FLOW, null);
+        when(request.getContentType()).thenReturn("application/json;version=2");
+
+        assertThrows(UnsupportedFormatException.class, () -> controller(dao).handle(ctx));
+    }
+}
@@ -0,0 +1,80 @@
+package cwms.cda.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dao.TimeSeriesDao;
+import cwms.cda.formatters.Formats;
+import fixtures.TestServletInputStream;
+import fixtures.TestServletOutputStream;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import java.util.LinkedHashMap;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+
+class TimeSeriesBulkControllerTest {
+
+    private static final String BODY = "{\"names\": [\"KEYS.Flow.Inst.1Hour.0.Ccp-Rev\", "
+            + "\"NOPE.Flow.Inst.1Hour.0.Ccp-Rev\"], \"office-id\": \"SWT\", "
+            + "\"begin\": \"2024-01-01T00:00:00Z\", \"end\": \"2024-01-02T00:00:00Z\"}";
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final TestServletOutputStream out = new TestServletOutputStream();
+
+    private Context context() throws Exception {
+        when(request.getContentType()).thenReturn(Formats.JSONV2);
+        when(request.getHeader(Header.ACCEPT)).thenReturn(Formats.JSONV2);
+        when(request.getInputStream()).thenReturn(new TestServletInputStream(BODY));
+        when(request.getRequestURL()).thenReturn(new StringBuffer("http://127.0.0.1:7001/timeseries/bulk"));
+        when(response.getOutputStream()).thenReturn(out);
+        return new Context(request, response, new LinkedHashMap<>());
+    }
+
+    private static TimeSeriesBulkController controller(TimeSeriesDao dao) {
+        return new TimeSeriesBulkController(new MetricRegistry()) {
+            @Override
+            protected DSLContext getDslContext(Context ctx) {
+                return null;
+            }
+
+            @NotNull
+            @Override
+            protected TimeSeriesDao getTimeSeriesDao(DSLContext dsl) {
+                return dao;
+            }
+        };
+    }
+
+    @Test
+    void testUnknownNameIsReportedBeforeAnythingIsSent() throws Exception {
+        TimeSeriesDao dao = mock(TimeSeriesDao.class);
+        doThrow(new NotFoundException("NOPE.Flow.Inst.1Hour.0.Ccp-Rev"))
+                .when(dao).streamTimeseries(anyList(), any(), any(), any(), any(), any(),
+                        anyBoolean(), any());
+        Context ctx = context();
+
+        assertThrows(NotFoundException.class, () -> controller(dao).handle(ctx));
+        assertEquals("", out.getOutput());
+        verify(response).resetBuffer();
+    }
+
+    @Test
+    void testNoSeriesIsAnEmptyArray() throws Exception {
+        controller(mock(TimeSeriesDao.class)).handle(context());
+        assertEquals("[]", out.getOutput());
+    }
+}
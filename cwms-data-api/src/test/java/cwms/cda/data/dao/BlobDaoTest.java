@@ -0,0 +1,52 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BlobDaoTest {
+
+    @Test
+    void testCopyToTemporaryBlob() throws Exception {
+        byte[] data = new byte[300 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        Connection conn = mock(Connection.class);
+        Blob lob = mock(Blob.class);
+        when(conn.createBlob()).thenReturn(lob);
+        when(lob.setBinaryStream(1)).thenReturn(written);
+
+        assertSame(lob, BlobDao.copyToTemporaryBlob(conn, new ByteArrayInputStream(data)));
+        assertArrayEquals(data, written.toByteArray());
+    }
+
+    @Test
+    void testFailedCopyFreesBlob() throws Exception {
+        Connection conn = mock(Connection.class);
+        Blob lob = mock(Blob.class);
+        when(conn.createBlob()).thenReturn(lob);
+        when(lob.setBinaryStream(anyLong())).thenReturn(new ByteArrayOutputStream());
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThrows(IOException.class, () -> BlobDao.copyToTemporaryBlob(conn, broken));
+        verify(lob).free();
+    }
+}
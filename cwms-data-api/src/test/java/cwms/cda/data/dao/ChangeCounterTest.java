@@ -0,0 +1,58 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+final class ChangeCounterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ChangeCounter counter = new ChangeCounter(900, now::get);
+
+    private String marker(String officeId) {
+        return counter.marker(officeId).getValue();
+    }
+
+    @Test
+    void testUnchanged() {
+        assertEquals(marker("SWT"), marker("swt"));
+        assertEquals(marker(null), marker(null));
+        now.set(899_999);
+        assertEquals(marker("SWT"), counter.marker("SWT").getValue());
+    }
+
+    @Test
+    void testChangeMovesOnlyThatOffice() {
+        String swt = marker("SWT");
+        String lrl = marker("LRL");
+        String all = marker(null);
+        counter.changed("swt");
+        assertNotEquals(swt, marker("SWT"));
+        assertEquals(lrl, marker("LRL"));
+        assertNotEquals(all, marker(null));
+    }
+
+    @Test
+    void testChangeOfAnyOfficeMovesEveryOffice() {
+        String swt = marker("SWT");
+        String all = marker(null);
+        counter.changed(null);
+        assertNotEquals(swt, marker("SWT"));
+        assertNotEquals(all, marker(null));
+    }
+
+    @Test
+    void testPeriodMovesTheMarker() {
+        String swt = marker("SWT");
+        now.set(900_000);
+        assertNotEquals(swt, marker("SWT"));
+    }
+
+    @Test
+    void testOtherCounterNeverMatches() {
+        ChangeCounter other = new ChangeCounter(900, now::get);
+        assertNotEquals(marker("SWT"), other.marker("SWT").getValue());
+    }
+}
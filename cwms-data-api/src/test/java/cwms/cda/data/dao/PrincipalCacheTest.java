@@ -0,0 +1,155 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import cwms.cda.security.CwmsAuthException;
+import cwms.cda.security.DataApiPrincipal;
+import cwms.cda.security.Role;
+import io.javalin.core.security.RouteRole;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+final class PrincipalCacheTest {
+
+    private static final List<Object> KEY = AuthDao.principalKey(
+            AuthDao.apiKeyCredential("secret"), "CWMS_20", "SWT", true);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final PrincipalCache cache = new PrincipalCache(CacheBuilder.newBuilder()
+            .expireAfterWrite(300, TimeUnit.SECONDS)
+            .ticker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanos.get();
+                }
+            }));
+
+    /** Looks up a user with the roles given when it is called, counting the lookups. */
+    private static final class Lookup {
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile String user = "q0hecxyz";
+        private volatile Set<RouteRole> roles = Collections.singleton(new Role("CWMS Users"));
+
+        DataApiPrincipal get(PrincipalCache cache, List<Object> key) {
+            return cache.get(key, () -> {
+                count.incrementAndGet();
+                return new DataApiPrincipal(user, roles);
+            });
+        }
+    }
+
+    @Test
+    void testHit() {
+        Lookup lookup = new Lookup();
+        DataApiPrincipal first = lookup.get(cache, KEY);
+        assertSame(first, lookup.get(cache, KEY));
+        assertEquals(1, lookup.count.get());
+    }
+
+    @Test
+    void testExpiredPrincipalIsLookedUpAgain() {
+        Lookup lookup = new Lookup();
+        lookup.get(cache, KEY);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(299));
+        lookup.get(cache, KEY);
+        assertEquals(1, lookup.count.get());
+
+        Set<RouteRole> changed = Collections.singleton(new Role("TS ID Creator"));
+        lookup.roles = changed;
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(changed, lookup.get(cache, KEY).getRoles());
+        assertEquals(2, lookup.count.get());
+    }
+
+    @Test
+    void testInvalidatedUserIsLookedUpAgain() {
+        Lookup lookup = new Lookup();
+        List<Object> otherKey = AuthDao.principalKey(AuthDao.apiKeyCredential("other"),
+                "CWMS_20", "SWT", true);
+        lookup.get(cache, KEY);
+        lookup.get(cache, otherKey);
+
+        Lookup otherUser = new Lookup();
+        otherUser.user = "m5hectest";
+        List<Object> otherUserKey = AuthDao.principalKey("edipi:1234567890", "CWMS_20", "SWT",
+                true);
+        otherUser.get(cache, otherUserKey);
+
+        lookup.roles = Collections.emptySet();
+        cache.invalidate("Q0HECXYZ");
+        assertEquals(Collections.emptySet(), lookup.get(cache, KEY).getRoles());
+        assertEquals(Collections.emptySet(), lookup.get(cache, otherKey).getRoles());
+        assertEquals(4, lookup.count.get());
+
+        otherUser.get(cache, otherUserKey);
+        assertEquals(1, otherUser.count.get());
+    }
+
+    @Test
+    void testRevokedKeyIsNotServed() {
+        Lookup lookup = new Lookup();
+        lookup.get(cache, KEY);
+        cache.invalidate("q0hecxyz");
+
+        assertThrows(CwmsAuthException.class, () -> cache.get(KEY, () -> {
+            throw new CwmsAuthException("No user for key");
+        }));
+        // and the failure is not cached either
+        lookup.get(cache, KEY);
+        assertEquals(2, lookup.count.get());
+    }
+
+    @Test
+    void testInvalidatedWhileLookingUpIsNotKept() {
+        Lookup lookup = new Lookup();
+        cache.get(KEY, () -> {
+            // the key is revoked after the lookup read it
+            cache.invalidate("q0hecxyz");
+            return new DataApiPrincipal("q0hecxyz", Collections.emptySet());
+        });
+        lookup.get(cache, KEY);
+        assertEquals(1, lookup.count.get());
+    }
+
+    @Test
+    void testCheckedFailureIsAnAuthError() {
+        CwmsAuthException ex = assertThrows(CwmsAuthException.class,
+                () -> cache.get(KEY, () -> {
+                    throw new SQLException("connection reset");
+                }));
+        assertEquals(500, ex.getAuthFailCode());
+    }
+
+    @Test
+    void testKeyCoversCredentialAndSession() {
+        assertNotEquals(KEY, AuthDao.principalKey(AuthDao.apiKeyCredential("Secret"),
+                "CWMS_20", "SWT", true));
+        assertNotEquals(KEY, AuthDao.principalKey(AuthDao.apiKeyCredential("secret"),
+                "OTHER_USER", "SWT", true));
+        assertNotEquals(KEY, AuthDao.principalKey(AuthDao.apiKeyCredential("secret"),
+                "CWMS_20", "LRL", true));
+        assertNotEquals(KEY, AuthDao.principalKey(AuthDao.apiKeyCredential("secret"),
+                "CWMS_20", "SWT", false));
+        assertEquals(KEY, AuthDao.principalKey(AuthDao.apiKeyCredential("secret"),
+                "CWMS_20", "SWT", true));
+        assertNotEquals(AuthDao.principalKey("edipi:1", "CWMS_20", "SWT", true),
+                AuthDao.principalKey("edipi:12", "CWMS_20", "SWT", true));
+    }
+
+    @Test
+    void testKeyIsNotHeld() {
+        assertFalse(KEY.toString().contains("secret"));
+    }
+}
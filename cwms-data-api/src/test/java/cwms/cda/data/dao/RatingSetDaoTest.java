@@ -0,0 +1,79 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import cwms.cda.data.dto.rating.RatedValues;
+import hec.data.RatingException;
+import hec.data.cwmsRating.RatingSet;
+import java.util.Arrays;
+import java.util.List;
+import mil.army.usace.hec.cwms.rating.io.xml.RatingXmlFactory;
+import org.junit.jupiter.api.Test;
+
+class RatingSetDaoTest {
+
+    private static final String RATING_ID = "BEAV.Stage;Flow.BASE.PRODUCTION";
+
+    private static final List<String> UNITS = Arrays.asList("ft", "cfs");
+
+    @Test
+    void testRate() throws Exception {
+        RatingSet ratingSet = mock(RatingSet.class);
+        when(ratingSet.rateOne(1000L, 101.5)).thenReturn(2500.0);
+        when(ratingSet.rateOne(2000L, 102.0)).thenReturn(Double.NaN);
+
+        RatedValues rated = RatingSetDao.rate(ratingSet, UNITS, "SWT", RATING_ID,
+                new long[]{1000L, 2000L}, new double[][]{{101.5}, {102.0}});
+        assertEquals(Arrays.asList("ft"), rated.getIndependentUnits());
+        assertEquals("cfs", rated.getDependentUnit());
+        assertEquals(2, rated.getValues().size());
+        assertArrayEquals(new double[]{101.5}, rated.getValues().get(0).getIndependentValues());
+        assertEquals(2500.0, rated.getValues().get(0).getDependentValue());
+        assertNull(rated.getValues().get(1).getDependentValue());
+    }
+
+    @Test
+    void testValueThatCannotBeRatedIsABadRequest() throws Exception {
+        RatingSet ratingSet = mock(RatingSet.class);
+        RatingException cause = new RatingException("Value is above the rating");
+        when(ratingSet.rateOne(1000L, 9999.0)).thenThrow(cause);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> RatingSetDao.rate(ratingSet, UNITS, "SWT", RATING_ID, new long[]{1000L},
+                        new double[][]{{9999.0}}));
+        assertSame(cause, ex.getCause());
+    }
+
+    @Test
+    void testWrongParameterCountIsABadRequest() throws Exception {
+        RatingSet ratingSet = mock(RatingSet.class);
+        assertThrows(IllegalArgumentException.class,
+                () -> RatingSetDao.rate(ratingSet, UNITS, "SWT", RATING_ID, new long[]{1000L},
+                        new double[][]{{101.5, 12.0}}));
+    }
+
+    @Test
+    void testConcurrentRequestsRateWithTheirOwnCopy() throws Exception {
+        String xml = JsonRatingUtilsTest.loadResourceAsString(
+                "cwms/cda/data/dao/BEAV.Stage_Flow.BASE.PRODUCTION.xml");
+        RatingSet loaded = RatingXmlFactory.ratingSet(xml);
+        RatingSetDao.RatingSetCopies copies = new RatingSetDao.RatingSetCopies(loaded);
+        assertEquals(Arrays.asList(loaded.getRatingUnits()), copies.getUnits());
+
+        RatingSet first = copies.borrow();
+        RatingSet second = copies.borrow();
+        assertSame(loaded, first);
+        assertNotSame(first, second);
+        assertEquals(first.getName(), second.getName());
+
+        copies.giveBack(second);
+        assertSame(second, copies.borrow());
+    }
+}
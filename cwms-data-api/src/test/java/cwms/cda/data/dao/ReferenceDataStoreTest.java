@@ -0,0 +1,109 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cwms.cda.data.dto.Office;
+import cwms.cda.data.dto.Parameter;
+import cwms.cda.data.dto.State;
+import cwms.cda.data.dto.TimeZoneIds;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ReferenceDataStoreTest {
+
+    private static ReferenceDataStore.Snapshot snapshot(Collection<String> parameterOffices) {
+        Map<String, List<Parameter>> parameters = new HashMap<>();
+        for (String office : parameterOffices) {
+            parameters.put(office, Collections.emptyList());
+        }
+        return new ReferenceDataStore.Snapshot(Collections.emptyList(), Collections.emptyMap(),
+                parameters, Collections.emptyMap(), new TimeZoneIds(Collections.emptyList()),
+                Collections.emptyMap(), Collections.singletonList(new State("OK", "Oklahoma")),
+                Collections.emptyList(),
+                Arrays.asList(new Office("SWT", "Tulsa District", "DIS", "SWD"),
+                        new Office("SWF", "Fort Worth District", "DIS", "SWD")),
+                Collections.emptyList());
+    }
+
+    private static ReferenceDataStore.Snapshot awaitSnapshot(ReferenceDataStore store)
+            throws InterruptedException {
+        for (int i = 0; i < 500 && store.getSnapshot() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull(store.getSnapshot());
+        return store.getSnapshot();
+    }
+
+    @Test
+    void testBodyIsSerializedOnce() {
+        ReferenceDataStore.Snapshot snapshot = snapshot(Collections.emptyList());
+        AtomicInteger calls = new AtomicInteger();
+        ReferenceDataStore.Body first = snapshot.body("states:application/json", "application/json",
+                () -> "[\"OK\"]" + calls.incrementAndGet());
+        ReferenceDataStore.Body second = snapshot.body("states:application/json", "application/json",
+                () -> "[\"OK\"]" + calls.incrementAndGet());
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals("application/json", first.getContentType());
+        assertTrue(first.getEtag().startsWith("\"") && first.getEtag().endsWith("\""));
+        assertEquals(ReferenceDataStore.Body.of("[\"OK\"]1", "text/plain").getEtag(), first.getEtag());
+        assertNotEquals(ReferenceDataStore.Body.of("[\"OK\"]2", "application/json").getEtag(),
+                first.getEtag());
+    }
+
+    @Test
+    void testFailedRefreshKeepsSnapshot() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ReferenceDataStore.Snapshot loaded = snapshot(Collections.emptyList());
+        try (ReferenceDataStore store = new ReferenceDataStore(offices -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new SQLException("database unavailable");
+            }
+            return loaded;
+        }, "SWT", null, 60)) {
+            assertSame(loaded, awaitSnapshot(store));
+            store.refresh();
+            assertEquals(2, loads.get());
+            assertSame(loaded, store.getSnapshot());
+        }
+    }
+
+    @Test
+    void testParametersOfRequestedOfficesAreRefreshed() throws Exception {
+        List<List<String>> requested = new CopyOnWriteArrayList<>();
+        try (ReferenceDataStore store = new ReferenceDataStore(offices -> {
+            requested.add(new ArrayList<>(offices));
+            return snapshot(offices);
+        }, "swt", null, 60)) {
+            ReferenceDataStore.Snapshot snapshot = awaitSnapshot(store);
+            assertNotNull(snapshot.getParameters(null));
+            assertNotNull(snapshot.getParameters("swt"));
+            assertNull(snapshot.getParameters("SWF"));
+
+            snapshot.putParameters("swf", Collections.emptyList());
+            snapshot.putParameters("NOPE", Collections.emptyList());
+            assertNotNull(snapshot.getParameters("SWF"));
+            assertNull(snapshot.getParameters("NOPE"));
+
+            store.refresh();
+            List<String> last = requested.get(requested.size() - 1);
+            assertEquals(2, last.size());
+            assertTrue(last.containsAll(Arrays.asList("SWT", "SWF")));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import cwms.cda.api.errors.NotFoundException;
+import cwms.cda.data.dto.CwmsId;
+import cwms.cda.data.dto.stream.Stream;
+import cwms.cda.data.dto.stream.StreamLocation;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+final class StreamNetworkTest {
+
+    private static final String OFFICE = "SWT";
+
+    /*
+     * MAIN: M0 - M10 - (TRIB joins at 15) - M20 - (DIV leaves at 25) - M30, stationed from the
+     * downstream end.
+     * TRIB: T1 - T5, stationed from the upstream end.
+     * DIV: D2 - D8, stationed from the downstream end.
+     */
+    private static StreamNetwork network() {
+        Stream main = stream("MAIN", true, null, null);
+        Stream trib = new Stream.Builder()
+                .withId(id("TRIB"))
+                .withStartsDownstream(false)
+                .withFlowsIntoStreamNode(StreamDao.buildStreamNode(OFFICE, "MAIN", 15.0, null, "km"))
+                .build();
+        Stream div = stream("DIV", true, "MAIN", 25.0);
+        return new StreamNetwork(Arrays.asList(main, trib, div), Arrays.asList(
+                location("MAIN", "M0", 0.0),
+                location("MAIN", "M10", 10.0),
+                location("MAIN", "M20", 20.0),
+                location("MAIN", "M30", 30.0),
+                location("TRIB", "T1", 1.0),
+                location("TRIB", "T5", 5.0),
+                location("DIV", "D2", 2.0),
+                location("DIV", "D8", 8.0)));
+    }
+
+    private static CwmsId id(String name) {
+        return new CwmsId.Builder().withOfficeId(OFFICE).withName(name).build();
+    }
+
+    private static Stream stream(String name, boolean startsDownstream, String divertsFrom,
+                                 Double divertsFromStation) {
+        return new Stream.Builder()
+                .withId(id(name))
+                .withStartsDownstream(startsDownstream)
+                .withDivertsFromStreamNode(StreamDao.buildStreamNode(OFFICE, divertsFrom,
+                        divertsFromStation, null, "km"))
+                .build();
+    }
+
+    private static StreamLocation location(String streamId, String locationId, double station) {
+        return new StreamLocation.Builder()
+                .withStreamLocationNode(StreamLocationDao.buildStreamLocationNode(OFFICE, streamId,
+                        locationId, station, null, "km"))
+                .build();
+    }
+
+    @Test
+    void testAllDownstream() {
+        StreamNetwork network = network();
+        assertEquals(Arrays.asList("T5", "M10", "M0"), network.downstream("T1", true, false));
+        assertEquals(Arrays.asList("M20", "M10", "M0", "D8", "D2"),
+                network.downstream("m30", true, false));
+    }
+
+    @Test
+    void testNextDownstream() {
+        assertEquals(Arrays.asList("M20", "D8"), network().downstream("M30", false, false));
+    }
+
+    @Test
+    void testAllUpstream() {
+        StreamNetwork network = network();
+        assertEquals(Arrays.asList("M20", "M30", "T5", "T1"), network.upstream("M10", true, false));
+        assertEquals(Arrays.asList("D8", "M30"), network.upstream("D2", true, false));
+    }
+
+    @Test
+    void testNextUpstream() {
+        assertEquals(Arrays.asList("M20", "T5"), network().upstream("M10", false, false));
+    }
+
+    @Test
+    void testSameStreamOnly() {
+        StreamNetwork network = network();
+        assertEquals(Arrays.asList("T5"), network.downstream("T1", true, true));
+        assertEquals(Arrays.asList("M20", "M30"), network.upstream("M10", true, true));
+    }
+
+    @Test
+    void testUnknownLocation() {
+        assertThrows(NotFoundException.class, () -> network().downstream("NOWHERE", true, false));
+    }
+}
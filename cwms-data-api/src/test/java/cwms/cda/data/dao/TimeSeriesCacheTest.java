@@ -0,0 +1,133 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class TimeSeriesCacheTest {
+
+    private static final String FLOW = "KEYS.Flow.Inst.1Hour.0.Ccp-Rev";
+    private static final String ELEV = "KEYS.Elev.Inst.1Hour.0.Ccp-Rev";
+    private static final String STAGE = "TULSA.Stage.Inst.15Minutes.0.Raw";
+
+    /** Keys are (office, requested id), values the resolved id. */
+    private static TimeSeriesCache<List<String>, String> cache() {
+        return cache(CacheBuilder.newBuilder());
+    }
+
+    private static TimeSeriesCache<List<String>, String> cache(CacheBuilder<Object, Object> builder) {
+        return new TimeSeriesCache<>(builder.recordStats(), k -> k.get(0),
+                (k, v) -> Arrays.asList(k.get(1), v));
+    }
+
+    private static List<String> key(String office, String tsId) {
+        return Arrays.asList(office, tsId);
+    }
+
+    @Test
+    void testHit() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+        cache.put(key("SWT", FLOW), FLOW);
+        assertEquals(FLOW, cache.getIfPresent(key("SWT", FLOW)));
+        assertEquals(1, cache.getCache().stats().hitCount());
+        assertEquals(1, cache.getCache().stats().missCount());
+    }
+
+    @Test
+    void testInvalidateDropsOnlyThatSeries() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        cache.put(key("SWT", FLOW), FLOW);
+        cache.put(key("SWT", ELEV), ELEV);
+        cache.invalidate("swt", FLOW.toLowerCase());
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+        assertEquals(ELEV, cache.getIfPresent(key("SWT", ELEV)));
+    }
+
+    @Test
+    void testInvalidateByResolvedId() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        cache.put(key("SWT", "Keys-Alias.Flow.Inst.1Hour.0.Ccp-Rev"), FLOW);
+        cache.invalidate("SWT", FLOW);
+        assertNull(cache.getIfPresent(key("SWT", "Keys-Alias.Flow.Inst.1Hour.0.Ccp-Rev")));
+    }
+
+    @Test
+    void testInvalidateRespectsOffice() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        cache.put(key("SWT", FLOW), FLOW);
+        cache.put(key("LRL", FLOW), FLOW);
+        cache.put(key(null, FLOW), FLOW);
+        cache.invalidate("LRL", FLOW);
+        assertEquals(FLOW, cache.getIfPresent(key("SWT", FLOW)));
+        assertNull(cache.getIfPresent(key("LRL", FLOW)));
+        assertNull(cache.getIfPresent(key(null, FLOW)));
+
+        cache.invalidate(null, FLOW);
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+    }
+
+    @Test
+    void testInvalidateLocation() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        cache.put(key("SWT", FLOW), FLOW);
+        cache.put(key("SWT", ELEV), ELEV);
+        cache.put(key("SWT", STAGE), STAGE);
+        cache.put(key("SWT", "KEYS-Tailwater.Flow.Inst.1Hour.0.Raw"), "KEYS-Tailwater.Flow.Inst.1Hour.0.Raw");
+        cache.invalidateLocation("SWT", "Keys");
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+        assertNull(cache.getIfPresent(key("SWT", ELEV)));
+        assertEquals(STAGE, cache.getIfPresent(key("SWT", STAGE)));
+        assertEquals("KEYS-Tailwater.Flow.Inst.1Hour.0.Raw",
+                cache.getIfPresent(key("SWT", "KEYS-Tailwater.Flow.Inst.1Hour.0.Raw")));
+    }
+
+    @Test
+    void testReplacedValueIsIndexedByItsOwnIds() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        List<String> key = key("SWT", "Alias.Flow.Inst.1Hour.0.Ccp-Rev");
+        cache.put(key, FLOW);
+        cache.put(key, STAGE);
+        cache.invalidate("SWT", FLOW);
+        assertEquals(STAGE, cache.getIfPresent(key));
+        cache.invalidate("SWT", STAGE);
+        assertNull(cache.getIfPresent(key));
+    }
+
+    @Test
+    void testUpdate() {
+        TimeSeriesCache<List<String>, String> cache = cache();
+        cache.put(key("SWT", FLOW), FLOW);
+        cache.put(key("SWT", "Keys-Alias.Flow.Inst.1Hour.0.Ccp-Rev"), FLOW);
+        cache.put(key("LRL", FLOW), FLOW);
+        cache.update("SWT", FLOW, (k, v) -> k.get(1).equals(FLOW) ? v.toUpperCase() : null);
+        assertEquals(FLOW.toUpperCase(), cache.getIfPresent(key("SWT", FLOW)));
+        assertNull(cache.getIfPresent(key("SWT", "Keys-Alias.Flow.Inst.1Hour.0.Ccp-Rev")));
+        assertEquals(FLOW, cache.getIfPresent(key("LRL", FLOW)));
+
+        // updated entries are still indexed, dropped ones are not
+        cache.invalidate("SWT", FLOW);
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+        cache.invalidate(null, FLOW);
+        assertEquals(Collections.emptyMap(), cache.getCache().asMap());
+    }
+
+    @Test
+    void testEvictedEntryLeavesTheIndex() {
+        TimeSeriesCache<List<String>, String> cache = cache(CacheBuilder.newBuilder().maximumSize(1));
+        cache.put(key("SWT", FLOW), FLOW);
+        cache.put(key("SWT", STAGE), STAGE);
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+
+        // Caching the evicted key again must index it again.
+        cache.put(key("SWT", FLOW), FLOW);
+        cache.invalidate("SWT", FLOW);
+        assertNull(cache.getIfPresent(key("SWT", FLOW)));
+        assertEquals(Collections.emptyMap(), cache.getCache().asMap());
+    }
+}
@@ -0,0 +1,170 @@
+package cwms.cda.data.dao;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+final class TimeSeriesCatalogIndexTest {
+
+    private static final String OFFICE = "SWT";
+
+    private static TimeSeriesCatalogIndex.Entry entry(long code, String tsId, long locationCode,
+                                                      boolean hasData) {
+        return new TimeSeriesCatalogIndex.Entry(code, OFFICE, tsId, "cfs", "1Hour", 0L, "UTC",
+                locationCode, hasData);
+    }
+
+    private static TimeSeriesCatalogIndex index() {
+        return new TimeSeriesCatalogIndex(
+                Arrays.asList(
+                        entry(1, "KEYS.Flow.Inst.1Hour.0.Ccp-Rev", 10, true),
+                        entry(2, "KEYS.Elev.Inst.1Hour.0.Ccp-Rev", 10, true),
+                        entry(3, "Keystone-Tailwater.Flow.Inst.15Minutes.0.Raw", 11, true),
+                        entry(4, "TULSA.Stage.Inst.15Minutes.0.Raw", 12, false),
+                        entry(5, "EUFA.Flow.Ave.1Day.1Day.Ccp-Rev", 13, true)),
+                Arrays.asList(
+                        new TimeSeriesCatalogIndex.Assignment(1, "Data Acquisition", "CCP Data"),
+                        new TimeSeriesCatalogIndex.Assignment(5, "Data Acquisition", "CCP Data")),
+                Collections.singletonList(
+                        new TimeSeriesCatalogIndex.Assignment(10, "Basin", "Arkansas")));
+    }
+
+    private static List<String> ids(TimeSeriesCatalogIndex.Result result) {
+        return result.getPage().stream().map(TimeSeriesCatalogIndex.Entry::getTsId).collect(toList());
+    }
+
+    private static TimeSeriesCatalogIndex.Query idLike(String regex) {
+        return TimeSeriesCatalogIndex.Query.of(regex, null, null, null, null, false);
+    }
+
+    @Test
+    void testPrefixSearch() {
+        TimeSeriesCatalogIndex.Result result = index().query(idLike("^keys\\."), null, 10);
+        assertEquals(2, result.getTotal());
+        assertEquals(Arrays.asList("KEYS.Elev.Inst.1Hour.0.Ccp-Rev", "KEYS.Flow.Inst.1Hour.0.Ccp-Rev"),
+                ids(result));
+    }
+
+    @Test
+    void testContainsSearch() {
+        assertEquals(Arrays.asList("EUFA.Flow.Ave.1Day.1Day.Ccp-Rev", "KEYS.Flow.Inst.1Hour.0.Ccp-Rev",
+                        "Keystone-Tailwater.Flow.Inst.15Minutes.0.Raw"),
+                ids(index().query(idLike("\\.flow\\."), null, 10)));
+        assertEquals(Arrays.asList("Keystone-Tailwater.Flow.Inst.15Minutes.0.Raw",
+                        "TULSA.Stage.Inst.15Minutes.0.Raw"),
+                ids(index().query(idLike("15Min.*Raw$"), null, 10)));
+        assertEquals(5, index().query(idLike(".*"), null, 10).getTotal());
+        assertEquals(0, index().query(idLike("nowhere"), null, 10).getTotal());
+        assertEquals(2, index().query(idLike("raw$"), null, 10).getTotal());
+        assertEquals(1, index().query(idLike("^tulsa.stage.inst.15minutes.0.raw$"), null, 10).getTotal());
+    }
+
+    @Test
+    void testPaging() {
+        TimeSeriesCatalogIndex index = index();
+        TimeSeriesCatalogIndex.Result first = index.query(idLike("flow"), null, 2);
+        assertEquals(3, first.getTotal());
+        assertEquals(2, first.getPage().size());
+        String after = first.getPage().get(1).getTsId().toUpperCase();
+        assertEquals(Collections.singletonList("Keystone-Tailwater.Flow.Inst.15Minutes.0.Raw"),
+                ids(index.query(idLike("flow"), after, 2)));
+    }
+
+    @Test
+    void testGroupsAndEmpty() {
+        TimeSeriesCatalogIndex index = index();
+        assertEquals(Arrays.asList("EUFA.Flow.Ave.1Day.1Day.Ccp-Rev", "KEYS.Flow.Inst.1Hour.0.Ccp-Rev"),
+                ids(index.query(TimeSeriesCatalogIndex.Query.of(null, "acquisition", "ccp", null, null,
+                        false), null, 10)));
+        assertEquals(Arrays.asList("KEYS.Elev.Inst.1Hour.0.Ccp-Rev", "KEYS.Flow.Inst.1Hour.0.Ccp-Rev"),
+                ids(index.query(TimeSeriesCatalogIndex.Query.of(null, null, null, "basin", "^ark",
+                        false), null, 10)));
+        assertEquals(4, index.query(TimeSeriesCatalogIndex.Query.of(null, null, null, null, null,
+                true), null, 10).getTotal());
+    }
+
+    @Test
+    void testRefresh() {
+        TimeSeriesCatalogIndex index = index();
+        index.markPending("KEYS.Flow.Inst.1Hour.0.Ccp-Rev");
+        index.markPending("TULSA.Stage.Inst.15Minutes.0.Raw");
+        List<String> pending = new ArrayList<>(index.takePending());
+        assertEquals(2, pending.size());
+        assertEquals(0, index.takePending().size());
+
+        // Flow was renamed to Flow-In, Tulsa was deleted.
+        index.refresh(Arrays.asList("KEYS.FLOW.INST.1HOUR.0.CCP-REV", "TULSA.STAGE.INST.15MINUTES.0.RAW",
+                        "KEYS.FLOW-IN.INST.1HOUR.0.CCP-REV"),
+                Collections.singletonList(entry(6, "KEYS.Flow-In.Inst.1Hour.0.Ccp-Rev", 10, true)),
+                Collections.singletonList(
+                        new TimeSeriesCatalogIndex.Assignment(6, "Data Acquisition", "CCP Data")),
+                Collections.singletonList(new TimeSeriesCatalogIndex.Assignment(10, "Basin", "Arkansas")));
+
+        assertEquals(4, index.size());
+        assertEquals(Collections.singletonList("KEYS.Flow-In.Inst.1Hour.0.Ccp-Rev"),
+                ids(index.query(idLike("^KEYS.Flow"), null, 10)));
+        assertEquals(0, index.query(idLike("TULSA"), null, 10).getTotal());
+        assertEquals(2, index.query(TimeSeriesCatalogIndex.Query.of(null, null, "CCP Data", null,
+                null, false), null, 10).getTotal());
+    }
+
+    @Test
+    void testVersion() {
+        TimeSeriesCatalogIndex index = index();
+        long version = index.getVersion();
+        assertNotEquals(version, index().getVersion());
+
+        // Reloading a series that didn't change keeps the version.
+        index.refresh(Collections.singletonList("KEYS.FLOW.INST.1HOUR.0.CCP-REV"),
+                Collections.singletonList(entry(1, "KEYS.Flow.Inst.1Hour.0.Ccp-Rev", 10, true)),
+                Collections.singletonList(
+                        new TimeSeriesCatalogIndex.Assignment(1, "Data Acquisition", "CCP Data")),
+                Collections.singletonList(new TimeSeriesCatalogIndex.Assignment(10, "Basin", "Arkansas")));
+        assertEquals(version, index.getVersion());
+
+        index.refresh(Collections.singletonList("TULSA.STAGE.INST.15MINUTES.0.RAW"),
+                Collections.singletonList(entry(4, "TULSA.Stage.Inst.15Minutes.0.Raw", 12, true)),
+                Collections.emptyList(), Collections.emptyList());
+        assertNotEquals(version, index.getVersion());
+    }
+
+    @Test
+    void testLiterals() {
+        TimeSeriesCatalogIndex.Literals literals = TimeSeriesCatalogIndex.literals("^Keys\\.Flo?w.*Raw$");
+        assertEquals("KEYS.FL", literals.getPrefix());
+        assertEquals(Arrays.asList("KEYS.FL", "W", "RAW"), literals.getRequired());
+
+        literals = TimeSeriesCatalogIndex.literals("[A-Z]+Flow(Ave|Inst)");
+        assertNull(literals.getPrefix());
+        assertEquals(Collections.emptyList(), literals.getRequired());
+
+        literals = TimeSeriesCatalogIndex.literals("Keys[.]Flow\\d+");
+        assertEquals(Arrays.asList("KEYS", "FLOW"), literals.getRequired());
+        assertFalse(literals.isPlain());
+
+        assertTrue(TimeSeriesCatalogIndex.literals("^Keys\\.Flow").isPlain());
+        assertTrue(TimeSeriesCatalogIndex.literals("Raw$").isPlain());
+        assertFalse(TimeSeriesCatalogIndex.literals("Keys.Flow").isPlain());
+    }
+
+    @Test
+    void testOracleOnlyPatterns() {
+        Pattern pattern = TimeSeriesCatalogIndex.compile("keys[.]flow");
+        assertNotNull(pattern);
+        assertNull(TimeSeriesCatalogIndex.compile("[[:alpha:]]+\\.Flow"));
+        assertNull(TimeSeriesCatalogIndex.compile("[a-z&&[^k]]"));
+        assertNull(TimeSeriesCatalogIndex.compile("Keys("));
+        assertNull(TimeSeriesCatalogIndex.Query.of("ok", "[[:digit:]]", null, null, null, false));
+    }
+}
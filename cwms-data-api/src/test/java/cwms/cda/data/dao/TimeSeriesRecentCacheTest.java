@@ -0,0 +1,254 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import cwms.cda.api.enums.UnitSystem;
+import cwms.cda.data.dto.RecentValue;
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.data.dto.TsvDqu;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The caches behind findMostRecentsInRange and findRecentsInRange.  They are shared by every
+ * instance, so each test uses a time window of its own.
+ */
+final class TimeSeriesRecentCacheTest {
+
+    private static final AtomicLong WINDOWS = new AtomicLong(System.currentTimeMillis());
+
+    private static final String FLOW = "KEYS.Flow.Inst.1Hour.0.Ccp-Rev";
+    private static final String STAGE = "TULSA.Stage.Inst.15Minutes.0.Raw";
+
+    private final Timestamp past = new Timestamp(WINDOWS.incrementAndGet());
+    private final Timestamp future = new Timestamp(past.getTime() + 1000);
+
+    /** Answers every id with one value and records what was queried. */
+    private static final class CountingDao extends TimeSeriesDaoImpl {
+        private final List<List<String>> queried = new ArrayList<>();
+        private int groupQueries;
+        private TsvDqu dqu;
+
+        private CountingDao() {
+            super(null);
+        }
+
+        @Override
+        List<RecentValue> queryMostRecentsInRange(List<String> tsIds, Timestamp pastdate,
+                                                  Timestamp futuredate, UnitSystem unitSystem) {
+            queried.add(new ArrayList<>(tsIds));
+            return tsIds.stream().map(id -> new RecentValue(id, dqu)).collect(Collectors.toList());
+        }
+
+        @Override
+        List<RecentValue> queryRecentsInRange(String office, String categoryId, String groupId,
+                                              Timestamp pastLimit, Timestamp futureLimit,
+                                              UnitSystem unitSystem) {
+            groupQueries++;
+            return Arrays.asList(new RecentValue(FLOW, null), new RecentValue(STAGE, null));
+        }
+    }
+
+    private static List<String> ids(List<RecentValue> values) {
+        return values.stream().map(RecentValue::getId).collect(Collectors.toList());
+    }
+
+    /** A latest value of FLOW at SWT, in cfs, offset ms into the window. */
+    private TsvDqu flowAt(long offset) {
+        return new TsvDqu.Builder()
+                .withOfficeId("SWT")
+                .withCwmsTsId(FLOW)
+                .withUnitId("cfs")
+                .withDateTime(new Timestamp(past.getTime() + offset))
+                .withValue(100.0)
+                .withQualityCode(0L)
+                .withStartDate(new Timestamp(0))
+                .withEndDate(new Timestamp(Long.MAX_VALUE))
+                .build();
+    }
+
+    /** Values offset ms into the window, null for a missing value. */
+    private List<TimeSeries.Record> stored(long[] offsets, Double... values) {
+        TimeSeries ts = new TimeSeries(null, -1, 0, FLOW, "SWT", null, null, "cfs", Duration.ZERO);
+        for (int i = 0; i < offsets.length; i++) {
+            ts.addValue(new Timestamp(past.getTime() + offsets[i]), values[i], 0);
+        }
+        return ts.getValues();
+    }
+
+    private CountingDao daoWithCachedFlow() {
+        CountingDao dao = new CountingDao();
+        dao.dqu = flowAt(100);
+        dao.findMostRecentsInRange("SWT", Collections.singletonList(FLOW), past, future, UnitSystem.EN);
+        dao.queried.clear();
+        return dao;
+    }
+
+    private TsvDqu cachedFlow(CountingDao dao) {
+        return dao.findMostRecentsInRange("SWT", Collections.singletonList(FLOW), past, future,
+                UnitSystem.EN).get(0).getDqu();
+    }
+
+    @Test
+    void testHit() {
+        CountingDao dao = new CountingDao();
+        List<RecentValue> first = dao.findMostRecentsInRange("SWT", Arrays.asList(FLOW, STAGE),
+                past, future, UnitSystem.EN);
+        List<RecentValue> second = dao.findMostRecentsInRange("swt", Arrays.asList(STAGE, FLOW),
+                past, future, UnitSystem.EN);
+        assertEquals(Collections.singletonList(Arrays.asList(FLOW, STAGE)), dao.queried);
+        assertEquals(Arrays.asList(FLOW, STAGE), ids(first));
+        assertEquals(Arrays.asList(STAGE, FLOW), ids(second));
+    }
+
+    @Test
+    void testMissQueriesOnlyWhatIsMissing() {
+        CountingDao dao = new CountingDao();
+        dao.findMostRecentsInRange("SWT", Collections.singletonList(FLOW), past, future, UnitSystem.EN);
+        dao.findMostRecentsInRange("SWT", Arrays.asList(FLOW, STAGE), past, future, UnitSystem.EN);
+        dao.findMostRecentsInRange("LRL", Collections.singletonList(FLOW), past, future, UnitSystem.EN);
+        dao.findMostRecentsInRange("SWT", Collections.singletonList(FLOW), past, future, UnitSystem.SI);
+        assertEquals(Arrays.asList(Collections.singletonList(FLOW), Collections.singletonList(STAGE),
+                Collections.singletonList(FLOW), Collections.singletonList(FLOW)), dao.queried);
+    }
+
+    @Test
+    void testStoreDropsOnlyThatSeries() {
+        CountingDao dao = new CountingDao();
+        dao.findMostRecentsInRange("SWT", Arrays.asList(FLOW, STAGE), past, future, UnitSystem.EN);
+        dao.findMostRecentsInRange("LRL", Collections.singletonList(FLOW), past, future, UnitSystem.EN);
+        dao.queried.clear();
+
+        // the values of an id aren't limited to the requested office, so every entry goes
+        TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW);
+        dao.findMostRecentsInRange("SWT", Arrays.asList(FLOW, STAGE), past, future, UnitSystem.EN);
+        dao.findMostRecentsInRange("LRL", Collections.singletonList(FLOW), past, future, UnitSystem.EN);
+        assertEquals(Arrays.asList(Collections.singletonList(FLOW), Collections.singletonList(FLOW)),
+                dao.queried);
+    }
+
+    @Test
+    void testStorePutsItsLatestValueIn() {
+        CountingDao dao = daoWithCachedFlow();
+        Date before = new Date();
+        TimeSeriesDaoImpl.invalidateValueCaches("swt", FLOW, "cfs", null,
+                stored(new long[]{300, 200, 400}, 5.0, 6.0, null), StoreRule.REPLACE_ALL);
+
+        TsvDqu latest = cachedFlow(dao);
+        assertEquals(Collections.emptyList(), dao.queried);
+        assertEquals(past.getTime() + 300, latest.getDateTime().getTime());
+        assertEquals(5.0, latest.getValue());
+        assertEquals("cfs", latest.getUnitId());
+        assertEquals(0L, latest.getQualityCode());
+        assertFalse(latest.getDataEntryDate().before(before));
+    }
+
+    @Test
+    void testStoreBeforeTheWindowKeepsTheEntry() {
+        CountingDao dao = daoWithCachedFlow();
+        TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "cfs", null,
+                stored(new long[]{-10}, 5.0), StoreRule.REPLACE_ALL);
+        assertEquals(100.0, cachedFlow(dao).getValue());
+        assertEquals(Collections.emptyList(), dao.queried);
+    }
+
+    @Test
+    void testStoreThatMayNotBeTheLatestValueDropsTheEntry() {
+        List<TimeSeries.Record> later = stored(new long[]{300}, 5.0);
+        // may not have replaced anything
+        assertDropped(dao -> TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "cfs", null,
+                later, StoreRule.DO_NOT_REPLACE));
+        // can't convert units
+        assertDropped(dao -> TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "kcfs", null,
+                later, StoreRule.REPLACE_ALL));
+        // one entry per version date
+        assertDropped(dao -> TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "cfs",
+                new Timestamp(0), later, StoreRule.REPLACE_ALL));
+        // may have replaced the cached value with a missing one
+        assertDropped(dao -> TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "cfs", null,
+                stored(new long[]{50, 100}, 5.0, null), StoreRule.REPLACE_ALL));
+        // after the window
+        assertDropped(dao -> TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "cfs", null,
+                stored(new long[]{300, 2000}, 5.0, 6.0), StoreRule.REPLACE_ALL));
+        // only missing values
+        assertDropped(dao -> TimeSeriesDaoImpl.invalidateValueCaches("SWT", FLOW, "cfs", null,
+                stored(new long[]{300}, (double) -Float.MAX_VALUE), StoreRule.REPLACE_ALL));
+    }
+
+    private void assertDropped(Consumer<CountingDao> store) {
+        CountingDao dao = daoWithCachedFlow();
+        store.accept(dao);
+        cachedFlow(dao);
+        assertEquals(Collections.singletonList(Collections.singletonList(FLOW)), dao.queried);
+    }
+
+    @Test
+    void testStoreWithoutACachedValueOfItsOfficeDropsTheEntry() {
+        CountingDao dao = daoWithCachedFlow();
+        TimeSeriesDaoImpl.invalidateValueCaches("LRL", FLOW, "cfs", null,
+                stored(new long[]{300}, 5.0), StoreRule.REPLACE_ALL);
+        cachedFlow(dao);
+        assertEquals(Collections.singletonList(Collections.singletonList(FLOW)), dao.queried);
+    }
+
+    @Test
+    void testLatestStoredValue() {
+        assertEquals(past.getTime() + 200, TimeSeriesDaoImpl.latestStoredValue(
+                stored(new long[]{200, 100, 300}, 5.0, 6.0, (double) -Float.MAX_VALUE),
+                StoreRule.REPLACE_WITH_NON_MISSING).getDateTime().getTime());
+        assertNull(TimeSeriesDaoImpl.latestStoredValue(stored(new long[]{200}, 5.0),
+                StoreRule.REPLACE_MISSING_VALUES_ONLY));
+        assertNull(TimeSeriesDaoImpl.latestStoredValue(null, StoreRule.REPLACE_ALL));
+    }
+
+    @Test
+    void testLocationChangeDropsItsSeries() {
+        CountingDao dao = new CountingDao();
+        dao.findMostRecentsInRange("SWT", Arrays.asList(FLOW, STAGE), past, future, UnitSystem.EN);
+        dao.queried.clear();
+
+        TimeSeriesDaoImpl.invalidateLocationCaches("SWT", "Keys");
+        dao.findMostRecentsInRange("SWT", Arrays.asList(FLOW, STAGE), past, future, UnitSystem.EN);
+        assertEquals(Collections.singletonList(Collections.singletonList(FLOW)), dao.queried);
+    }
+
+    @Test
+    void testGroupHit() {
+        CountingDao dao = new CountingDao();
+        List<RecentValue> first = dao.findRecentsInRange("SWT", "Data Acquisition", "CCP Data",
+                past, future, UnitSystem.EN);
+        List<RecentValue> second = dao.findRecentsInRange("SWT", "Data Acquisition", "CCP Data",
+                past, future, UnitSystem.EN);
+        assertEquals(1, dao.groupQueries);
+        assertEquals(ids(first), ids(second));
+
+        dao.findRecentsInRange("SWT", "Data Acquisition", "Other", past, future, UnitSystem.EN);
+        assertEquals(2, dao.groupQueries);
+    }
+
+    @Test
+    void testGroupDroppedByStoreToMember() {
+        CountingDao dao = new CountingDao();
+        dao.findRecentsInRange("SWT", "Data Acquisition", "CCP Data", past, future, UnitSystem.EN);
+
+        TimeSeriesDaoImpl.invalidateValueCaches("SWT", "EUFA.Flow.Ave.1Day.1Day.Ccp-Rev");
+        TimeSeriesDaoImpl.invalidateValueCaches("LRL", STAGE);
+        dao.findRecentsInRange("SWT", "Data Acquisition", "CCP Data", past, future, UnitSystem.EN);
+        assertEquals(1, dao.groupQueries);
+
+        TimeSeriesDaoImpl.invalidateValueCaches("SWT", STAGE);
+        dao.findRecentsInRange("SWT", "Data Acquisition", "CCP Data", past, future, UnitSystem.EN);
+        assertEquals(2, dao.groupQueries);
+    }
+}
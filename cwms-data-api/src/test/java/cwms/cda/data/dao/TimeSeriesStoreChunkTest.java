@@ -0,0 +1,193 @@
+package cwms.cda.data.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import cwms.cda.data.dto.TimeSeries;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import usace.cwms.db.jooq.codegen.udt.records.ZTSV_ARRAY;
+import usace.cwms.db.jooq.codegen.udt.records.ZTSV_TYPE;
+
+final class TimeSeriesStoreChunkTest {
+
+    private static final String TS_ID = "KEYS.Flow.Inst.1Hour.0.Ccp-Rev";
+
+    private final Connection connection = mock(Connection.class);
+    private final DSLContext dsl = DSL.using(connection, SQLDialect.ORACLE18C);
+
+    /** Records the times of each chunk instead of calling the database. */
+    private static class ChunkRecordingDao extends TimeSeriesDaoImpl {
+        final List<List<Long>> chunks = new ArrayList<>();
+        final List<ZTSV_ARRAY> arrays = new ArrayList<>();
+
+        private ChunkRecordingDao() {
+            super(null);
+        }
+
+        @Override
+        void storeChunk(Configuration config, String officeId, String tsId, String units,
+                        Timestamp versionDate, ZTSV_ARRAY tsvArray, boolean createAsLrts,
+                        StoreRule storeRule, boolean overrideProtection) {
+            List<Long> times = new ArrayList<>();
+            for (ZTSV_TYPE tsv : tsvArray) {
+                times.add(tsv.getDATE_TIME().getTime());
+            }
+            chunks.add(times);
+            arrays.add(tsvArray);
+        }
+    }
+
+    private static List<TimeSeries.Record> values(int count) {
+        TimeSeries ts = new TimeSeries(null, -1, 0, TS_ID, "SWT", null, null, "cfs",
+                Duration.ZERO);
+        for (int i = 0; i < count; i++) {
+            ts.addValue(new Timestamp(i), (double) i, 0);
+        }
+        return ts.getValues();
+    }
+
+    private void store(ChunkRecordingDao dao, int chunkSize, List<TimeSeries.Record> values) {
+        dao.storeValues(dsl, chunkSize, "SWT", TS_ID, "cfs", null, values, false,
+                StoreRule.REPLACE_ALL, false);
+    }
+
+    @Test
+    void testChunkBoundaries() throws Exception {
+        ChunkRecordingDao dao = new ChunkRecordingDao();
+        store(dao, 3, values(7));
+        assertEquals(Arrays.asList(Arrays.asList(0L, 1L, 2L), Arrays.asList(3L, 4L, 5L),
+                Collections.singletonList(6L)), dao.chunks);
+        verify(connection).commit();
+    }
+
+    @Test
+    void testExactMultipleHasNoEmptyChunk() {
+        ChunkRecordingDao dao = new ChunkRecordingDao();
+        store(dao, 3, values(6));
+        assertEquals(Arrays.asList(Arrays.asList(0L, 1L, 2L), Arrays.asList(3L, 4L, 5L)),
+                dao.chunks);
+    }
+
+    @Test
+    void testSingleChunk() {
+        ChunkRecordingDao dao = new ChunkRecordingDao();
+        store(dao, Integer.MAX_VALUE, values(4));
+        assertEquals(Collections.singletonList(Arrays.asList(0L, 1L, 2L, 3L)), dao.chunks);
+    }
+
+    @Test
+    void testNoValuesIsOneEmptyCall() {
+        ChunkRecordingDao dao = new ChunkRecordingDao();
+        store(dao, 3, Collections.emptyList());
+        assertEquals(Collections.singletonList(Collections.emptyList()), dao.chunks);
+    }
+
+    @Test
+    void testMissingValueMarkerIsSentAsNull() {
+        TimeSeries ts = new TimeSeries(null, -1, 0, TS_ID, "SWT", null, null, "cfs",
+                Duration.ZERO);
+        ts.addValue(new Timestamp(0), (double) -Float.MAX_VALUE, 0);
+        ChunkRecordingDao dao = new ChunkRecordingDao();
+        store(dao, 3, ts.getValues());
+        assertNull(dao.arrays.get(0).get(0).getVALUE());
+    }
+
+    @Test
+    void testFailedChunkRollsBackEveryChunk() throws Exception {
+        IllegalStateException failure = new IllegalStateException("chunk failed");
+        ChunkRecordingDao dao = new ChunkRecordingDao() {
+            @Override
+            void storeChunk(Configuration config, String officeId, String tsId, String units,
+                            Timestamp versionDate, ZTSV_ARRAY tsvArray, boolean createAsLrts,
+                            StoreRule storeRule, boolean overrideProtection) {
+                super.storeChunk(config, officeId, tsId, units, versionDate, tsvArray,
+                        createAsLrts, storeRule, overrideProtection);
+                if (chunks.size() == 2) {
+                    throw failure;
+                }
+            }
+        };
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> store(dao, 3, values(7)));
+        assertSame(failure, thrown);
+        assertEquals(2, dao.chunks.size());
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    /** Hands out values max at a time, recording each call. */
+    private static IntFunction<List<TimeSeries.Record>> reads(List<TimeSeries.Record> values,
+                                                          List<String> events) {
+        int[] next = {0};
+        return max -> {
+            events.add("read");
+            int start = next[0];
+            next[0] = Math.min(start + max, values.size());
+            return values.subList(start, next[0]);
+        };
+    }
+
+    @Test
+    void testChunksAreReadAsTheyAreStored() {
+        List<String> events = new ArrayList<>();
+        ChunkRecordingDao dao = new ChunkRecordingDao() {
+            @Override
+            void storeChunk(Configuration config, String officeId, String tsId, String units,
+                            Timestamp versionDate, ZTSV_ARRAY tsvArray, boolean createAsLrts,
+                            StoreRule storeRule, boolean overrideProtection) {
+                events.add("store");
+                super.storeChunk(config, officeId, tsId, units, versionDate, tsvArray,
+                        createAsLrts, storeRule, overrideProtection);
+            }
+        };
+        dao.storeValues(dsl, 2, "SWT", TS_ID, "cfs", null, reads(values(5), events), false,
+                StoreRule.REPLACE_ALL, false);
+        assertEquals(Arrays.asList("read", "store", "read", "store", "read", "store", "read"),
+                events);
+        assertEquals(Arrays.asList(Arrays.asList(0L, 1L), Arrays.asList(2L, 3L),
+                Collections.singletonList(4L)), dao.chunks);
+    }
+
+    @Test
+    void testFailedReadRollsBackEveryChunk() throws Exception {
+        IllegalStateException failure = new IllegalStateException("read failed");
+        List<String> events = new ArrayList<>();
+        IntFunction<List<TimeSeries.Record>> reads = reads(values(5), events);
+        ChunkRecordingDao dao = new ChunkRecordingDao();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> dao.storeValues(dsl, 2, "SWT", TS_ID, "cfs", null, max -> {
+                    if (events.size() == 2) {
+                        throw failure;
+                    }
+                    return reads.apply(max);
+                }, false, StoreRule.REPLACE_ALL, false));
+        assertSame(failure, thrown);
+        assertEquals(2, dao.chunks.size());
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    void testDeleteInsertIsNeverChunked() {
+        assertEquals(Integer.MAX_VALUE, TimeSeriesDaoImpl.storeChunkSize(StoreRule.DELETE_INSERT));
+    }
+}
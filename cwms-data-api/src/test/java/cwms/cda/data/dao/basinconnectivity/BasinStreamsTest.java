@@ -0,0 +1,70 @@
+package cwms.cda.data.dao.basinconnectivity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import cwms.cda.data.dto.basinconnectivity.Stream;
+import cwms.cda.data.dto.basinconnectivity.StreamLocation;
+import cwms.cda.data.dto.basinconnectivity.StreamReach;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BasinStreamsTest {
+
+    private static final String OFFICE = "SWT";
+
+    private static Stream stream(String name, String receivingStreamId, Double confluenceStation) {
+        return new Stream.Builder(name, true, 100.0, OFFICE)
+                .withReceivingStreamId(receivingStreamId)
+                .withConfluenceStation(confluenceStation)
+                .withConfluenceBank(null)
+                .build();
+    }
+
+    private static BasinStreams basinStreams() {
+        return new BasinStreams(
+                Arrays.asList(stream("Main", null, null),
+                        stream("Trib", "Main", 10.0),
+                        stream("SubTrib", "Trib", 5.0),
+                        stream("Other", null, null)),
+                Arrays.asList(new StreamLocation.Builder("Main-Loc1", "Main", 1.0, "L", OFFICE).build(),
+                        new StreamLocation.Builder("Main-Loc2", "MAIN", 20.0, "R", OFFICE).build(),
+                        new StreamLocation.Builder("Trib-Loc", "Trib", 2.0, "L", OFFICE).build()),
+                Collections.singletonList(
+                        new StreamReach.Builder("Main-Reach", "Main", "Main-Loc2", "Main-Loc1", OFFICE).build()));
+    }
+
+    @Test
+    void testAssembleTree() {
+        Stream main = basinStreams().getStream("Main");
+
+        assertEquals(2, main.getStreamLocations().size());
+        assertEquals(1, main.getStreamReaches().size());
+        assertEquals(1, main.getTributaries().size());
+        Stream trib = main.getTributaries().get(0);
+        assertEquals("Trib", trib.getStreamName());
+        assertEquals(1, trib.getStreamLocations().size());
+        assertEquals(0, trib.getStreamReaches().size());
+        assertEquals("SubTrib", trib.getTributaries().get(0).getStreamName());
+    }
+
+    @Test
+    void testSharedSubtree() {
+        BasinStreams basinStreams = basinStreams();
+        Stream main = basinStreams.getStream("main");
+        assertSame(main.getTributaries().get(0), basinStreams.getStream("TRIB"));
+    }
+
+    @Test
+    void testUnknownAndCircularStreams() {
+        BasinStreams basinStreams = new BasinStreams(
+                Arrays.asList(stream("A", "B", 1.0), stream("B", "A", 1.0)),
+                Collections.emptyList(), Collections.emptyList());
+        assertNull(basinStreams.getStream("Nowhere"));
+        Stream a = basinStreams.getStream("A");
+        assertEquals("B", a.getTributaries().get(0).getStreamName());
+        assertEquals(0, a.getTributaries().get(0).getTributaries().size());
+    }
+}
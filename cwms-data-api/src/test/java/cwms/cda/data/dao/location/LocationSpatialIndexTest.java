@@ -0,0 +1,117 @@
+package cwms.cda.data.dao.location;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LocationSpatialIndexTest {
+
+    private static final List<LocationSpatialIndex.Entry> LOCATIONS = Arrays.asList(
+            new LocationSpatialIndex.Entry(1, "SPK", "Folsom", 38.7, -121.16),
+            new LocationSpatialIndex.Entry(2, "SPK", "Black Butte", 39.81, -122.33),
+            new LocationSpatialIndex.Entry(3, "SWT", "Keystone", 36.15, -96.25),
+            new LocationSpatialIndex.Entry(4, "POA", "Attu", 52.9, 172.9),
+            new LocationSpatialIndex.Entry(5, "POA", "Adak", 51.88, -176.64)
+    );
+
+    private static Set<String> ids(List<LocationSpatialIndex.Entry> entries) {
+        return entries.stream().map(LocationSpatialIndex.Entry::getLocationId).collect(toSet());
+    }
+
+    @Test
+    void testBoxQuery() {
+        LocationSpatialIndex index = new LocationSpatialIndex(LOCATIONS);
+        BoundingBox box = BoundingBox.parse("-123,38,-120,40", null);
+        assertEquals(new HashSet<>(Arrays.asList("Folsom", "Black Butte")), ids(index.query(box)));
+    }
+
+    @Test
+    void testWholeWorld() {
+        LocationSpatialIndex index = new LocationSpatialIndex(LOCATIONS);
+        assertEquals(LOCATIONS.size(), index.query(BoundingBox.parse("-180,-90,180,90", null)).size());
+    }
+
+    @Test
+    void testAntimeridian() {
+        LocationSpatialIndex index = new LocationSpatialIndex(LOCATIONS);
+        BoundingBox box = BoundingBox.parse("170,50,-170,55", null);
+        assertTrue(box.crossesAntimeridian());
+        assertEquals(new HashSet<>(Arrays.asList("Attu", "Adak")), ids(index.query(box)));
+    }
+
+    @Test
+    void testRadius() {
+        LocationSpatialIndex index = new LocationSpatialIndex(LOCATIONS);
+        // Folsom to Black Butte is roughly 160km.
+        assertEquals(new HashSet<>(Arrays.asList("Folsom")),
+                ids(index.query(BoundingBox.parse("-121.16,38.7", 50.0))));
+        assertEquals(new HashSet<>(Arrays.asList("Folsom", "Black Butte")),
+                ids(index.query(BoundingBox.parse("-121.16,38.7", 200.0))));
+    }
+
+    @Test
+    void testRadiusNearPole() {
+        // The box is clamped at the pole, so its middle is south of the center.
+        BoundingBox circle = BoundingBox.around(0, 89, 300.0);
+        assertEquals(0, circle.getCenterLon());
+        assertEquals(89, circle.getCenterLat());
+        // 2.5 degrees away across the pole
+        assertTrue(circle.contains(180, 88.5));
+        // inside the box but more than 300km away
+        assertTrue(86.5 > circle.getMinLat());
+        assertFalse(circle.contains(90, 86.5));
+    }
+
+    @Test
+    void testRadiusCoveringEveryLongitude() {
+        BoundingBox circle = BoundingBox.around(170, 80, 2000.0);
+        assertEquals(-180, circle.getMinLon());
+        assertEquals(180, circle.getMaxLon());
+        assertEquals(170, circle.getCenterLon());
+        // 17.5 degrees due south of the center
+        assertTrue(circle.contains(170, 62.5));
+        assertFalse(circle.contains(-10, 70));
+    }
+
+    @Test
+    void testMatchesLinearScan() {
+        List<LocationSpatialIndex.Entry> grid = new ArrayList<>();
+        long code = 0;
+        for (double lat = -89.5; lat < 90; lat += 3.7) {
+            for (double lon = -179.5; lon < 180; lon += 4.3) {
+                grid.add(new LocationSpatialIndex.Entry(code++, "SWT", "L" + code, lat, lon));
+            }
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(grid, 1.0);
+        BoundingBox box = new BoundingBox(-100.2, 30.1, -80.7, 45.9, null);
+        Set<String> expected = grid.stream()
+                .filter(e -> box.contains(e.getLongitude(), e.getLatitude()))
+                .map(LocationSpatialIndex.Entry::getLocationId)
+                .collect(toSet());
+        assertTrue(expected.size() > 0);
+        assertEquals(expected, ids(index.query(box)));
+    }
+
+    @Test
+    void testParse() {
+        assertNull(BoundingBox.parse(null, null));
+        assertNull(BoundingBox.parse(" ", null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("1,2,3", null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("-121,38", null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("a,1,2,3", null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("-190,1,2,3", null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("1,40,2,30", null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("1,2,3,4", -1.0));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse(null, 10.0));
+    }
+}
@@ -2,6 +2,13 @@ package cwms.cda.data.dao.texttimeseries;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import cwms.cda.data.dto.texttimeseries.RegularTextTimeSeriesRow;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 class RegularTimeSeriesTextDaoTest {
@@ -63,4 +70,44 @@ class RegularTimeSeriesTextDaoTest {
         assertEquals("file_name_with_._period.txt", RegularTimeSeriesTextDao.sanitizeFilename("file_name_with_._period"));
         assertEquals("file_name_with_-_hyphen.txt", RegularTimeSeriesTextDao.sanitizeFilename("file_name_with_-_hyphen"));
     }
-}
\ No newline at end of file
+
+    private static RegularTextTimeSeriesRow row(long epochHour, String text) {
+        return new RegularTextTimeSeriesRow.Builder()
+                .withDateTime(Instant.ofEpochSecond(epochHour * 3600))
+                .withTextValue(text)
+                .build();
+    }
+
+    private static List<Timestamp> dates(long... epochHours) {
+        List<Timestamp> retVal = new ArrayList<>();
+        for (long epochHour : epochHours) {
+            retVal.add(Timestamp.from(Instant.ofEpochSecond(epochHour * 3600)));
+        }
+        return retVal;
+    }
+
+    @Test
+    void groupByText() {
+        List<RegularTextTimeSeriesRow> rows = Arrays.asList(row(1, "gate open"), row(2, "gate closed"),
+                row(3, "gate open"), row(4, null), row(5, "gate open"));
+        Map<String, List<Timestamp>> grouped = RegularTimeSeriesTextDao.groupByText(rows, false);
+
+        assertEquals(Arrays.asList("gate open", "gate closed", null), new ArrayList<>(grouped.keySet()));
+        assertEquals(dates(1, 3, 5), grouped.get("gate open"));
+        assertEquals(dates(2), grouped.get("gate closed"));
+        assertEquals(dates(4), grouped.get(null));
+    }
+
+    @Test
+    void groupByTextReplaceKeepsLastRowPerDate() {
+        List<RegularTextTimeSeriesRow> rows = Arrays.asList(row(1, "a"), row(2, "b"), row(1, "b"));
+
+        Map<String, List<Timestamp>> replaced = RegularTimeSeriesTextDao.groupByText(rows, true);
+        assertEquals(1, replaced.size());
+        assertEquals(dates(1, 2), replaced.get("b"));
+
+        Map<String, List<Timestamp>> added = RegularTimeSeriesTextDao.groupByText(rows, false);
+        assertEquals(dates(1), added.get("a"));
+        assertEquals(dates(2, 1), added.get("b"));
+    }
+}
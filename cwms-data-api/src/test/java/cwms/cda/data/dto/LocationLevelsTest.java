@@ -0,0 +1,28 @@
+package cwms.cda.data.dto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class LocationLevelsTest {
+
+    @Test
+    void testKeysetNextPage() {
+        String key = String.join(CwmsDTOPaginated.delimiter, "SPK", "BLACK BUTTE.ELEV.INST.0.BOTTOM OF FLOOD",
+                "1546300800000");
+        LocationLevels levels = new LocationLevels.Builder("*", 10, 25)
+                .withNextPageKey(key)
+                .build();
+
+        assertNull(levels.getPage());
+        assertArrayEquals(new String[]{"SPK", "BLACK BUTTE.ELEV.INST.0.BOTTOM OF FLOOD", "1546300800000",
+                "25", "10"}, CwmsDTOPaginated.decodeCursor(levels.getNextPage()));
+    }
+
+    @Test
+    void testKeysetLastPage() {
+        LocationLevels levels = new LocationLevels.Builder("*", 10, 3).build();
+        assertNull(levels.getNextPage());
+    }
+}
@@ -0,0 +1,56 @@
+package cwms.cda.data.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import cwms.cda.api.errors.FieldException;
+import cwms.cda.formatters.ContentType;
+import cwms.cda.formatters.Formats;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class TimeSeriesBulkRequestTest {
+
+    @Test
+    void testParse() {
+        String body = "{\"office-id\":\"SWT\","
+                + "\"names\":[\"A.Flow.Inst.1Hour.0.raw\",\"B.Stage.Inst.1Hour.0.raw\"],"
+                + "\"begin\":\"2024-01-01T00:00:00Z\",\"end\":\"2024-01-02T00:00:00Z\","
+                + "\"units\":\"SI\"}";
+
+        TimeSeriesBulkRequest request = Formats.parseContent(new ContentType(Formats.JSONV2), body,
+                TimeSeriesBulkRequest.class);
+
+        assertEquals("SWT", request.getOfficeId());
+        assertEquals(Arrays.asList("A.Flow.Inst.1Hour.0.raw", "B.Stage.Inst.1Hour.0.raw"),
+                request.getNames());
+        assertEquals(ZonedDateTime.parse("2024-01-01T00:00:00Z").toInstant(),
+                request.getBegin().toInstant());
+        assertEquals("SI", request.getUnits());
+        assertNull(request.getTrim());
+    }
+
+    @Test
+    void testRequiresNames() {
+        TimeSeriesBulkRequest request = new TimeSeriesBulkRequest.Builder()
+                .withOfficeId("SWT")
+                .withNames(Collections.emptyList())
+                .withBegin(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .withEnd(ZonedDateTime.parse("2024-01-02T00:00:00Z"))
+                .build();
+        assertThrows(FieldException.class, request::validate);
+    }
+
+    @Test
+    void testRequiresWindow() {
+        TimeSeriesBulkRequest request = new TimeSeriesBulkRequest.Builder()
+                .withOfficeId("SWT")
+                .withNames(Collections.singletonList("A.Flow.Inst.1Hour.0.raw"))
+                .withBegin(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .build();
+        assertThrows(FieldException.class, request::validate);
+    }
+}
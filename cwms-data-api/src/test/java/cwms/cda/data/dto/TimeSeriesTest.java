@@ -1,6 +1,7 @@
 package cwms.cda.data.dto;
 
 import cwms.cda.formatters.json.JsonV2;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -76,6 +77,45 @@ public class TimeSeriesTest
 	}
 
 
+	@Test
+	void testRoundtripJsonValues() throws JsonProcessingException
+	{
+		TimeSeries ts = buildTimeSeries();
+		long start = ts.getBegin().toInstant().toEpochMilli();
+		// enough values to grow the columns past their first chunk
+		for (int i = 0; i < 3000; i++)
+		{
+			Double value = i % 7 == 0 ? null : i * 0.5;
+			assertTrue(ts.addValue(new Timestamp(start + i * 300_000L), value, i % 7 == 0 ? 5 : 0));
+		}
+		assertEquals(3000, ts.getValues().size());
+		assertNull(ts.getValues().get(0).getValue());
+		assertEquals(0.5, ts.getValues().get(1).getValue());
+
+		ObjectMapper om = buildObjectMapper();
+		String tsBody = om.writeValueAsString(ts);
+		assertTrue(tsBody.contains("[" + start + ",null,5]"));
+
+		TimeSeries ts2 = om.readValue(tsBody, TimeSeries.class);
+		assertEquals(ts.getValues(), ts2.getValues());
+	}
+
+	@Test
+	void testAddValueStopsAtPageSize()
+	{
+		ZonedDateTime start = ZonedDateTime.parse("2021-06-21T14:00:00-07:00[PST8PDT]");
+		TimeSeries ts = new TimeSeries(null, 2, 0, "RYAN3.Stage.Inst.5Minutes.0.ZSTORE_TS_TEST", "LRL",
+				start, start.plusHours(1), null, Duration.ZERO);
+		long millis = start.toInstant().toEpochMilli();
+
+		assertTrue(ts.addValue(millis, 1.0, 0));
+		assertTrue(ts.addValue(millis + 1, 2.0, 0));
+		assertFalse(ts.addValue(millis + 2, 3.0, 0));
+		assertEquals(2, ts.getValues().size());
+		assertNotNull(ts.getPage());
+		assertEquals(Long.toString(millis + 2), CwmsDTOPaginated.decodeCursor(ts.getNextPage())[0]);
+	}
+
 	@NotNull
 	private TimeSeries buildTimeSeries()
 	{
@@ -0,0 +1,105 @@
+package cwms.cda.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+class RequestConnectionProviderTest {
+
+    @Test
+    void testOneCheckoutPerRequest() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection conn = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+
+        RequestConnectionProvider provider = new RequestConnectionProvider(dataSource);
+        Connection first = provider.acquire();
+        Connection nested = provider.acquire();
+        provider.release(nested);
+        provider.release(first);
+        Connection later = provider.acquire();
+        provider.release(later);
+
+        assertSame(conn, first);
+        assertSame(conn, nested);
+        assertSame(conn, later);
+        verify(dataSource, times(1)).getConnection();
+        verify(conn, never()).close();
+
+        provider.close();
+        verify(conn, times(1)).close();
+    }
+
+    @Test
+    void testOtherThreadGetsOwnConnection() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection pinned = mock(Connection.class);
+        Connection other = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(pinned, other);
+
+        RequestConnectionProvider provider = new RequestConnectionProvider(dataSource);
+        Connection held = provider.acquire();
+        Connection fromOtherThread = CompletableFuture.supplyAsync(provider::acquire).join();
+        assertSame(pinned, held);
+        assertSame(other, fromOtherThread);
+
+        provider.release(fromOtherThread);
+        verify(other, times(1)).close();
+        provider.release(held);
+        provider.close();
+        verify(pinned, times(1)).close();
+    }
+
+    @Test
+    void testAcquireAfterClose() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection pinned = mock(Connection.class);
+        Connection after = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(pinned, after);
+
+        RequestConnectionProvider provider = new RequestConnectionProvider(dataSource);
+        provider.release(provider.acquire());
+        provider.close();
+
+        Connection conn = provider.acquire();
+        assertNotSame(pinned, conn);
+        provider.release(conn);
+        verify(after, times(1)).close();
+    }
+
+    @Test
+    void testCloseWhileInUseWaitsForRelease() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection pinned = mock(Connection.class);
+        Connection after = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(pinned, after);
+
+        RequestConnectionProvider provider = new RequestConnectionProvider(dataSource);
+        Connection outer = provider.acquire();
+        Connection inner = provider.acquire();
+        provider.close();
+        verify(pinned, never()).close();
+
+        Connection afterClose = provider.acquire();
+        assertSame(after, afterClose);
+        provider.release(afterClose);
+        verify(after, times(1)).close();
+
+        provider.release(inner);
+        verify(pinned, never()).close();
+        provider.release(outer);
+        verify(pinned, times(1)).close();
+
+        provider.close();
+        verify(pinned, times(1)).close();
+    }
+}
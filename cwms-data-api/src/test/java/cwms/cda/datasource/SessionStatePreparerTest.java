@@ -0,0 +1,109 @@
+package cwms.cda.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class SessionStatePreparerTest {
+
+    private static Connection mockConnection() throws Exception {
+        Connection conn = mock(Connection.class);
+        when(conn.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        return conn;
+    }
+
+    @Test
+    void testAllStateInOneBlock() throws Exception {
+        Connection conn = mockConnection();
+        new SessionStatePreparer(SessionStatePreparer.UTC, "user", "SWT").prepare(conn);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(conn, times(1)).prepareStatement(sql.capture());
+        assertEquals("begin execute immediate 'ALTER SESSION SET TIME_ZONE = ''UTC'''; "
+                + "cwms_env.set_session_user_direct(upper(?)); "
+                + "cwms_env.set_session_office_id(?); end;", sql.getValue());
+    }
+
+    @Test
+    void testSameStateIsSkipped() throws Exception {
+        Connection conn = mockConnection();
+        SessionStatePreparer preparer = new SessionStatePreparer(SessionStatePreparer.UTC, "user", "SWT");
+        preparer.prepare(conn);
+        preparer.prepare(conn);
+        new SessionStatePreparer(null, "USER", "swt").prepare(conn);
+
+        verify(conn, times(1)).prepareStatement(anyString());
+    }
+
+    @Test
+    void testOnlyChangesAreApplied() throws Exception {
+        Connection conn = mockConnection();
+        new SessionStatePreparer(SessionStatePreparer.UTC, "user", "SWT").prepare(conn);
+        new SessionStatePreparer(SessionStatePreparer.UTC, "user", "LRL").prepare(conn);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(conn, times(2)).prepareStatement(sql.capture());
+        assertEquals("begin cwms_env.set_session_office_id(?); end;", sql.getValue());
+    }
+
+    @Test
+    void testNewUserResetsOffice() throws Exception {
+        Connection conn = mockConnection();
+        new SessionStatePreparer(null, "user", "SWT").prepare(conn);
+        new SessionStatePreparer(null, "other", "SWT").prepare(conn);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(conn, times(2)).prepareStatement(sql.capture());
+        assertEquals("begin cwms_env.set_session_user_direct(upper(?)); "
+                + "cwms_env.set_session_office_id(?); end;", sql.getValue());
+    }
+
+    @Test
+    void testNewUserWithoutOfficeClearsOffice() throws Exception {
+        Connection conn = mockConnection();
+        new SessionStatePreparer(null, "user", "SWT").prepare(conn);
+        // As AuthDao does: set only the user, which resets the session office...
+        new SessionStatePreparer(null, "other", null).prepare(conn);
+        // ...so asking for the same office again must set it.
+        new SessionStatePreparer(null, null, "SWT").prepare(conn);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(conn, times(3)).prepareStatement(sql.capture());
+        assertEquals("begin cwms_env.set_session_office_id(?); end;", sql.getValue());
+    }
+
+    @Test
+    void testForgottenStateIsApplied() throws Exception {
+        Connection conn = mockConnection();
+        SessionStatePreparer preparer = new SessionStatePreparer(null, "user", null);
+        preparer.prepare(conn);
+        SessionStatePreparer.forget(conn);
+        preparer.prepare(conn);
+
+        verify(conn, times(2)).prepareStatement(anyString());
+    }
+
+    @Test
+    void testNothingToApply() throws Exception {
+        Connection conn = mockConnection();
+        new SessionStatePreparer(null, null, "").prepare(conn);
+
+        verify(conn, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testInvalidTimeZone() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SessionStatePreparer("UTC'; drop table x; --", null, null));
+    }
+}
@@ -49,6 +49,21 @@ class FormatsTest {
         assertEquals("2", parameters.get("version"));
     }
 
+    @Test
+    void testParseHeaderRepeated() {
+        ContentType first = Formats.parseHeader(FIREFOX_HEADER, Catalog.class);
+        ContentType second = Formats.parseHeader(FIREFOX_HEADER, Catalog.class);
+        assertSame(first, second);
+        assertEquals(Formats.DEFAULT, second.toString());
+
+        ContentType json = Formats.parseHeader(Formats.JSON, LocationLevels.class);
+        assertEquals(Formats.JSONV2, json.toString());
+        assertEquals(Formats.JSONV2, Formats.parseHeader(Formats.JSON, LocationLevels.class).toString());
+
+        assertThrows(FormattingException.class, () -> Formats.parseHeader("text/html", LocationLevels.class));
+        assertThrows(FormattingException.class, () -> Formats.parseHeader("text/html", LocationLevels.class));
+    }
+
     @Test
     void testParseNullNull() {
         assertThrows(FormattingException.class, () -> Formats.parseHeaderAndQueryParm(null, null, Catalog.class));
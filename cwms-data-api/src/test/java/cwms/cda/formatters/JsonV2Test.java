@@ -3,6 +3,7 @@ package cwms.cda.formatters;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import org.junit.jupiter.api.Test;
 
@@ -23,6 +24,12 @@ class JsonV2Test extends TimeSeriesTestBase {
         super.singleTimeseriesFormat();
     }
 
+    @Test
+    @Override
+    public void streamedTimeseriesFormat() throws IOException {
+        super.streamedTimeseriesFormat();
+    }
+
     @Test
     void canSerializeLocationLevel(){
         String crazyName = "crazyName" + System.nanoTime();
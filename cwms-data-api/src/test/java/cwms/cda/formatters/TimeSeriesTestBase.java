@@ -1,8 +1,12 @@
 package cwms.cda.formatters;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.ZonedDateTime;
@@ -27,4 +31,24 @@ public abstract class TimeSeriesTestBase {
 		assertTrue(result.contains("values"));
     }
 
+    public void streamedTimeseriesFormat() throws IOException {
+        TimeSeries ts = getTimeSeries();
+        OutputFormatter v2 = getOutputFormatter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TimeSeriesWriter writer = v2.timeSeriesWriter(out)) {
+            writer.writeHeader(ts);
+            for (TimeSeries.Record rec : ts.getValues()) {
+                writer.writeValue(rec.getDateTime(), rec.getValue(), rec.getQualityCode());
+            }
+            writer.writeTrailer(ts);
+        }
+        String result = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(result.contains("Test.Test.Elev.0.0.RAW"));
+
+        TimeSeries parsed = v2.parseContent(result, TimeSeries.class);
+        assertEquals(ts.getName(), parsed.getName());
+        assertEquals(ts.getPage(), parsed.getPage());
+        assertEquals(ts.getValues(), parsed.getValues());
+    }
+
 }
@@ -0,0 +1,103 @@
+package cwms.cda.formatters.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cwms.cda.data.dto.TimeSeries;
+import cwms.cda.formatters.FormattingException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class TimeSeriesJsonReaderTest {
+
+    private static final String HEADER = "\"name\":\"KEYS.Flow.Inst.1Hour.0.Ccp-Rev\","
+            + "\"office-id\":\"SWT\",\"units\":\"cfs\"";
+
+    private static TimeSeriesJsonReader reader(String json) throws IOException {
+        return new TimeSeriesJsonReader(JsonV2.buildObjectMapper(),
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<Integer> chunkSizes(TimeSeriesJsonReader reader, int max) {
+        List<Integer> sizes = new ArrayList<>();
+        List<TimeSeries.Record> chunk;
+        do {
+            chunk = reader.readValues(max);
+            sizes.add(chunk.size());
+        } while (!chunk.isEmpty());
+        return sizes;
+    }
+
+    @Test
+    void testReadsValuesInChunks() throws IOException {
+        try (TimeSeriesJsonReader reader = reader("{" + HEADER
+                + ",\"date-version-type\":\"UNVERSIONED\",\"values\":[[0,1.0,0],[1,2.0,0],"
+                + "[2,3.0,0],[3,4.0,0],[4,5.0,0]],\"vertical-datum-info\":null}")) {
+            TimeSeries header = reader.readHeader();
+            assertEquals("KEYS.Flow.Inst.1Hour.0.Ccp-Rev", header.getName());
+            assertEquals("SWT", header.getOfficeId());
+            assertEquals("cfs", header.getUnits());
+            assertEquals(Arrays.asList(2, 2, 1, 0), chunkSizes(reader, 2));
+        }
+    }
+
+    @Test
+    void testStreamedValuesAreReadOnlyWhenAskedFor() throws IOException {
+        // the body breaks off in the third value, which the first chunk never reaches
+        try (TimeSeriesJsonReader reader = reader("{" + HEADER
+                + ",\"version-date\":null,\"values\":[[0,1.0,0],[1,2.0,0],[2,")) {
+            reader.readHeader();
+            assertEquals(1, reader.readValues(1).size());
+            assertThrows(FormattingException.class, () -> reader.readValues(10));
+        }
+    }
+
+    @Test
+    void testStoreFieldAfterStreamedValuesFails() throws IOException {
+        try (TimeSeriesJsonReader reader = reader("{" + HEADER
+                + ",\"date-version-type\":\"UNVERSIONED\",\"values\":[[0,1.0,0]],"
+                + "\"version-date\":\"2021-06-21T08:00:00-07:00[PST8PDT]\"}")) {
+            reader.readHeader();
+            assertThrows(FormattingException.class, () -> reader.readValues(10));
+        }
+    }
+
+    @Test
+    void testValuesBeforeTheVersionDateAreHeld() throws IOException {
+        try (TimeSeriesJsonReader reader = reader("{" + HEADER
+                + ",\"values\":[[0,1.0,0],[1,2.0,0],[2,3.0,0]],"
+                + "\"version-date\":\"2021-06-21T08:00:00-07:00[PST8PDT]\"}")) {
+            TimeSeries header = reader.readHeader();
+            assertNotNull(header.getVersionDate());
+            assertEquals(Arrays.asList(2, 1, 0), chunkSizes(reader, 2));
+        }
+    }
+
+    @Test
+    void testValuesMatchTheParsedTimeSeries() throws IOException {
+        String json = "{" + HEADER + ",\"date-version-type\":\"UNVERSIONED\",\"values\":"
+                + "[[0,null,5],[1,-340282346638528859811704183484516925440,0],"
+                + "[3,4.5,3]]}";
+        TimeSeries parsed = new JsonV2().parseContent(json, TimeSeries.class);
+        try (TimeSeriesJsonReader reader = reader(json)) {
+            reader.readHeader();
+            assertEquals(parsed.getValues(), reader.readValues(10));
+            assertTrue(reader.readValues(10).isEmpty());
+        }
+    }
+
+    @Test
+    void testMissingValues() throws IOException {
+        try (TimeSeriesJsonReader reader = reader("{" + HEADER + ",\"values\":null}")) {
+            reader.readHeader();
+            assertTrue(reader.readValues(10).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package cwms.cda.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpenIDUrlResolverTest {
+    private HttpServer server;
+    private URL jwksUrl;
+    private final Map<String, RSAPublicKey> served = new ConcurrentHashMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile int status = 200;
+    /** When set, a fetch counts down fetchStarted and waits for fetchRelease before answering. */
+    private volatile CountDownLatch fetchStarted;
+    private volatile CountDownLatch fetchRelease;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            fetches.incrementAndGet();
+            CountDownLatch release = fetchRelease;
+            if (release != null) {
+                fetchStarted.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = jwks().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        jwksUrl = new URL("http://localhost:" + server.getAddress().getPort() + "/jwks");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private String jwks() {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        List<String> keys = new ArrayList<>();
+        served.forEach((kid, key) -> keys.add("{\"kid\":\"" + kid + "\",\"kty\":\"RSA\",\"n\":\""
+                + b64.encodeToString(key.getModulus().toByteArray()) + "\",\"e\":\""
+                + b64.encodeToString(key.getPublicExponent().toByteArray()) + "\"}"));
+        return "{\"keys\":[" + String.join(",", keys) + "]}";
+    }
+
+    private static RSAPublicKey newKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return (RSAPublicKey) generator.generateKeyPair().getPublic();
+    }
+
+    @Test
+    void testKnownKeyIsResolved() throws Exception {
+        RSAPublicKey key = newKey();
+        served.put("k1", key);
+        try (OpenIDAccessManager.UrlResolver resolver =
+                     new OpenIDAccessManager.UrlResolver(jwksUrl, 60, 3_600_000L)) {
+            RSAPublicKey resolved = (RSAPublicKey) resolver.getKey("k1");
+            assertNotNull(resolved);
+            assertEquals(key.getModulus(), resolved.getModulus());
+            assertEquals(key.getPublicExponent(), resolved.getPublicExponent());
+        }
+    }
+
+    @Test
+    void testRotatedKeyIsFetchedOnDemand() throws Exception {
+        served.put("k1", newKey());
+        try (OpenIDAccessManager.UrlResolver resolver =
+                     new OpenIDAccessManager.UrlResolver(jwksUrl, 60, 0L)) {
+            assertNotNull(resolver.getKey("k1"));
+            served.put("k2", newKey());
+            assertNotNull(resolver.getKey("k2"));
+        }
+    }
+
+    /**
+     * Ask for an unknown key from many threads at once.
+     * @return the threads that asked
+     */
+    private static List<Future<Key>> getKeyConcurrently(OpenIDAccessManager.UrlResolver resolver,
+                                                        ExecutorService executor, int threads) {
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Future<Key>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                barrier.await(10, TimeUnit.SECONDS);
+                return resolver.getKey("missing");
+            }));
+        }
+        return results;
+    }
+
+    @Test
+    void testUnknownKeysShareOneFetch() throws Exception {
+        served.put("k1", newKey());
+        int threads = 16;
+        List<Thread> pool = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r);
+            pool.add(t);
+            return t;
+        });
+        try (OpenIDAccessManager.UrlResolver resolver =
+                     new OpenIDAccessManager.UrlResolver(jwksUrl, 60, 0L)) {
+            assertNotNull(resolver.getKey("k1"));
+            int before = fetches.get();
+
+            fetchStarted = new CountDownLatch(1);
+            fetchRelease = new CountDownLatch(1);
+            List<Future<Key>> results = getKeyConcurrently(resolver, executor, threads);
+            assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+            // Hold the fetch until every other thread is waiting for it.
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (pool.stream().filter(t -> t.getState() == Thread.State.BLOCKED).count() < threads - 1) {
+                assertTrue(System.currentTimeMillis() < deadline, "threads never queued for the fetch");
+                Thread.sleep(10);
+            }
+            fetchRelease.countDown();
+
+            for (Future<Key> result : results) {
+                assertNull(result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(before + 1, fetches.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnknownKeyFetchesAreLimited() throws Exception {
+        served.put("k1", newKey());
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (OpenIDAccessManager.UrlResolver resolver =
+                     new OpenIDAccessManager.UrlResolver(jwksUrl, 60, 3_600_000L)) {
+            assertNotNull(resolver.getKey("k1"));
+            int before = fetches.get();
+
+            for (Future<Key> result : getKeyConcurrently(resolver, executor, threads)) {
+                assertNull(result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(before, fetches.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedRefreshKeepsPreviousKeys() throws Exception {
+        served.put("k1", newKey());
+        try (OpenIDAccessManager.UrlResolver resolver =
+                     new OpenIDAccessManager.UrlResolver(jwksUrl, 60, 3_600_000L)) {
+            assertNotNull(resolver.getKey("k1"));
+            status = 500;
+            resolver.refresh();
+            assertNotNull(resolver.getKey("k1"));
+        }
+    }
+}